@@ -25,6 +25,7 @@
 package com.heliosapm.watchtower;
 
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.Map;
 
 import javax.management.MalformedObjectNameException;
@@ -55,9 +56,12 @@ import org.springframework.web.bind.annotation.RestController;
 import com.heliosapm.watchtower.core.CollectionExecutor;
 import com.heliosapm.watchtower.core.CollectionScheduler;
 import com.heliosapm.watchtower.core.EventExecutor;
+import com.heliosapm.watchtower.core.ScheduleLatency;
 import com.heliosapm.watchtower.deployer.BeanDefinitionResource;
 import com.heliosapm.watchtower.deployer.DeploymentWatchService;
 import com.heliosapm.watchtower.jmx.server.JMXMPServer;
+import com.heliosapm.watchtower.metrics.MetricPipeline;
+import com.heliosapm.watchtower.metrics.sink.MetricSinks;
 
 /**
  * <p>Title: WatchtowerCore</p>
@@ -111,6 +115,10 @@ public class WatchtowerCore implements ApplicationContextAware, SelfNaming, Appl
 	protected final JMXManagedThreadPool notificationThreadPool = EventExecutor.getEventExecutor();
 	/** Scheduler for collection scheduling */
 	protected final JMXManagedScheduler collectionScheduler = CollectionScheduler.getCollectionScheduler();
+	/** The metric ingestion pipeline between collectors and sinks */
+	protected final MetricPipeline metricPipeline = MetricPipeline.getMetricPipeline();
+	/** The metric sinks writing the pipeline's points out */
+	protected final MetricSinks metricSinks = MetricSinks.getMetricSinks();
 	
 	
 	/**
@@ -166,6 +174,24 @@ public class WatchtowerCore implements ApplicationContextAware, SelfNaming, Appl
         return "This is Watchtower, come in please.";
     }
 	
+	/**
+	 * Returns the fire lag and run duration statistics of the collection scheduler and of each of its schedules
+	 * @return the scheduler's latency statistics and the schedules' latency statistics keyed by schedule key
+	 */
+	@RequestMapping("/scheduler/latency")
+	public Map<String, Object> getSchedulerLatency() {
+		final CollectionScheduler scheduler = CollectionScheduler.getCollectionScheduler();
+		final Map<String, Object> schedules = new LinkedHashMap<String, Object>();
+		for(Map.Entry<String, ScheduleLatency> entry: scheduler.getScheduleLatencies().entrySet()) {
+			schedules.put(entry.getKey(), entry.getValue().toMap());
+		}
+		final Map<String, Object> map = new LinkedHashMap<String, Object>(3);
+		map.put("window", scheduler.getLatencyWindow());
+		map.put("scheduler", scheduler.getLatency().toMap());
+		map.put("schedules", schedules);
+		return map;
+	}
+	
 	
 	/**
 	 * Returns the application id
@@ -49,8 +49,8 @@ public enum CollectorState {
 	
 	/** The bean is collecting */
 	COLLECTING(false, false),
-	/** The bean is broken meaning it could not be initialized or started, typically a config problem */
-	BROKEN(true, true),
+	/** The bean is broken meaning it could not be initialized or started, typically a config problem, or its collections repeatedly breached their deadline. Recovered by a successful probe or a reset. */
+	BROKEN(true, false),
 	/** The script underlying the bean has a compile error */
 	BUST(true, true),
 	/** The bean has been isolated on account of serial collection or connection errors */
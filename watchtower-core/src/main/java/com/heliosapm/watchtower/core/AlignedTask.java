@@ -0,0 +1,44 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: AlignedTask</p>
+ * <p>Description: Defines a periodic task fired by an {@link AlignedTickGroup} on exact multiples of its period from the epoch</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.AlignedTask</code></p>
+ */
+
+public interface AlignedTask {
+	/**
+	 * Fires the task for an aligned tick. A task that dispatches an asynchronous execution for the tick
+	 * must {@link AlignedTickGroup.TickBatch#enlist()} in the batch first and {@link AlignedTickGroup.TickBatch#arrive()}
+	 * when the execution completes, so that the batch is flushed once all the tick's executions are done.
+	 * @param tick The tick time in ms.
+	 * @param batch The tick's batch
+	 */
+	public void fireAligned(long tick, AlignedTickGroup.TickBatch batch);
+}
@@ -0,0 +1,350 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: AlignedTickGroup</p>
+ * <p>Description: Fires a group of {@link AlignedTask}s sharing the same period on exact multiples of the period from the epoch.
+ * The group is a single one-shot timer that is re-armed from the wall clock on every tick, so it does not drift the way
+ * a fixed rate schedule on the monotonic clock does, and all the group's tasks are fired from the one timer dispatch.</p>
+ * <p>The executions dispatched for a tick form a {@link TickBatch}. When the last of them completes, the registered 
+ * {@link AlignedTickListener}s are notified so the tick's outputs can be flushed as one batch per interval.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.AlignedTickGroup</code></p>
+ */
+
+public class AlignedTickGroup implements Runnable, AlignedTickGroupMBean {
+	/** The tick groups keyed by period in ms. */
+	private static final Map<Long, AlignedTickGroup> groups = new ConcurrentHashMap<Long, AlignedTickGroup>();
+	/** The registered tick listeners */
+	private static final CopyOnWriteArrayList<AlignedTickListener> listeners = new CopyOnWriteArrayList<AlignedTickListener>();
+	/** Static class logger */
+	private static final Logger LOG = LoggerFactory.getLogger(AlignedTickGroup.class);
+	
+	/** The tick period in ms. */
+	protected final long period;
+	/** The group's JMX ObjectName */
+	protected final ObjectName objectName;
+	/** The group's tasks */
+	protected final Set<AlignedTask> members = new CopyOnWriteArraySet<AlignedTask>();
+	/** The scheduler the group's timer is armed on */
+	protected final CollectionScheduler scheduler = CollectionScheduler.getCollectionScheduler();
+	/** The handle of the armed timer */
+	protected volatile ScheduledFuture<?> handle = null;
+	/** The time in ms. of the next tick */
+	protected volatile long nextTick = -1L;
+	/** Indicates the group has been stopped */
+	protected volatile boolean stopped = false;
+	/** The number of ticks fired */
+	protected final AtomicLong tickCount = new AtomicLong(0L);
+	/** The number of ticks skipped */
+	protected final AtomicLong skippedTicks = new AtomicLong(0L);
+	/** The time in ms. of the most recent tick */
+	protected volatile long lastTick = -1L;
+	/** The lag in ms. of the most recent tick */
+	protected volatile long lastTickLag = 0L;
+	/** The size of the most recently flushed batch */
+	protected volatile int lastBatchSize = 0;
+	/** The elapsed time in ms. of the most recently flushed batch */
+	protected volatile long lastBatchElapsed = 0L;
+	
+	/**
+	 * Adds a task to the tick group for the passed period, creating and starting the group if necessary
+	 * @param period The tick period in ms.
+	 * @param task The task to add
+	 * @return the tick group the task was added to
+	 */
+	public static AlignedTickGroup join(long period, AlignedTask task) {
+		if(period < 1) throw new IllegalArgumentException("Invalid period [" + period + "]");
+		if(task==null) throw new IllegalArgumentException("The passed task was null");
+		synchronized(groups) {
+			AlignedTickGroup group = groups.get(period);
+			if(group==null) {
+				group = new AlignedTickGroup(period);
+				groups.put(period, group);
+				group.arm(System.currentTimeMillis());
+			}
+			group.members.add(task);
+			return group;
+		}
+	}
+	
+	/**
+	 * Removes a task from this tick group, stopping the group if it has no tasks left
+	 * @param task The task to remove
+	 */
+	public void leave(AlignedTask task) {
+		synchronized(groups) {
+			members.remove(task);
+			if(members.isEmpty() && groups.get(period)==this) {
+				groups.remove(period);
+				stop();
+			}
+		}
+	}
+	
+	/**
+	 * Registers a tick listener with all tick groups
+	 * @param listener The listener to register
+	 */
+	public static void addTickListener(AlignedTickListener listener) {
+		if(listener!=null) listeners.addIfAbsent(listener);
+	}
+	
+	/**
+	 * Unregisters a tick listener
+	 * @param listener The listener to unregister
+	 */
+	public static void removeTickListener(AlignedTickListener listener) {
+		if(listener!=null) listeners.remove(listener);
+	}
+	
+	/**
+	 * Creates a new AlignedTickGroup
+	 * @param period The tick period in ms.
+	 */
+	private AlignedTickGroup(long period) {
+		this.period = period;
+		objectName = JMXHelper.objectName(String.format(OBJECT_NAME_TEMPLATE, period));
+		try {
+			JMXHelper.registerMBean(this, objectName);
+		} catch (Exception ex) {
+			LOG.warn("Failed to register AlignedTickGroup Management Interface [{}]", objectName, ex);
+		}
+		LOG.info("Started AlignedTickGroup for period [{}] ms.", period);
+	}
+	
+	/**
+	 * Arms the timer for the first period boundary after the passed time.
+	 * The timer is armed outside the groups lock, so a concurrent {@link #stop()} can miss the new handle.
+	 * Both sides publish before they check: stop sets the flag and then cancels the handle it sees,
+	 * while arm publishes the handle and then cancels it if the flag is set, so one of them always cancels it.
+	 * @param now The current time in ms.
+	 */
+	private void arm(long now) {
+		if(stopped) return;
+		final long tick = ((now / period) + 1) * period;
+		nextTick = tick;
+		final ScheduledFuture<?> h = scheduler.schedule(this, tick - now, TimeUnit.MILLISECONDS);
+		handle = h;
+		if(stopped) h.cancel(false);
+	}
+	
+	/**
+	 * Stops the group's timer and unregisters its management interface
+	 */
+	private void stop() {
+		stopped = true;
+		ScheduledFuture<?> h = handle;
+		if(h!=null) h.cancel(false);
+		try {
+			if(JMXHelper.isRegistered(objectName)) JMXHelper.unregisterMBean(objectName);
+		} catch (Exception ex) {/* No Op */}
+		LOG.info("Stopped AlignedTickGroup for period [{}] ms.", period);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		if(stopped) return;
+		final long tick = nextTick;
+		final long now = System.currentTimeMillis();
+		// re-arm from the wall clock first so the next tick does not depend on how long this one takes
+		arm(Math.max(now, tick));
+		if(now >= tick + period) {
+			skippedTicks.addAndGet((now - tick) / period);
+		}
+		tickCount.incrementAndGet();
+		lastTick = tick;
+		lastTickLag = now - tick;
+		final TickBatch batch = new TickBatch(tick);
+		for(AlignedTask task: members) {
+			try {
+				task.fireAligned(tick, batch);
+			} catch (Throwable t) {
+				LOG.error("Aligned task [{}] failed to fire", task, t);
+			}
+		}
+		batch.arrive();
+	}
+	
+	/**
+	 * Callback when all the executions of a tick's batch have completed
+	 * @param batch The completed batch
+	 */
+	protected void flush(TickBatch batch) {
+		lastBatchSize = batch.size.get();
+		lastBatchElapsed = System.currentTimeMillis() - batch.tick;
+		for(AlignedTickListener listener: listeners) {
+			try {
+				listener.onTickComplete(period, batch.tick, lastBatchSize);
+			} catch (Throwable t) {
+				LOG.warn("Tick listener [{}] failed", listener, t);
+			}
+		}
+	}
+	
+	/**
+	 * <p>Title: TickBatch</p>
+	 * <p>Description: Tracks the executions dispatched for one tick. The batch holds one count for the tick group while it fires
+	 * the group's tasks, and one per enlisted execution, and is flushed when the count drops to zero.</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.AlignedTickGroup.TickBatch</code></p>
+	 */
+	public class TickBatch {
+		/** The tick time in ms. */
+		final long tick;
+		/** The number of outstanding arrivals */
+		final AtomicInteger pending = new AtomicInteger(1);
+		/** The number of enlisted executions */
+		final AtomicInteger size = new AtomicInteger(0);
+		
+		/**
+		 * Creates a new TickBatch
+		 * @param tick The tick time in ms.
+		 */
+		TickBatch(long tick) {
+			this.tick = tick;
+		}
+		
+		/**
+		 * Enlists an execution in the batch
+		 */
+		public void enlist() {
+			pending.incrementAndGet();
+			size.incrementAndGet();
+		}
+		
+		/**
+		 * Signals the completion of an enlisted execution
+		 */
+		public void arrive() {
+			if(pending.decrementAndGet()==0) {
+				flush(this);
+			}
+		}
+		
+		/**
+		 * Returns the tick time
+		 * @return the tick time in ms.
+		 */
+		public long getTick() {
+			return tick;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.AlignedTickGroupMBean#getPeriod()
+	 */
+	@Override
+	public long getPeriod() {
+		return period;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.AlignedTickGroupMBean#getMemberCount()
+	 */
+	@Override
+	public int getMemberCount() {
+		return members.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.AlignedTickGroupMBean#getTickCount()
+	 */
+	@Override
+	public long getTickCount() {
+		return tickCount.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.AlignedTickGroupMBean#getSkippedTicks()
+	 */
+	@Override
+	public long getSkippedTicks() {
+		return skippedTicks.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.AlignedTickGroupMBean#getLastTick()
+	 */
+	@Override
+	public long getLastTick() {
+		return lastTick;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.AlignedTickGroupMBean#getLastTickLag()
+	 */
+	@Override
+	public long getLastTickLag() {
+		return lastTickLag;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.AlignedTickGroupMBean#getLastBatchSize()
+	 */
+	@Override
+	public int getLastBatchSize() {
+		return lastBatchSize;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.AlignedTickGroupMBean#getLastBatchElapsed()
+	 */
+	@Override
+	public long getLastBatchElapsed() {
+		return lastBatchElapsed;
+	}
+}
@@ -0,0 +1,86 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: AlignedTickGroupMBean</p>
+ * <p>Description: JMX MBean interface for {@link AlignedTickGroup}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.AlignedTickGroupMBean</code></p>
+ */
+
+public interface AlignedTickGroupMBean {
+	/** ObjectName template */
+	public static final String OBJECT_NAME_TEMPLATE = "com.heliosapm.watchtower.core:service=AlignedTickGroup,period=%s";
+	
+	/**
+	 * Returns the tick period of the group
+	 * @return the period in ms.
+	 */
+	public long getPeriod();
+	
+	/**
+	 * Returns the number of tasks in the group
+	 * @return the member count
+	 */
+	public int getMemberCount();
+	
+	/**
+	 * Returns the number of ticks fired
+	 * @return the tick count
+	 */
+	public long getTickCount();
+	
+	/**
+	 * Returns the number of ticks skipped because the group fired more than a period late
+	 * @return the skipped tick count
+	 */
+	public long getSkippedTicks();
+	
+	/**
+	 * Returns the time of the most recent tick
+	 * @return the last tick time in ms.
+	 */
+	public long getLastTick();
+	
+	/**
+	 * Returns the lag between the most recent tick time and the time it actually fired
+	 * @return the last tick lag in ms.
+	 */
+	public long getLastTickLag();
+	
+	/**
+	 * Returns the number of executions dispatched for the most recently flushed tick
+	 * @return the last batch size
+	 */
+	public int getLastBatchSize();
+	
+	/**
+	 * Returns the time from the most recently flushed tick until all its executions completed
+	 * @return the last batch elapsed time in ms.
+	 */
+	public long getLastBatchElapsed();
+}
@@ -0,0 +1,45 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: AlignedTickListener</p>
+ * <p>Description: Defines a listener notified when all the executions dispatched for an aligned tick have completed,
+ * so that the outputs of the tick's collections can be flushed as one batch</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.AlignedTickListener</code></p>
+ */
+
+public interface AlignedTickListener {
+	/**
+	 * Callback when all the executions dispatched for an aligned tick have completed. 
+	 * Called on the thread that completed the last execution, so implementations should not block.
+	 * @param period The period of the tick group in ms.
+	 * @param tick The tick time in ms.
+	 * @param executions The number of executions dispatched for the tick
+	 */
+	public void onTickComplete(long period, long tick, int executions);
+}
@@ -0,0 +1,495 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Date;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: BlackoutCalendar</p>
+ * <p>Description: Maintains the maintenance windows during which collections are suppressed. Windows are one-off or recurring 
+ * on a cron expression, and apply to a deployment branch (and its sub-branches), a collector or a remote target.</p>
+ * <p>The windows are compiled into an immutable interval index of merged, non-overlapping intervals per scope and key, so each
+ * check is a hash lookup and a {@link TreeMap} floor lookup in O(log n). Recurring windows are expanded into the index up to a 
+ * horizon ahead of now, and the index is rebuilt when a window changes or the clock passes half way to the horizon, or
+ * passes the last indexed occurrence of a window whose occurrences were capped at {@link #MAX_OCCURRENCES}.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.BlackoutCalendar</code></p>
+ */
+
+public class BlackoutCalendar implements BlackoutCalendarMBean {
+	/** The blackout calendar singleton instance */
+	private static volatile BlackoutCalendar instance = null;
+	/** The blackout calendar singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The branch scope. Windows apply to the branch and all its sub-branches. */
+	public static final String SCOPE_BRANCH = "branch";
+	/** The collector scope */
+	public static final String SCOPE_COLLECTOR = "collector";
+	/** The target scope */
+	public static final String SCOPE_TARGET = "target";
+	
+	/** The config property name for the time in ms. ahead of now that recurring window occurrences are indexed for */
+	public static final String HORIZON_PROP = "com.heliosapm.watchtower.blackout.horizon";
+	/** The default index horizon in ms. */
+	public static final long DEFAULT_HORIZON = 24L * 60L * 60L * 1000L;
+	/** The maximum number of occurrences of a recurring window that are indexed */
+	public static final int MAX_OCCURRENCES = 10000;
+	
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The windows keyed by id */
+	protected final Map<Long, Window> windows = new ConcurrentHashMap<Long, Window>();
+	/** The window id factory */
+	protected final AtomicLong windowIds = new AtomicLong(0L);
+	/** The index horizon in ms. */
+	protected final long horizon;
+	/** The current interval index */
+	protected volatile Index index = new Index(Collections.<String, NavigableMap<Long, Long>>emptyMap(), Long.MAX_VALUE);
+	/** The number of checks made */
+	protected final AtomicLong checkCount = new AtomicLong(0L);
+	/** The number of checks that found an open window */
+	protected final AtomicLong blackoutCount = new AtomicLong(0L);
+	/** The number of index rebuilds */
+	protected final AtomicLong rebuildCount = new AtomicLong(0L);
+	
+	/**
+	 * Acquires and returns the BlackoutCalendar singleton instance
+	 * @return the BlackoutCalendar singleton instance
+	 */
+	public static BlackoutCalendar getBlackoutCalendar() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new BlackoutCalendar();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new BlackoutCalendar
+	 */
+	private BlackoutCalendar() {
+		horizon = Math.max(60000L, ConfigurationHelper.getLongSystemThenEnvProperty(HORIZON_PROP, DEFAULT_HORIZON));
+		try {
+			JMXHelper.registerMBean(this, JMXHelper.objectName(OBJECT_NAME));
+		} catch (Exception ex) {
+			log.warn("Failed to register BlackoutCalendar Management Interface", ex);
+		}
+	}
+	
+	/**
+	 * Indicates if the passed scope and key are in a blackout window at the passed time
+	 * @param scope The scope
+	 * @param key The ObjectName of the branch or collector, or the target identity
+	 * @param now The time in ms. to check
+	 * @return true if a blackout window is open for the scope and key
+	 */
+	public boolean isBlackedOut(String scope, String key, long now) {
+		if(key==null) return false;
+		checkCount.incrementAndGet();
+		Index idx = index;
+		if(now >= idx.validUntil) idx = rebuild(now, idx);
+		if(idx.intervals.isEmpty()) return false;
+		final NavigableMap<Long, Long> intervals = idx.intervals.get(indexKey(scope, key));
+		if(intervals==null) return false;
+		final Map.Entry<Long, Long> interval = intervals.floorEntry(now);
+		if(interval!=null && interval.getValue() > now) {
+			blackoutCount.incrementAndGet();
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Indicates if a collector is in a blackout window at the passed time, checking the collector's own windows, 
+	 * its target's windows and the windows of its branch and each of the branch's ancestors
+	 * @param collector The collector's ObjectName, or null
+	 * @param target The collector's target identity, or null
+	 * @param branches The ObjectNames of the collector's branch and its ancestors, nearest first
+	 * @param now The time in ms. to check
+	 * @return true if a blackout window is open for the collector
+	 */
+	public boolean isBlackedOut(ObjectName collector, String target, List<ObjectName> branches, long now) {
+		if(index.intervals.isEmpty() && now < index.validUntil) return false;
+		if(collector!=null && isBlackedOut(SCOPE_COLLECTOR, collector.getCanonicalName(), now)) return true;
+		if(target!=null && isBlackedOut(SCOPE_TARGET, target, now)) return true;
+		if(branches!=null) {
+			for(ObjectName branch: branches) {
+				if(isBlackedOut(SCOPE_BRANCH, branch.getCanonicalName(), now)) return true;
+			}
+		}
+		return false;
+	}
+	
+	/**
+	 * Builds the index key for the passed scope and key
+	 * @param scope The scope
+	 * @param key The key
+	 * @return the index key
+	 */
+	private static String indexKey(String scope, String key) {
+		return scope + "|" + key;
+	}
+	
+	/**
+	 * Validates a scope and normalizes its key. Branch and collector keys are ObjectNames, and are normalized to their canonical name.
+	 * @param scope The scope
+	 * @param key The key
+	 * @return the normalized key
+	 */
+	private static String normalize(String scope, String key) {
+		if(key==null || key.trim().isEmpty()) throw new IllegalArgumentException("The passed key was null or empty");
+		if(SCOPE_BRANCH.equals(scope) || SCOPE_COLLECTOR.equals(scope)) {
+			return JMXHelper.objectName(key.trim()).getCanonicalName();
+		} else if(SCOPE_TARGET.equals(scope)) {
+			return key.trim();
+		}
+		throw new IllegalArgumentException("Invalid blackout scope [" + scope + "]");
+	}
+	
+	/**
+	 * Rebuilds the interval index if it has not been rebuilt since the passed index was current
+	 * @param now The current time in ms.
+	 * @param stale The index found to be stale, or null to force a rebuild
+	 * @return the current index
+	 */
+	protected synchronized Index rebuild(long now, Index stale) {
+		if(stale!=null && index!=stale) return index;
+		final Map<String, List<long[]>> collected = new HashMap<String, List<long[]>>();
+		final long until = now + horizon;
+		boolean recurring = false;
+		long validUntil = now + (horizon / 2);
+		for(Window window: windows.values()) {
+			final String key = indexKey(window.scope, window.key);
+			List<long[]> list = collected.get(key);
+			if(list==null) {
+				list = new ArrayList<long[]>();
+				collected.put(key, list);
+			}
+			if(window.cron==null) {
+				if(window.end > now) list.add(new long[]{window.start, window.end});
+			} else {
+				recurring = true;
+				long fire = window.cron.nextFireTime(now - window.duration);
+				long last = fire;
+				int occurrences = 0;
+				for(; occurrences < MAX_OCCURRENCES && fire!=CronSchedule.NEVER && fire < until; occurrences++) {
+					list.add(new long[]{fire, fire + window.duration});
+					last = fire;
+					fire = window.cron.nextFireTime(fire);
+				}
+				if(occurrences==MAX_OCCURRENCES && fire!=CronSchedule.NEVER && fire < until) {
+					// occurrences past the last expanded one are missing from the index, so it must be rebuilt by then
+					validUntil = Math.min(validUntil, Math.max(now + 1, last));
+				}
+			}
+		}
+		final Map<String, NavigableMap<Long, Long>> intervals = new HashMap<String, NavigableMap<Long, Long>>(collected.size());
+		for(Map.Entry<String, List<long[]>> entry: collected.entrySet()) {
+			final NavigableMap<Long, Long> merged = merge(entry.getValue());
+			if(!merged.isEmpty()) intervals.put(entry.getKey(), merged);
+		}
+		index = new Index(intervals, recurring ? validUntil : Long.MAX_VALUE);
+		rebuildCount.incrementAndGet();
+		return index;
+	}
+	
+	/**
+	 * Sorts and merges the passed intervals into a map of non-overlapping intervals keyed by start time
+	 * @param list The intervals as start and end time pairs
+	 * @return the merged intervals
+	 */
+	private static NavigableMap<Long, Long> merge(List<long[]> list) {
+		final TreeMap<Long, Long> merged = new TreeMap<Long, Long>();
+		if(list.isEmpty()) return merged;
+		final long[][] sorted = list.toArray(new long[list.size()][]);
+		Arrays.sort(sorted, new Comparator<long[]>() {
+			@Override
+			public int compare(long[] a, long[] b) {
+				return a[0] < b[0] ? -1 : a[0]==b[0] ? 0 : 1;
+			}
+		});
+		long start = sorted[0][0], end = sorted[0][1];
+		for(int i = 1; i < sorted.length; i++) {
+			if(sorted[i][0] <= end) {
+				end = Math.max(end, sorted[i][1]);
+			} else {
+				merged.put(start, end);
+				start = sorted[i][0];
+				end = sorted[i][1];
+			}
+		}
+		merged.put(start, end);
+		return merged;
+	}
+	
+	/**
+	 * Adds a window and rebuilds the index
+	 * @param window The window to add
+	 * @return the id of the window
+	 */
+	protected long add(Window window) {
+		windows.put(window.id, window);
+		rebuild(System.currentTimeMillis(), null);
+		log.info("Added blackout window {}", window);
+		return window.id;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#addWindow(java.lang.String, java.lang.String, long, long, java.lang.String)
+	 */
+	@Override
+	public long addWindow(String scope, String key, long start, long end, String description) {
+		if(end <= start) throw new IllegalArgumentException("Window end [" + end + "] is not after start [" + start + "]");
+		return add(new Window(windowIds.incrementAndGet(), scope, normalize(scope, key), start, end, null, null, end - start, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#addWindowNow(java.lang.String, java.lang.String, long, java.lang.String)
+	 */
+	@Override
+	public long addWindowNow(String scope, String key, long duration, String description) {
+		final long now = System.currentTimeMillis();
+		return addWindow(scope, key, now, now + duration, description);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#addRecurringWindow(java.lang.String, java.lang.String, java.lang.String, long, java.lang.String)
+	 */
+	@Override
+	public long addRecurringWindow(String scope, String key, String cron, long duration, String description) {
+		if(duration < 1) throw new IllegalArgumentException("Invalid duration [" + duration + "]");
+		final CronSchedule cronSchedule = CronSchedule.compile(cron);
+		return add(new Window(windowIds.incrementAndGet(), scope, normalize(scope, key), -1L, -1L, cron, cronSchedule, duration, description));
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#removeWindow(long)
+	 */
+	@Override
+	public boolean removeWindow(long id) {
+		final Window window = windows.remove(id);
+		if(window==null) return false;
+		rebuild(System.currentTimeMillis(), null);
+		log.info("Removed blackout window {}", window);
+		return true;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#clearWindows()
+	 */
+	@Override
+	public void clearWindows() {
+		windows.clear();
+		rebuild(System.currentTimeMillis(), null);
+		log.info("Cleared all blackout windows");
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#getWindows()
+	 */
+	@Override
+	public String[] getWindows() {
+		final List<String> list = new ArrayList<String>(windows.size());
+		for(Window window: windows.values()) {
+			list.add(window.toString());
+		}
+		return list.toArray(new String[list.size()]);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#getWindowCount()
+	 */
+	@Override
+	public int getWindowCount() {
+		return windows.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#isBlackedOut(java.lang.String, java.lang.String)
+	 */
+	@Override
+	public boolean isBlackedOut(String scope, String key) {
+		return isBlackedOut(scope, normalize(scope, key), System.currentTimeMillis());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#getHorizon()
+	 */
+	@Override
+	public long getHorizon() {
+		return horizon;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#getCheckCount()
+	 */
+	@Override
+	public long getCheckCount() {
+		return checkCount.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#getBlackoutCount()
+	 */
+	@Override
+	public long getBlackoutCount() {
+		return blackoutCount.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.BlackoutCalendarMBean#getRebuildCount()
+	 */
+	@Override
+	public long getRebuildCount() {
+		return rebuildCount.get();
+	}
+	
+	/**
+	 * <p>Title: Index</p>
+	 * <p>Description: An immutable interval index</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.BlackoutCalendar.Index</code></p>
+	 */
+	protected static class Index {
+		/** The merged intervals, end time keyed by start time, keyed by scope and key */
+		final Map<String, NavigableMap<Long, Long>> intervals;
+		/** The time in ms. until which the index is valid */
+		final long validUntil;
+		
+		/**
+		 * Creates a new Index
+		 * @param intervals The merged intervals keyed by scope and key
+		 * @param validUntil The time in ms. until which the index is valid
+		 */
+		Index(Map<String, NavigableMap<Long, Long>> intervals, long validUntil) {
+			this.intervals = intervals;
+			this.validUntil = validUntil;
+		}
+	}
+	
+	/**
+	 * <p>Title: Window</p>
+	 * <p>Description: A one-off or recurring blackout window</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.BlackoutCalendar.Window</code></p>
+	 */
+	protected static class Window {
+		/** The window id */
+		final long id;
+		/** The window scope */
+		final String scope;
+		/** The normalized window key */
+		final String key;
+		/** The start time in ms. of a one-off window */
+		final long start;
+		/** The end time in ms. of a one-off window */
+		final long end;
+		/** The cron expression of a recurring window */
+		final String cronExpression;
+		/** The compiled cron expression of a recurring window, or null for a one-off window */
+		final CronSchedule cron;
+		/** The duration in ms. of the window or of each occurrence of a recurring window */
+		final long duration;
+		/** The window description */
+		final String description;
+		
+		/**
+		 * Creates a new Window
+		 * @param id The window id
+		 * @param scope The window scope
+		 * @param key The normalized window key
+		 * @param start The start time in ms. of a one-off window
+		 * @param end The end time in ms. of a one-off window
+		 * @param cronExpression The cron expression of a recurring window
+		 * @param cron The compiled cron expression of a recurring window, or null for a one-off window
+		 * @param duration The duration in ms. of the window or of each occurrence
+		 * @param description The window description
+		 */
+		Window(long id, String scope, String key, long start, long end, String cronExpression, CronSchedule cron, long duration, String description) {
+			this.id = id;
+			this.scope = scope;
+			this.key = key;
+			this.start = start;
+			this.end = end;
+			this.cronExpression = cronExpression;
+			this.cron = cron;
+			this.duration = duration;
+			this.description = description;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			final StringBuilder b = new StringBuilder("[").append(id).append("] ").append(scope).append(" [").append(key).append("] ");
+			if(cron==null) {
+				b.append(new Date(start)).append(" - ").append(new Date(end));
+			} else {
+				b.append("cron [").append(cronExpression).append("] for ").append(duration).append(" ms.");
+			}
+			if(description!=null) b.append(" : ").append(description);
+			return b.toString();
+		}
+	}
+}
@@ -0,0 +1,126 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: BlackoutCalendarMBean</p>
+ * <p>Description: JMX MBean interface for {@link BlackoutCalendar}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.BlackoutCalendarMBean</code></p>
+ */
+
+public interface BlackoutCalendarMBean {
+	/** The blackout calendar ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.core:service=BlackoutCalendar";
+	
+	/**
+	 * Adds a one-off blackout window
+	 * @param scope The scope of the window, <b><code>branch</code></b>, <b><code>collector</code></b> or <b><code>target</code></b>
+	 * @param key The ObjectName of the branch or collector, or the target identity
+	 * @param start The start time of the window in ms. since the epoch
+	 * @param end The end time of the window in ms. since the epoch
+	 * @param description A description of the window
+	 * @return the id of the window
+	 */
+	public long addWindow(String scope, String key, long start, long end, String description);
+	
+	/**
+	 * Adds a one-off blackout window starting now
+	 * @param scope The scope of the window, <b><code>branch</code></b>, <b><code>collector</code></b> or <b><code>target</code></b>
+	 * @param key The ObjectName of the branch or collector, or the target identity
+	 * @param duration The duration of the window in ms.
+	 * @param description A description of the window
+	 * @return the id of the window
+	 */
+	public long addWindowNow(String scope, String key, long duration, String description);
+	
+	/**
+	 * Adds a recurring blackout window that starts on each fire time of a cron expression
+	 * @param scope The scope of the window, <b><code>branch</code></b>, <b><code>collector</code></b> or <b><code>target</code></b>
+	 * @param key The ObjectName of the branch or collector, or the target identity
+	 * @param cron The cron expression for the window start times
+	 * @param duration The duration of each occurrence of the window in ms.
+	 * @param description A description of the window
+	 * @return the id of the window
+	 */
+	public long addRecurringWindow(String scope, String key, String cron, long duration, String description);
+	
+	/**
+	 * Removes a blackout window
+	 * @param id The id of the window
+	 * @return true if the window was removed, false if it was not found
+	 */
+	public boolean removeWindow(long id);
+	
+	/**
+	 * Removes all blackout windows
+	 */
+	public void clearWindows();
+	
+	/**
+	 * Returns a description of each blackout window
+	 * @return the window descriptions
+	 */
+	public String[] getWindows();
+	
+	/**
+	 * Returns the number of blackout windows
+	 * @return the number of windows
+	 */
+	public int getWindowCount();
+	
+	/**
+	 * Indicates if the passed scope and key are in a blackout window now
+	 * @param scope The scope, <b><code>branch</code></b>, <b><code>collector</code></b> or <b><code>target</code></b>
+	 * @param key The ObjectName of the branch or collector, or the target identity
+	 * @return true if a blackout window is open for the scope and key
+	 */
+	public boolean isBlackedOut(String scope, String key);
+	
+	/**
+	 * Returns the time in ms. ahead of now that recurring window occurrences are indexed for
+	 * @return the index horizon in ms.
+	 */
+	public long getHorizon();
+	
+	/**
+	 * Returns the number of blackout checks made
+	 * @return the number of checks
+	 */
+	public long getCheckCount();
+	
+	/**
+	 * Returns the number of blackout checks that found an open window
+	 * @return the number of blacked out checks
+	 */
+	public long getBlackoutCount();
+	
+	/**
+	 * Returns the number of times the interval index has been rebuilt
+	 * @return the number of index rebuilds
+	 */
+	public long getRebuildCount();
+}
@@ -0,0 +1,354 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.heliosapm.watchtower.groovy.annotation.CollectionPriority;
+
+/**
+ * <p>Title: CollectionBulkhead</p>
+ * <p>Description: A bounded, semaphore partitioned view of a shared executor. At most {@link #getMaxConcurrent()} executions
+ * submitted through the bulkhead are admitted to the shared executor at a time, up to {@link #getMaxQueue()} more wait in the 
+ * bulkhead's own queue, and further executions are rejected. One deployment branch can therefore only exhaust its own slice
+ * of the shared executor. The bulkhead has no threads of its own: waiting executions are admitted as admitted ones complete.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.CollectionBulkhead</code></p>
+ */
+
+public class CollectionBulkhead implements Executor, CollectionBulkheadMBean {
+	/** Static class logger */
+	private static final Logger LOG = LoggerFactory.getLogger(CollectionBulkhead.class);
+	
+	/** The shared executor */
+	protected final Executor delegate;
+	/** The bulkhead's JMX ObjectName */
+	protected final ObjectName objectName;
+	/** The maximum number of concurrent executions admitted to the shared executor */
+	protected final int maxConcurrent;
+	/** The maximum number of executions waiting for admission */
+	protected final int maxQueue;
+	/** The executions waiting for admission */
+	protected final Queue<Runnable> queue = new ConcurrentLinkedQueue<Runnable>();
+	/** The number of executions waiting for admission */
+	protected final AtomicInteger queued = new AtomicInteger(0);
+	/** The highest number of executions waiting for admission */
+	protected final AtomicInteger peakQueued = new AtomicInteger(0);
+	/** The number of admitted executions */
+	protected final AtomicInteger active = new AtomicInteger(0);
+	/** The number of submitted executions */
+	protected final AtomicLong submitted = new AtomicLong(0L);
+	/** The number of completed executions */
+	protected final AtomicLong completed = new AtomicLong(0L);
+	/** The number of rejected executions */
+	protected final AtomicLong rejected = new AtomicLong(0L);
+	
+	/**
+	 * Creates a new CollectionBulkhead and registers its management interface
+	 * @param delegate The shared executor
+	 * @param objectName The bulkhead's JMX ObjectName
+	 * @param maxConcurrent The maximum number of concurrent executions admitted to the shared executor
+	 * @param maxQueue The maximum number of executions waiting for admission
+	 */
+	public CollectionBulkhead(Executor delegate, ObjectName objectName, int maxConcurrent, int maxQueue) {
+		if(delegate==null) throw new IllegalArgumentException("The passed delegate executor was null");
+		if(maxConcurrent < 1) throw new IllegalArgumentException("Invalid max concurrent [" + maxConcurrent + "]");
+		this.delegate = delegate;
+		this.objectName = objectName;
+		this.maxConcurrent = maxConcurrent;
+		this.maxQueue = Math.max(0, maxQueue);
+		if(objectName!=null) {
+			try {
+				if(JMXHelper.isRegistered(objectName)) JMXHelper.unregisterMBean(objectName);
+				JMXHelper.registerMBean(this, objectName);
+			} catch (Exception ex) {
+				LOG.warn("Failed to register CollectionBulkhead Management Interface [{}]", objectName, ex);
+			}
+		}
+	}
+	
+	/**
+	 * Unregisters the bulkhead's management interface. Executions already admitted or waiting still run.
+	 */
+	public void close() {
+		if(objectName!=null) {
+			try {
+				if(JMXHelper.isRegistered(objectName)) JMXHelper.unregisterMBean(objectName);
+			} catch (Exception ex) {/* No Op */}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.Executor#execute(java.lang.Runnable)
+	 */
+	@Override
+	public void execute(Runnable command) {
+		if(command==null) throw new IllegalArgumentException("The passed command was null");
+		submitted.incrementAndGet();
+		if(tryAdmit()) {
+			admit(command, true);
+			return;
+		}
+		final int depth = queued.incrementAndGet();
+		if(depth > maxQueue) {
+			queued.decrementAndGet();
+			rejected.incrementAndGet();
+			throw new RejectedExecutionException("Bulkhead [" + objectName + "] is full");
+		}
+		int peak = peakQueued.get();
+		while(depth > peak && !peakQueued.compareAndSet(peak, depth)) peak = peakQueued.get();
+		queue.add(command);
+		drain();
+	}
+	
+	/**
+	 * Acquires an admission slot if one is free
+	 * @return true if a slot was acquired, false otherwise
+	 */
+	protected boolean tryAdmit() {
+		while(true) {
+			int current = active.get();
+			if(current >= maxConcurrent) return false;
+			if(active.compareAndSet(current, current + 1)) return true;
+		}
+	}
+	
+	/**
+	 * Admits waiting executions while there are free slots. Called after queueing an execution 
+	 * and after an admitted execution completes, so a waiting execution is never stranded.
+	 */
+	protected void drain() {
+		while(!queue.isEmpty() && tryAdmit()) {
+			Runnable command = queue.poll();
+			if(command==null) {
+				active.decrementAndGet();
+				continue;
+			}
+			queued.decrementAndGet();
+			admit(command, false);
+		}
+	}
+	
+	/**
+	 * Submits an admitted execution to the shared executor
+	 * @param command The execution
+	 * @param caller true if called from {@link #execute(Runnable)}, in which case a rejection is propagated to the caller.
+	 * Otherwise the execution was queued, and a {@link RejectableTask} is told of the rejection.
+	 */
+	protected void admit(Runnable command, boolean caller) {
+		try {
+			delegate.execute(new AdmittedTask(command));
+		} catch (RejectedExecutionException rex) {
+			active.decrementAndGet();
+			rejected.incrementAndGet();
+			if(caller) throw rex;
+			LOG.warn("Shared executor rejected queued execution from bulkhead [{}]", objectName, rex);
+			rejectQueued(command, rex);
+		}
+	}
+	
+	/**
+	 * Tells a queued execution that it was rejected
+	 * @param command The execution
+	 * @param rex The rejection
+	 */
+	protected static void rejectQueued(Runnable command, RejectedExecutionException rex) {
+		if(command instanceof RejectableTask) {
+			try {
+				((RejectableTask)command).onRejected(rex);
+			} catch (Exception ex) {
+				LOG.warn("Rejection callback failed", ex);
+			}
+		}
+	}
+	
+	/**
+	 * Callback when an admitted execution completes
+	 */
+	protected void release() {
+		completed.incrementAndGet();
+		active.decrementAndGet();
+		drain();
+	}
+	
+	/**
+	 * <p>Title: AdmittedTask</p>
+	 * <p>Description: Wraps an admitted execution to release its slot when it completes or is rejected by a shared executor 
+	 * that queues it, preserving the execution's target and priority for the shared executor</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.CollectionBulkhead.AdmittedTask</code></p>
+	 */
+	class AdmittedTask implements TargetedTask, PrioritizedTask, RejectableTask {
+		/** The wrapped execution */
+		final Runnable command;
+		
+		/**
+		 * Creates a new AdmittedTask
+		 * @param command The wrapped execution
+		 */
+		AdmittedTask(Runnable command) {
+			this.command = command;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			try {
+				command.run();
+			} finally {
+				release();
+			}
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * <p>Releases the admission slot without counting a completion and passes the rejection on to the execution.</p>
+		 * @see com.heliosapm.watchtower.core.RejectableTask#onRejected(java.util.concurrent.RejectedExecutionException)
+		 */
+		@Override
+		public void onRejected(RejectedExecutionException rex) {
+			rejected.incrementAndGet();
+			active.decrementAndGet();
+			rejectQueued(command, rex);
+			drain();
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.core.TargetedTask#getTarget()
+		 */
+		@Override
+		public String getTarget() {
+			return (command instanceof TargetedTask) ? ((TargetedTask)command).getTarget() : null;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.core.PrioritizedTask#getPriority()
+		 */
+		@Override
+		public CollectionPriority getPriority() {
+			return (command instanceof PrioritizedTask) ? ((PrioritizedTask)command).getPriority() : null;
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionBulkheadMBean#getObjectName()
+	 */
+	@Override
+	public ObjectName getObjectName() {
+		return objectName;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionBulkheadMBean#getMaxConcurrent()
+	 */
+	@Override
+	public int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionBulkheadMBean#getMaxQueue()
+	 */
+	@Override
+	public int getMaxQueue() {
+		return maxQueue;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionBulkheadMBean#getActiveCount()
+	 */
+	@Override
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionBulkheadMBean#getQueueDepth()
+	 */
+	@Override
+	public int getQueueDepth() {
+		return queued.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionBulkheadMBean#getPeakQueueDepth()
+	 */
+	@Override
+	public int getPeakQueueDepth() {
+		return peakQueued.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionBulkheadMBean#getSubmittedCount()
+	 */
+	@Override
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionBulkheadMBean#getCompletedCount()
+	 */
+	@Override
+	public long getCompletedCount() {
+		return completed.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionBulkheadMBean#getRejectedCount()
+	 */
+	@Override
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+}
@@ -0,0 +1,91 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import javax.management.ObjectName;
+
+/**
+ * <p>Title: CollectionBulkheadMBean</p>
+ * <p>Description: JMX MBean interface for {@link CollectionBulkhead}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.CollectionBulkheadMBean</code></p>
+ */
+
+public interface CollectionBulkheadMBean {
+	/**
+	 * Returns the JMX ObjectName of the bulkhead
+	 * @return the bulkhead ObjectName
+	 */
+	public ObjectName getObjectName();
+	
+	/**
+	 * Returns the maximum number of concurrent executions admitted to the shared executor
+	 * @return the maximum number of concurrent executions
+	 */
+	public int getMaxConcurrent();
+	
+	/**
+	 * Returns the maximum number of executions waiting for admission before executions are rejected
+	 * @return the maximum queue depth
+	 */
+	public int getMaxQueue();
+	
+	/**
+	 * Returns the number of admitted executions submitted to or running in the shared executor
+	 * @return the number of admitted executions
+	 */
+	public int getActiveCount();
+	
+	/**
+	 * Returns the number of executions waiting for admission
+	 * @return the queue depth
+	 */
+	public int getQueueDepth();
+	
+	/**
+	 * Returns the highest number of executions waiting for admission
+	 * @return the peak queue depth
+	 */
+	public int getPeakQueueDepth();
+	
+	/**
+	 * Returns the total number of executions submitted to the bulkhead
+	 * @return the submitted execution count
+	 */
+	public long getSubmittedCount();
+	
+	/**
+	 * Returns the total number of executions completed
+	 * @return the completed execution count
+	 */
+	public long getCompletedCount();
+	
+	/**
+	 * Returns the total number of executions rejected because the queue was full or the shared executor rejected them
+	 * @return the rejected execution count
+	 */
+	public long getRejectedCount();
+}
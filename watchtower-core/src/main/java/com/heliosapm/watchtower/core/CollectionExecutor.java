@@ -26,21 +26,21 @@ package com.heliosapm.watchtower.core;
 
 import javax.management.ObjectName;
 
-import org.helios.jmx.concurrency.JMXManagedThreadPool;
 import org.helios.jmx.util.helpers.JMXHelper;
 
 import com.heliosapm.watchtower.core.annotation.Propagate;
 
 /**
  * <p>Title: CollectionExecutor</p>
- * <p>Description: The thread pool for collection asynch tasks</p> 
+ * <p>Description: The thread pool for collection asynch tasks. The core pool size can be sized automatically 
+ * from the collections' queue wait: see {@link ExecutorAutoSizer}.</p> 
  * <p>Company: Helios Development Group LLC</p>
  * @author Whitehead (nwhitehead AT heliosdev DOT org)
  * <p><code>com.heliosapm.watchtower.core.CollectionExecutor</code></p>
  * FIXME: expose config with spring annotations
  */
 @Propagate
-public class CollectionExecutor extends JMXManagedThreadPool implements CollectionExecutorMBean {
+public class CollectionExecutor extends ModalThreadPool implements CollectionExecutorMBean {
 	/** The collection executor singleton instance */
 	private static volatile CollectionExecutor instance = null;
 	/** The collection executor singleton instance */
@@ -24,8 +24,6 @@
  */
 package com.heliosapm.watchtower.core;
 
-import org.helios.jmx.concurrency.JMXManagedThreadPoolMBean;
-
 /**
  * <p>Title: CollectionExecutorMBean</p>
  * <p>Description: JMX MBean interface for {@link CollectionExecutor}</p> 
@@ -34,8 +32,86 @@ import org.helios.jmx.concurrency.JMXManagedThreadPoolMBean;
  * <p><code>com.heliosapm.watchtower.core.CollectionExecutorMBean</code></p>
  */
 
-public interface CollectionExecutorMBean extends JMXManagedThreadPoolMBean {
+public interface CollectionExecutorMBean extends ModalThreadPoolMBean {
 	/** ObjectName template */
 	public static final String OBJECT_NAME_TEMPLATE = "com.heliosapm.watchtower.core.threadpools:service=ThreadPool,name=%s";
+	
+	/**
+	 * Indicates if the core pool size is being sized automatically
+	 * @return true if auto sizing is enabled
+	 */
+	public boolean isAutoSizing();
+	
+	/**
+	 * Enables or disables automatic sizing of the core pool size
+	 * @param enabled true to enable, false to disable
+	 */
+	public void setAutoSizing(boolean enabled);
+	
+	/**
+	 * Returns the queue wait the auto sizer sizes the pool for
+	 * @return the target queue wait in ms.
+	 */
+	public long getTargetQueueLatency();
+	
+	/**
+	 * Sets the queue wait the auto sizer sizes the pool for
+	 * @param targetLatency the target queue wait in ms.
+	 */
+	public void setTargetQueueLatency(long targetLatency);
+	
+	/**
+	 * Returns the minimum core pool size the auto sizer may shrink to
+	 * @return the minimum core pool size
+	 */
+	public int getAutoSizeMin();
+	
+	/**
+	 * Sets the minimum core pool size the auto sizer may shrink to
+	 * @param minCore the minimum core pool size
+	 */
+	public void setAutoSizeMin(int minCore);
+	
+	/**
+	 * Returns the maximum core pool size the auto sizer may grow to
+	 * @return the maximum core pool size
+	 */
+	public int getAutoSizeMax();
+	
+	/**
+	 * Sets the maximum core pool size the auto sizer may grow to
+	 * @param maxCore the maximum core pool size
+	 */
+	public void setAutoSizeMax(int maxCore);
+	
+	/**
+	 * Returns the average queue wait measured in the auto sizer's last interval
+	 * @return the average queue wait in ms.
+	 */
+	public long getAverageQueueWait();
+	
+	/**
+	 * Returns the percentage of task run time in the auto sizer's last interval that the pool threads were not on CPU
+	 * @return the blocked percentage or -1 if not measured
+	 */
+	public int getBlockedPercent();
+	
+	/**
+	 * Returns the auto sizer's most recent decision
+	 * @return the most recent sizing decision
+	 */
+	public String getLastSizingDecision();
+	
+	/**
+	 * Returns the number of times the auto sizer grew the pool
+	 * @return the grow count
+	 */
+	public long getAutoSizeGrowCount();
+	
+	/**
+	 * Returns the number of times the auto sizer shrunk the pool
+	 * @return the shrink count
+	 */
+	public long getAutoSizeShrinkCount();
 
 }
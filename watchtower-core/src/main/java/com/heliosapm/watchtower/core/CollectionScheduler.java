@@ -24,19 +24,25 @@
  */
 package com.heliosapm.watchtower.core;
 
-import java.util.Date;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 import java.util.concurrent.Callable;
-import java.util.concurrent.Delayed;
-import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.TimeoutException;
-import java.util.concurrent.atomic.AtomicBoolean;
-import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import org.helios.jmx.concurrency.JMXManagedScheduler;
+import org.helios.jmx.util.helpers.ConfigurationHelper;
 import org.helios.jmx.util.helpers.JMXHelper;
-import org.quartz.CronExpression;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.boot.autoconfigure.EnableAutoConfiguration;
 
 import com.heliosapm.watchtower.core.annotation.Propagate;
@@ -48,7 +54,7 @@ import com.heliosapm.watchtower.core.annotation.Propagate;
  * @author Whitehead (nwhitehead AT heliosdev DOT org)
  * <p><code>com.heliosapm.watchtower.core.CollectionScheduler</code></p>
  * FIXME: expose config with spring annotations
- * FIXME: Push cron expression out to different class and conditionally load if quartz is available
+ * FIXME: Conditionally load the quartz cron fallback in {@link CronSchedule} if quartz is available
  */
 @EnableAutoConfiguration
 @Propagate
@@ -57,6 +63,71 @@ public class CollectionScheduler extends JMXManagedScheduler implements Collecti
 	private static volatile CollectionScheduler instance = null;
 	/** The collection scheduler singleton instance */
 	private static final Object lock = new Object();
+	/** Static class logger */
+	private static final Logger LOG = LoggerFactory.getLogger(CollectionScheduler.class);
+	
+	/** The config property name for the scheduler backend, one of {@link #BACKEND_QUEUE} or {@link #BACKEND_WHEEL} */
+	public static final String SCHEDULER_BACKEND_PROP = "com.heliosapm.watchtower.scheduler.backend";
+	/** The config property name for the timing wheel tick in ms. */
+	public static final String WHEEL_TICK_PROP = "com.heliosapm.watchtower.scheduler.wheel.tick";
+	/** The delay queue backend name */
+	public static final String BACKEND_QUEUE = "queue";
+	/** The timing wheel backend name */
+	public static final String BACKEND_WHEEL = "wheel";
+	/** The default scheduler backend */
+	public static final String DEFAULT_SCHEDULER_BACKEND = BACKEND_QUEUE;
+	/** The default timing wheel tick in ms. */
+	public static final long DEFAULT_WHEEL_TICK = 10L;
+	/** The config property name for the number of threads running the tasks expired by the timing wheel */
+	public static final String FIRE_THREADS_PROP = "com.heliosapm.watchtower.scheduler.wheel.threads";
+	/** The default number of threads running the tasks expired by the timing wheel */
+	public static final int DEFAULT_FIRE_THREADS = Math.max(2, Runtime.getRuntime().availableProcessors() / 2);
+	
+	/** The config property name for the tick batching window in ms. Negative disables batching, zero batches each wheel tick */
+	public static final String BATCH_WINDOW_PROP = "com.heliosapm.watchtower.scheduler.batch.window";
+	/** The default tick batching window in ms. */
+	public static final long DEFAULT_BATCH_WINDOW = -1L;
+	
+	/** The config property name for the window in ms. covered by the lag and duration histograms */
+	public static final String LATENCY_WINDOW_PROP = "com.heliosapm.watchtower.scheduler.latency.window";
+	/** The config property name for the number of slices the lag and duration histogram window is divided into */
+	public static final String LATENCY_SLICES_PROP = "com.heliosapm.watchtower.scheduler.latency.slices";
+	/** The default lag and duration histogram window in ms. */
+	public static final long DEFAULT_LATENCY_WINDOW = 60000L;
+	/** The default number of lag and duration histogram slices */
+	public static final int DEFAULT_LATENCY_SLICES = 6;
+	
+	/** The config property name to enable load aware phase assignment for periodic schedules */
+	public static final String PHASING_PROP = "com.heliosapm.watchtower.scheduler.phasing";
+	/** The config property name for the phase allocator projection horizon in ms. */
+	public static final String PHASING_HORIZON_PROP = "com.heliosapm.watchtower.scheduler.phasing.horizon";
+	/** The config property name for the phase allocator bucket resolution in ms. */
+	public static final String PHASING_RESOLUTION_PROP = "com.heliosapm.watchtower.scheduler.phasing.resolution";
+	/** The default phasing enablement */
+	public static final boolean DEFAULT_PHASING = false;
+	/** The default phase allocator projection horizon in ms. */
+	public static final long DEFAULT_PHASING_HORIZON = 60000L;
+	/** The default phase allocator bucket resolution in ms. */
+	public static final long DEFAULT_PHASING_RESOLUTION = 100L;
+	
+	/** The timing wheel, or null if the delay queue backend is in use */
+	protected final HashedTimingWheel wheel;
+	/** The threads running the tasks expired by the timing wheel, or null if the delay queue backend is in use */
+	protected final ThreadPoolExecutor fireExecutor;
+	/** The tick batching dispatcher, or null if tick batching is disabled */
+	protected final TickBatchDispatcher batchDispatcher;
+	/** The collection executor tick batches are submitted to */
+	protected final Executor collectionExecutor = CollectionExecutor.getCollectionExecutor();
+	/** The phase allocator, or null if phasing is disabled */
+	protected final PhaseAllocator phaseAllocator;
+	/** The lag and duration histogram window in ms. */
+	protected final long latencyWindow;
+	/** The number of lag and duration histogram slices */
+	protected final int latencySlices;
+	/** The lag and duration histograms of all the scheduler's schedules */
+	protected final ScheduleLatency latency;
+	/** The lag and duration histograms of each registered schedule, keyed by schedule key */
+	protected final Map<String, ScheduleLatency> scheduleLatencies = new ConcurrentHashMap<String, ScheduleLatency>();
 	
 	/**
 	 * Acquires and returns the CollectionScheduler singleton instance
@@ -78,183 +149,515 @@ public class CollectionScheduler extends JMXManagedScheduler implements Collecti
 	 */
 	private CollectionScheduler() {		
 		super(JMXHelper.objectName("com.heliosapm.watchtower.core.threadpools:service=ThreadPool,name=" + CollectionScheduler.class.getSimpleName()), CollectionScheduler.class.getSimpleName());
+		String backend = ConfigurationHelper.getSystemThenEnvProperty(SCHEDULER_BACKEND_PROP, DEFAULT_SCHEDULER_BACKEND).trim();
+		if(BACKEND_WHEEL.equalsIgnoreCase(backend)) {
+			long tick = ConfigurationHelper.getLongSystemThenEnvProperty(WHEEL_TICK_PROP, DEFAULT_WHEEL_TICK);
+			final int fireThreads = Math.max(1, ConfigurationHelper.getIntSystemThenEnvProperty(FIRE_THREADS_PROP, DEFAULT_FIRE_THREADS));
+			fireExecutor = new ThreadPoolExecutor(fireThreads, fireThreads, 60L, TimeUnit.SECONDS, new LinkedBlockingQueue<Runnable>(), threadFactory(getClass().getSimpleName() + "Fire"));
+			long window = ConfigurationHelper.getLongSystemThenEnvProperty(BATCH_WINDOW_PROP, DEFAULT_BATCH_WINDOW);
+			if(window >= 0) {
+				batchDispatcher = new TickBatchDispatcher(getClass().getSimpleName(), window, TimeUnit.MILLISECONDS, collectionExecutor, fireExecutor);
+				wheel = new HashedTimingWheel(getClass().getSimpleName(), tick, TimeUnit.MILLISECONDS, batchDispatcher);
+			} else {
+				batchDispatcher = null;
+				wheel = new HashedTimingWheel(getClass().getSimpleName(), tick, TimeUnit.MILLISECONDS, fireExecutor);
+			}
+			wheel.start();
+		} else {
+			wheel = null;
+			fireExecutor = null;
+			batchDispatcher = null;
+			if(ConfigurationHelper.getLongSystemThenEnvProperty(BATCH_WINDOW_PROP, DEFAULT_BATCH_WINDOW) >= 0) {
+				LOG.warn("Tick batching requires the [{}] scheduler backend. Batching disabled.", BACKEND_WHEEL);
+			}
+		}
+		latencyWindow = ConfigurationHelper.getLongSystemThenEnvProperty(LATENCY_WINDOW_PROP, DEFAULT_LATENCY_WINDOW);
+		latencySlices = ConfigurationHelper.getIntSystemThenEnvProperty(LATENCY_SLICES_PROP, DEFAULT_LATENCY_SLICES);
+		latency = new ScheduleLatency(latencyWindow, latencySlices);
+		if(ConfigurationHelper.getBooleanSystemThenEnvProperty(PHASING_PROP, DEFAULT_PHASING)) {
+			phaseAllocator = new PhaseAllocator(
+					ConfigurationHelper.getLongSystemThenEnvProperty(PHASING_HORIZON_PROP, DEFAULT_PHASING_HORIZON),
+					ConfigurationHelper.getLongSystemThenEnvProperty(PHASING_RESOLUTION_PROP, DEFAULT_PHASING_RESOLUTION));
+		} else {
+			phaseAllocator = null;
+		}
 	}
 	
 	/**
-	 * Schedules the passed task for execution in accordance with the passed cron expression
-	 * @param command The task to schedule
-	 * @param cron The cron expression. (See {@link CronExpression})
-	 * @return a handle to the schedule
+	 * Allocates a load balanced phase for a periodic schedule
+	 * @param period The schedule period in ms.
+	 * @return the phase in ms. or -1 if phasing is disabled or the period is too short to be phased
 	 */
-	public <T> ScheduledFuture<T> scheduleWithCron(final Callable<T> command, String cron) {
-		try {
-			return new CronScheduledFuture<T>(command, new CronExpression(cron));
-		} catch (Exception ex) {
-			throw new RuntimeException("Failed to schedule task [" + command + "] with cron expression [" + cron + "]", ex);
-		}
+	public long allocatePhase(long period) {
+		return phaseAllocator==null ? -1L : phaseAllocator.allocate(period);
 	}
 	
 	/**
-	 * <p>Title: CronScheduledFuture</p>
-	 * <p>Description: A scheduled future implementation for a task scheduled by a cron expression</p> 
-	 * <p>Company: Helios Development Group LLC</p>
-	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
-	 * <p><code>com.heliosapm.watchtower.core.CronScheduledFuture</code></p>
-	 * @param <T> The assumed type of the callable and scheduled future return type
-	 */
-	class CronScheduledFuture<T> implements Callable<T>, ScheduledFuture<T> {
-		/** The scheduled task */
-		protected final Callable<T> command;
-		/** The cron expression managing the execution */
-		protected final CronExpression cex;
-		/** The scheduled thingy for the next scheduled execution */
-		protected final AtomicReference<ScheduledFuture<T>> nextExecutionFuture = new AtomicReference<ScheduledFuture<T>>(null);
-		/** Indicates if the schedule has been canceled */
-		protected final AtomicBoolean cancelled = new AtomicBoolean(false);
-		/**
-		 * Creates a new CronScheduleFuture
-		 * @param command The repeating command
-		 * @param cex The cron expression
-		 */
-		public CronScheduledFuture(Callable<T> command, CronExpression cex) {
-			this.command = command;
-			this.cex = cex;
-			Long nextExec = nextExecutionTime();
-			if(nextExec==null) {
-				cancel(true);
-				return;
-			}
-			nextExecutionFuture.set(schedule(this, nextExec, TimeUnit.MILLISECONDS));
-		}
-		
-		/**
-		 * Returns the next valid execution time in ms.UTC after now
-		 * @return the next valid execution time or null if there isn't one
-		 */
-		public Long nextExecutionTime() {
-			Date nextExec = cex.getNextValidTimeAfter(new Date());
-			if(nextExec==null) return null;
-			return nextExec.getTime();
-		}
-
-		/**
-		 * {@inheritDoc}
-		 * @see java.util.concurrent.Callable#call()
-		 */
-		@Override
-		public T call() throws Exception {
-			T result = command.call();
-			if(!cancelled.get()) {
-				synchronized(cancelled) {
-					if(!cancelled.get()) {
-						Long nextExec = nextExecutionTime();
-						if(nextExec==null) {
-							cancel(true);							
-						} else {
-							nextExecutionFuture.set(schedule(this, nextExec, TimeUnit.MILLISECONDS));
-						}												
-					}
-				}
-			}
-			return result;
-		}
-
-		/**
-		 * Returns the next execution future
-		 * @return the nextExecutionFuture
-		 */
-		public ScheduledFuture<T> getNextExecutionFuture() {
-			return nextExecutionFuture.get();
-		}
-
-		/**
-		 * Sets the next execution future
-		 * @param nextExecutionFuture the nextExecutionFuture to set
-		 */
-		public void setNextExecutionFuture(ScheduledFuture<T> nextExecutionFuture) {
-			ScheduledFuture<T> prior = this.nextExecutionFuture.getAndSet(nextExecutionFuture);
-			if(prior!=null) {
-				prior.cancel(true);
+	 * Releases a phase allocated by {@link #allocatePhase(long)}
+	 * @param period The schedule period in ms.
+	 * @param phase The allocated phase in ms.
+	 */
+	public void releasePhase(long period, long phase) {
+		if(phaseAllocator!=null) phaseAllocator.release(period, phase);
+	}
+	
+	/**
+	 * Computes the delay until the first period boundary at the passed phase that falls after the initial delay
+	 * @param initialDelay The minimum delay in ms. before the first execution
+	 * @param period The period in ms.
+	 * @param phase The phase in ms. allocated by {@link #allocatePhase(long)}
+	 * @return the delay in ms.
+	 */
+	public long phaseDelay(long initialDelay, long period, long phase) {
+		if(phaseAllocator==null) throw new IllegalStateException("Phasing is not enabled");
+		return phaseAllocator.firstDelay(initialDelay, period, phase);
+	}
+	
+	/**
+	 * Creates and registers the lag and duration histograms for a schedule
+	 * @param key The schedule key, unique within the scheduler
+	 * @return the schedule's histograms
+	 */
+	public ScheduleLatency registerSchedule(String key) {
+		final ScheduleLatency scheduleLatency = new ScheduleLatency(latencyWindow, latencySlices);
+		scheduleLatencies.put(key, scheduleLatency);
+		return scheduleLatency;
+	}
+	
+	/**
+	 * Unregisters the lag and duration histograms of a schedule
+	 * @param key The schedule key
+	 */
+	public void unregisterSchedule(String key) {
+		scheduleLatencies.remove(key);
+	}
+	
+	/**
+	 * Records the lag between the planned and actual fire time of a schedule
+	 * @param scheduleLatency The schedule's histograms
+	 * @param lagMs The lag in ms.
+	 */
+	public void recordLag(ScheduleLatency scheduleLatency, long lagMs) {
+		latency.recordLag(lagMs);
+		scheduleLatency.recordLag(lagMs);
+	}
+	
+	/**
+	 * Records the run duration of a schedule
+	 * @param scheduleLatency The schedule's histograms
+	 * @param durationMs The duration in ms.
+	 */
+	public void recordDuration(ScheduleLatency scheduleLatency, long durationMs) {
+		latency.recordDuration(durationMs);
+		scheduleLatency.recordDuration(durationMs);
+	}
+	
+	/**
+	 * Returns the lag and duration histograms of all the scheduler's schedules
+	 * @return the scheduler's histograms
+	 */
+	public ScheduleLatency getLatency() {
+		return latency;
+	}
+	
+	/**
+	 * Returns the lag and duration histograms of each registered schedule
+	 * @return the histograms keyed by schedule key
+	 */
+	public Map<String, ScheduleLatency> getScheduleLatencies() {
+		return Collections.unmodifiableMap(scheduleLatencies);
+	}
+	
+	/**
+	 * Creates the daemon thread factory of the threads running the tasks expired by the timing wheel. Expired tasks are
+	 * handed straight to these threads rather than re-queued on the scheduler's delay queue, which would cost a heap insert and removal per fire.
+	 * @param name The thread name prefix
+	 * @return the thread factory
+	 */
+	private static ThreadFactory threadFactory(final String name) {
+		final AtomicInteger serial = new AtomicInteger(0);
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name + "#" + serial.incrementAndGet());
+				t.setDaemon(true);
+				return t;
 			}
+		};
+	}
+	
+	/**
+	 * Submits a collection dispatched by a schedule fire to the passed executor. With tick batching enabled, a collection
+	 * bound for the collection executor from a fire in a tick batch is gathered into the batch's grouped submission instead. 
+	 * Collections bound for a bulkhead or the priority lanes are always submitted directly, so they keep their admission control.
+	 * @param collection The collection to submit
+	 * @param executor The executor the collection is bound for
+	 */
+	public void dispatchCollection(Runnable collection, Executor executor) {
+		if(batchDispatcher!=null && executor==collectionExecutor && batchDispatcher.collect(collection)) return;
+		executor.execute(collection);
+	}
+	
+	/**
+	 * Computes the nano time trigger time for the passed delay
+	 * @param delay The delay
+	 * @param unit The unit of the delay
+	 * @return the nano time trigger time
+	 */
+	private static long triggerTime(long delay, TimeUnit unit) {
+		return System.nanoTime() + unit.toNanos(delay < 0 ? 0 : delay);
+	}
+	
+	/**
+	 * Submits the passed task to the scheduling backend
+	 * @param task The task to submit
+	 * @return the task
+	 */
+	private <V> ScheduledTask<V> arm(ScheduledTask<V> task) {
+		if(isShutdown()) throw new RejectedExecutionException("CollectionScheduler is shutdown");
+		enqueue(task);
+		return task;
+	}
+	
+	/**
+	 * Adds the passed task to the timing wheel or, if the wheel is not in use, directly to the delay queue
+	 * @param task The task to add
+	 */
+	private void enqueue(ScheduledTask<?> task) {
+		if(wheel!=null) {
+			wheel.add(task);
+		} else {
+			getQueue().add(task);
+			prestartCoreThread();
 		}
-
-		/**
-		 * {@inheritDoc}
-		 * @see java.util.concurrent.Delayed#getDelay(java.util.concurrent.TimeUnit)
-		 */
-		@Override
-		public long getDelay(TimeUnit unit) {
-			ScheduledFuture<T> sf = nextExecutionFuture.get();
-			if(sf==null) throw new RuntimeException("No scheduled task in state", new Throwable());						
-			return sf.getDelay(unit);
-		}
-
-		/**
-		 * {@inheritDoc}
-		 * @see java.lang.Comparable#compareTo(java.lang.Object)
-		 */
-		@Override
-		public int compareTo(Delayed delayed) {
-			ScheduledFuture<T> sf = nextExecutionFuture.get();
-			if(sf==null) throw new RuntimeException("No scheduled task in state", new Throwable());			
-			return sf.compareTo(delayed);
+	}
+	
+	/**
+	 * Re-arms a periodic {@link ScheduledTask} after it has executed
+	 * @param task The task to re-arm
+	 */
+	void rearm(ScheduledTask<?> task) {
+		if(isShutdown()) {
+			task.cancel(false);
+		} else {
+			enqueue(task);
 		}
-
-		/**
-		 * {@inheritDoc}
-		 * @see java.util.concurrent.Future#cancel(boolean)
-		 */
-		@Override
-		public boolean cancel(boolean mayInterruptIfRunning) {
-			if(cancelled.compareAndSet(false, true)) {
-				ScheduledFuture<T> sf = nextExecutionFuture.get();
-				if(sf!=null) {
-					sf.cancel(mayInterruptIfRunning);
-				}				
-			}
-			return true;
+	}
+	
+	/**
+	 * Callback from a cancelled {@link ScheduledTask} so it can be dropped from the backend
+	 * @param task The cancelled task
+	 */
+	void onCancel(ScheduledTask<?> task) {
+		if(wheel!=null) {
+			wheel.cancel(task);
+		} else {
+			remove(task);
 		}
-
-		/**
-		 * {@inheritDoc}
-		 * @see java.util.concurrent.Future#isCancelled()
-		 */
-		@Override
-		public boolean isCancelled() {
-			return cancelled.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ScheduledThreadPoolExecutor#schedule(java.lang.Runnable, long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public ScheduledFuture<?> schedule(Runnable command, long delay, TimeUnit unit) {
+		if(wheel==null || delay <= 0) return super.schedule(command, delay, unit);
+		if(command==null || unit==null) throw new NullPointerException();
+		return arm(new ScheduledTask<Void>(this, command, null, triggerTime(delay, unit), 0L));
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ScheduledThreadPoolExecutor#schedule(java.util.concurrent.Callable, long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public <V> ScheduledFuture<V> schedule(Callable<V> callable, long delay, TimeUnit unit) {
+		if(wheel==null || delay <= 0) return super.schedule(callable, delay, unit);
+		if(callable==null || unit==null) throw new NullPointerException();
+		return arm(new ScheduledTask<V>(this, callable, triggerTime(delay, unit)));
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ScheduledThreadPoolExecutor#scheduleAtFixedRate(java.lang.Runnable, long, long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public ScheduledFuture<?> scheduleAtFixedRate(Runnable command, long initialDelay, long period, TimeUnit unit) {
+		if(wheel==null) return super.scheduleAtFixedRate(command, initialDelay, period, unit);
+		if(command==null || unit==null) throw new NullPointerException();
+		if(period <= 0) throw new IllegalArgumentException("Invalid period [" + period + "]");
+		return arm(new ScheduledTask<Void>(this, command, null, triggerTime(initialDelay, unit), unit.toNanos(period)));
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ScheduledThreadPoolExecutor#scheduleWithFixedDelay(java.lang.Runnable, long, long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command, long initialDelay, long delay, TimeUnit unit) {
+		if(wheel==null) return super.scheduleWithFixedDelay(command, initialDelay, delay, unit);
+		if(command==null || unit==null) throw new NullPointerException();
+		if(delay <= 0) throw new IllegalArgumentException("Invalid delay [" + delay + "]");
+		return arm(new ScheduledTask<Void>(this, command, null, triggerTime(initialDelay, unit), -unit.toNanos(delay)));
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ScheduledThreadPoolExecutor#shutdown()
+	 */
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		if(wheel!=null) {
+			wheel.stop();
+			fireExecutor.shutdown();
 		}
-
-		/**
-		 * {@inheritDoc}
-		 * @see java.util.concurrent.Future#isDone()
-		 */
-		@Override
-		public boolean isDone() {
-			ScheduledFuture<T> sf = nextExecutionFuture.get(); 
-			return sf == null || sf.isDone();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ScheduledThreadPoolExecutor#shutdownNow()
+	 */
+	@Override
+	public List<Runnable> shutdownNow() {
+		List<Runnable> pending = super.shutdownNow();
+		if(wheel!=null) {
+			wheel.stop();
+			pending.addAll(fireExecutor.shutdownNow());
 		}
-
-		/**
-		 * {@inheritDoc}
-		 * @see java.util.concurrent.Future#get()
-		 */
-		@Override
-		public T get() throws InterruptedException, ExecutionException {
-			ScheduledFuture<T> sf = nextExecutionFuture.get();
-			if(sf==null) throw new ExecutionException("No scheduled task in state", new Throwable());
-			return sf.get();
+		return pending;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getBackend()
+	 */
+	@Override
+	public String getBackend() {
+		return wheel==null ? BACKEND_QUEUE : BACKEND_WHEEL;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getWheelTick()
+	 */
+	@Override
+	public long getWheelTick() {
+		return wheel==null ? -1L : wheel.getTickMs();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getWheelTaskCount()
+	 */
+	@Override
+	public long getWheelTaskCount() {
+		return wheel==null ? 0L : wheel.getTaskCount();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getBatchWindow()
+	 */
+	@Override
+	public long getBatchWindow() {
+		return batchDispatcher==null ? -1L : batchDispatcher.getWindow();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getBatchCount()
+	 */
+	@Override
+	public long getBatchCount() {
+		return batchDispatcher==null ? 0L : batchDispatcher.getBatchCount();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getBatchedTaskCount()
+	 */
+	@Override
+	public long getBatchedTaskCount() {
+		return batchDispatcher==null ? 0L : batchDispatcher.getBatchedTaskCount();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getBatchRejectedCount()
+	 */
+	@Override
+	public long getBatchRejectedCount() {
+		return batchDispatcher==null ? 0L : batchDispatcher.getRejectedTaskCount();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getLastBatchSize()
+	 */
+	@Override
+	public int getLastBatchSize() {
+		return batchDispatcher==null ? 0 : batchDispatcher.getLastBatchSize();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getPeakBatchSize()
+	 */
+	@Override
+	public int getPeakBatchSize() {
+		return batchDispatcher==null ? 0 : batchDispatcher.getPeakBatchSize();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getLatencyWindow()
+	 */
+	@Override
+	public long getLatencyWindow() {
+		return latencyWindow;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getLatencyScheduleCount()
+	 */
+	@Override
+	public int getLatencyScheduleCount() {
+		return scheduleLatencies.size();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getLagCount()
+	 */
+	@Override
+	public long getLagCount() {
+		return latency.getLag().getCount();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getLagP50()
+	 */
+	@Override
+	public long getLagP50() {
+		return latency.getLag().getP50();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getLagP99()
+	 */
+	@Override
+	public long getLagP99() {
+		return latency.getLag().getP99();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getLagMax()
+	 */
+	@Override
+	public long getLagMax() {
+		return latency.getLag().getMax();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getDurationP50()
+	 */
+	@Override
+	public long getDurationP50() {
+		return latency.getDuration().getP50();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getDurationP99()
+	 */
+	@Override
+	public long getDurationP99() {
+		return latency.getDuration().getP99();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getDurationMax()
+	 */
+	@Override
+	public long getDurationMax() {
+		return latency.getDuration().getMax();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#isPhasing()
+	 */
+	@Override
+	public boolean isPhasing() {
+		return phaseAllocator!=null;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getPhasedSchedules()
+	 */
+	@Override
+	public int getPhasedSchedules() {
+		return phaseAllocator==null ? 0 : phaseAllocator.getAllocations();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getPhasePeakLoad()
+	 */
+	@Override
+	public int getPhasePeakLoad() {
+		return phaseAllocator==null ? 0 : phaseAllocator.getPeakLoad();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getWheelExpiredCount()
+	 */
+	@Override
+	public long getWheelExpiredCount() {
+		return wheel==null ? 0L : wheel.getExpiredCount();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionSchedulerMBean#getWheelFireBacklog()
+	 */
+	@Override
+	public int getWheelFireBacklog() {
+		return fireExecutor==null ? 0 : fireExecutor.getQueue().size();
+	}
+	
+	/**
+	 * Schedules the passed task for execution in accordance with the passed cron expression.
+	 * The expression is compiled once and the same task instance is re-armed for each execution.
+	 * @param command The task to schedule
+	 * @param cron The cron expression. (See {@link CronSchedule})
+	 * @return a handle to the schedule
+	 */
+	public <T> ScheduledFuture<T> scheduleWithCron(final Callable<T> command, String cron) {
+		if(command==null) throw new NullPointerException();
+		final CronSchedule cronSchedule;
+		try {
+			cronSchedule = CronSchedule.compile(cron);
+		} catch (Exception ex) {
+			throw new RuntimeException("Failed to schedule task [" + command + "] with cron expression [" + cron + "]", ex);
 		}
-
-		/**
-		 * {@inheritDoc}
-		 * @see java.util.concurrent.Future#get(long, java.util.concurrent.TimeUnit)
-		 */
-		@Override
-		public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
-			ScheduledFuture<T> sf = nextExecutionFuture.get();
-			if(sf==null) throw new ExecutionException("No scheduled task in state", new Throwable());			
-			return sf.get(timeout, unit);
+		final long firstFireTime = cronSchedule.nextFireTime(System.currentTimeMillis());
+		final CronScheduledTask<T> task = new CronScheduledTask<T>(this, command, cronSchedule, firstFireTime);
+		if(firstFireTime==CronSchedule.NEVER) {
+			task.cancel(false);
+			return task;
 		}
+		return arm(task);
 	}
 
 }
@@ -37,5 +37,143 @@ import org.helios.jmx.concurrency.JMXManagedSchedulerMBean;
 public interface CollectionSchedulerMBean extends JMXManagedSchedulerMBean {
 	/** ObjectName template */
 	public static final String OBJECT_NAME_TEMPLATE = "com.heliosapm.watchtower.core.threadpools:service=Scheduler,name=%s";
+	
+	/**
+	 * Returns the name of the scheduling backend, <b><code>queue</code></b> or <b><code>wheel</code></b>
+	 * @return the scheduling backend name
+	 */
+	public String getBackend();
+	
+	/**
+	 * Returns the timing wheel tick in ms., or -1 if the wheel backend is not in use
+	 * @return the timing wheel tick in ms.
+	 */
+	public long getWheelTick();
+	
+	/**
+	 * Returns the number of tasks waiting in the timing wheel
+	 * @return the number of tasks waiting in the timing wheel
+	 */
+	public long getWheelTaskCount();
+	
+	/**
+	 * Returns the number of tasks expired and dispatched by the timing wheel
+	 * @return the number of tasks dispatched by the timing wheel
+	 */
+	public long getWheelExpiredCount();
+	
+	/**
+	 * Returns the number of expired tasks waiting for a timing wheel fire thread
+	 * @return the number of expired tasks waiting to run, 0 if the wheel backend is not in use
+	 */
+	public int getWheelFireBacklog();
+	
+	/**
+	 * Returns the tick batching window in ms., or -1 if tick batching is disabled
+	 * @return the tick batching window in ms.
+	 */
+	public long getBatchWindow();
+	
+	/**
+	 * Returns the number of tick batches submitted to the collection executor
+	 * @return the number of tick batches
+	 */
+	public long getBatchCount();
+	
+	/**
+	 * Returns the number of collections submitted in tick batches
+	 * @return the number of batched collections
+	 */
+	public long getBatchedTaskCount();
+	
+	/**
+	 * Returns the number of collections submitted in tick batches that the collection executor rejected
+	 * @return the number of rejected batched collections
+	 */
+	public long getBatchRejectedCount();
+	
+	/**
+	 * Returns the number of collections in the most recent tick batch
+	 * @return the last tick batch size
+	 */
+	public int getLastBatchSize();
+	
+	/**
+	 * Returns the size of the largest tick batch
+	 * @return the peak tick batch size
+	 */
+	public int getPeakBatchSize();
+	
+	/**
+	 * Returns the window in ms. covered by the lag and duration histograms
+	 * @return the histogram window in ms.
+	 */
+	public long getLatencyWindow();
+	
+	/**
+	 * Returns the number of schedules with registered lag and duration histograms
+	 * @return the number of tracked schedules
+	 */
+	public int getLatencyScheduleCount();
+	
+	/**
+	 * Returns the number of fires recorded in the lag histogram window
+	 * @return the number of fires in the window
+	 */
+	public long getLagCount();
+	
+	/**
+	 * Returns the median lag in ms. between planned and actual fire times in the histogram window
+	 * @return the median fire lag in ms.
+	 */
+	public long getLagP50();
+	
+	/**
+	 * Returns the 99th percentile lag in ms. between planned and actual fire times in the histogram window
+	 * @return the 99th percentile fire lag in ms.
+	 */
+	public long getLagP99();
+	
+	/**
+	 * Returns the largest lag in ms. between planned and actual fire times in the histogram window
+	 * @return the maximum fire lag in ms.
+	 */
+	public long getLagMax();
+	
+	/**
+	 * Returns the median run duration in ms. in the histogram window
+	 * @return the median run duration in ms.
+	 */
+	public long getDurationP50();
+	
+	/**
+	 * Returns the 99th percentile run duration in ms. in the histogram window
+	 * @return the 99th percentile run duration in ms.
+	 */
+	public long getDurationP99();
+	
+	/**
+	 * Returns the largest run duration in ms. in the histogram window
+	 * @return the maximum run duration in ms.
+	 */
+	public long getDurationMax();
+	
+	/**
+	 * Indicates if periodic schedules are assigned load balanced phases
+	 * @return true if phasing is enabled, false otherwise
+	 */
+	public boolean isPhasing();
+	
+	/**
+	 * Returns the number of periodic schedules with an assigned phase
+	 * @return the number of phased schedules
+	 */
+	public int getPhasedSchedules();
+	
+	/**
+	 * Returns the highest projected number of phased executions falling in the same phase bucket
+	 * @return the peak projected bucket load
+	 */
+	public int getPhasePeakLoad();
 
 }
@@ -0,0 +1,463 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.DelayQueue;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.helios.jmx.util.helpers.StringHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: CollectionWatchdog</p>
+ * <p>Description: Enforces execution deadlines. Executions register a watch with their deadline when they start
+ * and complete the watch when they finish. A daemon thread takes watches off a delay queue as their deadlines expire
+ * and calls back executions that are still running, so the cost of an execution with a deadline that completes in time is one queue insert.
+ * Stuck detection adds nothing per execution: schedules register the set of their in flight executions as a stuck source, and the 
+ * watchdog thread sweeps the sources on a fixed interval. The first sweep to find an execution running past the stuck threshold captures 
+ * the executing thread's stack into a {@link StuckSample}, kept in a bounded ring of the most recent samples and passed back to the execution.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.CollectionWatchdog</code></p>
+ */
+
+public class CollectionWatchdog implements Runnable, CollectionWatchdogMBean {
+	/** The watchdog singleton instance */
+	private static volatile CollectionWatchdog instance = null;
+	/** The watchdog singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The config property name for the number of consecutive deadline breaches after which a collector is marked broken */
+	public static final String MAX_BREACHES_PROP = "com.heliosapm.watchtower.watchdog.maxbreaches";
+	/** The default number of consecutive deadline breaches after which a collector is marked broken */
+	public static final int DEFAULT_MAX_BREACHES = 3;
+	/** The config property name for the initial backoff in ms. before a broken collector is probed with a single execution */
+	public static final String PROBE_BACKOFF_PROP = "com.heliosapm.watchtower.watchdog.probe.backoff";
+	/** The default initial backoff in ms. before a broken collector is probed */
+	public static final long DEFAULT_PROBE_BACKOFF = 60000L;
+	/** The longest backoff in ms. between probes of a broken collector, which doubles after each failed probe */
+	public static final long MAX_PROBE_BACKOFF = 3600000L;
+	/** The config property name for the elapsed time in ms. after which a running execution is sampled as stuck (<= 0 disables) */
+	public static final String STUCK_THRESHOLD_PROP = "com.heliosapm.watchtower.watchdog.stuck";
+	/** The default elapsed time in ms. after which a running execution is sampled as stuck */
+	public static final long DEFAULT_STUCK_THRESHOLD = 60000L;
+	/** The config property name for the number of most recent stuck samples retained */
+	public static final String STUCK_SAMPLES_PROP = "com.heliosapm.watchtower.watchdog.stuck.samples";
+	/** The default number of most recent stuck samples retained */
+	public static final int DEFAULT_STUCK_SAMPLES = 32;
+	/** The longest interval in ms. between sweeps of the stuck sources */
+	public static final long MAX_SWEEP_INTERVAL = 1000L;
+	
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The watches waiting for their deadline */
+	protected final DelayQueue<Watch> deadlines = new DelayQueue<Watch>();
+	/** The watchdog thread */
+	protected final Thread watchdogThread;
+	/** The total number of watched executions */
+	protected final AtomicLong watchCount = new AtomicLong(0L);
+	/** The total number of deadline breaches */
+	protected final AtomicLong breachCount = new AtomicLong(0L);
+	/** The number of consecutive deadline breaches after which a collector is marked broken */
+	protected volatile int maxBreaches;
+	/** The initial backoff in ms. before a broken collector is probed */
+	protected volatile long probeBackoff;
+	/** The elapsed time in ms. after which a running execution is sampled as stuck */
+	protected volatile long stuckThreshold;
+	/** The total number of stuck samples captured */
+	protected final AtomicLong stuckCount = new AtomicLong(0L);
+	/** The ring of the most recent stuck samples, written only by the watchdog thread */
+	protected final AtomicReferenceArray<StuckSample> stuckSamples;
+	/** The registered collections of in flight executions swept for stuck executions */
+	protected final List<StuckSource> stuckSources = new CopyOnWriteArrayList<StuckSource>();
+	/** The executions already sampled as stuck and still running, accessed only by the watchdog thread */
+	protected Set<WatchedExecution> sampled = Collections.newSetFromMap(new IdentityHashMap<WatchedExecution, Boolean>());
+	
+	/**
+	 * Acquires and returns the CollectionWatchdog singleton instance
+	 * @return the CollectionWatchdog singleton instance
+	 */
+	public static CollectionWatchdog getCollectionWatchdog() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new CollectionWatchdog();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new CollectionWatchdog
+	 */
+	private CollectionWatchdog() {
+		maxBreaches = Math.max(1, ConfigurationHelper.getIntSystemThenEnvProperty(MAX_BREACHES_PROP, DEFAULT_MAX_BREACHES));
+		probeBackoff = Math.max(1L, ConfigurationHelper.getLongSystemThenEnvProperty(PROBE_BACKOFF_PROP, DEFAULT_PROBE_BACKOFF));
+		stuckThreshold = ConfigurationHelper.getLongSystemThenEnvProperty(STUCK_THRESHOLD_PROP, DEFAULT_STUCK_THRESHOLD);
+		stuckSamples = new AtomicReferenceArray<StuckSample>(Math.max(1, ConfigurationHelper.getIntSystemThenEnvProperty(STUCK_SAMPLES_PROP, DEFAULT_STUCK_SAMPLES)));
+		watchdogThread = new Thread(this, getClass().getSimpleName());
+		watchdogThread.setDaemon(true);
+		watchdogThread.start();
+		try {
+			JMXHelper.registerMBean(this, JMXHelper.objectName(OBJECT_NAME));
+		} catch (Exception ex) {
+			log.warn("Failed to register CollectionWatchdog Management Interface", ex);
+		}
+	}
+	
+	/**
+	 * Starts watching an execution
+	 * @param execution The execution to watch
+	 * @param deadline The deadline measured from now
+	 * @param unit The unit of the deadline
+	 * @return the watch which the execution must {@link Watch#complete()} when it finishes
+	 */
+	public Watch watch(WatchedExecution execution, long deadline, TimeUnit unit) {
+		if(execution==null) throw new IllegalArgumentException("The passed execution was null");
+		Watch watch = new Watch(execution, System.nanoTime() + unit.toNanos(deadline));
+		deadlines.add(watch);
+		watchCount.incrementAndGet();
+		return watch;
+	}
+	
+	/**
+	 * Registers a live collection of in flight executions to be swept for executions running past the stuck threshold.
+	 * Executions must be in the collection only while running, and must report their start time while in it.
+	 * @param executions The in flight executions, which must be safe to iterate concurrently with updates
+	 * @return the source, which must be {@link StuckSource#remove() removed} when the executions are no longer watched
+	 */
+	public StuckSource addStuckSource(Collection<? extends WatchedExecution> executions) {
+		if(executions==null) throw new IllegalArgumentException("The passed executions were null");
+		final StuckSource source = new StuckSource(executions);
+		stuckSources.add(source);
+		return source;
+	}
+	
+	/**
+	 * Sweeps the stuck sources, sampling each execution the first time it is found running past the stuck threshold
+	 */
+	protected void sweepStuck() {
+		final long threshold = stuckThreshold;
+		final Set<WatchedExecution> stillSampled = Collections.newSetFromMap(new IdentityHashMap<WatchedExecution, Boolean>());
+		if(threshold > 0) {
+			final long now = System.currentTimeMillis();
+			for(StuckSource source: stuckSources) {
+				for(WatchedExecution execution: source.executions) {
+					final long start = execution.getStartTime();
+					if(start < 0 || now - start < threshold) continue;
+					if(!sampled.contains(execution)) sampleStuck(execution);
+					stillSampled.add(execution);
+				}
+			}
+		}
+		sampled = stillSampled;
+	}
+	
+	/**
+	 * Returns the interval between sweeps of the stuck sources
+	 * @return the sweep interval in ms.
+	 */
+	protected long sweepInterval() {
+		final long threshold = stuckThreshold;
+		return threshold <= 0 ? MAX_SWEEP_INTERVAL : Math.max(10L, Math.min(MAX_SWEEP_INTERVAL, threshold / 4));
+	}
+	
+	/**
+	 * Captures a stack sample of a stuck execution, adds it to the sample ring and passes it to the execution
+	 * @param execution The stuck execution
+	 */
+	protected void sampleStuck(WatchedExecution execution) {
+		final Thread thread = execution.getThread();
+		if(thread==null) return;
+		final StuckSample sample = new StuckSample(execution.getExecutionName(), thread, execution.getStartTime());
+		final long index = stuckCount.getAndIncrement();
+		stuckSamples.set((int)(index % stuckSamples.length()), sample);
+		log.warn("Execution stuck: {}", sample);
+		execution.onStuck(sample);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		log.info(StringHelper.banner("Started CollectionWatchdog"));
+		long nextSweep = System.nanoTime();
+		while(true) {
+			try {
+				final long now = System.nanoTime();
+				if(now - nextSweep >= 0) {
+					sweepStuck();
+					nextSweep = now + TimeUnit.MILLISECONDS.toNanos(sweepInterval());
+				}
+				Watch watch = deadlines.poll(nextSweep - now, TimeUnit.NANOSECONDS);
+				if(watch==null || watch.complete) continue;
+				breachCount.incrementAndGet();
+				log.debug("Deadline breached by [{}]", watch.execution.getExecutionName());
+				watch.execution.onDeadline();
+			} catch (InterruptedException iex) {
+				Thread.interrupted();
+			} catch (Throwable t) {
+				log.warn("Deadline callback failed", t);
+			}
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#getPendingWatches()
+	 */
+	@Override
+	public int getPendingWatches() {
+		return deadlines.size();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#getWatchCount()
+	 */
+	@Override
+	public long getWatchCount() {
+		return watchCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#getBreachCount()
+	 */
+	@Override
+	public long getBreachCount() {
+		return breachCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#getMaxBreaches()
+	 */
+	@Override
+	public int getMaxBreaches() {
+		return maxBreaches;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#setMaxBreaches(int)
+	 */
+	@Override
+	public void setMaxBreaches(int maxBreaches) {
+		if(maxBreaches < 1) throw new IllegalArgumentException("Invalid max breaches [" + maxBreaches + "]");
+		this.maxBreaches = maxBreaches;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#getProbeBackoff()
+	 */
+	@Override
+	public long getProbeBackoff() {
+		return probeBackoff;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#setProbeBackoff(long)
+	 */
+	@Override
+	public void setProbeBackoff(long probeBackoff) {
+		if(probeBackoff < 1) throw new IllegalArgumentException("Invalid probe backoff [" + probeBackoff + "]");
+		this.probeBackoff = probeBackoff;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#getStuckThreshold()
+	 */
+	@Override
+	public long getStuckThreshold() {
+		return stuckThreshold;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#setStuckThreshold(long)
+	 */
+	@Override
+	public void setStuckThreshold(long stuckThreshold) {
+		this.stuckThreshold = stuckThreshold;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#getStuckCount()
+	 */
+	@Override
+	public long getStuckCount() {
+		return stuckCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#getStuckSampleCapacity()
+	 */
+	@Override
+	public int getStuckSampleCapacity() {
+		return stuckSamples.length();
+	}
+	
+	/**
+	 * Returns the retained stuck samples, most recent first
+	 * @return the retained stuck samples
+	 */
+	public List<StuckSample> getRecentStuckSamples() {
+		final int capacity = stuckSamples.length();
+		final List<StuckSample> samples = new ArrayList<StuckSample>(capacity);
+		final long last = stuckCount.get() - 1;
+		for(long i = last; i >= 0 && i > last - capacity; i--) {
+			StuckSample sample = stuckSamples.get((int)(i % capacity));
+			if(sample!=null) samples.add(sample);
+		}
+		return samples;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#getStuckSamples()
+	 */
+	@Override
+	public String[] getStuckSamples() {
+		final List<StuckSample> samples = getRecentStuckSamples();
+		final String[] arr = new String[samples.size()];
+		for(int i = 0; i < arr.length; i++) {
+			arr[i] = samples.get(i).toString();
+		}
+		return arr;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.CollectionWatchdogMBean#clearStuckSamples()
+	 */
+	@Override
+	public void clearStuckSamples() {
+		for(int i = 0; i < stuckSamples.length(); i++) {
+			stuckSamples.set(i, null);
+		}
+	}
+	
+	/**
+	 * <p>Title: StuckSource</p>
+	 * <p>Description: A registered collection of in flight executions swept for stuck executions</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.CollectionWatchdog.StuckSource</code></p>
+	 */
+	public class StuckSource {
+		/** The in flight executions */
+		final Collection<? extends WatchedExecution> executions;
+		
+		/**
+		 * Creates a new StuckSource
+		 * @param executions The in flight executions
+		 */
+		StuckSource(Collection<? extends WatchedExecution> executions) {
+			this.executions = executions;
+		}
+		
+		/**
+		 * Stops sweeping the source's executions
+		 */
+		public void remove() {
+			stuckSources.remove(this);
+		}
+	}
+	
+	/**
+	 * <p>Title: Watch</p>
+	 * <p>Description: A watch on an execution's deadline</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.CollectionWatchdog.Watch</code></p>
+	 */
+	public static class Watch implements Delayed {
+		/** The watched execution */
+		final WatchedExecution execution;
+		/** The deadline in nanos */
+		final long deadline;
+		/** Indicates the execution finished */
+		volatile boolean complete = false;
+		
+		/**
+		 * Creates a new Watch
+		 * @param execution The watched execution
+		 * @param deadline The deadline in nanos
+		 */
+		Watch(WatchedExecution execution, long deadline) {
+			this.execution = execution;
+			this.deadline = deadline;
+		}
+		
+		/**
+		 * Marks the watched execution as finished
+		 */
+		public void complete() {
+			complete = true;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * @see java.lang.Comparable#compareTo(java.lang.Object)
+		 */
+		@Override
+		public int compareTo(Delayed other) {
+			if(other==this) return 0;
+			long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+			return diff < 0 ? -1 : diff > 0 ? 1 : 0;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * @see java.util.concurrent.Delayed#getDelay(java.util.concurrent.TimeUnit)
+		 */
+		@Override
+		public long getDelay(TimeUnit unit) {
+			return unit.convert(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+		}
+	}
+}
@@ -0,0 +1,117 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: CollectionWatchdogMBean</p>
+ * <p>Description: JMX MBean interface for {@link CollectionWatchdog}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.CollectionWatchdogMBean</code></p>
+ */
+
+public interface CollectionWatchdogMBean {
+	/** The watchdog ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.core:service=CollectionWatchdog";
+	
+	/**
+	 * Returns the number of watches waiting for their deadline
+	 * @return the number of pending watches
+	 */
+	public int getPendingWatches();
+	
+	/**
+	 * Returns the total number of executions watched
+	 * @return the number of watched executions
+	 */
+	public long getWatchCount();
+	
+	/**
+	 * Returns the total number of executions that were still running at their deadline
+	 * @return the number of deadline breaches
+	 */
+	public long getBreachCount();
+	
+	/**
+	 * Returns the number of consecutive deadline breaches after which a collector is marked broken
+	 * @return the maximum number of consecutive breaches
+	 */
+	public int getMaxBreaches();
+	
+	/**
+	 * Sets the number of consecutive deadline breaches after which a collector is marked broken
+	 * @param maxBreaches the maximum number of consecutive breaches
+	 */
+	public void setMaxBreaches(int maxBreaches);
+	
+	/**
+	 * Returns the initial backoff in ms. before a broken collector is probed with a single execution. 
+	 * The backoff doubles after each probe that breaches its deadline.
+	 * @return the initial probe backoff in ms.
+	 */
+	public long getProbeBackoff();
+	
+	/**
+	 * Sets the initial backoff in ms. before a broken collector is probed with a single execution
+	 * @param probeBackoff the initial probe backoff in ms.
+	 */
+	public void setProbeBackoff(long probeBackoff);
+	
+	/**
+	 * Returns the elapsed time in ms. after which a running execution is sampled as stuck
+	 * @return the stuck threshold in ms., <= 0 if disabled
+	 */
+	public long getStuckThreshold();
+	
+	/**
+	 * Sets the elapsed time in ms. after which a running execution is sampled as stuck.
+	 * Applies from the next sweep of the running executions.
+	 * @param stuckThreshold the stuck threshold in ms., <= 0 to disable
+	 */
+	public void setStuckThreshold(long stuckThreshold);
+	
+	/**
+	 * Returns the total number of stuck samples captured
+	 * @return the number of stuck samples
+	 */
+	public long getStuckCount();
+	
+	/**
+	 * Returns the number of most recent stuck samples retained
+	 * @return the stuck sample capacity
+	 */
+	public int getStuckSampleCapacity();
+	
+	/**
+	 * Returns the retained stuck samples, most recent first
+	 * @return the rendered stuck samples
+	 */
+	public String[] getStuckSamples();
+	
+	/**
+	 * Discards the retained stuck samples
+	 */
+	public void clearStuckSamples();
+}
@@ -0,0 +1,387 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.Date;
+import java.util.TimeZone;
+
+import org.quartz.CronExpression;
+
+/**
+ * <p>Title: CronSchedule</p>
+ * <p>Description: A cron expression compiled once into second, minute, hour, day-of-month, month and day-of-week
+ * bitsets, so that the next fire time can be computed from epoch millis without allocating. Accepts the field syntax
+ * of {@link CronExpression}. Expressions using the <b><code>L</code></b>, <b><code>W</code></b> or 
+ * <b><code>#</code></b> day modifiers, or a restricted year field, are delegated to a Quartz {@link CronExpression}.</p> 
+ * <p>Unlike Quartz, which requires <b><code>?</code></b> in one of the day of month and day of week fields, both day fields can be 
+ * given, with the Vixie cron semantics: when both are restricted, a day matches if <i>either</i> field matches it, and when only 
+ * one is restricted, that field alone decides. A field is unrestricted if it matches every value of its range, however it is 
+ * written, so <b><code>*</code></b>, <b><code>?</code></b>, <b><code>1-31</code></b> and <b><code>*&#47;1</code></b> 
+ * are all unrestricted day of month fields.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.CronSchedule</code></p>
+ */
+public class CronSchedule {
+	/** The value returned by {@link #nextFireTime(long)} when the expression will never fire again */
+	public static final long NEVER = -1L;
+	/** The maximum number of years searched ahead for a matching day */
+	public static final int MAX_SEARCH_YEARS = 8;
+	
+	/** The maximum number of candidate local times tested across a daylight savings transition */
+	private static final int MAX_TRANSITION_ATTEMPTS = 86400;
+	/** The month names in field order */
+	private static final String[] MONTHS = {"JAN", "FEB", "MAR", "APR", "MAY", "JUN", "JUL", "AUG", "SEP", "OCT", "NOV", "DEC"};
+	/** The day of week names in field order */
+	private static final String[] DAYS = {"SUN", "MON", "TUE", "WED", "THU", "FRI", "SAT"};
+	/** Seconds in a day */
+	private static final long DAY_SECS = 86400L;
+	/** Millis in a day */
+	private static final long DAY_MS = DAY_SECS * 1000L;
+	/** The day of month bits of an unrestricted day of month field */
+	private static final long ALL_DAYS_OF_MONTH = parseField("*", 1, 31, null, 0);
+	/** The day of week bits of an unrestricted day of week field */
+	private static final long ALL_DAYS_OF_WEEK = parseField("*", 1, 7, DAYS, 1);
+	
+	/** The cron expression */
+	protected final String expression;
+	/** The time zone the expression is evaluated in */
+	protected final TimeZone timeZone;
+	/** The Quartz expression for expressions that cannot be compiled, null otherwise */
+	protected final CronExpression fallback;
+	/** The second bits, 0-59 */
+	protected final long seconds;
+	/** The minute bits, 0-59 */
+	protected final long minutes;
+	/** The hour bits, 0-23 */
+	protected final long hours;
+	/** The day of month bits, 1-31 */
+	protected final long daysOfMonth;
+	/** The month bits, 1-12 */
+	protected final long months;
+	/** The day of week bits, 1-7 (Sunday is 1) */
+	protected final long daysOfWeek;
+	/** True if the day of month field is restricted */
+	protected final boolean domRestricted;
+	/** True if the day of week field is restricted */
+	protected final boolean dowRestricted;
+	
+	/**
+	 * Compiles the passed cron expression in the default time zone
+	 * @param expression The cron expression
+	 * @return the compiled cron schedule
+	 */
+	public static CronSchedule compile(String expression) {
+		return new CronSchedule(expression, TimeZone.getDefault());
+	}
+	
+	/**
+	 * Creates a new CronSchedule
+	 * @param expression The cron expression
+	 * @param timeZone The time zone to evaluate the expression in
+	 */
+	public CronSchedule(String expression, TimeZone timeZone) {
+		if(expression==null || expression.trim().isEmpty()) throw new IllegalArgumentException("The passed cron expression was null or empty");
+		if(timeZone==null) throw new IllegalArgumentException("The passed time zone was null");
+		this.expression = expression.trim();
+		this.timeZone = timeZone;
+		String[] fields = this.expression.toUpperCase().split("\\s+");
+		if(fields.length < 6 || fields.length > 7) throw new IllegalArgumentException("Invalid cron expression [" + expression + "]. Expected 6 or 7 fields");
+		boolean compilable = fields[3].indexOf('L')==-1 && fields[3].indexOf('W')==-1 
+				&& fields[5].indexOf('L')==-1 && fields[5].indexOf('#')==-1
+				&& (fields.length==6 || "*".equals(fields[6]));
+		if(!compilable) {
+			try {
+				CronExpression cex = new CronExpression(this.expression);
+				cex.setTimeZone(timeZone);
+				fallback = cex;
+			} catch (Exception ex) {
+				throw new IllegalArgumentException("Invalid cron expression [" + expression + "]", ex);
+			}
+			seconds = 0L; minutes = 0L; hours = 0L; daysOfMonth = 0L; months = 0L; daysOfWeek = 0L;
+			domRestricted = false; dowRestricted = false;
+		} else {
+			fallback = null;
+			seconds = parseField(fields[0], 0, 59, null, 0);
+			minutes = parseField(fields[1], 0, 59, null, 0);
+			hours = parseField(fields[2], 0, 23, null, 0);
+			daysOfMonth = parseField(fields[3], 1, 31, null, 0);
+			months = parseField(fields[4], 1, 12, MONTHS, 1);
+			daysOfWeek = parseField(fields[5], 1, 7, DAYS, 1);
+			domRestricted = daysOfMonth!=ALL_DAYS_OF_MONTH;
+			dowRestricted = daysOfWeek!=ALL_DAYS_OF_WEEK;
+		}
+	}
+	
+	/**
+	 * Parses a cron field into a bitset
+	 * @param field The field to parse
+	 * @param min The minimum value of the field
+	 * @param max The maximum value of the field
+	 * @param names The value names, or null if the field has no names
+	 * @param nameBase The value of the first name
+	 * @return the field bitset
+	 */
+	private static long parseField(String field, int min, int max, String[] names, int nameBase) {
+		long bits = 0L;
+		for(String item: field.split(",")) {
+			if(item.isEmpty()) throw new IllegalArgumentException("Empty item in cron field [" + field + "]");
+			int step = 1;
+			int slash = item.indexOf('/');
+			if(slash!=-1) {
+				step = parseValue(item.substring(slash+1), 1, max, null, 0);
+				item = item.substring(0, slash);
+			}
+			int from, to;
+			if("*".equals(item) || "?".equals(item)) {
+				from = min; to = max;
+			} else {
+				int dash = item.indexOf('-');
+				if(dash!=-1) {
+					from = parseValue(item.substring(0, dash), min, max, names, nameBase);
+					to = parseValue(item.substring(dash+1), min, max, names, nameBase);
+				} else {
+					from = parseValue(item, min, max, names, nameBase);
+					to = slash==-1 ? from : max;
+				}
+			}
+			if(from <= to) {
+				for(int v = from; v <= to; v += step) bits |= (1L << v);
+			} else {
+				// wrapping range such as FRI-MON or 22-2
+				int span = (max - from) + (to - min) + 1;
+				for(int i = 0; i <= span; i += step) {
+					int v = from + i;
+					if(v > max) v = v - max - 1 + min;
+					bits |= (1L << v);
+				}
+			}
+		}
+		return bits;
+	}
+	
+	/**
+	 * Parses a single cron field value
+	 * @param value The value to parse
+	 * @param min The minimum value of the field
+	 * @param max The maximum value of the field
+	 * @param names The value names, or null if the field has no names
+	 * @param nameBase The value of the first name
+	 * @return the parsed value
+	 */
+	private static int parseValue(String value, int min, int max, String[] names, int nameBase) {
+		if(names!=null) {
+			for(int i = 0; i < names.length; i++) {
+				if(names[i].equals(value)) return i + nameBase;
+			}
+		}
+		int v;
+		try {
+			v = Integer.parseInt(value);
+		} catch (NumberFormatException nex) {
+			throw new IllegalArgumentException("Invalid cron value [" + value + "]");
+		}
+		if(v < min || v > max) throw new IllegalArgumentException("Cron value [" + value + "] out of range [" + min + "-" + max + "]");
+		return v;
+	}
+	
+	/**
+	 * Returns the lowest set bit at or above the passed index
+	 * @param bits The bitset
+	 * @param from The index to search from
+	 * @return the index of the next set bit or -1 if there is none
+	 */
+	private static int nextBit(long bits, int from) {
+		if(from > 63) return -1;
+		long masked = bits & (-1L << from);
+		return masked==0L ? -1 : Long.numberOfTrailingZeros(masked);
+	}
+	
+	/**
+	 * Returns the number of days in the passed month
+	 * @param year The year
+	 * @param month The month (1-12)
+	 * @return the number of days in the month
+	 */
+	private static int daysInMonth(long year, int month) {
+		switch(month) {
+			case 2:
+				return ((year % 4 == 0 && year % 100 != 0) || year % 400 == 0) ? 29 : 28;
+			case 4: case 6: case 9: case 11:
+				return 30;
+			default:
+				return 31;
+		}
+	}
+	
+	/**
+	 * Returns the number of days since the epoch of the passed civil date
+	 * @param year The year
+	 * @param month The month (1-12)
+	 * @param day The day of the month
+	 * @return the number of days since 1970-01-01
+	 */
+	private static long daysFromCivil(long year, int month, int day) {
+		long y = month <= 2 ? year - 1 : year;
+		long era = (y >= 0 ? y : y - 399) / 400;
+		long yoe = y - era * 400;
+		long doy = (153 * (month > 2 ? month - 3 : month + 9) + 2) / 5 + day - 1;
+		long doe = yoe * 365 + yoe / 4 - yoe / 100 + doy;
+		return era * 146097 + doe - 719468;
+	}
+	
+	/**
+	 * Floored integer division
+	 * @param a The dividend
+	 * @param b The positive divisor
+	 * @return the largest value less than or equal to the quotient
+	 */
+	private static long floorDiv(long a, long b) {
+		long q = a / b;
+		return (a % b != 0 && a < 0) ? q - 1 : q;
+	}
+	
+	/**
+	 * Returns the next fire time strictly after the passed time
+	 * @param afterMs The epoch millis to compute the next fire time after
+	 * @return the next fire time in epoch millis or {@link #NEVER}
+	 */
+	public long nextFireTime(final long afterMs) {
+		if(fallback!=null) {
+			Date next = fallback.getNextValidTimeAfter(new Date(afterMs));
+			return next==null ? NEVER : next.getTime();
+		}
+		// the first candidate is the next whole second in local time
+		long local = floorDiv(afterMs + timeZone.getOffset(afterMs), 1000L) + 1;
+		for(int attempt = 0; attempt < MAX_TRANSITION_ATTEMPTS; attempt++) {
+			long candidate = nextLocal(local);
+			if(candidate==NEVER) return NEVER;
+			// resolve the local time against the offsets either side of any daylight savings transition.
+			// local times in a gap are skipped and repeated local times resolve to the later instant, as in Quartz.
+			long localMs = candidate * 1000L;
+			int before = timeZone.getOffset(localMs - DAY_MS), after = timeZone.getOffset(localMs + DAY_MS);
+			long utcBefore = localMs - before, utcAfter = localMs - after;
+			if(utcAfter > afterMs && timeZone.getOffset(utcAfter)==after) return utcAfter;
+			if(utcBefore > afterMs && timeZone.getOffset(utcBefore)==before) return utcBefore;
+			local = candidate + 1;
+		}
+		return NEVER;
+	}
+	
+	/**
+	 * Returns the first matching local time at or after the passed local time
+	 * @param localSecs The local time in seconds since the epoch
+	 * @return the next matching local time in seconds since the epoch or {@link #NEVER}
+	 */
+	protected long nextLocal(final long localSecs) {
+		long days = floorDiv(localSecs, DAY_SECS);
+		int secOfDay = (int)(localSecs - (days * DAY_SECS));
+		final long maxDays = days + (MAX_SEARCH_YEARS * 366L);
+		for(; days <= maxDays; days++, secOfDay = 0) {
+			// civil date from days since the epoch
+			long z = days + 719468;
+			long era = (z >= 0 ? z : z - 146096) / 146097;
+			long doe = z - era * 146097;
+			long yoe = (doe - doe / 1460 + doe / 36524 - doe / 146096) / 365;
+			long doy = doe - (365 * yoe + yoe / 4 - yoe / 100);
+			long mp = (5 * doy + 2) / 153;
+			int day = (int)(doy - (153 * mp + 2) / 5 + 1);
+			int month = (int)(mp < 10 ? mp + 3 : mp - 9);
+			long year = yoe + era * 400 + (month <= 2 ? 1 : 0);
+			if((months & (1L << month))==0L) {
+				// skip to the last day of the month
+				days += daysInMonth(year, month) - day;
+				continue;
+			}
+			if(!dayMatches(day, (int)(((days + 4) % 7 + 7) % 7) + 1)) continue;
+			int t = nextTimeOfDay(secOfDay);
+			if(t!=-1) return (days * DAY_SECS) + t;
+		}
+		return NEVER;
+	}
+	
+	/**
+	 * Determines if the passed day matches the day of month and day of week fields. 
+	 * When both fields are restricted, either field matching is enough.
+	 * @param dayOfMonth The day of the month
+	 * @param dayOfWeek The day of the week (Sunday is 1)
+	 * @return true if the day matches
+	 */
+	protected boolean dayMatches(int dayOfMonth, int dayOfWeek) {
+		boolean dom = (daysOfMonth & (1L << dayOfMonth))!=0L;
+		boolean dow = (daysOfWeek & (1L << dayOfWeek))!=0L;
+		if(domRestricted && dowRestricted) return dom || dow;
+		return dom && dow;
+	}
+	
+	/**
+	 * Returns the first matching second of the day at or after the passed second of the day
+	 * @param secOfDay The second of the day to search from
+	 * @return the matching second of the day or -1 if there is none
+	 */
+	protected int nextTimeOfDay(int secOfDay) {
+		final int hour = secOfDay / 3600, minute = (secOfDay / 60) % 60, second = secOfDay % 60;
+		for(int h = nextBit(hours, hour); h != -1; h = nextBit(hours, h + 1)) {
+			for(int m = nextBit(minutes, h==hour ? minute : 0); m != -1; m = nextBit(minutes, m + 1)) {
+				int s = nextBit(seconds, (h==hour && m==minute) ? second : 0);
+				if(s != -1) return (h * 3600) + (m * 60) + s;
+			}
+		}
+		return -1;
+	}
+	
+	/**
+	 * Returns the cron expression
+	 * @return the cron expression
+	 */
+	public String getExpression() {
+		return expression;
+	}
+	
+	/**
+	 * Returns the time zone the expression is evaluated in
+	 * @return the time zone
+	 */
+	public TimeZone getTimeZone() {
+		return timeZone;
+	}
+	
+	/**
+	 * Indicates if this expression was compiled or is delegated to Quartz
+	 * @return true if compiled, false if delegated to Quartz
+	 */
+	public boolean isCompiled() {
+		return fallback==null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "CronSchedule [" + expression + "]";
+	}
+}
@@ -0,0 +1,104 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * <p>Title: CronScheduledTask</p>
+ * <p>Description: A {@link ScheduledTask} that fires in accordance with a compiled {@link CronSchedule}.
+ * The same task instance is re-armed by the {@link CollectionScheduler} after each execution.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.CronScheduledTask</code></p>
+ * @param <V> The result type of the task
+ */
+public class CronScheduledTask<V> extends ScheduledTask<V> {
+	/** The compiled cron schedule */
+	protected final CronSchedule cronSchedule;
+	/** The epoch millis of the next fire time */
+	protected volatile long nextFireTime;
+
+	/**
+	 * Creates a new CronScheduledTask
+	 * @param scheduler The scheduler that re-arms this task
+	 * @param callable The callable to execute
+	 * @param cronSchedule The compiled cron schedule
+	 * @param firstFireTime The epoch millis of the first fire time
+	 */
+	public CronScheduledTask(CollectionScheduler scheduler, Callable<V> callable, CronSchedule cronSchedule, long firstFireTime) {
+		super(scheduler, callable, toNanoTime(System.nanoTime(), firstFireTime));
+		this.cronSchedule = cronSchedule;
+		this.nextFireTime = firstFireTime;
+	}
+	
+	/**
+	 * Converts an epoch millis time to a nano time
+	 * @param now The current nano time
+	 * @param epochMs The epoch millis time to convert
+	 * @return the nano time
+	 */
+	private static long toNanoTime(long now, long epochMs) {
+		return now + TimeUnit.MILLISECONDS.toNanos(Math.max(0L, epochMs - System.currentTimeMillis()));
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ScheduledTask#nextTime(long)
+	 */
+	@Override
+	protected long nextTime(long now) {
+		long next = cronSchedule.nextFireTime(Math.max(System.currentTimeMillis(), nextFireTime));
+		if(next==CronSchedule.NEVER) return NO_NEXT;
+		nextFireTime = next;
+		return toNanoTime(now, next);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ScheduledTask#isPeriodic()
+	 */
+	@Override
+	public boolean isPeriodic() {
+		return true;
+	}
+	
+	/**
+	 * Returns the epoch millis of the next fire time
+	 * @return the epoch millis of the next fire time
+	 */
+	public long getNextFireTime() {
+		return nextFireTime;
+	}
+	
+	/**
+	 * Returns the compiled cron schedule
+	 * @return the cron schedule
+	 */
+	public CronSchedule getCronSchedule() {
+		return cronSchedule;
+	}
+}
@@ -24,7 +24,6 @@
  */
 package com.heliosapm.watchtower.core;
 
-import org.helios.jmx.concurrency.JMXManagedThreadPool;
 import org.helios.jmx.util.helpers.JMXHelper;
 import org.springframework.beans.factory.annotation.Qualifier;
 
@@ -39,7 +38,7 @@ import com.heliosapm.watchtower.core.annotation.Propagate;
  */
 @Qualifier("SpringEvent")
 @Propagate
-public class EventExecutor extends JMXManagedThreadPool implements EventExecutorMBean {
+public class EventExecutor extends ModalThreadPool implements EventExecutorMBean {
 	/** The event executor singleton instance */
 	private static volatile EventExecutor instance = null;
 	/** The event executor singleton instance */
@@ -0,0 +1,478 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.heliosapm.watchtower.groovy.annotation.CollectionPriority;
+
+/**
+ * <p>Title: ExecutorAutoSizer</p>
+ * <p>Description: Sizes the core pool of a thread pool from the time tasks wait in its queue. Tasks are timed from submission 
+ * to start, and the share of their run time that the running thread was not on CPU is measured as the blocked share.
+ * On each interval the controller grows the core pool (doubling it while the wait is over four times the target, otherwise
+ * by a quarter) when the average queue wait exceeds the target latency and the tasks
+ * are mostly blocked (on I/O, locks or remote targets), since more threads then drain the queue faster. When the tasks are mostly
+ * on CPU, more threads only add contention, so the pool is held. The pool shrinks after {@link #SHRINK_INTERVALS} consecutive
+ * intervals in which the queue wait stays under a quarter of the target and fewer than half the core threads are active.
+ * The core pool is kept within the configured bounds and every decision is logged.</p>
+ * <p>The properties may be set for one pool by appending <b><code>.&lt;pool name&gt;</code></b> to the property name.</p>
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ExecutorAutoSizer</code></p>
+ */
+
+public class ExecutorAutoSizer implements Runnable {
+	/** The config property name to enable auto sizing */
+	public static final String AUTOSIZE_PROP = "com.heliosapm.watchtower.executor.autosize";
+	/** The default auto sizing enablement */
+	public static final boolean DEFAULT_AUTOSIZE = false;
+	/** The config property name for the minimum core pool size (defaults to the pool's configured core size) */
+	public static final String AUTOSIZE_MIN_PROP = "com.heliosapm.watchtower.executor.autosize.min";
+	/** The config property name for the maximum core pool size */
+	public static final String AUTOSIZE_MAX_PROP = "com.heliosapm.watchtower.executor.autosize.max";
+	/** The default maximum core pool size */
+	public static final int DEFAULT_AUTOSIZE_MAX = Runtime.getRuntime().availableProcessors() * 8;
+	/** The config property name for the target queue wait in ms. */
+	public static final String AUTOSIZE_TARGET_PROP = "com.heliosapm.watchtower.executor.autosize.target";
+	/** The default target queue wait in ms. */
+	public static final long DEFAULT_AUTOSIZE_TARGET = 50L;
+	/** The config property name for the controller interval in ms. */
+	public static final String AUTOSIZE_INTERVAL_PROP = "com.heliosapm.watchtower.executor.autosize.interval";
+	/** The default controller interval in ms. */
+	public static final long DEFAULT_AUTOSIZE_INTERVAL = 5000L;
+	/** The config property name for the minimum blocked percentage of task time for the pool to grow */
+	public static final String AUTOSIZE_BLOCKED_PROP = "com.heliosapm.watchtower.executor.autosize.blocked";
+	/** The default minimum blocked percentage of task time for the pool to grow */
+	public static final int DEFAULT_AUTOSIZE_BLOCKED = 50;
+	/** The number of consecutive idle intervals after which the pool shrinks */
+	public static final int SHRINK_INTERVALS = 3;
+	
+	/** The thread MXBean used to measure task CPU time */
+	private static final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+	
+	/** Instance logger */
+	protected final Logger log;
+	/** The sized pool */
+	protected final ThreadPoolExecutor pool;
+	/** The sized pool's name */
+	protected final String poolName;
+	/** The controller interval in ms. */
+	protected final long interval;
+	/** The minimum blocked percentage of task time for the pool to grow */
+	protected final int blockedThreshold;
+	/** Indicates if auto sizing is enabled */
+	protected volatile boolean enabled;
+	/** The minimum core pool size */
+	protected volatile int minCore;
+	/** The maximum core pool size */
+	protected volatile int maxCore;
+	/** The target queue wait in ms. */
+	protected volatile long targetLatency;
+	/** The controller thread, started when auto sizing is first enabled */
+	protected Thread controllerThread = null;
+	
+	/** The total queue wait in nanos of the tasks started in the current interval */
+	protected final AtomicLong queueWaitNanos = new AtomicLong(0L);
+	/** The number of tasks started in the current interval */
+	protected final AtomicLong startedTasks = new AtomicLong(0L);
+	/** The total run time in nanos of the CPU timed tasks completed in the current interval */
+	protected final AtomicLong runNanos = new AtomicLong(0L);
+	/** The total CPU time in nanos of the tasks completed in the current interval */
+	protected final AtomicLong cpuNanos = new AtomicLong(0L);
+	/** The number of times the pool was grown */
+	protected final AtomicLong growCount = new AtomicLong(0L);
+	/** The number of times the pool was shrunk */
+	protected final AtomicLong shrinkCount = new AtomicLong(0L);
+	/** The average queue wait in ms. of the last interval */
+	protected volatile long averageQueueWait = 0L;
+	/** The blocked percentage of task time in the last interval, or -1 if not measured */
+	protected volatile int blockedPercent = -1;
+	/** The most recent sizing decision */
+	protected volatile String lastDecision = "None";
+	/** The number of consecutive idle intervals, accessed only by the controller thread */
+	protected int idleIntervals = 0;
+	
+	/**
+	 * Creates a new ExecutorAutoSizer
+	 * @param pool The pool to size
+	 * @param poolName The pool name
+	 */
+	public ExecutorAutoSizer(ThreadPoolExecutor pool, String poolName) {
+		this.pool = pool;
+		this.poolName = poolName;
+		log = LoggerFactory.getLogger(getClass().getName() + "." + poolName);
+		minCore = Math.max(1, Integer.parseInt(property(AUTOSIZE_MIN_PROP, poolName, "" + pool.getCorePoolSize())));
+		maxCore = Math.max(minCore, Integer.parseInt(property(AUTOSIZE_MAX_PROP, poolName, "" + DEFAULT_AUTOSIZE_MAX)));
+		targetLatency = Math.max(1L, Long.parseLong(property(AUTOSIZE_TARGET_PROP, poolName, "" + DEFAULT_AUTOSIZE_TARGET)));
+		interval = Math.max(100L, Long.parseLong(property(AUTOSIZE_INTERVAL_PROP, poolName, "" + DEFAULT_AUTOSIZE_INTERVAL)));
+		blockedThreshold = Math.min(100, Math.max(0, Integer.parseInt(property(AUTOSIZE_BLOCKED_PROP, poolName, "" + DEFAULT_AUTOSIZE_BLOCKED))));
+		if(Boolean.parseBoolean(property(AUTOSIZE_PROP, poolName, "" + DEFAULT_AUTOSIZE))) {
+			setEnabled(true);
+		}
+	}
+	
+	/**
+	 * Reads a pool specific property, falling back to the general property
+	 * @param name The property name
+	 * @param poolName The pool name
+	 * @param defaultValue The default value
+	 * @return the property value
+	 */
+	private static String property(String name, String poolName, String defaultValue) {
+		return ConfigurationHelper.getSystemThenEnvProperty(name + "." + poolName, 
+				ConfigurationHelper.getSystemThenEnvProperty(name, defaultValue)).trim();
+	}
+	
+	/**
+	 * Returns the CPU time of the current thread
+	 * @return the current thread's CPU time in nanos or -1 if not available
+	 */
+	private static long cpuTime() {
+		return threadMXBean.isCurrentThreadCpuTimeSupported() ? threadMXBean.getCurrentThreadCpuTime() : -1L;
+	}
+	
+	/**
+	 * Wraps a task so its queue wait and CPU time are measured, if auto sizing is enabled. A task carrying any of the 
+	 * {@link PrioritizedTask}, {@link TargetedTask} or {@link RejectableTask} markers is wrapped in a {@link MarkedTimedTask} 
+	 * so the markers remain visible to the pool's rejection policy and queue.
+	 * @param task The task to wrap
+	 * @return the timed task, or the passed task if auto sizing is disabled
+	 */
+	public Runnable wrap(Runnable task) {
+		if(!enabled || task==null) return task;
+		if(task instanceof PrioritizedTask || task instanceof TargetedTask || task instanceof RejectableTask) return new MarkedTimedTask(task);
+		return new TimedTask(task);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		log.info("Started auto sizing of [{}] within [{}] - [{}] threads", new Object[]{poolName, minCore, maxCore});
+		while(!pool.isShutdown()) {
+			try {
+				Thread.sleep(interval);
+				if(enabled) evaluate();
+			} catch (InterruptedException iex) {
+				Thread.interrupted();
+			} catch (Throwable t) {
+				log.warn("Auto sizing of [{}] failed", poolName, t);
+			}
+		}
+	}
+	
+	/**
+	 * Evaluates the last interval's measurements and resizes the pool's core size if warranted
+	 * @return the decision
+	 */
+	protected synchronized String evaluate() {
+		final long started = startedTasks.getAndSet(0L);
+		final long waited = queueWaitNanos.getAndSet(0L);
+		final long ran = runNanos.getAndSet(0L);
+		final long cpu = cpuNanos.getAndSet(0L);
+		final double avgWaitMs = started==0 ? 0D : (double)waited / started / 1000000D;
+		final int blocked = ran==0 ? -1 : (int)Math.max(0L, 100L - (cpu * 100L / ran));
+		averageQueueWait = (long)avgWaitMs;
+		blockedPercent = blocked;
+		final int core = pool.getCorePoolSize();
+		final int active = pool.getActiveCount();
+		final int queued = pool.getQueue().size();
+		final long target = targetLatency;
+		final String measures = String.format("avg wait %.1f ms (target %s ms), blocked %s%%, active %s/%s, queued %s", 
+				avgWaitMs, target, blocked, active, core, queued);
+		String decision;
+		if(avgWaitMs > target) {
+			idleIntervals = 0;
+			if(blocked >= 0 && blocked < blockedThreshold) {
+				decision = "HOLD " + core + ": tasks are CPU bound, " + measures;
+			} else if(core >= maxCore) {
+				decision = "HOLD " + core + ": at maximum, " + measures;
+			} else {
+				// double the pool when the wait is far over target, otherwise grow by a quarter
+				final int next = Math.min(maxCore, core + (avgWaitMs > target * 4D ? core : Math.max(1, core / 4)));
+				resize(next);
+				growCount.incrementAndGet();
+				decision = "GROW " + core + "->" + next + ": " + measures;
+			}
+		} else if(avgWaitMs < target / 4D && queued==0 && active < core / 2D) {
+			idleIntervals++;
+			if(core > minCore && idleIntervals >= SHRINK_INTERVALS) {
+				idleIntervals = 0;
+				final int next = Math.max(minCore, core - Math.max(1, core / 8));
+				resize(next);
+				shrinkCount.incrementAndGet();
+				decision = "SHRINK " + core + "->" + next + ": " + measures;
+			} else {
+				decision = "HOLD " + core + ": idle " + idleIntervals + "/" + SHRINK_INTERVALS + ", " + measures;
+			}
+		} else {
+			idleIntervals = 0;
+			decision = "HOLD " + core + ": within target, " + measures;
+		}
+		if(decision.startsWith("HOLD")) {
+			log.debug("[{}] {}", poolName, decision);
+		} else {
+			log.info("[{}] {}", poolName, decision);
+		}
+		lastDecision = decision;
+		return decision;
+	}
+	
+	/**
+	 * Sets the pool's core size, raising the maximum pool size first if required
+	 * @param coreSize The new core size
+	 */
+	protected void resize(int coreSize) {
+		if(coreSize > pool.getMaximumPoolSize()) pool.setMaximumPoolSize(coreSize);
+		pool.setCorePoolSize(coreSize);
+	}
+	
+	/**
+	 * Indicates if auto sizing is enabled
+	 * @return true if auto sizing is enabled
+	 */
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	/**
+	 * Enables or disables auto sizing. The controller thread is started the first time auto sizing is enabled.
+	 * @param enabled true to enable, false to disable
+	 */
+	public synchronized void setEnabled(boolean enabled) {
+		if(enabled && !this.enabled) {
+			startedTasks.set(0L); queueWaitNanos.set(0L); runNanos.set(0L); cpuNanos.set(0L);
+			idleIntervals = 0;
+			if(controllerThread==null) {
+				controllerThread = new Thread(this, poolName + "AutoSizer");
+				controllerThread.setDaemon(true);
+				controllerThread.start();
+			}
+		}
+		this.enabled = enabled;
+		log.info("Auto sizing of [{}] {}", poolName, enabled ? "enabled" : "disabled");
+	}
+	
+	/**
+	 * Returns the target queue wait
+	 * @return the target queue wait in ms.
+	 */
+	public long getTargetLatency() {
+		return targetLatency;
+	}
+	
+	/**
+	 * Sets the target queue wait
+	 * @param targetLatency the target queue wait in ms.
+	 */
+	public void setTargetLatency(long targetLatency) {
+		if(targetLatency < 1) throw new IllegalArgumentException("Invalid target latency [" + targetLatency + "]");
+		this.targetLatency = targetLatency;
+	}
+	
+	/**
+	 * Returns the minimum core pool size
+	 * @return the minimum core pool size
+	 */
+	public int getMinCore() {
+		return minCore;
+	}
+	
+	/**
+	 * Sets the minimum core pool size
+	 * @param minCore the minimum core pool size
+	 */
+	public synchronized void setMinCore(int minCore) {
+		if(minCore < 1 || minCore > maxCore) throw new IllegalArgumentException("Invalid minimum core size [" + minCore + "]. Must be between 1 and [" + maxCore + "]");
+		this.minCore = minCore;
+		if(enabled && pool.getCorePoolSize() < minCore) resize(minCore);
+	}
+	
+	/**
+	 * Returns the maximum core pool size
+	 * @return the maximum core pool size
+	 */
+	public int getMaxCore() {
+		return maxCore;
+	}
+	
+	/**
+	 * Sets the maximum core pool size
+	 * @param maxCore the maximum core pool size
+	 */
+	public synchronized void setMaxCore(int maxCore) {
+		if(maxCore < minCore) throw new IllegalArgumentException("Invalid maximum core size [" + maxCore + "]. Must be at least [" + minCore + "]");
+		this.maxCore = maxCore;
+		if(enabled && pool.getCorePoolSize() > maxCore) resize(maxCore);
+	}
+	
+	/**
+	 * Returns the average queue wait of the last interval
+	 * @return the average queue wait in ms.
+	 */
+	public long getAverageQueueWait() {
+		return averageQueueWait;
+	}
+	
+	/**
+	 * Returns the percentage of task run time in the last interval that the running threads were not on CPU
+	 * @return the blocked percentage or -1 if not measured
+	 */
+	public int getBlockedPercent() {
+		return blockedPercent;
+	}
+	
+	/**
+	 * Returns the most recent sizing decision
+	 * @return the most recent sizing decision
+	 */
+	public String getLastDecision() {
+		return lastDecision;
+	}
+	
+	/**
+	 * Returns the number of times the pool was grown
+	 * @return the grow count
+	 */
+	public long getGrowCount() {
+		return growCount.get();
+	}
+	
+	/**
+	 * Returns the number of times the pool was shrunk
+	 * @return the shrink count
+	 */
+	public long getShrinkCount() {
+		return shrinkCount.get();
+	}
+	
+	/**
+	 * <p>Title: TimedTask</p>
+	 * <p>Description: Measures a task's queue wait and CPU time</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.ExecutorAutoSizer.TimedTask</code></p>
+	 */
+	class TimedTask implements Runnable {
+		/** The wrapped task */
+		final Runnable task;
+		/** The nano time the task was submitted */
+		final long submitted = System.nanoTime();
+		
+		/**
+		 * Creates a new TimedTask
+		 * @param task The wrapped task
+		 */
+		TimedTask(Runnable task) {
+			this.task = task;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			final long start = System.nanoTime();
+			queueWaitNanos.addAndGet(start - submitted);
+			startedTasks.incrementAndGet();
+			final long startCpu = cpuTime();
+			try {
+				task.run();
+			} finally {
+				if(startCpu >= 0) {
+					cpuNanos.addAndGet(cpuTime() - startCpu);
+					runNanos.addAndGet(System.nanoTime() - start);
+				}
+			}
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return task.toString();
+		}
+	}
+	
+	/**
+	 * <p>Title: MarkedTimedTask</p>
+	 * <p>Description: A {@link TimedTask} passing the wrapped task's markers through. A marker the wrapped task does not carry
+	 * reports no priority or target, and ignores rejections.</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.ExecutorAutoSizer.MarkedTimedTask</code></p>
+	 */
+	class MarkedTimedTask extends TimedTask implements PrioritizedTask, TargetedTask, RejectableTask {
+		
+		/**
+		 * Creates a new MarkedTimedTask
+		 * @param task The wrapped task
+		 */
+		MarkedTimedTask(Runnable task) {
+			super(task);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.core.PrioritizedTask#getPriority()
+		 */
+		@Override
+		public CollectionPriority getPriority() {
+			return (task instanceof PrioritizedTask) ? ((PrioritizedTask)task).getPriority() : null;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.core.TargetedTask#getTarget()
+		 */
+		@Override
+		public String getTarget() {
+			return (task instanceof TargetedTask) ? ((TargetedTask)task).getTarget() : null;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.core.RejectableTask#onRejected(java.util.concurrent.RejectedExecutionException)
+		 */
+		@Override
+		public void onRejected(RejectedExecutionException rex) {
+			if(task instanceof RejectableTask) ((RejectableTask)task).onRejected(rex);
+		}
+	}
+}
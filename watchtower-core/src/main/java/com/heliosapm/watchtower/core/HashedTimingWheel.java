@@ -0,0 +1,387 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: HashedTimingWheel</p>
+ * <p>Description: A hierarchical hashed timing wheel for {@link ScheduledTask}s. Tasks are hashed into
+ * a slot by their due tick in O(1) and cascade down through the wheel levels as their due time approaches.
+ * Inserts and cancellations are queued by the caller and applied by the single wheel thread, so callers never
+ * contend on a shared heap. Expired tasks are handed to the supplied dispatcher for execution. A dispatcher that
+ * implements {@link TickAware} is also notified at the end of every tick, after all the tick's expired tasks have been handed over.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.HashedTimingWheel</code></p>
+ */
+public class HashedTimingWheel implements Runnable {
+	/** The number of bits of the tick consumed by each level of the wheel */
+	public static final int SLOT_BITS = 6;
+	/** The number of slots in each level of the wheel */
+	public static final int SLOTS = 1 << SLOT_BITS;
+	/** The number of levels in the wheel */
+	public static final int LEVELS = 4;
+	/** The slot index mask */
+	private static final long SLOT_MASK = SLOTS - 1;
+	
+	/**
+	 * <p>Title: TickAware</p>
+	 * <p>Description: Optional interface for a wheel dispatcher that needs to know when a tick's expirations are done</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.HashedTimingWheel.TickAware</code></p>
+	 */
+	public static interface TickAware {
+		/**
+		 * Callback from the wheel thread when all the tasks expiring on the passed tick have been dispatched
+		 * @param tick The completed tick
+		 */
+		public void onTickEnd(long tick);
+	}
+	
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The wheel name */
+	protected final String name;
+	/** The tick duration in nanos */
+	protected final long tickNanos;
+	/** The nano time of tick zero */
+	protected final long startNanos;
+	/** The dispatcher that executes expired tasks */
+	protected final Executor dispatcher;
+	/** The slot list heads, indexed by level and then slot */
+	protected final ScheduledTask<?>[][] heads = new ScheduledTask<?>[LEVELS][SLOTS];
+	/** The list head for tasks due beyond the range of the top level */
+	protected ScheduledTask<?> overflow = null;
+	/** Tasks submitted to the wheel but not yet slotted */
+	protected final ConcurrentLinkedQueue<ScheduledTask<?>> pending = new ConcurrentLinkedQueue<ScheduledTask<?>>();
+	/** Tasks cancelled since the last tick */
+	protected final ConcurrentLinkedQueue<ScheduledTask<?>> cancelled = new ConcurrentLinkedQueue<ScheduledTask<?>>();
+	/** The number of tasks pending or slotted in the wheel */
+	protected final AtomicLong taskCount = new AtomicLong(0L);
+	/** The number of tasks expired and dispatched by the wheel */
+	protected final AtomicLong expiredCount = new AtomicLong(0L);
+	/** The current tick, written only by the wheel thread */
+	protected volatile long currentTick = 0L;
+	/** Indicates if the wheel is running */
+	protected final AtomicBoolean running = new AtomicBoolean(false);
+	/** The wheel thread */
+	protected final Thread wheelThread;
+	
+	/**
+	 * Creates a new HashedTimingWheel
+	 * @param name The wheel name
+	 * @param tick The tick duration
+	 * @param unit The unit of the tick duration
+	 * @param dispatcher The dispatcher that executes expired tasks
+	 */
+	public HashedTimingWheel(String name, long tick, TimeUnit unit, Executor dispatcher) {
+		if(tick < 1) throw new IllegalArgumentException("Invalid tick duration [" + tick + "]");
+		if(unit==null) throw new IllegalArgumentException("The passed unit was null");
+		if(dispatcher==null) throw new IllegalArgumentException("The passed dispatcher was null");
+		this.name = name;
+		this.tickNanos = Math.max(TimeUnit.MILLISECONDS.toNanos(1), unit.toNanos(tick));
+		this.dispatcher = dispatcher;
+		this.startNanos = System.nanoTime();
+		wheelThread = new Thread(this, name + "Wheel");
+		wheelThread.setDaemon(true);
+	}
+	
+	/**
+	 * Starts the wheel thread
+	 */
+	public void start() {
+		if(running.compareAndSet(false, true)) {
+			wheelThread.start();
+			log.info("Started HashedTimingWheel [{}] with a tick of [{}] ms", name, TimeUnit.NANOSECONDS.toMillis(tickNanos));
+		}
+	}
+	
+	/**
+	 * Stops the wheel thread and cancels all the tasks still in the wheel
+	 */
+	public void stop() {
+		if(running.compareAndSet(true, false)) {
+			LockSupport.unpark(wheelThread);
+			try { wheelThread.join(2000); } catch (InterruptedException iex) {
+				Thread.currentThread().interrupt();
+			}
+			ScheduledTask<?> task = null;
+			while((task = pending.poll())!=null) {
+				task.cancel(false);
+			}
+			for(int l = 0; l < LEVELS; l++) {
+				for(int s = 0; s < SLOTS; s++) {
+					cancelAll(heads[l][s]);
+					heads[l][s] = null;
+				}
+			}
+			cancelAll(overflow);
+			overflow = null;
+			cancelled.clear();
+			taskCount.set(0L);
+			log.info("Stopped HashedTimingWheel [{}]", name);
+		}
+	}
+	
+	/**
+	 * Cancels all the tasks in the passed slot list
+	 * @param head The head of the slot list
+	 */
+	private static void cancelAll(ScheduledTask<?> head) {
+		ScheduledTask<?> task = head;
+		while(task!=null) {
+			ScheduledTask<?> next = task.next;
+			task.next = null; task.prev = null; task.level = -1; task.slot = -1;
+			task.cancel(false);
+			task = next;
+		}
+	}
+	
+	/**
+	 * Adds a task to the wheel. The task will be dispatched on the first tick at or after its due time.
+	 * @param task The task to add
+	 */
+	public void add(ScheduledTask<?> task) {
+		if(task==null) throw new IllegalArgumentException("The passed task was null");
+		if(!running.get()) throw new RejectedExecutionException("HashedTimingWheel [" + name + "] is not running");
+		long offset = task.getTime() - startNanos;
+		task.deadlineTick = offset <= 0 ? 0L : ((offset + tickNanos - 1) / tickNanos);
+		taskCount.incrementAndGet();
+		pending.add(task);
+	}
+	
+	/**
+	 * Notifies the wheel that a task has been cancelled so it can be unlinked on the next tick
+	 * @param task The cancelled task
+	 */
+	public void cancel(ScheduledTask<?> task) {
+		if(task!=null && running.get()) {
+			cancelled.add(task);
+		}
+	}
+
+	/**
+	 * <p>The wheel thread loop</p>
+	 * {@inheritDoc}
+	 * @see java.lang.Runnable#run()
+	 */
+	@Override
+	public void run() {
+		while(running.get()) {
+			long sleep = (startNanos + ((currentTick + 1) * tickNanos)) - System.nanoTime();
+			if(sleep > 0) {
+				LockSupport.parkNanos(this, sleep);
+				continue;
+			}
+			try {
+				final long tick = currentTick + 1;
+				currentTick = tick;
+				processCancelled();
+				processPending();
+				advance(tick);
+				if(dispatcher instanceof TickAware) {
+					((TickAware)dispatcher).onTickEnd(tick);
+				}
+			} catch (Throwable t) {
+				log.error("HashedTimingWheel [{}] tick failure", name, t);
+			}
+		}
+	}
+	
+	/**
+	 * Unlinks the tasks cancelled since the last tick
+	 */
+	protected void processCancelled() {
+		ScheduledTask<?> task = null;
+		while((task = cancelled.poll())!=null) {
+			if(task.level >= 0) {
+				unlink(task);
+				taskCount.decrementAndGet();
+			}
+		}
+	}
+	
+	/**
+	 * Slots the tasks added since the last tick
+	 */
+	protected void processPending() {
+		ScheduledTask<?> task = null;
+		while((task = pending.poll())!=null) {
+			place(task);
+		}
+	}
+	
+	/**
+	 * Cascades the higher level slots that come due on the passed tick and expires the level zero slot
+	 * @param tick The tick to advance to
+	 */
+	protected void advance(final long tick) {
+		for(int l = LEVELS; l > 0; l--) {
+			if((tick & ((1L << (l * SLOT_BITS)) - 1)) != 0) continue;
+			ScheduledTask<?> head = null;
+			if(l==LEVELS) {
+				head = overflow;
+				overflow = null;
+			} else {
+				int s = (int)((tick >>> (l * SLOT_BITS)) & SLOT_MASK);
+				head = heads[l][s];
+				heads[l][s] = null;
+			}
+			while(head!=null) {
+				ScheduledTask<?> next = head.next;
+				head.next = null; head.prev = null; head.level = -1; head.slot = -1;
+				place(head);
+				head = next;
+			}
+		}
+		int s = (int)(tick & SLOT_MASK);
+		ScheduledTask<?> head = heads[0][s];
+		heads[0][s] = null;
+		while(head!=null) {
+			ScheduledTask<?> next = head.next;
+			head.next = null; head.prev = null; head.level = -1; head.slot = -1;
+			expire(head);
+			head = next;
+		}
+	}
+	
+	/**
+	 * Slots the passed task into the level determined by the highest tick digit in which
+	 * its due tick differs from the current tick, or expires it if it is already due
+	 * @param task The task to place
+	 */
+	protected void place(ScheduledTask<?> task) {
+		if(task.isCancelled()) {
+			taskCount.decrementAndGet();
+			return;
+		}
+		final long due = task.deadlineTick;
+		final long now = currentTick;
+		if(due <= now) {
+			expire(task);
+			return;
+		}
+		int l = (63 - Long.numberOfLeadingZeros(due ^ now)) / SLOT_BITS;
+		if(l >= LEVELS) {
+			task.level = LEVELS;
+			task.slot = 0;
+			task.prev = null;
+			task.next = overflow;
+			if(overflow!=null) overflow.prev = task;
+			overflow = task;
+		} else {
+			int s = (int)((due >>> (l * SLOT_BITS)) & SLOT_MASK);
+			task.level = l;
+			task.slot = s;
+			task.prev = null;
+			task.next = heads[l][s];
+			if(task.next!=null) task.next.prev = task;
+			heads[l][s] = task;
+		}
+	}
+	
+	/**
+	 * Removes the passed task from the slot list it is linked into
+	 * @param task The task to unlink
+	 */
+	protected void unlink(ScheduledTask<?> task) {
+		if(task.prev!=null) {
+			task.prev.next = task.next;
+		} else if(task.level==LEVELS) {
+			overflow = task.next;
+		} else {
+			heads[task.level][task.slot] = task.next;
+		}
+		if(task.next!=null) task.next.prev = task.prev;
+		task.next = null; task.prev = null; task.level = -1; task.slot = -1;
+	}
+	
+	/**
+	 * Dispatches an expired task for execution
+	 * @param task The expired task
+	 */
+	protected void expire(ScheduledTask<?> task) {
+		taskCount.decrementAndGet();
+		if(task.isCancelled()) return;
+		expiredCount.incrementAndGet();
+		try {
+			dispatcher.execute(task);
+		} catch (RejectedExecutionException rex) {
+			log.warn("HashedTimingWheel [{}] dispatch rejected for task [{}]", name, task);
+			task.cancel(false);
+		}
+	}
+	
+	/**
+	 * Returns the number of tasks pending or slotted in the wheel
+	 * @return the number of tasks in the wheel
+	 */
+	public long getTaskCount() {
+		return taskCount.get();
+	}
+	
+	/**
+	 * Returns the number of tasks expired and dispatched by the wheel
+	 * @return the number of dispatched tasks
+	 */
+	public long getExpiredCount() {
+		return expiredCount.get();
+	}
+	
+	/**
+	 * Returns the wheel tick duration in ms.
+	 * @return the wheel tick duration in ms.
+	 */
+	public long getTickMs() {
+		return TimeUnit.NANOSECONDS.toMillis(tickNanos);
+	}
+	
+	/**
+	 * Returns the current wheel tick
+	 * @return the current wheel tick
+	 */
+	public long getCurrentTick() {
+		return currentTick;
+	}
+	
+	/**
+	 * Indicates if the wheel is running
+	 * @return true if the wheel is running, false otherwise
+	 */
+	public boolean isRunning() {
+		return running.get();
+	}
+}
@@ -0,0 +1,425 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.lang.reflect.Method;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+import org.helios.jmx.concurrency.JMXManagedThreadPool;
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: ModalThreadPool</p>
+ * <p>Description: A {@link JMXManagedThreadPool} that can alternatively run each task on its own virtual thread.
+ * The mode is selected at startup with {@link #EXECUTION_MODE_PROP}, or per pool by appending <b><code>.&lt;pool name&gt;</code></b>
+ * to the property name. Virtual threads require a JRE that supports them; on older JREs the pool stays in pool mode.</p>
+ * <p>In virtual mode, the standard thread pool attributes report the equivalent virtual thread counts. Collections against the same 
+ * target are limited by the {@link TargetGovernor}, which is enabled by default when the collection executor runs in virtual mode.</p> 
+ * <p>In pool mode, the core pool size can be sized automatically from the tasks' queue wait by an {@link ExecutorAutoSizer}.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ModalThreadPool</code></p>
+ */
+public class ModalThreadPool extends JMXManagedThreadPool implements ModalThreadPoolMBean {
+	/** The config property name for the execution mode, one of {@link #MODE_POOL} or {@link #MODE_VIRTUAL} */
+	public static final String EXECUTION_MODE_PROP = "com.heliosapm.watchtower.executor.mode";
+	/** The thread pool execution mode name */
+	public static final String MODE_POOL = "pool";
+	/** The virtual thread execution mode name */
+	public static final String MODE_VIRTUAL = "virtual";
+	/** The default execution mode */
+	public static final String DEFAULT_EXECUTION_MODE = MODE_POOL;
+	
+	/** Static class logger */
+	private static final Logger LOG = LoggerFactory.getLogger(ModalThreadPool.class);
+	
+	/** The virtual thread per task executor, or null if in pool mode */
+	protected final ExecutorService virtualExecutor;
+	/** The number of tasks submitted in virtual mode */
+	protected final AtomicLong virtualSubmitted = new AtomicLong(0L);
+	/** The number of tasks completed in virtual mode */
+	protected final AtomicLong virtualCompleted = new AtomicLong(0L);
+	/** The number of tasks rejected in either mode */
+	protected final AtomicLong rejected = new AtomicLong(0L);
+	/** The number of virtual threads running a task */
+	protected final AtomicInteger virtualActive = new AtomicInteger(0);
+	/** The highest number of virtual threads running a task */
+	protected final AtomicInteger virtualPeak = new AtomicInteger(0);
+	/** The core pool size controller, or null if in virtual mode */
+	protected final ExecutorAutoSizer autoSizer;
+
+	/**
+	 * Creates a new ModalThreadPool
+	 * @param objectName The JMX ObjectName of the pool
+	 * @param poolName The pool name
+	 */
+	public ModalThreadPool(ObjectName objectName, String poolName) {
+		super(objectName, poolName);
+		virtualExecutor = createVirtualExecutor(poolName);
+		autoSizer = virtualExecutor==null ? new ExecutorAutoSizer(this, poolName) : null;
+		if(virtualExecutor==null) countRejections();
+	}
+	
+	/**
+	 * Creates a new ModalThreadPool
+	 * @param objectName The JMX ObjectName of the pool
+	 * @param poolName The pool name
+	 * @param publishJMX If true, publishes the JMX interface
+	 */
+	public ModalThreadPool(ObjectName objectName, String poolName, boolean publishJMX) {
+		super(objectName, poolName, publishJMX);
+		virtualExecutor = createVirtualExecutor(poolName);
+		autoSizer = virtualExecutor==null ? new ExecutorAutoSizer(this, poolName) : null;
+		if(virtualExecutor==null) countRejections();
+	}
+	
+	/**
+	 * Counts the tasks rejected in pool mode before passing them to the pool's rejection policy, whatever the policy
+	 */
+	private void countRejections() {
+		final RejectedExecutionHandler policy = getRejectedExecutionHandler();
+		setRejectedExecutionHandler(new RejectedExecutionHandler() {
+			@Override
+			public void rejectedExecution(Runnable r, ThreadPoolExecutor executor) {
+				rejected.incrementAndGet();
+				policy.rejectedExecution(r, executor);
+			}
+		});
+	}
+	
+	/**
+	 * Indicates if the named pool is configured to run in virtual mode, whether or not the JRE supports virtual threads
+	 * @param poolName The pool name
+	 * @return true if the configured mode for the named pool is virtual
+	 */
+	public static boolean isVirtualConfigured(String poolName) {
+		String mode = ConfigurationHelper.getSystemThenEnvProperty(EXECUTION_MODE_PROP + "." + poolName, 
+				ConfigurationHelper.getSystemThenEnvProperty(EXECUTION_MODE_PROP, DEFAULT_EXECUTION_MODE)).trim();
+		return MODE_VIRTUAL.equalsIgnoreCase(mode);
+	}
+	
+	/**
+	 * Creates the virtual thread per task executor if the configured mode for the named pool is virtual
+	 * @param poolName The pool name
+	 * @return the virtual thread executor or null if the pool is in pool mode
+	 */
+	private static ExecutorService createVirtualExecutor(String poolName) {
+		if(!isVirtualConfigured(poolName)) return null;
+		try {
+			// Thread.ofVirtual().name(poolName + "#", 0).factory()
+			Object builder = Thread.class.getMethod("ofVirtual").invoke(null);
+			Class<?> builderClass = Class.forName("java.lang.Thread$Builder");
+			builder = builderClass.getMethod("name", String.class, long.class).invoke(builder, poolName + "#", 0L);
+			ThreadFactory factory = (ThreadFactory)builderClass.getMethod("factory").invoke(builder);
+			Method m = java.util.concurrent.Executors.class.getMethod("newThreadPerTaskExecutor", ThreadFactory.class);
+			ExecutorService executor = (ExecutorService)m.invoke(null, factory);
+			LOG.info("ThreadPool [{}] running in virtual thread mode", poolName);
+			return executor;
+		} catch (Exception ex) {
+			LOG.warn("Virtual threads are not supported by this JRE [{}]. ThreadPool [{}] will run in pool mode", System.getProperty("java.version"), poolName);
+			return null;
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ThreadPoolExecutor#execute(java.lang.Runnable)
+	 */
+	@Override
+	public void execute(final Runnable command) {
+		if(virtualExecutor==null) {
+			super.execute(autoSizer.wrap(command));
+			return;
+		}
+		if(command==null) throw new NullPointerException();
+		try {
+			virtualExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					runVirtual(command);
+				}
+			});
+			virtualSubmitted.incrementAndGet();
+		} catch (RejectedExecutionException rex) {
+			rejected.incrementAndGet();
+			throw rex;
+		}
+	}
+	
+	/**
+	 * Runs a task on the current virtual thread
+	 * @param command The task to run
+	 */
+	protected void runVirtual(Runnable command) {
+		int active = virtualActive.incrementAndGet();
+		while(true) {
+			int peak = virtualPeak.get();
+			if(active <= peak || virtualPeak.compareAndSet(peak, active)) break;
+		}
+		try {
+			command.run();
+		} catch (Throwable t) {
+			LOG.error("Uncaught exception in virtual thread task [{}]", command, t);
+		} finally {
+			virtualActive.decrementAndGet();
+			virtualCompleted.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ThreadPoolExecutor#shutdown()
+	 */
+	@Override
+	public void shutdown() {
+		super.shutdown();
+		if(virtualExecutor!=null) virtualExecutor.shutdown();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ThreadPoolExecutor#shutdownNow()
+	 */
+	@Override
+	public List<Runnable> shutdownNow() {
+		List<Runnable> pending = super.shutdownNow();
+		if(virtualExecutor!=null) virtualExecutor.shutdownNow();
+		return pending;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ThreadPoolExecutor#awaitTermination(long, java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public boolean awaitTermination(long timeout, TimeUnit unit) throws InterruptedException {
+		final long deadline = System.nanoTime() + unit.toNanos(timeout);
+		boolean terminated = super.awaitTermination(timeout, unit);
+		if(virtualExecutor!=null) {
+			terminated = virtualExecutor.awaitTermination(Math.max(0L, deadline - System.nanoTime()), TimeUnit.NANOSECONDS) && terminated;
+		}
+		return terminated;
+	}
+	
+	/**
+	 * Indicates if this pool is running tasks on virtual threads
+	 * @return true if in virtual mode, false otherwise
+	 */
+	public boolean isVirtual() {
+		return virtualExecutor!=null;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ModalThreadPoolMBean#getExecutionMode()
+	 */
+	@Override
+	public String getExecutionMode() {
+		return virtualExecutor==null ? MODE_POOL : MODE_VIRTUAL;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ModalThreadPoolMBean#getRejectedCount()
+	 */
+	@Override
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+	
+	/**
+	 * Indicates if the core pool size is being sized automatically
+	 * @return true if auto sizing is enabled
+	 */
+	public boolean isAutoSizing() {
+		return autoSizer!=null && autoSizer.isEnabled();
+	}
+	
+	/**
+	 * Enables or disables automatic sizing of the core pool size
+	 * @param enabled true to enable, false to disable
+	 */
+	public void setAutoSizing(boolean enabled) {
+		if(autoSizer==null) throw new IllegalStateException("Auto sizing is not supported in virtual mode");
+		autoSizer.setEnabled(enabled);
+	}
+	
+	/**
+	 * Returns the queue wait the auto sizer sizes the pool for
+	 * @return the target queue wait in ms. or -1 if in virtual mode
+	 */
+	public long getTargetQueueLatency() {
+		return autoSizer==null ? -1L : autoSizer.getTargetLatency();
+	}
+	
+	/**
+	 * Sets the queue wait the auto sizer sizes the pool for
+	 * @param targetLatency the target queue wait in ms.
+	 */
+	public void setTargetQueueLatency(long targetLatency) {
+		if(autoSizer==null) throw new IllegalStateException("Auto sizing is not supported in virtual mode");
+		autoSizer.setTargetLatency(targetLatency);
+	}
+	
+	/**
+	 * Returns the minimum core pool size the auto sizer may shrink to
+	 * @return the minimum core pool size or -1 if in virtual mode
+	 */
+	public int getAutoSizeMin() {
+		return autoSizer==null ? -1 : autoSizer.getMinCore();
+	}
+	
+	/**
+	 * Sets the minimum core pool size the auto sizer may shrink to
+	 * @param minCore the minimum core pool size
+	 */
+	public void setAutoSizeMin(int minCore) {
+		if(autoSizer==null) throw new IllegalStateException("Auto sizing is not supported in virtual mode");
+		autoSizer.setMinCore(minCore);
+	}
+	
+	/**
+	 * Returns the maximum core pool size the auto sizer may grow to
+	 * @return the maximum core pool size or -1 if in virtual mode
+	 */
+	public int getAutoSizeMax() {
+		return autoSizer==null ? -1 : autoSizer.getMaxCore();
+	}
+	
+	/**
+	 * Sets the maximum core pool size the auto sizer may grow to
+	 * @param maxCore the maximum core pool size
+	 */
+	public void setAutoSizeMax(int maxCore) {
+		if(autoSizer==null) throw new IllegalStateException("Auto sizing is not supported in virtual mode");
+		autoSizer.setMaxCore(maxCore);
+	}
+	
+	/**
+	 * Returns the average queue wait measured in the auto sizer's last interval
+	 * @return the average queue wait in ms. or -1 if in virtual mode
+	 */
+	public long getAverageQueueWait() {
+		return autoSizer==null ? -1L : autoSizer.getAverageQueueWait();
+	}
+	
+	/**
+	 * Returns the percentage of task run time in the auto sizer's last interval that the pool threads were not on CPU
+	 * @return the blocked percentage or -1 if not measured
+	 */
+	public int getBlockedPercent() {
+		return autoSizer==null ? -1 : autoSizer.getBlockedPercent();
+	}
+	
+	/**
+	 * Returns the auto sizer's most recent decision
+	 * @return the most recent sizing decision
+	 */
+	public String getLastSizingDecision() {
+		return autoSizer==null ? MODE_VIRTUAL : autoSizer.getLastDecision();
+	}
+	
+	/**
+	 * Returns the number of times the auto sizer grew the pool
+	 * @return the grow count
+	 */
+	public long getAutoSizeGrowCount() {
+		return autoSizer==null ? 0L : autoSizer.getGrowCount();
+	}
+	
+	/**
+	 * Returns the number of times the auto sizer shrunk the pool
+	 * @return the shrink count
+	 */
+	public long getAutoSizeShrinkCount() {
+		return autoSizer==null ? 0L : autoSizer.getShrinkCount();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ThreadPoolExecutor#getActiveCount()
+	 */
+	@Override
+	public int getActiveCount() {
+		return virtualExecutor==null ? super.getActiveCount() : virtualActive.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ThreadPoolExecutor#getPoolSize()
+	 */
+	@Override
+	public int getPoolSize() {
+		return virtualExecutor==null ? super.getPoolSize() : virtualActive.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ThreadPoolExecutor#getLargestPoolSize()
+	 */
+	@Override
+	public int getLargestPoolSize() {
+		return virtualExecutor==null ? super.getLargestPoolSize() : virtualPeak.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ThreadPoolExecutor#getTaskCount()
+	 */
+	@Override
+	public long getTaskCount() {
+		return virtualExecutor==null ? super.getTaskCount() : virtualSubmitted.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.ThreadPoolExecutor#getCompletedTaskCount()
+	 */
+	@Override
+	public long getCompletedTaskCount() {
+		return virtualExecutor==null ? super.getCompletedTaskCount() : virtualCompleted.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see org.helios.jmx.concurrency.JMXManagedThreadPool#getQueueDepth()
+	 */
+	@Override
+	public int getQueueDepth() {
+		return virtualExecutor==null ? super.getQueueDepth() : (int)Math.max(0L, virtualSubmitted.get() - virtualCompleted.get() - virtualActive.get());
+	}
+}
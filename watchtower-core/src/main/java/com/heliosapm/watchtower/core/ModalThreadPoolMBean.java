@@ -0,0 +1,56 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import org.helios.jmx.concurrency.JMXManagedThreadPoolMBean;
+
+/**
+ * <p>Title: ModalThreadPoolMBean</p>
+ * <p>Description: JMX MBean interface for {@link ModalThreadPool}. In virtual thread mode, the standard
+ * thread pool attributes report the equivalent virtual thread counts.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ModalThreadPoolMBean</code></p>
+ */
+
+public interface ModalThreadPoolMBean extends JMXManagedThreadPoolMBean {
+	/**
+	 * Returns the execution mode, <b><code>pool</code></b> or <b><code>virtual</code></b>
+	 * @return the execution mode
+	 */
+	public String getExecutionMode();
+	
+	/**
+	 * Returns the number of executions rejected by this pool
+	 * @return the rejected execution count
+	 */
+	public long getRejectedCount();
+	
+	/**
+	 * Returns the highest number of concurrently active virtual thread executions
+	 * @return the peak active count
+	 */
+	public int getLargestPoolSize();
+}
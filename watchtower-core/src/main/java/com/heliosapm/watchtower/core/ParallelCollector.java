@@ -0,0 +1,406 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.heliosapm.watchtower.core.impl.CollectionResult;
+
+/**
+ * <p>Title: ParallelCollector</p>
+ * <p>Description: Runs a collector's per item work, such as the sub-targets of a fan-out collection, across a shared work-stealing pool.
+ * Each invocation starts at most its parallelism in lanes: the calling thread runs one lane and the others are submitted to the pool.
+ * The lanes claim items from a shared cursor, so a lane held up by a slow item does not strand the rest. The item results are 
+ * joined into one {@link CollectionResult}. Interrupting the calling thread cancels the invocation: no lane claims another item, and 
+ * the interrupt is handed back to the caller.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ParallelCollector</code></p>
+ */
+
+public class ParallelCollector implements ParallelCollectorMBean {
+	/** The parallel collector singleton instance */
+	private static volatile ParallelCollector instance = null;
+	/** The parallel collector singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The config property name for the parallelism of the shared work-stealing pool */
+	public static final String PARALLEL_POOL_PROP = "com.heliosapm.watchtower.parallel.pool";
+	/** The default parallelism of the shared work-stealing pool */
+	public static final int DEFAULT_PARALLEL_POOL = Runtime.getRuntime().availableProcessors() * 4;
+	/** The config property name for the default maximum number of lanes of one collector's invocation */
+	public static final String PARALLEL_MAX_PROP = "com.heliosapm.watchtower.parallel.max";
+	/** The default maximum number of lanes of one collector's invocation */
+	public static final int DEFAULT_PARALLEL_MAX = 8;
+	
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The shared work-stealing pool */
+	protected final ForkJoinPool pool;
+	/** The default maximum number of lanes of one collector's invocation */
+	protected volatile int maxParallelism;
+	/** The number of invocations */
+	protected final AtomicLong invocationCount = new AtomicLong(0L);
+	/** The number of items collected */
+	protected final AtomicLong itemCount = new AtomicLong(0L);
+	/** The number of items that failed */
+	protected final AtomicLong failedItemCount = new AtomicLong(0L);
+	/** The number of invocations cancelled before all items were collected */
+	protected final AtomicLong cancelledCount = new AtomicLong(0L);
+	
+	/**
+	 * Acquires and returns the ParallelCollector singleton instance
+	 * @return the ParallelCollector singleton instance
+	 */
+	public static ParallelCollector getParallelCollector() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new ParallelCollector();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new ParallelCollector
+	 */
+	private ParallelCollector() {
+		final int poolSize = Math.max(1, ConfigurationHelper.getIntSystemThenEnvProperty(PARALLEL_POOL_PROP, DEFAULT_PARALLEL_POOL));
+		maxParallelism = Math.max(1, ConfigurationHelper.getIntSystemThenEnvProperty(PARALLEL_MAX_PROP, DEFAULT_PARALLEL_MAX));
+		final AtomicInteger serial = new AtomicInteger(0);
+		pool = new ForkJoinPool(poolSize, new ForkJoinPool.ForkJoinWorkerThreadFactory() {
+			@Override
+			public ForkJoinWorkerThread newThread(ForkJoinPool fjPool) {
+				ForkJoinWorkerThread t = ForkJoinPool.defaultForkJoinWorkerThreadFactory.newThread(fjPool);
+				t.setName(ParallelCollector.class.getSimpleName() + "#" + serial.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		}, null, false);
+		try {
+			JMXHelper.registerMBean(this, JMXHelper.objectName(OBJECT_NAME));
+		} catch (Exception ex) {
+			log.warn("Failed to register ParallelCollector Management Interface", ex);
+		}
+		log.info("Created ParallelCollector with a pool parallelism of [{}] and a default collector parallelism of [{}]", poolSize, maxParallelism);
+	}
+	
+	/**
+	 * Collects the passed items in parallel
+	 * @param collectorName The name of the invoking collector, used for logging
+	 * @param items The items to collect
+	 * @param parallelism The maximum number of items collected concurrently
+	 * @param task The per item collection
+	 * @return the joined collection result: {@link CollectionResult#COMPLETE} if every item completed, {@link CollectionResult#NOCONN} 
+	 * or {@link CollectionResult#FAILED} if none did, or {@link CollectionResult#PARTIAL} otherwise
+	 */
+	public <T> CollectionResult invoke(String collectorName, List<T> items, int parallelism, ItemTask<T> task) {
+		if(items==null) throw new IllegalArgumentException("The passed item list was null");
+		if(task==null) throw new IllegalArgumentException("The passed item task was null");
+		invocationCount.incrementAndGet();
+		if(items.isEmpty()) return CollectionResult.COMPLETE;
+		final Invocation<T> invocation = new Invocation<T>(collectorName, items, task);
+		final int lanes = Math.min(Math.max(1, parallelism), items.size());
+		final List<Lane> forked = new ArrayList<Lane>(lanes - 1);
+		for(int i = 1; i < lanes; i++) {
+			Lane lane = new Lane(invocation);
+			pool.execute(lane);
+			forked.add(lane);
+		}
+		invocation.run();
+		if(!invocation.cancelled) for(Lane lane: forked) {
+			try {
+				lane.get();
+			} catch (InterruptedException iex) {
+				// stop the other lanes claiming items and hand the interrupt back to the caller
+				invocation.cancel();
+				Thread.currentThread().interrupt();
+				break;
+			} catch (ExecutionException eex) {
+				log.warn("Parallel collection lane of [{}] failed", collectorName, eex.getCause());
+			}
+		}
+		return invocation.result();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ParallelCollectorMBean#getPoolParallelism()
+	 */
+	@Override
+	public int getPoolParallelism() {
+		return pool.getParallelism();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ParallelCollectorMBean#getPoolSize()
+	 */
+	@Override
+	public int getPoolSize() {
+		return pool.getPoolSize();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ParallelCollectorMBean#getActiveThreadCount()
+	 */
+	@Override
+	public int getActiveThreadCount() {
+		return pool.getActiveThreadCount();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ParallelCollectorMBean#getQueuedTaskCount()
+	 */
+	@Override
+	public long getQueuedTaskCount() {
+		return pool.getQueuedTaskCount() + pool.getQueuedSubmissionCount();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ParallelCollectorMBean#getMaxParallelism()
+	 */
+	@Override
+	public int getMaxParallelism() {
+		return maxParallelism;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ParallelCollectorMBean#setMaxParallelism(int)
+	 */
+	@Override
+	public void setMaxParallelism(int maxParallelism) {
+		if(maxParallelism < 1) throw new IllegalArgumentException("Invalid max parallelism [" + maxParallelism + "]");
+		this.maxParallelism = maxParallelism;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ParallelCollectorMBean#getInvocationCount()
+	 */
+	@Override
+	public long getInvocationCount() {
+		return invocationCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ParallelCollectorMBean#getItemCount()
+	 */
+	@Override
+	public long getItemCount() {
+		return itemCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ParallelCollectorMBean#getFailedItemCount()
+	 */
+	@Override
+	public long getFailedItemCount() {
+		return failedItemCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ParallelCollectorMBean#getCancelledCount()
+	 */
+	@Override
+	public long getCancelledCount() {
+		return cancelledCount.get();
+	}
+	
+	/**
+	 * <p>Title: ItemTask</p>
+	 * <p>Description: Defines the collection of one item of a parallel collection</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.ParallelCollector.ItemTask</code></p>
+	 * @param <T> The item type
+	 */
+	public static interface ItemTask<T> {
+		/**
+		 * Collects one item
+		 * @param item The item to collect
+		 * @return the item's {@link CollectionResult}. Any other value is treated as {@link CollectionResult#COMPLETE}.
+		 * @throws Exception thrown if the item's collection fails, which is treated as {@link CollectionResult#FAILED}
+		 */
+		public Object collect(T item) throws Exception;
+	}
+	
+	/**
+	 * <p>Title: Invocation</p>
+	 * <p>Description: The shared state of one parallel collection: the item cursor and the item result tallies</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.ParallelCollector.Invocation</code></p>
+	 * @param <T> The item type
+	 */
+	class Invocation<T> implements Runnable {
+		/** The invoking collector's name */
+		final String collectorName;
+		/** The items to collect */
+		final List<T> items;
+		/** The per item collection */
+		final ItemTask<T> task;
+		/** The index of the next item to claim */
+		final AtomicInteger cursor = new AtomicInteger(0);
+		/** The number of complete items */
+		final AtomicInteger complete = new AtomicInteger(0);
+		/** The number of partially collected items */
+		final AtomicInteger partial = new AtomicInteger(0);
+		/** The number of items that failed to connect */
+		final AtomicInteger noconn = new AtomicInteger(0);
+		/** The number of failed items */
+		final AtomicInteger failed = new AtomicInteger(0);
+		/** The thread that invoked the collection and runs its first lane */
+		final Thread caller = Thread.currentThread();
+		/** Set when the caller was interrupted to stop the lanes claiming more items */
+		volatile boolean cancelled = false;
+		
+		/**
+		 * Creates a new Invocation
+		 * @param collectorName The invoking collector's name
+		 * @param items The items to collect
+		 * @param task The per item collection
+		 */
+		Invocation(String collectorName, List<T> items, ItemTask<T> task) {
+			this.collectorName = collectorName;
+			this.items = items;
+			this.task = task;
+		}
+		
+		/**
+		 * Cancels the invocation so no lane claims another item. Only called on the caller's thread.
+		 */
+		void cancel() {
+			if(cancelled) return;
+			cancelled = true;
+			cancelledCount.incrementAndGet();
+		}
+		
+		/**
+		 * Claims and collects items until none are left or the invocation is cancelled.
+		 * The caller's lane checks for an interrupt between items and cancels the invocation if it finds one.
+		 * {@inheritDoc}
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			final int size = items.size();
+			final boolean callerLane = Thread.currentThread()==caller;
+			int index;
+			while(!cancelled) {
+				if(callerLane && Thread.interrupted()) {
+					cancel();
+					Thread.currentThread().interrupt();
+					break;
+				}
+				if((index = cursor.getAndIncrement()) >= size) break;
+				final T item = items.get(index);
+				itemCount.incrementAndGet();
+				try {
+					Object result = task.collect(item);
+					if(result==CollectionResult.FAILED) {
+						failed.incrementAndGet();
+					} else if(result==CollectionResult.NOCONN) {
+						noconn.incrementAndGet();
+					} else if(result==CollectionResult.PARTIAL) {
+						partial.incrementAndGet();
+					} else {
+						complete.incrementAndGet();
+					}
+				} catch (Throwable t) {
+					failed.incrementAndGet();
+					log.warn("Parallel collection of item [{}] by [{}] failed", new Object[]{item, collectorName, t});
+				}
+			}
+		}
+		
+		/**
+		 * Joins the item results
+		 * @return the joined collection result
+		 */
+		CollectionResult result() {
+			final int failures = failed.get() + noconn.get();
+			failedItemCount.addAndGet(failures);
+			final boolean all = !cancelled || complete.get() + partial.get() + failures >= items.size();
+			if(all && failures==0 && partial.get()==0) return CollectionResult.COMPLETE;
+			if(complete.get()==0 && partial.get()==0) {
+				return (noconn.get() > 0 && failed.get()==0) ? CollectionResult.NOCONN : CollectionResult.FAILED;
+			}
+			return CollectionResult.PARTIAL;
+		}
+	}
+	
+	/**
+	 * <p>Title: Lane</p>
+	 * <p>Description: A work-stealing pool task running one lane of an invocation</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.ParallelCollector.Lane</code></p>
+	 */
+	static class Lane extends RecursiveAction {
+		/**  */
+		private static final long serialVersionUID = -3981452187723606714L;
+		/** The lane's invocation */
+		final Invocation<?> invocation;
+		
+		/**
+		 * Creates a new Lane
+		 * @param invocation The lane's invocation
+		 */
+		Lane(Invocation<?> invocation) {
+			this.invocation = invocation;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * @see java.util.concurrent.RecursiveAction#compute()
+		 */
+		@Override
+		protected void compute() {
+			invocation.run();
+		}
+	}
+}
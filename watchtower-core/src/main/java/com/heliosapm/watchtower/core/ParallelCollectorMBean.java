@@ -0,0 +1,99 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: ParallelCollectorMBean</p>
+ * <p>Description: JMX MBean interface for {@link ParallelCollector}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ParallelCollectorMBean</code></p>
+ */
+
+public interface ParallelCollectorMBean {
+	/** The parallel collector ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.core:service=ParallelCollector";
+	
+	/**
+	 * Returns the parallelism of the shared work-stealing pool
+	 * @return the pool parallelism
+	 */
+	public int getPoolParallelism();
+	
+	/**
+	 * Returns the number of worker threads started in the shared pool
+	 * @return the pool size
+	 */
+	public int getPoolSize();
+	
+	/**
+	 * Returns the number of pool threads running lanes
+	 * @return the active thread count
+	 */
+	public int getActiveThreadCount();
+	
+	/**
+	 * Returns the number of lanes waiting in the pool's queues
+	 * @return the queued task count
+	 */
+	public long getQueuedTaskCount();
+	
+	/**
+	 * Returns the default maximum number of items of one collector's invocation collected concurrently
+	 * @return the default maximum parallelism
+	 */
+	public int getMaxParallelism();
+	
+	/**
+	 * Sets the default maximum number of items of one collector's invocation collected concurrently.
+	 * Applies to collectors deployed after the change.
+	 * @param maxParallelism the default maximum parallelism
+	 */
+	public void setMaxParallelism(int maxParallelism);
+	
+	/**
+	 * Returns the number of parallel collections invoked
+	 * @return the invocation count
+	 */
+	public long getInvocationCount();
+	
+	/**
+	 * Returns the number of items collected
+	 * @return the item count
+	 */
+	public long getItemCount();
+	
+	/**
+	 * Returns the number of items that failed or could not connect
+	 * @return the failed item count
+	 */
+	public long getFailedItemCount();
+	
+	/**
+	 * Returns the number of invocations cancelled by an interrupt before all items were collected
+	 * @return the cancelled count
+	 */
+	public long getCancelledCount();
+}
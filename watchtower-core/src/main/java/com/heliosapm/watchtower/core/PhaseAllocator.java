@@ -0,0 +1,167 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: PhaseAllocator</p>
+ * <p>Description: Assigns phase offsets to periodic schedules so that their projected executions are spread
+ * evenly across time. The allocator keeps a histogram of projected executions per time bucket over a fixed
+ * horizon. Each new schedule is assigned the phase within its period whose executions land in the least loaded
+ * buckets, minimizing first the peak and then the total load of the buckets it will occupy.</p>
+ * <p>Phases are relative to the allocator's origin, so schedules are only kept in phase if they run at a fixed rate.
+ * Periods that do not divide the horizon evenly are projected approximately.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.PhaseAllocator</code></p>
+ */
+public class PhaseAllocator {
+	/** The nano time origin that phases are relative to */
+	protected final long origin = System.nanoTime();
+	/** The bucket resolution in ms. */
+	protected final long resolution;
+	/** The projection horizon in ms. */
+	protected final long horizon;
+	/** The projected executions per bucket */
+	protected final int[] load;
+	/** The number of allocated phases */
+	protected int allocations = 0;
+	
+	/**
+	 * Creates a new PhaseAllocator
+	 * @param horizon The projection horizon in ms.
+	 * @param resolution The bucket resolution in ms.
+	 */
+	public PhaseAllocator(long horizon, long resolution) {
+		if(resolution < 1) throw new IllegalArgumentException("Invalid resolution [" + resolution + "]");
+		if(horizon < resolution) throw new IllegalArgumentException("The horizon [" + horizon + "] is less than the resolution [" + resolution + "]");
+		this.resolution = resolution;
+		this.horizon = horizon - (horizon % resolution);
+		load = new int[(int)(this.horizon / resolution)];
+	}
+	
+	/**
+	 * Allocates a phase for a schedule with the passed period
+	 * @param period The schedule period in ms.
+	 * @return the phase in ms. or -1 if the period is too short to be phased
+	 */
+	public synchronized long allocate(long period) {
+		if(period < resolution) return -1L;
+		final int candidates = (int)Math.min(period / resolution, load.length);
+		int best = 0;
+		long bestPeak = Long.MAX_VALUE, bestTotal = Long.MAX_VALUE;
+		for(int c = 0; c < candidates; c++) {
+			long peak = 0, total = 0;
+			for(long t = c * resolution; t < horizon; t += period) {
+				int l = load[(int)(t / resolution)];
+				total += l;
+				if(l > peak) peak = l;
+			}
+			if(peak < bestPeak || (peak==bestPeak && total < bestTotal)) {
+				best = c;
+				bestPeak = peak;
+				bestTotal = total;
+				if(peak==0) break;
+			}
+		}
+		final long phase = best * resolution;
+		apply(period, phase, 1);
+		allocations++;
+		return phase;
+	}
+	
+	/**
+	 * Releases a phase allocated by {@link #allocate(long)}
+	 * @param period The schedule period in ms.
+	 * @param phase The allocated phase in ms.
+	 */
+	public synchronized void release(long period, long phase) {
+		if(phase < 0 || period < resolution) return;
+		apply(period, phase, -1);
+		allocations--;
+	}
+	
+	/**
+	 * Adds the passed delta to each bucket a schedule occupies
+	 * @param period The schedule period in ms.
+	 * @param phase The schedule phase in ms.
+	 * @param delta The delta to add
+	 */
+	private void apply(long period, long phase, int delta) {
+		for(long t = phase; t < horizon; t += period) {
+			load[(int)(t / resolution)] += delta;
+		}
+	}
+	
+	/**
+	 * Computes the delay until the first execution of a phased schedule
+	 * @param minDelay The minimum delay in ms. (the schedule's initial delay)
+	 * @param period The schedule period in ms.
+	 * @param phase The schedule phase in ms.
+	 * @return the delay in ms.
+	 */
+	public long firstDelay(long minDelay, long period, long phase) {
+		final long now = (System.nanoTime() - origin) / 1000000L;
+		final long earliest = now + Math.max(0L, minDelay);
+		long k = (earliest - phase + period - 1) / period;
+		if(k < 0) k = 0;
+		return (phase + (k * period)) - now;
+	}
+	
+	/**
+	 * Returns the number of allocated phases
+	 * @return the number of allocated phases
+	 */
+	public synchronized int getAllocations() {
+		return allocations;
+	}
+	
+	/**
+	 * Returns the highest projected number of executions in any one bucket
+	 * @return the peak projected bucket load
+	 */
+	public synchronized int getPeakLoad() {
+		int peak = 0;
+		for(int l: load) {
+			if(l > peak) peak = l;
+		}
+		return peak;
+	}
+	
+	/**
+	 * Returns the bucket resolution in ms.
+	 * @return the bucket resolution in ms.
+	 */
+	public long getResolution() {
+		return resolution;
+	}
+	
+	/**
+	 * Returns the projection horizon in ms.
+	 * @return the projection horizon in ms.
+	 */
+	public long getHorizon() {
+		return horizon;
+	}
+}
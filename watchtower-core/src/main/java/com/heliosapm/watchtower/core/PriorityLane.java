@@ -0,0 +1,251 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import com.heliosapm.watchtower.groovy.annotation.CollectionPriority;
+
+/**
+ * <p>Title: PriorityLane</p>
+ * <p>Description: A lane of the {@link PriorityLaneExecutor}, holding the waiting executions of one {@link CollectionPriority} 
+ * and the lane's latency statistics</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.PriorityLane</code></p>
+ */
+
+public class PriorityLane implements PriorityLaneMBean {
+	/** The lane's priority */
+	protected final CollectionPriority priority;
+	/** The lane's share weight */
+	protected final int weight;
+	/** The waiting executions */
+	protected final Queue<PriorityLaneExecutor.LaneTask> queue = new ConcurrentLinkedQueue<PriorityLaneExecutor.LaneTask>();
+	/** The number of waiting executions */
+	protected final AtomicInteger depth = new AtomicInteger(0);
+	/** The smooth weighted round robin credit of the lane. Only accessed under the executor's selection lock. */
+	int credit = 0;
+	
+	/** The number of submitted executions */
+	protected final AtomicLong submitted = new AtomicLong(0L);
+	/** The number of completed executions */
+	protected final AtomicLong completed = new AtomicLong(0L);
+	/** The number of rejected executions */
+	protected final AtomicLong rejected = new AtomicLong(0L);
+	/** The number of executions promoted past the aging threshold */
+	protected final AtomicLong promoted = new AtomicLong(0L);
+	/** The number of started executions since the last stats reset */
+	protected final AtomicLong started = new AtomicLong(0L);
+	/** The total wait time in ns. since the last stats reset */
+	protected final AtomicLong totalWait = new AtomicLong(0L);
+	/** The maximum wait time in ns. since the last stats reset */
+	protected final AtomicLong maxWait = new AtomicLong(0L);
+	/** The most recent wait time in ns. */
+	protected volatile long lastWait = 0L;
+	/** The number of timed executions since the last stats reset */
+	protected final AtomicLong timed = new AtomicLong(0L);
+	/** The total elapsed time in ns. since the last stats reset */
+	protected final AtomicLong totalElapsed = new AtomicLong(0L);
+	
+	/**
+	 * Creates a new PriorityLane
+	 * @param priority The lane's priority
+	 * @param weight The lane's share weight
+	 */
+	PriorityLane(CollectionPriority priority, int weight) {
+		this.priority = priority;
+		this.weight = Math.max(0, weight);
+	}
+	
+	/**
+	 * Adds a waiting execution to the lane
+	 * @param task The execution
+	 */
+	void enqueue(PriorityLaneExecutor.LaneTask task) {
+		submitted.incrementAndGet();
+		queue.add(task);
+		depth.incrementAndGet();
+	}
+	
+	/**
+	 * Removes the longest waiting execution from the lane
+	 * @return the execution or null if the lane is empty
+	 */
+	PriorityLaneExecutor.LaneTask poll() {
+		PriorityLaneExecutor.LaneTask task = queue.poll();
+		if(task!=null) depth.decrementAndGet();
+		return task;
+	}
+	
+	/**
+	 * Returns the longest waiting execution without removing it
+	 * @return the execution or null if the lane is empty
+	 */
+	PriorityLaneExecutor.LaneTask peek() {
+		return queue.peek();
+	}
+	
+	/**
+	 * Records the wait time of a started execution
+	 * @param waitNanos The wait time in ns.
+	 */
+	void recordWait(long waitNanos) {
+		started.incrementAndGet();
+		totalWait.addAndGet(waitNanos);
+		lastWait = waitNanos;
+		long max = maxWait.get();
+		while(waitNanos > max && !maxWait.compareAndSet(max, waitNanos)) max = maxWait.get();
+	}
+	
+	/**
+	 * Records the elapsed time of a completed execution
+	 * @param elapsedNanos The elapsed time in ns.
+	 */
+	void recordCompletion(long elapsedNanos) {
+		completed.incrementAndGet();
+		timed.incrementAndGet();
+		totalElapsed.addAndGet(elapsedNanos);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getPriority()
+	 */
+	@Override
+	public String getPriority() {
+		return priority.name();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getWeight()
+	 */
+	@Override
+	public int getWeight() {
+		return weight;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getQueueDepth()
+	 */
+	@Override
+	public int getQueueDepth() {
+		return depth.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getSubmittedCount()
+	 */
+	@Override
+	public long getSubmittedCount() {
+		return submitted.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getCompletedCount()
+	 */
+	@Override
+	public long getCompletedCount() {
+		return completed.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getRejectedCount()
+	 */
+	@Override
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getPromotedCount()
+	 */
+	@Override
+	public long getPromotedCount() {
+		return promoted.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getLastWaitTime()
+	 */
+	@Override
+	public long getLastWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(lastWait);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getAverageWaitTime()
+	 */
+	@Override
+	public long getAverageWaitTime() {
+		long count = started.get();
+		return count==0 ? 0L : TimeUnit.NANOSECONDS.toMillis(totalWait.get() / count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getMaxWaitTime()
+	 */
+	@Override
+	public long getMaxWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(maxWait.get());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#getAverageElapsedTime()
+	 */
+	@Override
+	public long getAverageElapsedTime() {
+		long count = timed.get();
+		return count==0 ? 0L : TimeUnit.NANOSECONDS.toMillis(totalElapsed.get() / count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneMBean#resetStats()
+	 */
+	@Override
+	public void resetStats() {
+		started.set(0L);
+		totalWait.set(0L);
+		maxWait.set(0L);
+		lastWait = 0L;
+		timed.set(0L);
+		totalElapsed.set(0L);
+	}
+}
@@ -0,0 +1,387 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.heliosapm.watchtower.groovy.annotation.CollectionPriority;
+
+/**
+ * <p>Title: PriorityLaneExecutor</p>
+ * <p>Description: Orders collections ahead of the {@link CollectionExecutor} in one lane per {@link CollectionPriority}.
+ * At most {@link #getConcurrency()} executions are admitted to the collection executor at a time, so its own FIFO queue stays short,
+ * and as admitted executions complete the next one is taken from the lanes by smooth weighted round robin. A lane with waiting 
+ * executions therefore gets at least its weight's share of the weighted admissions. An execution that has waited past the aging threshold 
+ * is served ahead of the weighted order, so low priority lanes are never starved. Promotions alternate with weighted admissions,
+ * so at least half of the admissions follow the weighted order even when every lane is backed up past the threshold.</p>
+ * <p>Lanes are enabled with {@link #LANES_PROP}. Collections should be dispatched through {@link #getCollectionDispatcher()}, 
+ * which returns the collection executor itself when lanes are disabled.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.PriorityLaneExecutor</code></p>
+ */
+
+public class PriorityLaneExecutor implements Executor, PriorityLaneExecutorMBean {
+	/** The priority lane executor singleton instance */
+	private static volatile PriorityLaneExecutor instance = null;
+	/** The priority lane executor singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The config property name to enable priority lanes */
+	public static final String LANES_PROP = "com.heliosapm.watchtower.executor.lanes";
+	/** The config property name for the maximum concurrent executions admitted to the collection executor. Defaults to the collection executor's maximum pool size. */
+	public static final String LANES_CONCURRENCY_PROP = "com.heliosapm.watchtower.executor.lanes.concurrency";
+	/** The config property name for the aging threshold in ms. */
+	public static final String LANES_AGING_PROP = "com.heliosapm.watchtower.executor.lanes.aging";
+	/** The config property name prefix for lane weights. The lowercase priority name is appended, e.g. <b><code>.high</code></b> */
+	public static final String LANE_WEIGHT_PROP = "com.heliosapm.watchtower.executor.lanes.weight";
+	/** The default priority lane enablement */
+	public static final boolean DEFAULT_LANES = false;
+	/** The default aging threshold in ms. */
+	public static final long DEFAULT_LANES_AGING = 5000L;
+	
+	/** Static class logger */
+	private static final Logger LOG = LoggerFactory.getLogger(PriorityLaneExecutor.class);
+	
+	/** The collection executor */
+	protected final Executor delegate;
+	/** The maximum concurrent executions admitted to the collection executor */
+	protected final int concurrency;
+	/** The aging threshold in ns. */
+	protected final long agingNanos;
+	/** The lanes indexed by priority ordinal */
+	protected final PriorityLane[] lanes;
+	/** The lane selection lock */
+	protected final Object selectLock = new Object();
+	/** Indicates the previous selection was a promotion. Only accessed under the selection lock. */
+	protected boolean lastPromoted = false;
+	/** The number of admitted executions */
+	protected final AtomicInteger active = new AtomicInteger(0);
+	/** The number of promoted executions */
+	protected final AtomicLong promoted = new AtomicLong(0L);
+	/** The number of rejected executions */
+	protected final AtomicLong rejected = new AtomicLong(0L);
+	
+	/**
+	 * Returns the executor collections should be dispatched to: the priority lane executor if lanes are enabled, 
+	 * otherwise the collection executor
+	 * @return the collection dispatcher
+	 */
+	public static Executor getCollectionDispatcher() {
+		if(!ConfigurationHelper.getBooleanSystemThenEnvProperty(LANES_PROP, DEFAULT_LANES)) {
+			return CollectionExecutor.getCollectionExecutor();
+		}
+		return getPriorityLaneExecutor();
+	}
+	
+	/**
+	 * Acquires and returns the PriorityLaneExecutor singleton instance
+	 * @return the PriorityLaneExecutor singleton instance
+	 */
+	public static PriorityLaneExecutor getPriorityLaneExecutor() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new PriorityLaneExecutor();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new PriorityLaneExecutor
+	 */
+	private PriorityLaneExecutor() {
+		this(CollectionExecutor.getCollectionExecutor(), 
+				ConfigurationHelper.getIntSystemThenEnvProperty(LANES_CONCURRENCY_PROP, CollectionExecutor.getCollectionExecutor().getMaximumPoolSize()),
+				ConfigurationHelper.getLongSystemThenEnvProperty(LANES_AGING_PROP, DEFAULT_LANES_AGING));
+		for(PriorityLane lane: lanes) {
+			register(lane, String.format(PriorityLaneMBean.OBJECT_NAME_TEMPLATE, lane.priority.name()));
+		}
+		register(this, OBJECT_NAME);
+		LOG.info("Started PriorityLaneExecutor with concurrency [{}]", concurrency);
+	}
+	
+	/**
+	 * Creates a new unregistered PriorityLaneExecutor with the configured lane weights
+	 * @param delegate The executor admitted executions are run on
+	 * @param concurrency The maximum concurrent executions admitted to the delegate
+	 * @param aging The aging threshold in ms.
+	 */
+	PriorityLaneExecutor(Executor delegate, int concurrency, long aging) {
+		this.delegate = delegate;
+		this.concurrency = Math.max(1, concurrency);
+		agingNanos = TimeUnit.MILLISECONDS.toNanos(aging);
+		CollectionPriority[] priorities = CollectionPriority.lanes();
+		lanes = new PriorityLane[priorities.length];
+		for(CollectionPriority p: priorities) {
+			int weight = ConfigurationHelper.getIntSystemThenEnvProperty(LANE_WEIGHT_PROP + "." + p.name().toLowerCase(), p.defaultWeight);
+			lanes[p.ordinal()] = new PriorityLane(p, weight);
+		}
+	}
+	
+	/**
+	 * Registers a management interface
+	 * @param mbean The management interface
+	 * @param objectName The ObjectName to register with
+	 */
+	private static void register(Object mbean, String objectName) {
+		try {
+			JMXHelper.registerMBean(mbean, JMXHelper.objectName(objectName));
+		} catch (Exception ex) {
+			LOG.warn("Failed to register Management Interface [{}]", objectName, ex);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.Executor#execute(java.lang.Runnable)
+	 */
+	@Override
+	public void execute(Runnable command) {
+		if(command==null) throw new IllegalArgumentException("The passed command was null");
+		CollectionPriority priority = (command instanceof PrioritizedTask) ? ((PrioritizedTask)command).getPriority() : null;
+		if(priority==null) priority = CollectionPriority.NORMAL;
+		else priority = priority.resolve(null);
+		PriorityLane lane = lanes[priority.ordinal()];
+		lane.enqueue(new LaneTask(command, lane));
+		drain();
+	}
+	
+	/**
+	 * Admits waiting executions while there are free admission slots. Called after an execution is
+	 * enqueued and after an admitted execution completes, so a waiting execution is never stranded.
+	 * An execution the collection executor rejects is told through {@link RejectableTask#onRejected(RejectedExecutionException)},
+	 * since the rejection surfaces on whichever thread happens to drain.
+	 */
+	protected void drain() {
+		while(true) {
+			int current = active.get();
+			if(current >= concurrency) return;
+			if(!active.compareAndSet(current, current + 1)) continue;
+			LaneTask task = select();
+			if(task==null) {
+				active.decrementAndGet();
+				if(!hasWaiting()) return;
+				continue;
+			}
+			try {
+				delegate.execute(task);
+			} catch (RejectedExecutionException rex) {
+				active.decrementAndGet();
+				task.onRejected(rex);
+			}
+		}
+	}
+	
+	/**
+	 * Indicates if any lane has waiting executions
+	 * @return true if any lane has waiting executions
+	 */
+	protected boolean hasWaiting() {
+		for(PriorityLane lane: lanes) {
+			if(lane.peek()!=null) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Selects the next execution to admit: the longest waiting execution past the aging threshold if there is one
+	 * and the previous selection was not a promotion, otherwise the head of the lane selected by smooth weighted round robin
+	 * @return the next execution or null if all lanes are empty
+	 */
+	protected LaneTask select() {
+		synchronized(selectLock) {
+			PriorityLane aged = null;
+			if(!lastPromoted) {
+				final long now = System.nanoTime();
+				long longestWait = agingNanos;
+				for(PriorityLane lane: lanes) {
+					LaneTask head = lane.peek();
+					if(head!=null && now - head.enqueued >= longestWait) {
+						aged = lane;
+						longestWait = now - head.enqueued;
+					}
+				}
+			}
+			lastPromoted = aged!=null;
+			if(aged!=null) {
+				promoted.incrementAndGet();
+				aged.promoted.incrementAndGet();
+				return aged.poll();
+			}
+			PriorityLane selected = null;
+			int totalWeight = 0;
+			for(PriorityLane lane: lanes) {
+				if(lane.peek()==null) continue;
+				lane.credit += lane.weight;
+				totalWeight += lane.weight;
+				if(selected==null || lane.credit > selected.credit) selected = lane;
+			}
+			if(selected==null) return null;
+			selected.credit -= totalWeight;
+			return selected.poll();
+		}
+	}
+	
+	/**
+	 * <p>Title: LaneTask</p>
+	 * <p>Description: An execution waiting in or admitted from a lane</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.PriorityLaneExecutor.LaneTask</code></p>
+	 */
+	class LaneTask implements TargetedTask, RejectableTask {
+		/** The wrapped execution */
+		final Runnable command;
+		/** The lane the execution was submitted to */
+		final PriorityLane lane;
+		/** The enqueue time in ns. */
+		final long enqueued = System.nanoTime();
+		
+		/**
+		 * Creates a new LaneTask
+		 * @param command The wrapped execution
+		 * @param lane The lane the execution was submitted to
+		 */
+		LaneTask(Runnable command, PriorityLane lane) {
+			this.command = command;
+			this.lane = lane;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.core.TargetedTask#getTarget()
+		 */
+		@Override
+		public String getTarget() {
+			return (command instanceof TargetedTask) ? ((TargetedTask)command).getTarget() : null;
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * <p>Counts the rejection and passes it on to the wrapped execution.</p>
+		 * @see com.heliosapm.watchtower.core.RejectableTask#onRejected(java.util.concurrent.RejectedExecutionException)
+		 */
+		@Override
+		public void onRejected(RejectedExecutionException rex) {
+			rejected.incrementAndGet();
+			lane.rejected.incrementAndGet();
+			LOG.warn("Collection executor rejected execution from lane [{}]", lane.priority, rex);
+			if(command instanceof RejectableTask) {
+				try {
+					((RejectableTask)command).onRejected(rex);
+				} catch (Exception ex) {
+					LOG.warn("Rejection callback failed", ex);
+				}
+			}
+		}
+
+		/**
+		 * {@inheritDoc}
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			final long start = System.nanoTime();
+			lane.recordWait(start - enqueued);
+			try {
+				command.run();
+			} finally {
+				lane.recordCompletion(System.nanoTime() - start);
+				active.decrementAndGet();
+				drain();
+			}
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneExecutorMBean#getConcurrency()
+	 */
+	@Override
+	public int getConcurrency() {
+		return concurrency;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneExecutorMBean#getActiveCount()
+	 */
+	@Override
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneExecutorMBean#getQueueDepth()
+	 */
+	@Override
+	public int getQueueDepth() {
+		int depth = 0;
+		for(PriorityLane lane: lanes) {
+			depth += lane.getQueueDepth();
+		}
+		return depth;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneExecutorMBean#getAgingThreshold()
+	 */
+	@Override
+	public long getAgingThreshold() {
+		return TimeUnit.NANOSECONDS.toMillis(agingNanos);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneExecutorMBean#getPromotedCount()
+	 */
+	@Override
+	public long getPromotedCount() {
+		return promoted.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.PriorityLaneExecutorMBean#getRejectedCount()
+	 */
+	@Override
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+}
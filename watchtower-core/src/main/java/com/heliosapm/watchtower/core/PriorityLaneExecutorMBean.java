@@ -0,0 +1,74 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: PriorityLaneExecutorMBean</p>
+ * <p>Description: JMX MBean interface for {@link PriorityLaneExecutor}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.PriorityLaneExecutorMBean</code></p>
+ */
+
+public interface PriorityLaneExecutorMBean {
+	/** The executor ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.core.threadpools:service=PriorityLaneExecutor";
+	
+	/**
+	 * Returns the maximum number of concurrent executions admitted to the collection executor
+	 * @return the admission concurrency
+	 */
+	public int getConcurrency();
+	
+	/**
+	 * Returns the number of admitted executions
+	 * @return the number of admitted executions
+	 */
+	public int getActiveCount();
+	
+	/**
+	 * Returns the number of executions waiting in all lanes
+	 * @return the total queue depth
+	 */
+	public int getQueueDepth();
+	
+	/**
+	 * Returns the time after which a waiting execution is served ahead of the weighted lane order
+	 * @return the aging threshold in ms.
+	 */
+	public long getAgingThreshold();
+	
+	/**
+	 * Returns the number of executions served out of weighted order because they waited past the aging threshold
+	 * @return the promoted execution count
+	 */
+	public long getPromotedCount();
+	
+	/**
+	 * Returns the number of executions rejected by the collection executor
+	 * @return the rejected execution count
+	 */
+	public long getRejectedCount();
+}
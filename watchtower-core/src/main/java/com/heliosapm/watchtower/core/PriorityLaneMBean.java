@@ -0,0 +1,109 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: PriorityLaneMBean</p>
+ * <p>Description: JMX MBean interface for {@link PriorityLane}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.PriorityLaneMBean</code></p>
+ */
+
+public interface PriorityLaneMBean {
+	/** ObjectName template */
+	public static final String OBJECT_NAME_TEMPLATE = "com.heliosapm.watchtower.core.threadpools:service=PriorityLane,name=%s";
+	
+	/**
+	 * Returns the name of the lane's priority
+	 * @return the priority name
+	 */
+	public String getPriority();
+	
+	/**
+	 * Returns the share weight of the lane
+	 * @return the lane weight
+	 */
+	public int getWeight();
+	
+	/**
+	 * Returns the number of executions waiting in the lane
+	 * @return the lane queue depth
+	 */
+	public int getQueueDepth();
+	
+	/**
+	 * Returns the number of executions submitted to the lane
+	 * @return the submitted execution count
+	 */
+	public long getSubmittedCount();
+	
+	/**
+	 * Returns the number of executions of the lane that completed
+	 * @return the completed execution count
+	 */
+	public long getCompletedCount();
+	
+	/**
+	 * Returns the number of executions of the lane rejected by the collection executor
+	 * @return the rejected execution count
+	 */
+	public long getRejectedCount();
+	
+	/**
+	 * Returns the number of executions served out of weighted order because they waited past the aging threshold
+	 * @return the promoted execution count
+	 */
+	public long getPromotedCount();
+	
+	/**
+	 * Returns the time the most recent execution of the lane waited before it started
+	 * @return the last wait time in ms.
+	 */
+	public long getLastWaitTime();
+	
+	/**
+	 * Returns the average time executions of the lane waited before they started
+	 * @return the average wait time in ms.
+	 */
+	public long getAverageWaitTime();
+	
+	/**
+	 * Returns the longest time an execution of the lane waited before it started
+	 * @return the maximum wait time in ms.
+	 */
+	public long getMaxWaitTime();
+	
+	/**
+	 * Returns the average elapsed time of executions of the lane
+	 * @return the average elapsed time in ms.
+	 */
+	public long getAverageElapsedTime();
+	
+	/**
+	 * Resets the lane's latency statistics
+	 */
+	public void resetStats();
+}
@@ -0,0 +1,44 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.concurrent.RejectedExecutionException;
+
+/**
+ * <p>Title: RejectableTask</p>
+ * <p>Description: Defines a task that holds resources from the time it is submitted, such as an in flight slot, and must be told 
+ * when an executor that accepted it for later admission rejects it, since the rejection never reaches the submitter.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.RejectableTask</code></p>
+ */
+
+public interface RejectableTask extends Runnable {
+	/**
+	 * Callback when a queued task is rejected. The task will not run and should release what it holds.
+	 * @param rex The rejection
+	 */
+	public void onRejected(RejectedExecutionException rex);
+}
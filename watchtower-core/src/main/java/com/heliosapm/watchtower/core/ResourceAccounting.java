@@ -0,0 +1,281 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: ResourceAccounting</p>
+ * <p>Description: Measures the thread CPU time and allocated bytes of collector invocations through the {@link ThreadMXBean},
+ * and keeps a registry of the {@link ResourceCounter}s of all branches so the worst offenders can be reported.
+ * Callers read {@link #threadCpuTime()} and {@link #threadAllocatedBytes()} before and after an invocation and record the deltas.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ResourceAccounting</code></p>
+ */
+
+public class ResourceAccounting implements ResourceAccountingMBean {
+	/** The resource accounting singleton instance */
+	private static volatile ResourceAccounting instance = null;
+	/** The resource accounting singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The config property name to enable accounting */
+	public static final String ACCOUNTING_PROP = "com.heliosapm.watchtower.accounting";
+	/** The default accounting enablement */
+	public static final boolean DEFAULT_ACCOUNTING = true;
+	
+	/** Comparator ordering counters by CPU time */
+	private static final Comparator<ResourceCounter> CPU_ORDER = new Comparator<ResourceCounter>() {
+		@Override
+		public int compare(ResourceCounter a, ResourceCounter b) {
+			final long x = a.getCpuNanos(), y = b.getCpuNanos();
+			return x < y ? -1 : x==y ? 0 : 1;
+		}
+	};
+	/** Comparator ordering counters by allocated bytes */
+	private static final Comparator<ResourceCounter> ALLOCATION_ORDER = new Comparator<ResourceCounter>() {
+		@Override
+		public int compare(ResourceCounter a, ResourceCounter b) {
+			final long x = a.getAllocatedBytes(), y = b.getAllocatedBytes();
+			return x < y ? -1 : x==y ? 0 : 1;
+		}
+	};
+	
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The registered counters keyed by counter key */
+	protected final Map<String, ResourceCounter> counters = new ConcurrentHashMap<String, ResourceCounter>();
+	/** The thread MXBean */
+	protected final ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+	/** The thread MXBean extension measuring thread allocation, or null if not supported */
+	protected final com.sun.management.ThreadMXBean allocationMXBean;
+	/** Indicates if thread CPU time is supported */
+	protected final boolean cpuTimeSupported;
+	/** Indicates if accounting is enabled */
+	protected volatile boolean enabled;
+	
+	/**
+	 * Acquires and returns the ResourceAccounting singleton instance
+	 * @return the ResourceAccounting singleton instance
+	 */
+	public static ResourceAccounting getResourceAccounting() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new ResourceAccounting();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new ResourceAccounting
+	 */
+	private ResourceAccounting() {
+		enabled = ConfigurationHelper.getBooleanSystemThenEnvProperty(ACCOUNTING_PROP, DEFAULT_ACCOUNTING);
+		cpuTimeSupported = threadMXBean.isCurrentThreadCpuTimeSupported();
+		if(cpuTimeSupported && !threadMXBean.isThreadCpuTimeEnabled()) {
+			threadMXBean.setThreadCpuTimeEnabled(true);
+		}
+		com.sun.management.ThreadMXBean amx = null;
+		if(threadMXBean instanceof com.sun.management.ThreadMXBean) {
+			amx = (com.sun.management.ThreadMXBean)threadMXBean;
+			if(amx.isThreadAllocatedMemorySupported()) {
+				if(!amx.isThreadAllocatedMemoryEnabled()) amx.setThreadAllocatedMemoryEnabled(true);
+			} else {
+				amx = null;
+			}
+		}
+		allocationMXBean = amx;
+		try {
+			JMXHelper.registerMBean(this, JMXHelper.objectName(OBJECT_NAME));
+		} catch (Exception ex) {
+			log.warn("Failed to register ResourceAccounting Management Interface", ex);
+		}
+		log.info("Created ResourceAccounting. Enabled: [{}], CPU time: [{}], Allocation: [{}]", new Object[]{enabled, cpuTimeSupported, allocationMXBean!=null});
+	}
+	
+	/**
+	 * Returns the CPU time of the current thread
+	 * @return the current thread's CPU time in nanos, or -1 if accounting is disabled or the measurement is not available
+	 */
+	public long threadCpuTime() {
+		if(!enabled || !cpuTimeSupported) return -1L;
+		return threadMXBean.getCurrentThreadCpuTime();
+	}
+	
+	/**
+	 * Returns the bytes allocated by the current thread
+	 * @return the current thread's allocated bytes, or -1 if accounting is disabled or the measurement is not available
+	 */
+	public long threadAllocatedBytes() {
+		if(!enabled || allocationMXBean==null) return -1L;
+		return allocationMXBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+	}
+	
+	/**
+	 * Records an invocation into the passed counter from the CPU time and allocated bytes read before it started
+	 * @param counter The counter to record into
+	 * @param startCpu The {@link #threadCpuTime()} read before the invocation
+	 * @param startAllocated The {@link #threadAllocatedBytes()} read before the invocation
+	 */
+	public void record(ResourceCounter counter, long startCpu, long startAllocated) {
+		if(startCpu < 0 && startAllocated < 0) return;
+		final long cpu = startCpu < 0 ? -1L : threadCpuTime();
+		final long allocated = startAllocated < 0 ? -1L : threadAllocatedBytes();
+		counter.record(cpu < 0 ? -1L : cpu - startCpu, allocated < 0 ? -1L : allocated - startAllocated);
+	}
+	
+	/**
+	 * Creates and registers a counter
+	 * @param key The counter key, the owning bean's ObjectName and the closure name
+	 * @return the counter
+	 */
+	public ResourceCounter register(String key) {
+		final ResourceCounter counter = new ResourceCounter(key);
+		counters.put(key, counter);
+		return counter;
+	}
+	
+	/**
+	 * Unregisters a counter
+	 * @param key The counter key
+	 */
+	public void unregister(String key) {
+		counters.remove(key);
+	}
+	
+	/**
+	 * Returns the top counters in the passed order, highest first
+	 * @param n The number of counters to return
+	 * @param order The order
+	 * @return a description of each of the top counters
+	 */
+	protected String[] top(int n, Comparator<ResourceCounter> order) {
+		if(n < 1) return new String[0];
+		final PriorityQueue<ResourceCounter> heap = new PriorityQueue<ResourceCounter>(n + 1, order);
+		for(ResourceCounter counter: counters.values()) {
+			heap.add(counter);
+			if(heap.size() > n) heap.poll();
+		}
+		final List<ResourceCounter> list = new ArrayList<ResourceCounter>(heap);
+		Collections.sort(list, Collections.reverseOrder(order));
+		final String[] report = new String[list.size()];
+		for(int i = 0; i < report.length; i++) {
+			report[i] = list.get(i).toString();
+		}
+		return report;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ResourceAccountingMBean#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ResourceAccountingMBean#setEnabled(boolean)
+	 */
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		log.info("ResourceAccounting enabled: [{}]", enabled);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ResourceAccountingMBean#isCpuTimeSupported()
+	 */
+	@Override
+	public boolean isCpuTimeSupported() {
+		return cpuTimeSupported;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ResourceAccountingMBean#isAllocationSupported()
+	 */
+	@Override
+	public boolean isAllocationSupported() {
+		return allocationMXBean!=null;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ResourceAccountingMBean#getCounterCount()
+	 */
+	@Override
+	public int getCounterCount() {
+		return counters.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ResourceAccountingMBean#topCpu(int)
+	 */
+	@Override
+	public String[] topCpu(int n) {
+		return top(n, CPU_ORDER);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ResourceAccountingMBean#topAllocation(int)
+	 */
+	@Override
+	public String[] topAllocation(int n) {
+		return top(n, ALLOCATION_ORDER);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ResourceAccountingMBean#resetAll()
+	 */
+	@Override
+	public void resetAll() {
+		for(ResourceCounter counter: counters.values()) {
+			counter.reset();
+		}
+	}
+}
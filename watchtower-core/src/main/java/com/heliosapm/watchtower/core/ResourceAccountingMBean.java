@@ -0,0 +1,87 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: ResourceAccountingMBean</p>
+ * <p>Description: JMX MBean interface for {@link ResourceAccounting}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ResourceAccountingMBean</code></p>
+ */
+
+public interface ResourceAccountingMBean {
+	/** The resource accounting ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.core:service=ResourceAccounting";
+	
+	/**
+	 * Indicates if collector invocations are accounted
+	 * @return true if accounting is enabled
+	 */
+	public boolean isEnabled();
+	
+	/**
+	 * Enables or disables accounting
+	 * @param enabled true to enable, false to disable
+	 */
+	public void setEnabled(boolean enabled);
+	
+	/**
+	 * Indicates if the JVM supports measuring the current thread's CPU time
+	 * @return true if thread CPU time is supported
+	 */
+	public boolean isCpuTimeSupported();
+	
+	/**
+	 * Indicates if the JVM supports measuring the bytes allocated by a thread
+	 * @return true if thread allocation measurement is supported
+	 */
+	public boolean isAllocationSupported();
+	
+	/**
+	 * Returns the number of registered counters
+	 * @return the number of counters
+	 */
+	public int getCounterCount();
+	
+	/**
+	 * Returns the counters with the most CPU time across all branches, highest first
+	 * @param n The number of counters to return
+	 * @return a description of each of the top counters
+	 */
+	public String[] topCpu(int n);
+	
+	/**
+	 * Returns the counters with the most allocated bytes across all branches, highest first
+	 * @param n The number of counters to return
+	 * @return a description of each of the top counters
+	 */
+	public String[] topAllocation(int n);
+	
+	/**
+	 * Resets all the registered counters
+	 */
+	public void resetAll();
+}
@@ -0,0 +1,153 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Title: ResourceCounter</p>
+ * <p>Description: Accumulates the thread CPU time and allocated bytes of the invocations of one collector closure</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ResourceCounter</code></p>
+ */
+
+public class ResourceCounter {
+	/** The counter key, the owning bean's ObjectName and the closure name */
+	protected final String key;
+	/** The number of accounted invocations */
+	protected final AtomicLong invocations = new AtomicLong(0L);
+	/** The total thread CPU time in nanos */
+	protected final AtomicLong cpuNanos = new AtomicLong(0L);
+	/** The total allocated bytes */
+	protected final AtomicLong allocatedBytes = new AtomicLong(0L);
+	/** The thread CPU time in nanos of the most recent invocation */
+	protected volatile long lastCpuNanos = 0L;
+	/** The allocated bytes of the most recent invocation */
+	protected volatile long lastAllocatedBytes = 0L;
+	
+	/**
+	 * Creates a new ResourceCounter
+	 * @param key The counter key
+	 */
+	public ResourceCounter(String key) {
+		this.key = key;
+	}
+	
+	/**
+	 * Records the resources consumed by one invocation. Negative values indicate the measurement was not available and are not accumulated.
+	 * @param cpu The thread CPU time in nanos
+	 * @param allocated The allocated bytes
+	 */
+	public void record(long cpu, long allocated) {
+		invocations.incrementAndGet();
+		if(cpu >= 0) {
+			cpuNanos.addAndGet(cpu);
+			lastCpuNanos = cpu;
+		}
+		if(allocated >= 0) {
+			allocatedBytes.addAndGet(allocated);
+			lastAllocatedBytes = allocated;
+		}
+	}
+	
+	/**
+	 * Returns the counter key
+	 * @return the counter key
+	 */
+	public String getKey() {
+		return key;
+	}
+	
+	/**
+	 * Returns the number of accounted invocations
+	 * @return the number of invocations
+	 */
+	public long getInvocations() {
+		return invocations.get();
+	}
+	
+	/**
+	 * Returns the total thread CPU time in ms.
+	 * @return the total CPU time in ms.
+	 */
+	public long getCpuTime() {
+		return TimeUnit.NANOSECONDS.toMillis(cpuNanos.get());
+	}
+	
+	/**
+	 * Returns the total thread CPU time in nanos
+	 * @return the total CPU time in nanos
+	 */
+	public long getCpuNanos() {
+		return cpuNanos.get();
+	}
+	
+	/**
+	 * Returns the total allocated bytes
+	 * @return the total allocated bytes
+	 */
+	public long getAllocatedBytes() {
+		return allocatedBytes.get();
+	}
+	
+	/**
+	 * Resets the counter
+	 */
+	public void reset() {
+		invocations.set(0L);
+		cpuNanos.set(0L);
+		allocatedBytes.set(0L);
+		lastCpuNanos = 0L;
+		lastAllocatedBytes = 0L;
+	}
+	
+	/**
+	 * Returns the counter's values keyed by name
+	 * @return a map of the counter's values
+	 */
+	public Map<String, Long> toMap() {
+		final Map<String, Long> map = new LinkedHashMap<String, Long>(5);
+		map.put("invocations", invocations.get());
+		map.put("cpuTimeMs", getCpuTime());
+		map.put("allocatedBytes", allocatedBytes.get());
+		map.put("lastCpuTimeMs", TimeUnit.NANOSECONDS.toMillis(lastCpuNanos));
+		map.put("lastAllocatedBytes", lastAllocatedBytes);
+		return map;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuilder(key).append(" cpu=").append(getCpuTime()).append("ms alloc=").append(allocatedBytes.get())
+				.append("b invocations=").append(invocations.get()).toString();
+	}
+}
@@ -0,0 +1,96 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * <p>Title: ScheduleLatency</p>
+ * <p>Description: The planned versus actual fire time lag and the run duration histograms of a schedule, or of a whole scheduler</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ScheduleLatency</code></p>
+ */
+
+public class ScheduleLatency {
+	/** The fire time lag histogram */
+	protected final WindowedHistogram lag;
+	/** The run duration histogram */
+	protected final WindowedHistogram duration;
+	
+	/**
+	 * Creates a new ScheduleLatency
+	 * @param windowMs The histogram window in ms.
+	 * @param slices The number of slices the window is divided into
+	 */
+	public ScheduleLatency(long windowMs, int slices) {
+		lag = new WindowedHistogram(windowMs, slices);
+		duration = new WindowedHistogram(windowMs, slices);
+	}
+	
+	/**
+	 * Records the lag between a planned and actual fire time
+	 * @param lagMs The lag in ms.
+	 */
+	public void recordLag(long lagMs) {
+		lag.record(lagMs);
+	}
+	
+	/**
+	 * Records the duration of a run
+	 * @param durationMs The duration in ms.
+	 */
+	public void recordDuration(long durationMs) {
+		duration.record(durationMs);
+	}
+	
+	/**
+	 * Returns a snapshot of the lag histogram
+	 * @return a snapshot of the lag histogram
+	 */
+	public WindowedHistogram.Snapshot getLag() {
+		return lag.snapshot();
+	}
+	
+	/**
+	 * Returns a snapshot of the duration histogram
+	 * @return a snapshot of the duration histogram
+	 */
+	public WindowedHistogram.Snapshot getDuration() {
+		return duration.snapshot();
+	}
+	
+	/**
+	 * Returns the lag and duration statistics keyed by histogram name
+	 * @return a map of the lag and duration statistics
+	 */
+	public Map<String, Map<String, Long>> toMap() {
+		final Map<String, Map<String, Long>> map = new LinkedHashMap<String, Map<String, Long>>(2);
+		map.put("lag", lag.snapshot().toMap());
+		map.put("duration", duration.snapshot().toMap());
+		return map;
+	}
+}
@@ -0,0 +1,489 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.channels.OverlappingFileLockException;
+import java.util.BitSet;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: ScheduleStateStore</p>
+ * <p>Description: Persists the last and next fire times of schedules in a small memory mapped state file, so that
+ * schedules can resume their phase across restarts. The file is an open addressing table of fixed size records keyed by
+ * a 64 bit hash of the schedule key. Records are written in place on every fire, so the cost of persisting a fire is
+ * two stores into the mapped buffer. The operating system writes the mapped pages back, so state survives a process crash.</p>
+ * <p>Records of schedules that have not been updated within the stale age are reclaimed: the table is compacted when the 
+ * file is opened, and once running, a new schedule takes over a stale record on its probe chain that no schedule in this process holds.</p>
+ * <p>The process holds an exclusive lock on the state file while it is open. If the configured file is locked by another process, 
+ * the store falls over to the first unlocked numbered sibling, so <code>schedule.state</code> becomes <code>schedule.1.state</code>, 
+ * <code>schedule.2.state</code> and so on, and processes sharing a home directory never write over each other's records.</p>
+ * <p>Record layout: <b><code>[key hash][last fire][next fire][updated]</code></b>, each a long.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ScheduleStateStore</code></p>
+ */
+
+public class ScheduleStateStore implements ScheduleStateStoreMBean {
+	/** The state store singleton instance */
+	private static volatile ScheduleStateStore instance = null;
+	/** The state store singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The config property name to enable schedule state persistence */
+	public static final String STATE_PROP = "com.heliosapm.watchtower.scheduler.state";
+	/** The config property name for the state file */
+	public static final String STATE_FILE_PROP = "com.heliosapm.watchtower.scheduler.state.file";
+	/** The config property name for the number of schedule slots in a new state file */
+	public static final String STATE_SLOTS_PROP = "com.heliosapm.watchtower.scheduler.state.slots";
+	/** The config property name for the maximum number of missed fires executed on restart under the run all catch up policy */
+	public static final String MAX_CATCHUP_PROP = "com.heliosapm.watchtower.scheduler.state.maxcatchup";
+	/** The config property name for the age in ms. after which a record that has not been updated can be reclaimed */
+	public static final String STALE_AGE_PROP = "com.heliosapm.watchtower.scheduler.state.staleage";
+	/** The default schedule state persistence enablement */
+	public static final boolean DEFAULT_STATE = false;
+	/** The default state file */
+	public static final String DEFAULT_STATE_FILE = System.getProperty("user.home") + File.separator + ".watchtower" + File.separator + "schedule.state";
+	/** The default number of schedule slots in a new state file */
+	public static final int DEFAULT_STATE_SLOTS = 4096;
+	/** The default maximum number of missed fires executed on restart */
+	public static final int DEFAULT_MAX_CATCHUP = 100;
+	/** The default age in ms. after which a record that has not been updated can be reclaimed (7 days) */
+	public static final long DEFAULT_STALE_AGE = 7L * 24 * 60 * 60 * 1000;
+	/** The maximum number of numbered siblings tried when the configured state file is locked */
+	public static final int MAX_SIBLINGS = 16;
+	
+	/** The state file magic number */
+	private static final int MAGIC = 0x57545353;
+	/** The state file format version */
+	private static final int VERSION = 1;
+	/** The header size in bytes: magic, version, slot count, used slot count */
+	private static final int HEADER_SIZE = 16;
+	/** The offset of the used slot count in the header */
+	private static final int USED_OFFSET = 12;
+	/** The record size in bytes */
+	private static final int RECORD_SIZE = 32;
+	/** The offset of the last fire time in a record */
+	private static final int LAST_FIRE_OFFSET = 8;
+	/** The offset of the next fire time in a record */
+	private static final int NEXT_FIRE_OFFSET = 16;
+	/** The offset of the update time in a record */
+	private static final int UPDATED_OFFSET = 24;
+	
+	/** Static class logger */
+	private static final Logger LOG = LoggerFactory.getLogger(ScheduleStateStore.class);
+	
+	/** The state file */
+	protected final File stateFile;
+	/** The open state file */
+	protected final RandomAccessFile raf;
+	/** The exclusive lock held on the state file */
+	protected final FileLock fileLock;
+	/** The mapped state file */
+	protected final MappedByteBuffer buffer;
+	/** The number of slots */
+	protected final int slots;
+	/** The number of used slots */
+	protected int used;
+	/** The maximum number of missed fires executed on restart */
+	protected final int maxCatchUp;
+	/** The age in ms. after which a record that has not been updated can be reclaimed */
+	protected final long staleAge;
+	/** The slots handed out in this process, which are never reclaimed */
+	protected final BitSet held;
+	/** The number of reclaimed records */
+	protected long reclaimed = 0;
+	
+	/**
+	 * Indicates if schedule state persistence is enabled
+	 * @return true if schedule state persistence is enabled
+	 */
+	public static boolean isEnabled() {
+		return ConfigurationHelper.getBooleanSystemThenEnvProperty(STATE_PROP, DEFAULT_STATE);
+	}
+	
+	/**
+	 * Acquires and returns the ScheduleStateStore singleton instance
+	 * @return the ScheduleStateStore singleton instance
+	 */
+	public static ScheduleStateStore getScheduleStateStore() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new ScheduleStateStore();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new ScheduleStateStore
+	 */
+	private ScheduleStateStore() {
+		this(new File(ConfigurationHelper.getSystemThenEnvProperty(STATE_FILE_PROP, DEFAULT_STATE_FILE).trim()));
+		Runtime.getRuntime().addShutdownHook(new Thread("ScheduleStateStoreShutdownHook") {
+			@Override
+			public void run() {
+				force();
+			}
+		});
+		try {
+			JMXHelper.registerMBean(this, JMXHelper.objectName(OBJECT_NAME));
+		} catch (Exception ex) {
+			LOG.warn("Failed to register ScheduleStateStore Management Interface", ex);
+		}
+	}
+	
+	/**
+	 * Creates a new unregistered ScheduleStateStore on the passed state file, or on its first unlocked numbered sibling
+	 * @param requestedFile The configured state file
+	 */
+	ScheduleStateStore(final File requestedFile) {
+		maxCatchUp = Math.max(1, ConfigurationHelper.getIntSystemThenEnvProperty(MAX_CATCHUP_PROP, DEFAULT_MAX_CATCHUP));
+		staleAge = Math.max(1L, ConfigurationHelper.getLongSystemThenEnvProperty(STALE_AGE_PROP, DEFAULT_STALE_AGE));
+		final File requested = requestedFile.getAbsoluteFile();
+		File dir = requested.getParentFile();
+		if(dir!=null && !dir.exists()) dir.mkdirs();
+		File lockedFile = null;
+		RandomAccessFile lockedRaf = null;
+		FileLock lockedLock = null;
+		for(int i = 0; i <= MAX_SIBLINGS && lockedLock==null; i++) {
+			final File candidate = sibling(requested, i);
+			RandomAccessFile candidateRaf = null;
+			try {
+				candidateRaf = new RandomAccessFile(candidate, "rw");
+				lockedLock = candidateRaf.getChannel().tryLock();
+			} catch (OverlappingFileLockException oex) {
+				lockedLock = null;
+			} catch (IOException iex) {
+				closeQuietly(candidateRaf);
+				throw new RuntimeException("Failed to open schedule state file [" + candidate + "]", iex);
+			}
+			if(lockedLock==null) {
+				LOG.info("Schedule state file [{}] is locked by another process", candidate);
+				closeQuietly(candidateRaf);
+			} else {
+				lockedFile = candidate;
+				lockedRaf = candidateRaf;
+			}
+		}
+		if(lockedLock==null) throw new RuntimeException("Schedule state file [" + requested + "] and its [" + MAX_SIBLINGS + "] siblings are all locked");
+		stateFile = lockedFile;
+		raf = lockedRaf;
+		fileLock = lockedLock;
+		try {
+			int fileSlots = -1;
+			if(raf.length() >= HEADER_SIZE && raf.readInt()==MAGIC && raf.readInt()==VERSION) {
+				fileSlots = raf.readInt();
+				if(raf.length() < HEADER_SIZE + ((long)fileSlots * RECORD_SIZE)) fileSlots = -1;
+			}
+			final boolean init = fileSlots < 1;
+			slots = init ? Math.max(16, ConfigurationHelper.getIntSystemThenEnvProperty(STATE_SLOTS_PROP, DEFAULT_STATE_SLOTS)) : fileSlots;
+			final long size = HEADER_SIZE + ((long)slots * RECORD_SIZE);
+			if(init) {
+				if(raf.length() > 0) LOG.warn("Reinitializing invalid schedule state file [{}]", stateFile);
+				raf.setLength(0);
+				raf.setLength(size);
+			}
+			buffer = raf.getChannel().map(FileChannel.MapMode.READ_WRITE, 0, size);
+			if(init) {
+				buffer.putInt(0, MAGIC);
+				buffer.putInt(4, VERSION);
+				buffer.putInt(8, slots);
+				buffer.putInt(USED_OFFSET, 0);
+			}
+			used = buffer.getInt(USED_OFFSET);
+			if(!init) compact(System.currentTimeMillis() - staleAge);
+		} catch (Exception ex) {
+			close();
+			throw new RuntimeException("Failed to open schedule state file [" + stateFile + "]", ex);
+		}
+		held = new BitSet(slots);
+		LOG.info("Opened schedule state file [{}] with [{}] of [{}] slots used", new Object[]{stateFile, used, slots});
+	}
+	
+	/**
+	 * Returns the numbered sibling of a state file, so <code>schedule.state</code> has the siblings <code>schedule.1.state</code>, <code>schedule.2.state</code> and so on
+	 * @param file The state file
+	 * @param index The sibling number, where zero returns the state file itself
+	 * @return the sibling file
+	 */
+	static File sibling(final File file, final int index) {
+		if(index==0) return file;
+		final String name = file.getName();
+		final int dot = name.lastIndexOf('.');
+		final String siblingName = dot > 0 ? name.substring(0, dot) + "." + index + name.substring(dot) : name + "." + index;
+		return new File(file.getParentFile(), siblingName);
+	}
+	
+	/**
+	 * Closes the passed file, ignoring any error
+	 * @param file The file to close, which may be null
+	 */
+	private static void closeQuietly(final RandomAccessFile file) {
+		if(file==null) return;
+		try { file.close(); } catch (Exception ex) {/* No Op */}
+	}
+	
+	/**
+	 * Releases the lock on the state file and closes it. The mapped buffer stays valid, but records written after the close 
+	 * may be written over by the next process to lock the file.
+	 */
+	void close() {
+		try {
+			if(fileLock.isValid()) fileLock.release();
+		} catch (Exception ex) {
+			LOG.warn("Failed to release the lock on schedule state file [{}]", stateFile, ex);
+		}
+		closeQuietly(raf);
+	}
+	
+	/**
+	 * Compacts the table on open, dropping the records not updated since the passed cut off and re-inserting the rest, 
+	 * so that no probe chain runs through a dropped record. Must not be called once slots have been handed out, since it moves records.
+	 * @param cutOff The update time in ms. before which records are dropped
+	 */
+	private void compact(final long cutOff) {
+		final long[] live = new long[slots * 4];
+		int count = 0;
+		int dropped = 0;
+		for(int slot = 0; slot < slots; slot++) {
+			final int pos = position(slot);
+			final long hash = buffer.getLong(pos);
+			if(hash==0L) continue;
+			final long updated = buffer.getLong(pos + UPDATED_OFFSET);
+			if(updated < cutOff) {
+				dropped++;
+				continue;
+			}
+			live[count++] = hash;
+			live[count++] = buffer.getLong(pos + LAST_FIRE_OFFSET);
+			live[count++] = buffer.getLong(pos + NEXT_FIRE_OFFSET);
+			live[count++] = updated;
+		}
+		if(dropped==0) return;
+		for(int pos = HEADER_SIZE, end = position(slots); pos < end; pos += 8) {
+			buffer.putLong(pos, 0L);
+		}
+		for(int i = 0; i < count; i += 4) {
+			int index = (int)((live[i] & Long.MAX_VALUE) % slots);
+			while(buffer.getLong(position(index))!=0L) {
+				index = index==slots-1 ? 0 : index + 1;
+			}
+			final int pos = position(index);
+			buffer.putLong(pos, live[i]);
+			buffer.putLong(pos + LAST_FIRE_OFFSET, live[i+1]);
+			buffer.putLong(pos + NEXT_FIRE_OFFSET, live[i+2]);
+			buffer.putLong(pos + UPDATED_OFFSET, live[i+3]);
+		}
+		used = count / 4;
+		buffer.putInt(USED_OFFSET, used);
+		reclaimed += dropped;
+		LOG.info("Compacted schedule state file [{}], dropping [{}] stale records", stateFile, dropped);
+	}
+	
+	/**
+	 * Finds the slot of the schedule with the passed key, allocating one if the schedule has no slot yet.
+	 * A new schedule takes over the first stale record on its probe chain that is not held in this process, 
+	 * which keeps the chain intact, and otherwise the empty slot ending the chain.
+	 * @param key The schedule key
+	 * @return the slot or -1 if the state file is full
+	 */
+	public synchronized int slot(CharSequence key) {
+		final long hash = hash(key);
+		final long cutOff = System.currentTimeMillis() - staleAge;
+		int index = (int)((hash & Long.MAX_VALUE) % slots);
+		int stale = -1;
+		int empty = -1;
+		for(int i = 0; i < slots; i++) {
+			final int pos = position(index);
+			final long current = buffer.getLong(pos);
+			if(current==hash) {
+				held.set(index);
+				return index;
+			}
+			if(current==0L) {
+				empty = index;
+				break;
+			}
+			if(stale==-1 && !held.get(index) && buffer.getLong(pos + UPDATED_OFFSET) < cutOff) stale = index;
+			index = index==slots-1 ? 0 : index + 1;
+		}
+		if(stale!=-1) {
+			final int pos = position(stale);
+			buffer.putLong(pos, hash);
+			buffer.putLong(pos + LAST_FIRE_OFFSET, 0L);
+			buffer.putLong(pos + NEXT_FIRE_OFFSET, 0L);
+			buffer.putLong(pos + UPDATED_OFFSET, 0L);
+			reclaimed++;
+			held.set(stale);
+			return stale;
+		}
+		if(empty!=-1) {
+			buffer.putLong(position(empty), hash);
+			used++;
+			buffer.putInt(USED_OFFSET, used);
+			held.set(empty);
+			return empty;
+		}
+		LOG.warn("Schedule state file [{}] is full. State of [{}] will not be persisted.", stateFile, key);
+		return -1;
+	}
+	
+	/**
+	 * Returns the persisted last fire time of a schedule
+	 * @param slot The schedule's slot
+	 * @return the last fire time in ms. or 0 if none has been persisted
+	 */
+	public long getLastFire(int slot) {
+		return slot < 0 ? 0L : buffer.getLong(position(slot) + LAST_FIRE_OFFSET);
+	}
+	
+	/**
+	 * Returns the persisted next fire time of a schedule
+	 * @param slot The schedule's slot
+	 * @return the next fire time in ms. or 0 if none has been persisted
+	 */
+	public long getNextFire(int slot) {
+		return slot < 0 ? 0L : buffer.getLong(position(slot) + NEXT_FIRE_OFFSET);
+	}
+	
+	/**
+	 * Persists the fire times of a schedule
+	 * @param slot The schedule's slot
+	 * @param lastFire The last fire time in ms.
+	 * @param nextFire The next fire time in ms. or 0 if not known
+	 */
+	public void record(int slot, long lastFire, long nextFire) {
+		if(slot < 0) return;
+		final int pos = position(slot);
+		buffer.putLong(pos + LAST_FIRE_OFFSET, lastFire);
+		buffer.putLong(pos + NEXT_FIRE_OFFSET, nextFire);
+		buffer.putLong(pos + UPDATED_OFFSET, System.currentTimeMillis());
+	}
+	
+	/**
+	 * Computes the buffer position of a slot
+	 * @param slot The slot
+	 * @return the buffer position
+	 */
+	private static int position(int slot) {
+		return HEADER_SIZE + (slot * RECORD_SIZE);
+	}
+	
+	/**
+	 * Computes the 64 bit FNV-1a hash of a schedule key. Zero marks an empty slot, so it is never returned.
+	 * @param key The schedule key
+	 * @return the hash
+	 */
+	static long hash(CharSequence key) {
+		long hash = 0xcbf29ce484222325L;
+		for(int i = 0, len = key.length(); i < len; i++) {
+			char c = key.charAt(i);
+			hash ^= (c & 0xFF);
+			hash *= 0x100000001b3L;
+			hash ^= (c >>> 8);
+			hash *= 0x100000001b3L;
+		}
+		return hash==0L ? 1L : hash;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ScheduleStateStoreMBean#getFileName()
+	 */
+	@Override
+	public String getFileName() {
+		return stateFile.getAbsolutePath();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ScheduleStateStoreMBean#getSlotCount()
+	 */
+	@Override
+	public int getSlotCount() {
+		return slots;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ScheduleStateStoreMBean#getUsedSlots()
+	 */
+	@Override
+	public synchronized int getUsedSlots() {
+		return used;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ScheduleStateStoreMBean#getMaxCatchUp()
+	 */
+	@Override
+	public int getMaxCatchUp() {
+		return maxCatchUp;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ScheduleStateStoreMBean#getStaleAge()
+	 */
+	@Override
+	public long getStaleAge() {
+		return staleAge;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ScheduleStateStoreMBean#getReclaimedSlots()
+	 */
+	@Override
+	public synchronized long getReclaimedSlots() {
+		return reclaimed;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.ScheduleStateStoreMBean#force()
+	 */
+	@Override
+	public void force() {
+		try {
+			buffer.force();
+		} catch (Exception ex) {
+			LOG.warn("Failed to force schedule state file [{}]", stateFile, ex);
+		}
+	}
+}
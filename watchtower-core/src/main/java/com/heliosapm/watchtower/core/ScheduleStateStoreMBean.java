@@ -0,0 +1,79 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: ScheduleStateStoreMBean</p>
+ * <p>Description: JMX MBean interface for {@link ScheduleStateStore}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ScheduleStateStoreMBean</code></p>
+ */
+
+public interface ScheduleStateStoreMBean {
+	/** The state store ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.core:service=ScheduleStateStore";
+	
+	/**
+	 * Returns the path of the state file
+	 * @return the state file path
+	 */
+	public String getFileName();
+	
+	/**
+	 * Returns the number of schedule slots in the state file
+	 * @return the slot count
+	 */
+	public int getSlotCount();
+	
+	/**
+	 * Returns the number of schedule slots in use
+	 * @return the used slot count
+	 */
+	public int getUsedSlots();
+	
+	/**
+	 * Returns the maximum number of missed fires executed on restart under the run all catch up policy
+	 * @return the maximum catch up executions
+	 */
+	public int getMaxCatchUp();
+	
+	/**
+	 * Returns the age in ms. after which a record that has not been updated can be reclaimed
+	 * @return the stale age in ms.
+	 */
+	public long getStaleAge();
+	
+	/**
+	 * Returns the number of stale records reclaimed since the state file was opened
+	 * @return the reclaimed record count
+	 */
+	public long getReclaimedSlots();
+	
+	/**
+	 * Forces the state file content to the storage device
+	 */
+	public void force();
+}
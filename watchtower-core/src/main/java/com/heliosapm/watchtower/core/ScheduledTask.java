@@ -0,0 +1,185 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.concurrent.Callable;
+import java.util.concurrent.Delayed;
+import java.util.concurrent.FutureTask;
+import java.util.concurrent.RunnableScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Title: ScheduledTask</p>
+ * <p>Description: A scheduled future for tasks managed by the {@link CollectionScheduler} outside of the
+ * executor's own delay queue. Periodic instances re-arm themselves after each execution, so the same
+ * task instance is reused for the life of the schedule.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ScheduledTask</code></p>
+ * @param <V> The result type of the task
+ */
+public class ScheduledTask<V> extends FutureTask<V> implements RunnableScheduledFuture<V> {
+	/** The value returned by {@link #nextTime(long)} when a periodic task has no further executions */
+	protected static final long NO_NEXT = Long.MIN_VALUE;
+	/** Sequence generator to break ties between tasks with the same trigger time */
+	private static final AtomicLong sequencer = new AtomicLong(0L);
+	
+	/** The scheduler that re-arms this task */
+	protected final CollectionScheduler scheduler;
+	/** The tie breaking sequence number */
+	protected final long sequenceNumber;
+	/** The period in nanos. Positive for fixed rate, negative for fixed delay and zero for a one shot task */
+	protected final long period;
+	/** The nano time at which this task is next due */
+	protected volatile long time;
+	
+	// ======================  Timing wheel state, only accessed by the wheel thread  ======================
+	/** The next task in the wheel slot */
+	ScheduledTask<?> next = null;
+	/** The prior task in the wheel slot */
+	ScheduledTask<?> prev = null;
+	/** The absolute wheel tick this task is due on */
+	long deadlineTick = 0L;
+	/** The wheel level this task is slotted into, or -1 if not slotted */
+	int level = -1;
+	/** The wheel slot this task is slotted into */
+	int slot = -1;
+
+	/**
+	 * Creates a new ScheduledTask for a runnable
+	 * @param scheduler The scheduler that re-arms this task
+	 * @param command The runnable to execute
+	 * @param result The result to return on completion of a one shot task
+	 * @param time The nano time at which the task is first due
+	 * @param period The period in nanos. Positive for fixed rate, negative for fixed delay and zero for a one shot task
+	 */
+	public ScheduledTask(CollectionScheduler scheduler, Runnable command, V result, long time, long period) {
+		super(command, result);
+		this.scheduler = scheduler;
+		this.time = time;
+		this.period = period;
+		this.sequenceNumber = sequencer.getAndIncrement();
+	}
+	
+	/**
+	 * Creates a new one shot ScheduledTask for a callable
+	 * @param scheduler The scheduler that manages this task
+	 * @param callable The callable to execute
+	 * @param time The nano time at which the task is due
+	 */
+	public ScheduledTask(CollectionScheduler scheduler, Callable<V> callable, long time) {
+		super(callable);
+		this.scheduler = scheduler;
+		this.time = time;
+		this.period = 0L;
+		this.sequenceNumber = sequencer.getAndIncrement();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.FutureTask#run()
+	 */
+	@Override
+	public void run() {
+		if(!isPeriodic()) {
+			super.run();
+		} else if(runAndReset()) {
+			long next = nextTime(System.nanoTime());
+			if(next==NO_NEXT) {
+				cancel(false);
+			} else {
+				time = next;
+				scheduler.rearm(this);
+			}
+		}
+	}
+	
+	/**
+	 * Computes the nano time of the next execution of a periodic task
+	 * @param now The current nano time
+	 * @return the nano time of the next execution or {@link #NO_NEXT} if there is none
+	 */
+	protected long nextTime(long now) {
+		return period > 0 ? time + period : now - period;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.FutureTask#cancel(boolean)
+	 */
+	@Override
+	public boolean cancel(boolean mayInterruptIfRunning) {
+		boolean cancelled = super.cancel(mayInterruptIfRunning);
+		if(cancelled) {
+			scheduler.onCancel(this);
+		}
+		return cancelled;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.RunnableScheduledFuture#isPeriodic()
+	 */
+	@Override
+	public boolean isPeriodic() {
+		return period != 0L;
+	}
+	
+	/**
+	 * Returns the nano time at which this task is next due
+	 * @return the nano time at which this task is next due
+	 */
+	public long getTime() {
+		return time;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.Delayed#getDelay(java.util.concurrent.TimeUnit)
+	 */
+	@Override
+	public long getDelay(TimeUnit unit) {
+		return unit.convert(time - System.nanoTime(), TimeUnit.NANOSECONDS);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Comparable#compareTo(java.lang.Object)
+	 */
+	@Override
+	public int compareTo(Delayed other) {
+		if(other==this) return 0;
+		if(other instanceof ScheduledTask) {
+			ScheduledTask<?> x = (ScheduledTask<?>)other;
+			long diff = time - x.time;
+			if(diff < 0) return -1;
+			if(diff > 0) return 1;
+			return sequenceNumber < x.sequenceNumber ? -1 : 1;
+		}
+		long diff = getDelay(TimeUnit.NANOSECONDS) - other.getDelay(TimeUnit.NANOSECONDS);
+		return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+	}
+}
@@ -0,0 +1,225 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.ArrayList;
+import java.util.Date;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * <p>Title: StuckSample</p>
+ * <p>Description: A stack sample of an execution that was still running past the {@link CollectionWatchdog}'s stuck threshold.
+ * Groovy frames are demangled: closure classes are rendered as the script and the closure's enclosing property, and runs of 
+ * Groovy runtime, call site and reflection frames are collapsed into a single line.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.StuckSample</code></p>
+ */
+
+public class StuckSample {
+	/** The class name prefixes of Groovy runtime and reflection frames that are collapsed */
+	private static final String[] RUNTIME_PREFIXES = {
+		"org.codehaus.groovy.runtime.", "org.codehaus.groovy.reflection.", "org.codehaus.groovy.vmplugin.",
+		"groovy.lang.MetaClassImpl", "groovy.lang.MetaMethod", "groovy.lang.Closure", "groovy.lang.ExpandoMetaClass",
+		"sun.reflect.", "jdk.internal.reflect.", "java.lang.reflect.Method", "java.lang.invoke."
+	};
+	/** Matches the closure number suffix of a Groovy closure class name part */
+	private static final Pattern CLOSURE_SUFFIX = Pattern.compile("_?closure\\d+$");
+	
+	/** The name of the stuck execution */
+	protected final String executionName;
+	/** The name of the executing thread */
+	protected final String threadName;
+	/** The id of the executing thread */
+	protected final long threadId;
+	/** The state of the executing thread when sampled */
+	protected final Thread.State threadState;
+	/** The start time in ms. of the execution */
+	protected final long startTime;
+	/** The time in ms. the sample was captured */
+	protected final long captureTime;
+	/** The demangled stack frames */
+	protected final String[] frames;
+	
+	/**
+	 * Creates a new StuckSample, capturing the passed thread's stack
+	 * @param executionName The name of the stuck execution
+	 * @param thread The executing thread
+	 * @param startTime The start time in ms. of the execution
+	 */
+	public StuckSample(String executionName, Thread thread, long startTime) {
+		this.executionName = executionName;
+		this.threadName = thread.getName();
+		this.threadId = thread.getId();
+		this.threadState = thread.getState();
+		this.startTime = startTime;
+		this.captureTime = System.currentTimeMillis();
+		this.frames = demangle(thread.getStackTrace());
+	}
+	
+	/**
+	 * Demangles the passed stack trace
+	 * @param stack The raw stack trace
+	 * @return the demangled frames
+	 */
+	public static String[] demangle(StackTraceElement[] stack) {
+		final List<String> out = new ArrayList<String>(stack.length);
+		int collapsed = 0;
+		for(StackTraceElement frame: stack) {
+			final String cn = frame.getClassName();
+			if(isRuntime(cn) || frame.getMethodName().indexOf('$')!=-1) {
+				collapsed++;
+				continue;
+			}
+			if(collapsed > 0) {
+				out.add("... " + collapsed + " groovy runtime frames");
+				collapsed = 0;
+			}
+			out.add(demangle(frame));
+		}
+		if(collapsed > 0) out.add("... " + collapsed + " groovy runtime frames");
+		return out.toArray(new String[out.size()]);
+	}
+	
+	/**
+	 * Demangles one stack frame. A closure frame such as <b><code>MQMonitor$_collect_closure2$_closure3.doCall(MQMonitor.groovy:42)</code></b>
+	 * is rendered as <b><code>MQMonitor.collect{closure}{closure} (MQMonitor.groovy:42)</code></b>.
+	 * @param frame The frame to demangle
+	 * @return the demangled frame
+	 */
+	static String demangle(StackTraceElement frame) {
+		final String cn = frame.getClassName();
+		final String location = frame.getFileName()==null ? "Unknown Source" : 
+			frame.getLineNumber() >= 0 ? frame.getFileName() + ":" + frame.getLineNumber() : frame.getFileName();
+		final int closureAt = cn.indexOf("$_");
+		if(closureAt==-1) {
+			return cn + "." + frame.getMethodName() + " (" + location + ")";
+		}
+		final StringBuilder b = new StringBuilder(cn.substring(0, closureAt));
+		boolean first = true;
+		for(String part: cn.substring(closureAt + 2).split("\\$_")) {
+			final String owner = CLOSURE_SUFFIX.matcher(part).replaceFirst("");
+			if(first && !owner.isEmpty()) b.append(".").append(owner);
+			b.append("{closure}");
+			first = false;
+		}
+		final String method = frame.getMethodName();
+		if(!"doCall".equals(method) && !"call".equals(method)) b.append(".").append(method);
+		return b.append(" (").append(location).append(")").toString();
+	}
+	
+	/**
+	 * Indicates if the passed class name is a Groovy runtime or reflection class
+	 * @param className The class name
+	 * @return true if the class is a runtime class
+	 */
+	private static boolean isRuntime(String className) {
+		for(String prefix: RUNTIME_PREFIXES) {
+			if(className.startsWith(prefix)) return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Returns the name of the stuck execution
+	 * @return the execution name
+	 */
+	public String getExecutionName() {
+		return executionName;
+	}
+	
+	/**
+	 * Returns the name of the executing thread
+	 * @return the thread name
+	 */
+	public String getThreadName() {
+		return threadName;
+	}
+	
+	/**
+	 * Returns the elapsed time in ms. of the execution when it was sampled
+	 * @return the elapsed time in ms.
+	 */
+	public long getElapsed() {
+		return captureTime - startTime;
+	}
+	
+	/**
+	 * Returns the time in ms. the sample was captured
+	 * @return the capture time in ms.
+	 */
+	public long getCaptureTime() {
+		return captureTime;
+	}
+	
+	/**
+	 * Returns the demangled stack frames
+	 * @return the stack frames
+	 */
+	public String[] getFrames() {
+		return frames.clone();
+	}
+	
+	/**
+	 * Returns the demangled stack as one string, one frame per line
+	 * @return the demangled stack
+	 */
+	public String getStackTrace() {
+		final StringBuilder b = new StringBuilder();
+		for(String frame: frames) {
+			b.append("\tat ").append(frame).append("\n");
+		}
+		return b.toString();
+	}
+	
+	/**
+	 * Returns the sample's values keyed by name
+	 * @return a map of the sample's values
+	 */
+	public Map<String, Object> toMap() {
+		final Map<String, Object> map = new LinkedHashMap<String, Object>(6);
+		map.put("execution", executionName);
+		map.put("thread", threadName);
+		map.put("threadState", threadState.name());
+		map.put("elapsed", getElapsed());
+		map.put("captured", captureTime);
+		map.put("stack", getStackTrace());
+		return map;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return new StringBuilder("[").append(new Date(captureTime)).append("] ").append(executionName).append(" stuck for ")
+			.append(getElapsed()).append(" ms. on thread [").append(threadName).append("/").append(threadId).append("] (")
+			.append(threadState).append(")\n").append(getStackTrace()).toString();
+	}
+}
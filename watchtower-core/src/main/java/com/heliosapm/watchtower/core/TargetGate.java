@@ -0,0 +1,397 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import javax.management.ObjectName;
+
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: TargetGate</p>
+ * <p>Description: Governs the collections against one remote target. A collection must hold one of the gate's 
+ * concurrency permits and take a token from its token bucket before it starts. The bucket is implemented as a 
+ * generic cell rate algorithm on a single atomic theoretical arrival time, so it needs no refill thread and no lock.</p> 
+ * <p>Acquisition never blocks: a collection that cannot start yet is told how long the token bucket needs, or is parked on the 
+ * gate and handed back when a permit is released, so collections waiting on a busy target hold no collection thread.</p>
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.TargetGate</code></p>
+ */
+
+public class TargetGate implements TargetGateMBean {
+	/** Static class logger */
+	private static final Logger LOG = LoggerFactory.getLogger(TargetGate.class);
+	
+	/** The target identity */
+	protected final String target;
+	/** The gate's JMX ObjectName */
+	protected final ObjectName objectName;
+	/** The concurrency permits */
+	protected final ResizableSemaphore permits;
+	/** The maximum concurrency */
+	protected int maxConcurrent;
+	/** The rate limit in collections per second */
+	protected volatile double rate = 0D;
+	/** The interval in nanos between tokens, or zero if the rate is not limited */
+	protected volatile long intervalNanos = 0L;
+	/** The token bucket capacity */
+	protected volatile int burst = 1;
+	/** The theoretical arrival time in nanos of the next token */
+	protected final AtomicLong tat = new AtomicLong(System.nanoTime());
+	
+	/** The number of collections holding a token */
+	protected final AtomicInteger active = new AtomicInteger(0);
+	/** The number of collections parked waiting for a concurrency permit */
+	protected final AtomicInteger waiting = new AtomicInteger(0);
+	/** The retries of the collections parked waiting for a concurrency permit */
+	protected final Queue<Runnable> parked = new ConcurrentLinkedQueue<Runnable>();
+	/** The number of tokens granted */
+	protected final AtomicLong acquired = new AtomicLong(0L);
+	/** The number of rejected collections */
+	protected final AtomicLong rejected = new AtomicLong(0L);
+	/** The total wait time in nanos of granted tokens */
+	protected final AtomicLong totalWait = new AtomicLong(0L);
+	/** The maximum wait time in nanos of granted tokens */
+	protected final AtomicLong maxWait = new AtomicLong(0L);
+	/** The most recent wait time in nanos */
+	protected volatile long lastWait = 0L;
+	
+	/**
+	 * Creates a new TargetGate and registers its management interface
+	 * @param target The target identity
+	 * @param maxConcurrent The maximum concurrency
+	 * @param rate The rate limit in collections per second, zero or less for no limit
+	 * @param burst The token bucket capacity
+	 */
+	TargetGate(String target, int maxConcurrent, double rate, int burst) {
+		this.target = target;
+		this.maxConcurrent = Math.max(1, maxConcurrent);
+		permits = new ResizableSemaphore(this.maxConcurrent);
+		setRate(rate);
+		setBurst(burst);
+		objectName = JMXHelper.objectName(String.format(OBJECT_NAME_TEMPLATE, ObjectName.quote(target)));
+		try {
+			JMXHelper.registerMBean(this, objectName);
+		} catch (Exception ex) {
+			LOG.warn("Failed to register TargetGate Management Interface for [{}]", target, ex);
+		}
+	}
+	
+	/**
+	 * Tries to acquire a token to collect from the target without waiting. 
+	 * A caller that acquires a token must {@link #release()} it when the collection finishes.
+	 * @param firstAttempt The nano time of the collection's first attempt, from which its wait is measured
+	 * @return zero if the token was acquired, -1 if no concurrency permit is free, in which case the caller may {@link #park(Runnable)}, 
+	 * or the nanos until the token bucket grants the next token
+	 */
+	public long tryAcquire(long firstAttempt) {
+		if(!permits.tryAcquire()) return -1L;
+		final long delay = takeToken();
+		if(delay > 0) {
+			permits.release();
+			unpark();
+			return delay;
+		}
+		final long elapsed = System.nanoTime() - firstAttempt;
+		lastWait = elapsed;
+		totalWait.addAndGet(elapsed);
+		acquired.incrementAndGet();
+		active.incrementAndGet();
+		while(true) {
+			long max = maxWait.get();
+			if(elapsed <= max || maxWait.compareAndSet(max, elapsed)) break;
+		}
+		return 0L;
+	}
+	
+	/**
+	 * Takes a token from the bucket if one is available now
+	 * @return zero if the token was taken, otherwise the nanos until the next token is available
+	 */
+	protected long takeToken() {
+		final long interval = intervalNanos;
+		if(interval==0L) return 0L;
+		final long tolerance = (burst - 1) * interval;
+		while(true) {
+			final long now = System.nanoTime();
+			final long current = tat.get();
+			final long next = Math.max(current, now) + interval;
+			final long allowAt = next - interval - tolerance;
+			if(allowAt > now) return allowAt - now;
+			if(tat.compareAndSet(current, next)) return 0L;
+		}
+	}
+	
+	/**
+	 * Parks a collection that found no free concurrency permit. The passed retry is run on the thread that next releases a permit, 
+	 * and should re-dispatch the collection, which tries to acquire again.
+	 * @param retry The collection's retry
+	 */
+	public void park(Runnable retry) {
+		waiting.incrementAndGet();
+		parked.add(retry);
+		// a permit released before the retry was queued would otherwise strand it
+		if(permits.availablePermits() > 0) unpark();
+	}
+	
+	/**
+	 * Removes a parked collection's retry, such as when the collection has waited too long
+	 * @param retry The collection's retry
+	 * @return true if the retry was still parked and has been removed, false if it has already been run
+	 */
+	public boolean unpark(Runnable retry) {
+		if(!parked.remove(retry)) return false;
+		waiting.decrementAndGet();
+		return true;
+	}
+	
+	/**
+	 * Runs the retry of the longest parked collection, if there is one
+	 */
+	protected void unpark() {
+		final Runnable retry = parked.poll();
+		if(retry==null) return;
+		waiting.decrementAndGet();
+		try {
+			retry.run();
+		} catch (Throwable t) {
+			LOG.warn("Retry of parked collection against [{}] failed", target, t);
+		}
+	}
+	
+	/**
+	 * Records a collection rejected because it could not acquire a token within the maximum wait
+	 */
+	public void reject() {
+		rejected.incrementAndGet();
+	}
+	
+	/**
+	 * Releases a token acquired by {@link #tryAcquire(long)} and hands the freed permit to the longest parked collection
+	 */
+	public void release() {
+		active.decrementAndGet();
+		permits.release();
+		unpark();
+	}
+	
+	/**
+	 * Unregisters the gate's management interface
+	 */
+	void close() {
+		try {
+			if(JMXHelper.isRegistered(objectName)) JMXHelper.unregisterMBean(objectName);
+		} catch (Exception ex) {/* No Op */}
+	}
+	
+	/**
+	 * <p>Title: ResizableSemaphore</p>
+	 * <p>Description: A fair semaphore whose permits can be reduced while they are held</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.TargetGate.ResizableSemaphore</code></p>
+	 */
+	@SuppressWarnings("serial")
+	static class ResizableSemaphore extends Semaphore {
+		/**
+		 * Creates a new ResizableSemaphore
+		 * @param permits The initial number of permits
+		 */
+		ResizableSemaphore(int permits) {
+			super(permits, true);
+		}
+		
+		/**
+		 * Shrinks the number of available permits
+		 * @param reduction The number of permits to remove
+		 */
+		void reduce(int reduction) {
+			reducePermits(reduction);
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getTarget()
+	 */
+	@Override
+	public String getTarget() {
+		return target;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getMaxConcurrent()
+	 */
+	@Override
+	public synchronized int getMaxConcurrent() {
+		return maxConcurrent;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#setMaxConcurrent(int)
+	 */
+	@Override
+	public synchronized void setMaxConcurrent(int maxConcurrent) {
+		if(maxConcurrent < 1) throw new IllegalArgumentException("Invalid max concurrent [" + maxConcurrent + "]");
+		final int delta = maxConcurrent - this.maxConcurrent;
+		if(delta > 0) {
+			permits.release(delta);
+			for(int i = 0; i < delta; i++) unpark();
+		} else if(delta < 0) {
+			permits.reduce(-delta);
+		}
+		this.maxConcurrent = maxConcurrent;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getRate()
+	 */
+	@Override
+	public double getRate() {
+		return rate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#setRate(double)
+	 */
+	@Override
+	public void setRate(double rate) {
+		if(rate <= 0D) {
+			this.rate = 0D;
+			intervalNanos = 0L;
+		} else {
+			this.rate = rate;
+			intervalNanos = Math.max(1L, (long)(TimeUnit.SECONDS.toNanos(1) / rate));
+		}
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getBurst()
+	 */
+	@Override
+	public int getBurst() {
+		return burst;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#setBurst(int)
+	 */
+	@Override
+	public void setBurst(int burst) {
+		this.burst = Math.max(1, burst);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getActiveCount()
+	 */
+	@Override
+	public int getActiveCount() {
+		return active.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getWaitingCount()
+	 */
+	@Override
+	public int getWaitingCount() {
+		return waiting.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getAcquiredCount()
+	 */
+	@Override
+	public long getAcquiredCount() {
+		return acquired.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getRejectedCount()
+	 */
+	@Override
+	public long getRejectedCount() {
+		return rejected.get();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getLastWaitTime()
+	 */
+	@Override
+	public long getLastWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(lastWait);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getAverageWaitTime()
+	 */
+	@Override
+	public long getAverageWaitTime() {
+		final long count = acquired.get();
+		return count==0 ? 0L : TimeUnit.NANOSECONDS.toMillis(totalWait.get() / count);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#getMaxWaitTime()
+	 */
+	@Override
+	public long getMaxWaitTime() {
+		return TimeUnit.NANOSECONDS.toMillis(maxWait.get());
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGateMBean#resetStats()
+	 */
+	@Override
+	public void resetStats() {
+		acquired.set(0L);
+		rejected.set(0L);
+		totalWait.set(0L);
+		maxWait.set(0L);
+		lastWait = 0L;
+	}
+}
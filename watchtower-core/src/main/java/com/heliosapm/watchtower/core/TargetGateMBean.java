@@ -0,0 +1,127 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: TargetGateMBean</p>
+ * <p>Description: JMX MBean interface for {@link TargetGate}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.TargetGateMBean</code></p>
+ */
+
+public interface TargetGateMBean {
+	/** ObjectName template. The quoted target identity is substituted. */
+	public static final String OBJECT_NAME_TEMPLATE = "com.heliosapm.watchtower.core:service=TargetGovernor,target=%s";
+	
+	/**
+	 * Returns the identity of the governed target
+	 * @return the target identity
+	 */
+	public String getTarget();
+	
+	/**
+	 * Returns the maximum number of concurrent collections against the target
+	 * @return the maximum concurrency
+	 */
+	public int getMaxConcurrent();
+	
+	/**
+	 * Sets the maximum number of concurrent collections against the target
+	 * @param maxConcurrent the maximum concurrency
+	 */
+	public void setMaxConcurrent(int maxConcurrent);
+	
+	/**
+	 * Returns the token bucket refill rate in collections per second, or zero if the rate is not limited
+	 * @return the rate limit
+	 */
+	public double getRate();
+	
+	/**
+	 * Sets the token bucket refill rate in collections per second. Zero or less removes the rate limit.
+	 * @param rate the rate limit
+	 */
+	public void setRate(double rate);
+	
+	/**
+	 * Returns the token bucket capacity, the number of collections that can start back to back before the rate applies
+	 * @return the token bucket capacity
+	 */
+	public int getBurst();
+	
+	/**
+	 * Sets the token bucket capacity
+	 * @param burst the token bucket capacity
+	 */
+	public void setBurst(int burst);
+	
+	/**
+	 * Returns the number of collections currently holding a token
+	 * @return the number of active collections
+	 */
+	public int getActiveCount();
+	
+	/**
+	 * Returns the number of collections currently parked waiting for a concurrency permit
+	 * @return the number of waiting collections
+	 */
+	public int getWaitingCount();
+	
+	/**
+	 * Returns the number of tokens granted
+	 * @return the number of tokens granted
+	 */
+	public long getAcquiredCount();
+	
+	/**
+	 * Returns the number of collections rejected because a token could not be granted within the maximum wait
+	 * @return the number of rejected collections
+	 */
+	public long getRejectedCount();
+	
+	/**
+	 * Returns the most recent wait for a token in ms.
+	 * @return the last wait time in ms.
+	 */
+	public long getLastWaitTime();
+	
+	/**
+	 * Returns the average wait for a token in ms.
+	 * @return the average wait time in ms.
+	 */
+	public long getAverageWaitTime();
+	
+	/**
+	 * Returns the longest wait for a token in ms.
+	 * @return the maximum wait time in ms.
+	 */
+	public long getMaxWaitTime();
+	
+	/**
+	 * Resets the gate's statistics
+	 */
+	public void resetStats();
+}
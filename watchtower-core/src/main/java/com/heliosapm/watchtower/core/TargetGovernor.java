@@ -0,0 +1,298 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: TargetGovernor</p>
+ * <p>Description: Limits the load collections from all branches place on each remote target. Collections acquire a token
+ * from the {@link TargetGate} for their target identity, such as a host:port or a JMX service URL, which bounds both the number 
+ * of concurrent collections against the target and the rate at which they start.</p>
+ * <p>Target limits default to the governor's configured defaults and can be overridden per target with the properties
+ * <b><code>com.heliosapm.watchtower.governor.target.&lt;target&gt;.maxconcurrent</code></b>, <b><code>.rate</code></b> and 
+ * <b><code>.burst</code></b>, or at runtime through JMX.</p> 
+ * <p>The governor is the single per target limiter, and is enabled by default when the collection executor runs in virtual mode, 
+ * where the thread pool no longer bounds the collections in flight.</p>
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.TargetGovernor</code></p>
+ */
+
+public class TargetGovernor implements TargetGovernorMBean {
+	/** The governor singleton instance */
+	private static volatile TargetGovernor instance = null;
+	/** The governor singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The config property name to enable the governor */
+	public static final String GOVERNOR_PROP = "com.heliosapm.watchtower.governor";
+	/** The config property name for the default maximum concurrency per target */
+	public static final String MAX_CONCURRENT_PROP = "com.heliosapm.watchtower.governor.maxconcurrent";
+	/** The config property name for the default rate limit per target in collections per second */
+	public static final String RATE_PROP = "com.heliosapm.watchtower.governor.rate";
+	/** The config property name for the default token bucket capacity per target */
+	public static final String BURST_PROP = "com.heliosapm.watchtower.governor.burst";
+	/** The config property name for the maximum wait in ms. for a token */
+	public static final String MAX_WAIT_PROP = "com.heliosapm.watchtower.governor.maxwait";
+	/** The config property name prefix for per target overrides */
+	public static final String TARGET_PROP_PREFIX = "com.heliosapm.watchtower.governor.target.";
+	/** The default governor enablement */
+	public static final boolean DEFAULT_GOVERNOR = false;
+	/** The default maximum concurrency per target */
+	public static final int DEFAULT_MAX_CONCURRENT = 4;
+	/** The default rate limit per target, unlimited */
+	public static final double DEFAULT_RATE = 0D;
+	/** The default token bucket capacity per target */
+	public static final int DEFAULT_BURST = 1;
+	/** The default maximum wait in ms. for a token */
+	public static final long DEFAULT_MAX_WAIT = 5000L;
+	
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The gates keyed by target identity */
+	protected final Map<String, TargetGate> gates = new ConcurrentHashMap<String, TargetGate>();
+	/** Indicates if the governor is enabled */
+	protected volatile boolean enabled;
+	/** The maximum wait in ms. for a token */
+	protected volatile long maxWait;
+	/** The default maximum concurrency per target */
+	protected final int defaultMaxConcurrent;
+	/** The default rate limit per target */
+	protected final double defaultRate;
+	/** The default token bucket capacity per target */
+	protected final int defaultBurst;
+	
+	/**
+	 * Acquires and returns the TargetGovernor singleton instance
+	 * @return the TargetGovernor singleton instance
+	 */
+	public static TargetGovernor getTargetGovernor() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new TargetGovernor();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new TargetGovernor
+	 */
+	private TargetGovernor() {
+		enabled = ConfigurationHelper.getBooleanSystemThenEnvProperty(GOVERNOR_PROP, 
+				DEFAULT_GOVERNOR || ModalThreadPool.isVirtualConfigured(CollectionExecutor.class.getSimpleName()));
+		maxWait = ConfigurationHelper.getLongSystemThenEnvProperty(MAX_WAIT_PROP, DEFAULT_MAX_WAIT);
+		defaultMaxConcurrent = ConfigurationHelper.getIntSystemThenEnvProperty(MAX_CONCURRENT_PROP, DEFAULT_MAX_CONCURRENT);
+		defaultRate = getDoubleProperty(RATE_PROP, DEFAULT_RATE);
+		defaultBurst = ConfigurationHelper.getIntSystemThenEnvProperty(BURST_PROP, DEFAULT_BURST);
+		try {
+			JMXHelper.registerMBean(this, JMXHelper.objectName(OBJECT_NAME));
+		} catch (Exception ex) {
+			log.warn("Failed to register TargetGovernor Management Interface", ex);
+		}
+		log.info("Created TargetGovernor. Enabled: [{}]", enabled);
+	}
+	
+	/**
+	 * Reads a double config property
+	 * @param name The property name
+	 * @param defaultValue The default value
+	 * @return the property value or the default if it is not set or not a number
+	 */
+	private static double getDoubleProperty(String name, double defaultValue) {
+		String value = ConfigurationHelper.getSystemThenEnvProperty(name, null);
+		if(value==null || value.trim().isEmpty()) return defaultValue;
+		try {
+			return Double.parseDouble(value.trim());
+		} catch (NumberFormatException nex) {
+			return defaultValue;
+		}
+	}
+	
+	/**
+	 * Returns the gate for the passed target, creating it if it does not exist
+	 * @param target The target identity
+	 * @return the target's gate
+	 */
+	public TargetGate getGate(String target) {
+		if(target==null) throw new IllegalArgumentException("The passed target was null");
+		TargetGate gate = gates.get(target);
+		if(gate==null) {
+			synchronized(gates) {
+				gate = gates.get(target);
+				if(gate==null) {
+					final String prefix = TARGET_PROP_PREFIX + target;
+					gate = new TargetGate(target, 
+							ConfigurationHelper.getIntSystemThenEnvProperty(prefix + ".maxconcurrent", defaultMaxConcurrent),
+							getDoubleProperty(prefix + ".rate", defaultRate),
+							ConfigurationHelper.getIntSystemThenEnvProperty(prefix + ".burst", defaultBurst));
+					gates.put(target, gate);
+				}
+			}
+		}
+		return gate;
+	}
+	
+	/**
+	 * Returns the gate a collection against the passed target must acquire a token from
+	 * @param target The target identity, or null if the collection has no specific target
+	 * @return the target's gate, or null if the governor is disabled or the target is null
+	 */
+	public TargetGate gateFor(String target) {
+		if(!enabled || target==null) return null;
+		return getGate(target);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#isEnabled()
+	 */
+	@Override
+	public boolean isEnabled() {
+		return enabled;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#setEnabled(boolean)
+	 */
+	@Override
+	public void setEnabled(boolean enabled) {
+		this.enabled = enabled;
+		log.info("TargetGovernor enabled: [{}]", enabled);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#getMaxWait()
+	 */
+	@Override
+	public long getMaxWait() {
+		return maxWait;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#setMaxWait(long)
+	 */
+	@Override
+	public void setMaxWait(long maxWait) {
+		if(maxWait < 0) throw new IllegalArgumentException("Invalid max wait [" + maxWait + "]");
+		this.maxWait = maxWait;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#getDefaultMaxConcurrent()
+	 */
+	@Override
+	public int getDefaultMaxConcurrent() {
+		return defaultMaxConcurrent;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#getDefaultRate()
+	 */
+	@Override
+	public double getDefaultRate() {
+		return defaultRate;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#getDefaultBurst()
+	 */
+	@Override
+	public int getDefaultBurst() {
+		return defaultBurst;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#getTargets()
+	 */
+	@Override
+	public String[] getTargets() {
+		return gates.keySet().toArray(new String[0]);
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#getTargetCount()
+	 */
+	@Override
+	public int getTargetCount() {
+		return gates.size();
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#getAcquiredCount()
+	 */
+	@Override
+	public long getAcquiredCount() {
+		long total = 0L;
+		for(TargetGate gate: gates.values()) {
+			total += gate.getAcquiredCount();
+		}
+		return total;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#getRejectedCount()
+	 */
+	@Override
+	public long getRejectedCount() {
+		long total = 0L;
+		for(TargetGate gate: gates.values()) {
+			total += gate.getRejectedCount();
+		}
+		return total;
+	}
+
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.TargetGovernorMBean#configureTarget(java.lang.String, int, double, int)
+	 */
+	@Override
+	public void configureTarget(String target, int maxConcurrent, double rate, int burst) {
+		TargetGate gate = getGate(target);
+		gate.setMaxConcurrent(maxConcurrent);
+		gate.setRate(rate);
+		gate.setBurst(burst);
+		log.info("Configured target [{}]: maxConcurrent [{}], rate [{}], burst [{}]", new Object[]{target, maxConcurrent, rate, burst});
+	}
+}
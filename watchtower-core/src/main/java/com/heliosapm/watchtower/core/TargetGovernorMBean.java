@@ -0,0 +1,113 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: TargetGovernorMBean</p>
+ * <p>Description: JMX MBean interface for {@link TargetGovernor}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.TargetGovernorMBean</code></p>
+ */
+
+public interface TargetGovernorMBean {
+	/** The governor ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.core:service=TargetGovernor";
+	
+	/**
+	 * Indicates if collections must acquire a token for their target
+	 * @return true if the governor is enabled
+	 */
+	public boolean isEnabled();
+	
+	/**
+	 * Enables or disables the governor
+	 * @param enabled true to enable, false to disable
+	 */
+	public void setEnabled(boolean enabled);
+	
+	/**
+	 * Returns the maximum time in ms. a collection waits for a token before it is rejected
+	 * @return the maximum wait in ms.
+	 */
+	public long getMaxWait();
+	
+	/**
+	 * Sets the maximum time in ms. a collection waits for a token before it is rejected
+	 * @param maxWait the maximum wait in ms.
+	 */
+	public void setMaxWait(long maxWait);
+	
+	/**
+	 * Returns the default maximum concurrency for newly governed targets
+	 * @return the default maximum concurrency
+	 */
+	public int getDefaultMaxConcurrent();
+	
+	/**
+	 * Returns the default rate limit in collections per second for newly governed targets
+	 * @return the default rate limit
+	 */
+	public double getDefaultRate();
+	
+	/**
+	 * Returns the default token bucket capacity for newly governed targets
+	 * @return the default token bucket capacity
+	 */
+	public int getDefaultBurst();
+	
+	/**
+	 * Returns the identities of the governed targets
+	 * @return the governed targets
+	 */
+	public String[] getTargets();
+	
+	/**
+	 * Returns the number of governed targets
+	 * @return the number of governed targets
+	 */
+	public int getTargetCount();
+	
+	/**
+	 * Returns the number of tokens granted across all targets
+	 * @return the number of tokens granted
+	 */
+	public long getAcquiredCount();
+	
+	/**
+	 * Returns the number of collections rejected across all targets
+	 * @return the number of rejected collections
+	 */
+	public long getRejectedCount();
+	
+	/**
+	 * Configures the limits of a target, creating its gate if it is not governed yet
+	 * @param target The target identity
+	 * @param maxConcurrent The maximum concurrency
+	 * @param rate The rate limit in collections per second, zero or less for no limit
+	 * @param burst The token bucket capacity
+	 */
+	public void configureTarget(String target, int maxConcurrent, double rate, int burst);
+}
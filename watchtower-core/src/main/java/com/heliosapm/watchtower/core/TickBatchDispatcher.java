@@ -0,0 +1,258 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: TickBatchDispatcher</p>
+ * <p>Description: A {@link HashedTimingWheel} dispatcher that collects the tasks expiring within a configurable window
+ * of wheel ticks and runs them together on the scheduler's fire threads. The collections the fired schedules dispatch to the 
+ * collection executor are gathered through {@link #collect(Runnable)} while the fires run, and handed to the collection executor 
+ * together once the batch's fires have run, so the hand-off happens once per batch and the timer never waits on the collection executor's backlog. 
+ * Each gathered collection is still submitted as its own task, so the collections of a batch run with the collection executor's full concurrency, 
+ * a hung collection holds up no other, and the {@link RejectableTask}, {@link PrioritizedTask} and {@link TargetedTask} markers reach the executor.</p>
+ * <p>Tasks are only added by the wheel thread, so the open batch is not synchronized.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.TickBatchDispatcher</code></p>
+ */
+
+public class TickBatchDispatcher implements Executor, HashedTimingWheel.TickAware {
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The dispatcher name */
+	protected final String name;
+	/** The batching window in nanos. A batch is flushed on the first tick end at least this long after its first task was added */
+	protected final long windowNanos;
+	/** The executor grouped collections are submitted to */
+	protected final Executor target;
+	/** The executor the expired tasks of a batch are fired on */
+	protected final Executor fireExecutor;
+	/** The open batch, written only by the wheel thread */
+	protected final List<Runnable> open = new ArrayList<Runnable>();
+	/** The nano time the first task of the open batch was added */
+	protected long openedNanos = 0L;
+	/** The collections gathered from the batch being fired on the current thread */
+	protected final ThreadLocal<List<Runnable>> collecting = new ThreadLocal<List<Runnable>>();
+	
+	/** The number of batches of collections submitted */
+	protected final AtomicLong batchCount = new AtomicLong(0L);
+	/** The number of collections submitted in batches */
+	protected final AtomicLong batchedTaskCount = new AtomicLong(0L);
+	/** The number of batched collections rejected by the target executor */
+	protected final AtomicLong rejectedTaskCount = new AtomicLong(0L);
+	/** The size of the most recently submitted batch of collections */
+	protected volatile int lastBatchSize = 0;
+	/** The size of the largest submitted batch of collections */
+	protected volatile int peakBatchSize = 0;
+	
+	/**
+	 * Creates a new TickBatchDispatcher
+	 * @param name The dispatcher name
+	 * @param window The batching window. Zero flushes at the end of every tick that expired tasks.
+	 * @param unit The unit of the window
+	 * @param target The executor grouped collections are submitted to
+	 * @param fireExecutor The executor the expired tasks are fired on, such as the scheduler's wheel fire threads
+	 */
+	public TickBatchDispatcher(String name, long window, TimeUnit unit, Executor target, Executor fireExecutor) {
+		if(window < 0) throw new IllegalArgumentException("Invalid window [" + window + "]");
+		if(unit==null) throw new IllegalArgumentException("The passed unit was null");
+		if(target==null) throw new IllegalArgumentException("The passed target executor was null");
+		if(fireExecutor==null) throw new IllegalArgumentException("The passed fire executor was null");
+		this.name = name;
+		this.windowNanos = unit.toNanos(window);
+		this.target = target;
+		this.fireExecutor = fireExecutor;
+		log.info("Created TickBatchDispatcher [{}] with a window of [{}] ms.", name, unit.toMillis(window));
+	}
+
+	/**
+	 * <p>Adds an expired task to the open batch</p>
+	 * {@inheritDoc}
+	 * @see java.util.concurrent.Executor#execute(java.lang.Runnable)
+	 */
+	@Override
+	public void execute(Runnable task) {
+		if(task==null) throw new NullPointerException();
+		if(open.isEmpty()) openedNanos = System.nanoTime();
+		open.add(task);
+	}
+
+	/**
+	 * <p>Hands the open batch to the fire executor if its window has elapsed</p>
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.core.HashedTimingWheel.TickAware#onTickEnd(long)
+	 */
+	@Override
+	public void onTickEnd(long tick) {
+		if(open.isEmpty()) return;
+		if(windowNanos > 0 && System.nanoTime() - openedNanos < windowNanos) return;
+		final Runnable[] tasks = open.toArray(new Runnable[open.size()]);
+		open.clear();
+		try {
+			fireExecutor.execute(new Runnable() {
+				@Override
+				public void run() {
+					fire(tasks);
+				}
+			});
+		} catch (RejectedExecutionException rex) {
+			log.warn("TickBatchDispatcher [{}] batch of [{}] tasks rejected by the fire executor", name, tasks.length);
+			for(Runnable task: tasks) {
+				if(task instanceof Future) ((Future<?>)task).cancel(false);
+			}
+		}
+	}
+	
+	/**
+	 * Gathers a collection dispatched by a task fired in a batch on the current thread, so it is submitted with the batch's other collections
+	 * @param collection The collection to submit
+	 * @return true if the collection was gathered, false if the current thread is not firing a batch and the caller should submit it
+	 */
+	public boolean collect(Runnable collection) {
+		final List<Runnable> collections = collecting.get();
+		if(collections==null) return false;
+		collections.add(collection);
+		return true;
+	}
+	
+	/**
+	 * Runs the expired tasks of a batch, gathering the collections they dispatch, then submits the gathered collections
+	 * @param tasks The expired tasks
+	 */
+	protected void fire(final Runnable[] tasks) {
+		final List<Runnable> collections = new ArrayList<Runnable>(tasks.length);
+		collecting.set(collections);
+		try {
+			for(Runnable task: tasks) {
+				try {
+					task.run();
+				} catch (Throwable t) {
+					log.error("TickBatchDispatcher [{}] task [{}] failed", new Object[]{name, task, t});
+				}
+			}
+		} finally {
+			collecting.remove();
+		}
+		if(!collections.isEmpty()) flush(collections.toArray(new Runnable[collections.size()]));
+	}
+	
+	/**
+	 * Submits each collection of the passed batch to the target executor as its own task
+	 * @param tasks The collections in the batch
+	 */
+	protected void flush(final Runnable[] tasks) {
+		final int size = tasks.length;
+		batchCount.incrementAndGet();
+		batchedTaskCount.addAndGet(size);
+		lastBatchSize = size;
+		if(size > peakBatchSize) peakBatchSize = size;
+		int rejected = 0;
+		for(Runnable task: tasks) {
+			try {
+				target.execute(task);
+			} catch (RejectedExecutionException rex) {
+				rejected++;
+				reject(task, rex);
+			}
+		}
+		if(rejected > 0) {
+			rejectedTaskCount.addAndGet(rejected);
+			log.warn("TickBatchDispatcher [{}] rejected [{}] of [{}] batched collections", new Object[]{name, rejected, size});
+		}
+	}
+	
+	/**
+	 * Notifies a collection that the target executor rejected it
+	 * @param task The rejected collection
+	 * @param rex The rejection
+	 */
+	protected void reject(Runnable task, RejectedExecutionException rex) {
+		try {
+			if(task instanceof RejectableTask) ((RejectableTask)task).onRejected(rex);
+			else if(task instanceof Future) ((Future<?>)task).cancel(false);
+		} catch (Throwable t) {
+			log.warn("TickBatchDispatcher [{}] rejection callback of collection [{}] failed", new Object[]{name, task, t});
+		}
+	}
+	
+	/**
+	 * Returns the batching window in ms.
+	 * @return the batching window in ms.
+	 */
+	public long getWindow() {
+		return TimeUnit.NANOSECONDS.toMillis(windowNanos);
+	}
+	
+	/**
+	 * Returns the number of batches of collections submitted
+	 * @return the number of batches submitted
+	 */
+	public long getBatchCount() {
+		return batchCount.get();
+	}
+	
+	/**
+	 * Returns the number of collections submitted in batches
+	 * @return the number of batched collections
+	 */
+	public long getBatchedTaskCount() {
+		return batchedTaskCount.get();
+	}
+	
+	/**
+	 * Returns the number of batched collections rejected by the target executor
+	 * @return the number of rejected collections
+	 */
+	public long getRejectedTaskCount() {
+		return rejectedTaskCount.get();
+	}
+	
+	/**
+	 * Returns the size of the most recently submitted batch of collections
+	 * @return the last batch size
+	 */
+	public int getLastBatchSize() {
+		return lastBatchSize;
+	}
+	
+	/**
+	 * Returns the size of the largest submitted batch of collections
+	 * @return the peak batch size
+	 */
+	public int getPeakBatchSize() {
+		return peakBatchSize;
+	}
+}
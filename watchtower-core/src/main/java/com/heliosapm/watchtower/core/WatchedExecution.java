@@ -0,0 +1,64 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+/**
+ * <p>Title: WatchedExecution</p>
+ * <p>Description: Defines an in flight execution that can be watched by the {@link CollectionWatchdog}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.WatchedExecution</code></p>
+ */
+
+public interface WatchedExecution {
+	/**
+	 * Returns the thread running the execution
+	 * @return the executing thread or null if the execution is not running
+	 */
+	public Thread getThread();
+	
+	/**
+	 * Returns a descriptive name for the execution
+	 * @return the execution name
+	 */
+	public String getExecutionName();
+	
+	/**
+	 * Returns the start time of the execution
+	 * @return the start time in ms. or -1 if the execution has not started
+	 */
+	public long getStartTime();
+	
+	/**
+	 * Callback from the watchdog when the execution is still running at its deadline
+	 */
+	public void onDeadline();
+	
+	/**
+	 * Callback from the watchdog when the execution is still running at the stuck threshold
+	 * @param sample The stack sample captured from the executing thread
+	 */
+	public void onStuck(StuckSample sample);
+}
@@ -0,0 +1,279 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * <p>Title: WindowedHistogram</p>
+ * <p>Description: A lock-free histogram of non-negative long values, such as latencies in ms., covering a sliding time window.
+ * Values are counted in log-linear buckets with 8 sub-buckets per power of two up to 2<sup>24</sup> (about 4.6 hours in ms.), 
+ * so percentiles are accurate to within about 12% and a slice needs 176 buckets. 
+ * The window is divided into a ring of slices, each of which is allocated when the clock first reaches it and lazily cleared 
+ * and reused when the clock reaches it again, so a histogram that is never recorded into costs no buckets, and recording a value 
+ * is a few atomic increments and, past the first window, never allocates.</p>
+ * <p>A slice is cleared by the first recorder to reach it in a new epoch. A value recorded concurrently with the clear may be lost,
+ * which is an accepted inaccuracy in exchange for lock-free recording.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.WindowedHistogram</code></p>
+ */
+
+public class WindowedHistogram {
+	/** The number of bits of sub-bucket resolution within each power of two */
+	private static final int SUB_BITS = 3;
+	/** The number of sub-buckets within each power of two */
+	private static final int SUB_COUNT = 1 << SUB_BITS;
+	/** The largest value counted in its own bucket. Larger values are counted as this value, but still reported as the max. */
+	public static final long MAX_VALUE = (1L << 24) - 1;
+	/** The number of buckets */
+	private static final int BUCKETS = bucket(MAX_VALUE) + 1;
+	
+	/** The ring of slices, each allocated when first recorded into */
+	private final AtomicReferenceArray<Slice> slices;
+	/** The duration in ms. of each slice */
+	private final long sliceMs;
+	
+	/**
+	 * Creates a new WindowedHistogram
+	 * @param windowMs The window in ms.
+	 * @param sliceCount The number of slices the window is divided into
+	 */
+	public WindowedHistogram(long windowMs, int sliceCount) {
+		if(sliceCount < 1) throw new IllegalArgumentException("Invalid slice count [" + sliceCount + "]");
+		if(windowMs < sliceCount) throw new IllegalArgumentException("Invalid window [" + windowMs + "]");
+		sliceMs = windowMs / sliceCount;
+		slices = new AtomicReferenceArray<Slice>(sliceCount);
+	}
+	
+	/**
+	 * Returns the bucket index for the passed value
+	 * @param value The value
+	 * @return the bucket index
+	 */
+	private static int bucket(long value) {
+		if(value < SUB_COUNT) return (int)value;
+		final int exp = 63 - Long.numberOfLeadingZeros(value);
+		final int sub = (int)((value >>> (exp - SUB_BITS)) & (SUB_COUNT - 1));
+		return ((exp - SUB_BITS + 1) << SUB_BITS) + sub;
+	}
+	
+	/**
+	 * Returns the highest value counted in the passed bucket
+	 * @param bucket The bucket index
+	 * @return the bucket's highest value
+	 */
+	private static long bucketValue(int bucket) {
+		if(bucket < SUB_COUNT) return bucket;
+		final int shift = (bucket >>> SUB_BITS) - 1;
+		final long lower = ((long)(SUB_COUNT + (bucket & (SUB_COUNT - 1)))) << shift;
+		return lower + (1L << shift) - 1;
+	}
+	
+	/**
+	 * Records a value
+	 * @param value The value to record. Negative values are recorded as zero.
+	 */
+	public void record(long value) {
+		final long v = value < 0 ? 0L : value;
+		final long epoch = System.currentTimeMillis() / sliceMs;
+		final int index = (int)(epoch % slices.length());
+		Slice slice = slices.get(index);
+		if(slice==null) {
+			slices.compareAndSet(index, null, new Slice(epoch));
+			slice = slices.get(index);
+		}
+		final long sliceEpoch = slice.epoch.get();
+		if(sliceEpoch < epoch && slice.epoch.compareAndSet(sliceEpoch, epoch)) {
+			slice.clear();
+		}
+		slice.counts.incrementAndGet(bucket(v > MAX_VALUE ? MAX_VALUE : v));
+		slice.count.incrementAndGet();
+		while(true) {
+			final long max = slice.max.get();
+			if(v <= max || slice.max.compareAndSet(max, v)) break;
+		}
+	}
+	
+	/**
+	 * Takes a snapshot of the window
+	 * @return a snapshot of the window
+	 */
+	public Snapshot snapshot() {
+		final long oldest = (System.currentTimeMillis() / sliceMs) - slices.length() + 1;
+		final long[] counts = new long[BUCKETS];
+		long count = 0L, max = 0L;
+		for(int s = 0; s < slices.length(); s++) {
+			final Slice slice = slices.get(s);
+			if(slice==null || slice.epoch.get() < oldest) continue;
+			for(int i = 0; i < BUCKETS; i++) {
+				counts[i] += slice.counts.get(i);
+			}
+			count += slice.count.get();
+			max = Math.max(max, slice.max.get());
+		}
+		return new Snapshot(counts, count, max);
+	}
+	
+	/**
+	 * Returns the window in ms.
+	 * @return the window in ms.
+	 */
+	public long getWindow() {
+		return sliceMs * slices.length();
+	}
+	
+	/**
+	 * <p>Title: Slice</p>
+	 * <p>Description: One slice of the window</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.WindowedHistogram.Slice</code></p>
+	 */
+	private static class Slice {
+		/** The epoch, in slice durations since the epoch, the slice is counting */
+		final AtomicLong epoch;
+		/** The bucket counts */
+		final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+		/** The number of recorded values */
+		final AtomicLong count = new AtomicLong(0L);
+		/** The largest recorded value */
+		final AtomicLong max = new AtomicLong(0L);
+		
+		/**
+		 * Creates a new Slice
+		 * @param epoch The epoch the slice starts counting
+		 */
+		Slice(long epoch) {
+			this.epoch = new AtomicLong(epoch);
+		}
+		
+		/**
+		 * Resets the slice's counts
+		 */
+		void clear() {
+			for(int i = 0; i < BUCKETS; i++) {
+				if(counts.get(i)!=0) counts.set(i, 0L);
+			}
+			count.set(0L);
+			max.set(0L);
+		}
+	}
+	
+	/**
+	 * <p>Title: Snapshot</p>
+	 * <p>Description: A point in time copy of the counts in a {@link WindowedHistogram}'s window</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.WindowedHistogram.Snapshot</code></p>
+	 */
+	public static class Snapshot {
+		/** The bucket counts */
+		private final long[] counts;
+		/** The number of values in the window */
+		private final long count;
+		/** The largest value in the window */
+		private final long max;
+		
+		/**
+		 * Creates a new Snapshot
+		 * @param counts The bucket counts
+		 * @param count The number of values
+		 * @param max The largest value
+		 */
+		Snapshot(long[] counts, long count, long max) {
+			this.counts = counts;
+			this.count = count;
+			this.max = max;
+		}
+		
+		/**
+		 * Returns the value at the passed percentile
+		 * @param percentile The percentile, between 0 and 100
+		 * @return the value at the percentile, or zero if the window is empty
+		 */
+		public long getPercentile(double percentile) {
+			long total = 0L;
+			for(long c: counts) total += c;
+			if(total==0L) return 0L;
+			final long rank = Math.max(1L, (long)Math.ceil(total * (percentile / 100D)));
+			long seen = 0L;
+			for(int i = 0; i < counts.length; i++) {
+				seen += counts[i];
+				if(seen >= rank) return Math.min(bucketValue(i), max);
+			}
+			return max;
+		}
+		
+		/**
+		 * Returns the median
+		 * @return the median
+		 */
+		public long getP50() {
+			return getPercentile(50D);
+		}
+		
+		/**
+		 * Returns the 99th percentile
+		 * @return the 99th percentile
+		 */
+		public long getP99() {
+			return getPercentile(99D);
+		}
+		
+		/**
+		 * Returns the largest value in the window
+		 * @return the largest value
+		 */
+		public long getMax() {
+			return max;
+		}
+		
+		/**
+		 * Returns the number of values in the window
+		 * @return the number of values
+		 */
+		public long getCount() {
+			return count;
+		}
+		
+		/**
+		 * Returns the snapshot's count, p50, p99 and max keyed by name
+		 * @return a map of the snapshot's statistics
+		 */
+		public Map<String, Long> toMap() {
+			final Map<String, Long> map = new LinkedHashMap<String, Long>(4);
+			map.put("count", count);
+			map.put("p50", getP50());
+			map.put("p99", getP99());
+			map.put("max", max);
+			return map;
+		}
+	}
+}
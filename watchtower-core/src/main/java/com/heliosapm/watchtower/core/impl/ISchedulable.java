@@ -3,6 +3,7 @@
  */
 package com.heliosapm.watchtower.core.impl;
 
+import java.util.Map;
 import java.util.concurrent.TimeUnit;
 
 import javax.management.Notification;
@@ -24,20 +25,27 @@ import com.heliosapm.watchtower.core.IServiceAspect;
  * <p><b><code>com.heliosapm.watchtower.core.impl.ISchedulable</code></b>
  */
 @ManagedNotifications({
-	@ManagedNotification(name = "javax.management.Notification", description="Notifications emitted before and after a scheduled task is executed", notificationTypes = { "helios.watchtower.schedule.pre", "helios.watchtower.schedule.post" })
+	@ManagedNotification(name = "javax.management.Notification", description="Notifications emitted before and after a scheduled task is executed, and when an execution is stuck", notificationTypes = { ISchedulable.NOTIF_SCHEDULE_PRE, ISchedulable.NOTIF_SCHEDULE_POST, ISchedulable.NOTIF_SCHEDULE_STUCK })
 })
 public interface ISchedulable extends IServiceAspect {
+	/** The notification type emitted before a scheduled task is executed */
+	public static final String NOTIF_SCHEDULE_PRE = "helios.watchtower.schedule.pre";
+	/** The notification type emitted after a scheduled task is executed */
+	public static final String NOTIF_SCHEDULE_POST = "helios.watchtower.schedule.post";
+	/** The notification type emitted when a scheduled task is still executing at the watchdog's stuck threshold */
+	public static final String NOTIF_SCHEDULE_STUCK = "helios.watchtower.schedule.stuck";
+	
 	/**
 	 * Schedules the task for repeating execution on the defined period after the defined initial period 
 	 * @param name The name of the closure to schedule
-	 * @param period The fixed delay of the executions
+	 * @param period The fixed rate period of the executions. A fire falling due while an execution is running is handled by the schedule's overrun policy.
 	 * @param initial The initial delay when first scheduled
 	 * @param unit The unit of the period and initial
 	 */
 	@ManagedOperation(description="Schedules the task for repeating execution on the defined period after the defined initial period")
 	@ManagedOperationParameters({
 		@ManagedOperationParameter(name="name", description="The name of the closure to schedule"),
-		@ManagedOperationParameter(name="period", description="The fixed delay of the executions"),
+		@ManagedOperationParameter(name="period", description="The fixed rate period of the executions. Overlapping fires are handled by the overrun policy"),
 		@ManagedOperationParameter(name="initial", description="The initial delay when first scheduled"),
 		@ManagedOperationParameter(name="unit", description="The unit of the period and initial")
 	})
@@ -46,14 +54,14 @@ public interface ISchedulable extends IServiceAspect {
 	/**
 	 * Schedules the task for repeating execution on the defined period after the defined initial period 
 	 * @param name The name of the closure to schedule
-	 * @param period The fixed delay of the executions
+	 * @param period The fixed rate period of the executions
 	 * @param initial The initial delay when first scheduled
 	 * @param unit The unit of the period and initial
 	 */
 	@ManagedOperation(description="Schedules the task for repeating execution on the defined period after the defined initial period")
 	@ManagedOperationParameters({
 		@ManagedOperationParameter(name="name", description="The name of the closure to schedule"),
-		@ManagedOperationParameter(name="period", description="The fixed delay of the executions"),
+		@ManagedOperationParameter(name="period", description="The fixed rate period of the executions. Overlapping fires are handled by the overrun policy"),
 		@ManagedOperationParameter(name="initial", description="The initial delay when first scheduled"),
 		@ManagedOperationParameter(name="unit", description="The unit of the period and initial")
 	})
@@ -89,11 +97,11 @@ public interface ISchedulable extends IServiceAspect {
 	public void cancelSchedule(String name);
 	
 	/**
-	 * Returns the scheduled period
+	 * Returns the scheduled period. For adaptive schedules, this is the current effective period.
 	 * @param name The name of the scheduled task to get the period for
 	 * @return the scheduled period
 	 */
-	@ManagedOperation(description="The scheduled period")
+	@ManagedOperation(description="The scheduled period, or the current effective period of an adaptive schedule")
 	@ManagedOperationParameters({
 		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the period for")
 	})		
@@ -122,6 +130,193 @@ public interface ISchedulable extends IServiceAspect {
 	})				
 	public TimeUnit getUnit(String name);
 	
+	/**
+	 * Returns the phase assigned to the schedule within its period
+	 * @param name The name of the scheduled task to get the phase for
+	 * @return the phase in ms. or -1 if the schedule is not phased
+	 */
+	@ManagedOperation(description="The phase in ms. assigned to the schedule within its period")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the phase for")
+	})				
+	public long getPhase(String name);
+	
+	/**
+	 * Returns the name of the overrun policy of the schedule
+	 * @param name The name of the scheduled task to get the overrun policy for
+	 * @return the overrun policy name
+	 */
+	@ManagedOperation(description="The overrun policy of the schedule")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the overrun policy for")
+	})				
+	public String getOverrunPolicy(String name);
+	
+	/**
+	 * Returns the number of fires of the schedule that fell due during an overrunning execution
+	 * @param name The name of the scheduled task to get the overrun count for
+	 * @return the overrun count
+	 */
+	@ManagedOperation(description="The number of fires of the schedule that fell due during an overrunning execution")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the overrun count for")
+	})				
+	public long getOverrunCount(String name);
+	
+	/**
+	 * Returns the number of fires of the schedule skipped on account of overruns
+	 * @param name The name of the scheduled task to get the skipped count for
+	 * @return the skipped count
+	 */
+	@ManagedOperation(description="The number of fires of the schedule skipped on account of overruns")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the skipped count for")
+	})				
+	public long getSkippedCount(String name);
+	
+	/**
+	 * Returns the lag between the planned and actual time of the most recent fire of the schedule
+	 * @param name The name of the scheduled task to get the lag for
+	 * @return the lag in ms.
+	 */
+	@ManagedOperation(description="The lag in ms. between the planned and actual time of the most recent fire of the schedule")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the lag for")
+	})				
+	public long getLastLag(String name);
+	
+	/**
+	 * Returns the highest lag between the planned and actual time of a fire of the schedule
+	 * @param name The name of the scheduled task to get the maximum lag for
+	 * @return the maximum lag in ms.
+	 */
+	@ManagedOperation(description="The highest lag in ms. between the planned and actual time of a fire of the schedule")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the maximum lag for")
+	})				
+	public long getMaxLag(String name);
+	
+	/**
+	 * Returns the priority class of the schedule
+	 * @param name The name of the scheduled task to get the priority for
+	 * @return the priority name
+	 */
+	@ManagedOperation(description="The priority class of the schedule")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the priority for")
+	})				
+	public String getPriority(String name);
+	
+	/**
+	 * Indicates if the schedule fires on exact multiples of the period from the epoch
+	 * @param name The name of the scheduled task
+	 * @return true if the schedule is aligned
+	 */
+	@ManagedOperation(description="Indicates if the schedule fires on exact multiples of the period from the epoch")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure")
+	})				
+	public boolean isAligned(String name);
+	
+	/**
+	 * Returns the policy applied on restart to the fires of the schedule missed while down
+	 * @param name The name of the scheduled task to get the catch up policy for
+	 * @return the catch up policy name
+	 */
+	@ManagedOperation(description="The policy applied on restart to the fires of the schedule missed while down")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the catch up policy for")
+	})				
+	public String getCatchUpPolicy(String name);
+	
+	/**
+	 * Returns the deadline of the schedule's executions
+	 * @param name The name of the scheduled task to get the deadline for
+	 * @return the deadline in ms. or -1 if the schedule has no deadline
+	 */
+	@ManagedOperation(description="The deadline in ms. of the schedule's executions")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the deadline for")
+	})				
+	public long getDeadline(String name);
+	
+	/**
+	 * Returns the number of executions of the schedule that breached the deadline
+	 * @param name The name of the scheduled task to get the timeout count for
+	 * @return the timeout count
+	 */
+	@ManagedOperation(description="The number of executions of the schedule that breached the deadline")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the timeout count for")
+	})				
+	public long getTimeoutCount(String name);
+	
+	/**
+	 * Returns the count, p50, p99 and max of the fire lag in ms. of the schedule over the scheduler's histogram window
+	 * @param name The name of the scheduled task to get the lag statistics for
+	 * @return the lag statistics keyed by <b><code>count</code></b>, <b><code>p50</code></b>, <b><code>p99</code></b> and <b><code>max</code></b>
+	 */
+	@ManagedOperation(description="The count, p50, p99 and max of the fire lag in ms. of the schedule")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the lag statistics for")
+	})				
+	public Map<String, Long> getLagStats(String name);
+	
+	/**
+	 * Returns the count, p50, p99 and max of the run duration in ms. of the schedule over the scheduler's histogram window
+	 * @param name The name of the scheduled task to get the duration statistics for
+	 * @return the duration statistics keyed by <b><code>count</code></b>, <b><code>p50</code></b>, <b><code>p99</code></b> and <b><code>max</code></b>
+	 */
+	@ManagedOperation(description="The count, p50, p99 and max of the run duration in ms. of the schedule")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the duration statistics for")
+	})				
+	public Map<String, Long> getDurationStats(String name);
+	
+	/**
+	 * Returns the number of fires of the schedule suppressed by a blackout window
+	 * @param name The name of the scheduled task to get the blackout count for
+	 * @return the blackout count
+	 */
+	@ManagedOperation(description="The number of fires of the schedule suppressed by a blackout window")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the blackout count for")
+	})				
+	public long getBlackoutCount(String name);
+	
+	/**
+	 * Returns the number of executions of the schedule sampled as stuck by the watchdog
+	 * @param name The name of the scheduled task to get the stuck count for
+	 * @return the stuck count
+	 */
+	@ManagedOperation(description="The number of executions of the schedule sampled as stuck by the watchdog")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the stuck count for")
+	})				
+	public long getStuckCount(String name);
+	
+	/**
+	 * Returns the number of executions of the schedule rejected by the target governor
+	 * @param name The name of the scheduled task to get the throttled count for
+	 * @return the throttled count
+	 */
+	@ManagedOperation(description="The number of executions of the schedule rejected by the target governor")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the throttled count for")
+	})				
+	public long getThrottledCount(String name);
+	
+	/**
+	 * Returns the collection result of the most recent execution of the schedule
+	 * @param name The name of the scheduled task to get the collection result for
+	 * @return the collection result name
+	 */
+	@ManagedOperation(description="The collection result of the most recent execution of the schedule")
+	@ManagedOperationParameters({
+		@ManagedOperationParameter(name="name", description="The name of the scheduled closure to get the collection result for")
+	})				
+	public String getLastCollectionResult(String name);
+	
 	/**
 	 * Returns the schedule cron expression
 	 * @param name The name of the scheduled task to get the cron expression for
@@ -11,14 +11,24 @@ import java.io.ObjectStreamException;
 import java.io.Serializable;
 import java.lang.annotation.Annotation;
 import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Date;
 import java.util.EnumMap;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.Set;
 import java.util.concurrent.Callable;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
 import java.util.concurrent.ScheduledFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
 
 import javax.management.MalformedObjectNameException;
@@ -39,21 +49,48 @@ import org.springframework.beans.factory.support.BeanNameGenerator;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.ApplicationContextAware;
 import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
 import org.springframework.jmx.export.annotation.ManagedResource;
 import org.springframework.jmx.export.naming.SelfNaming;
+import org.springframework.jmx.export.notification.NotificationPublisher;
+import org.springframework.jmx.export.notification.NotificationPublisherAware;
 
 import ch.qos.logback.classic.Level;
 import ch.qos.logback.classic.Logger;
 import ch.qos.logback.classic.LoggerContext;
 
 import com.heliosapm.watchtower.collector.CollectorState;
+import com.heliosapm.watchtower.core.AlignedTask;
+import com.heliosapm.watchtower.core.AlignedTickGroup;
+import com.heliosapm.watchtower.core.BlackoutCalendar;
+import com.heliosapm.watchtower.core.CollectionBulkhead;
 import com.heliosapm.watchtower.core.CollectionExecutor;
 import com.heliosapm.watchtower.core.CollectionScheduler;
+import com.heliosapm.watchtower.core.CollectionWatchdog;
+import com.heliosapm.watchtower.core.CronSchedule;
+import com.heliosapm.watchtower.core.CronScheduledTask;
 import com.heliosapm.watchtower.core.EventExecutor;
+import com.heliosapm.watchtower.core.ParallelCollector;
+import com.heliosapm.watchtower.core.PrioritizedTask;
+import com.heliosapm.watchtower.core.PriorityLaneExecutor;
+import com.heliosapm.watchtower.core.RejectableTask;
+import com.heliosapm.watchtower.core.ResourceAccounting;
+import com.heliosapm.watchtower.core.ResourceCounter;
+import com.heliosapm.watchtower.core.ScheduleLatency;
+import com.heliosapm.watchtower.core.ScheduleStateStore;
 import com.heliosapm.watchtower.core.ServiceAspect;
+import com.heliosapm.watchtower.core.StuckSample;
+import com.heliosapm.watchtower.core.TargetGate;
+import com.heliosapm.watchtower.core.TargetGovernor;
+import com.heliosapm.watchtower.core.TargetedTask;
+import com.heliosapm.watchtower.core.WatchedExecution;
 import com.heliosapm.watchtower.deployer.DeploymentBranch;
+import com.heliosapm.watchtower.groovy.annotation.CatchUpPolicy;
+import com.heliosapm.watchtower.groovy.annotation.CollectionPriority;
+import com.heliosapm.watchtower.groovy.annotation.OverrunPolicy;
 import com.heliosapm.watchtower.groovy.annotation.Scheduled;
 import com.heliosapm.watchtower.groovy.annotation.ScriptName;
+import com.heliosapm.watchtower.metrics.MetricEmitter;
 
 /**
  * <p>Title: ServiceAspectImpl</p>
@@ -63,7 +100,7 @@ import com.heliosapm.watchtower.groovy.annotation.ScriptName;
  * <p><b><code>com.heliosapm.watchtower.core.impl.ServiceAspectImpl</code></b>
  */
 @ManagedResource
-public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, InitializingBean, DisposableBean, ApplicationContextAware {
+public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, InitializingBean, DisposableBean, ApplicationContextAware, NotificationPublisherAware {
 	/** The static logger context */
 	protected static final LoggerContext logCtx = (LoggerContext)LoggerFactory.getILoggerFactory();
 	/** Instance logger */
@@ -74,6 +111,22 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 	protected final JMXManagedThreadPool notificationThreadPool = EventExecutor.getEventExecutor();
 	/** Scheduler for collection scheduling */
 	protected final JMXManagedScheduler collectionScheduler = CollectionScheduler.getCollectionScheduler();
+	/** The executor scheduled collections are dispatched to, the parent branch's bulkhead or the collection dispatcher */
+	protected Executor collectionExecutor = PriorityLaneExecutor.getCollectionDispatcher();
+	/** The calendar of blackout windows suppressing collections */
+	protected final BlackoutCalendar blackoutCalendar = BlackoutCalendar.getBlackoutCalendar();
+	/** The ObjectNames of the parent branch and its ancestors, nearest first, resolved on the first blackout check */
+	protected volatile List<ObjectName> branchObjectNames = null;
+	/** The thread CPU time and allocation accounting service */
+	protected final ResourceAccounting resourceAccounting = ResourceAccounting.getResourceAccounting();
+	/** The resource counter of {@link #accountedCollect()}, registered on first use */
+	protected volatile ResourceCounter collectCounter = null;
+	/** The shared work-stealing pool for parallel collections */
+	protected final ParallelCollector parallelCollector = ParallelCollector.getParallelCollector();
+	/** The maximum number of items of this bean's parallel collections collected concurrently */
+	protected volatile int parallelism = parallelCollector.getMaxParallelism();
+	/** The metric emitter bound into the script as <b><code>metrics</code></b> */
+	protected final MetricEmitter metrics;
 	
 	/** The compiled deployment script */
 	protected GroovyObject groovyObject = null;
@@ -83,12 +136,26 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 	protected final AtomicBoolean started = new AtomicBoolean(false);
 	/** The state of this component */
 	protected final AtomicReference<CollectorState> collectorState = new AtomicReference<CollectorState>(CollectorState.INIT); 
+	/** The state this bean was in when a blackout window opened, restored when the window closes */
+	protected CollectorState preBlackoutState = null;
+	/** The state this bean was in when it was marked broken, restored when it recovers */
+	protected CollectorState preBrokenState = null;
+	/** The time in ms. after which a broken bean admits its next probe execution */
+	protected final AtomicLong probeDue = new AtomicLong(0L);
+	/** The current backoff in ms. between probes of a broken bean */
+	protected volatile long probeBackoff = 0L;
 	/** The application context this bean is deployed in */
 	protected ApplicationContext applicationContext = null;
 	/** The parent deployment branch */
 	protected DeploymentBranch parent;
 	/** The service source file */
 	protected File sourceFile;
+	/** The identity of the remote target this bean collects from, such as a host:port or JMX service URL */
+	protected volatile String target = null;
+	/** The JMX notification publisher */
+	protected NotificationPublisher notificationPublisher = null;
+	/** JMX notification serial */
+	protected final AtomicLong notificationSerial = new AtomicLong(0L);
 	// ======================  Scheduling  ====================== 
 	/** A map of schedle handles keyed by the closure name that was annotated within a map keyed by the corresponding ServiceAspect */
 	protected final Map<String, ScheduledClosure<?>> scheduleHandles = new ConcurrentHashMap<String, ScheduledClosure<?>>(); 
@@ -115,6 +182,7 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		} else {
 			beanName = getClass().getSimpleName();
 		}
+		metrics = new MetricEmitter(beanName);
 	}
 	
 	/**
@@ -132,6 +200,114 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		
 	}
 	
+	/**
+	 * Transitions this bean to {@link CollectorState#BLACKOUT} when a blackout window opens, recording the state it was in. 
+	 * A broken bean stays broken.
+	 */
+	protected synchronized void enterBlackout() {
+		final CollectorState state = collectorState.get();
+		if(state==CollectorState.BLACKOUT || state==CollectorState.BROKEN) return;
+		preBlackoutState = state;
+		log.info("Collections of [{}] suppressed by blackout window", beanName);
+		transitionState(CollectorState.BLACKOUT);
+	}
+	
+	/**
+	 * Restores the state this bean was in before a blackout window opened, once the window has closed
+	 */
+	protected synchronized void exitBlackout() {
+		if(collectorState.get()!=CollectorState.BLACKOUT) return;
+		final CollectorState restored = preBlackoutState==null ? CollectorState.STARTED : preBlackoutState;
+		preBlackoutState = null;
+		log.info("Blackout window of [{}] closed. Restoring state [{}]", beanName, restored);
+		transitionState(restored);
+	}
+	
+	/**
+	 * Marks this bean {@link CollectorState#BROKEN} after consecutive deadline breaches of one of its schedules, 
+	 * or doubles the backoff before the next probe if the bean is already broken
+	 * @param closureName The name of the schedule that breached its deadline
+	 * @param breaches The number of consecutive breaches
+	 */
+	protected synchronized void markBroken(String closureName, int breaches) {
+		if(collectorState.get()!=CollectorState.BROKEN) {
+			preBrokenState = collectorState.get();
+			probeBackoff = CollectionWatchdog.getCollectionWatchdog().getProbeBackoff();
+			log.error("Marking [{}] broken after [{}] consecutive deadline breaches of [{}]. Probing in [{}] ms.", new Object[]{beanName, breaches, closureName, probeBackoff});
+			transitionState(CollectorState.BROKEN);
+		} else {
+			probeBackoff = Math.min(CollectionWatchdog.MAX_PROBE_BACKOFF, probeBackoff * 2);
+			log.warn("Broken [{}] breached the deadline of [{}] again. Probing in [{}] ms.", new Object[]{beanName, closureName, probeBackoff});
+		}
+		probeDue.set(System.currentTimeMillis() + probeBackoff);
+	}
+	
+	/**
+	 * Admits a single probe execution of a broken bean once the probe backoff has elapsed. 
+	 * At most one fire of the bean's schedules is admitted per backoff.
+	 * @param now The current time in ms.
+	 * @return true if the fire should execute as a probe
+	 */
+	protected boolean admitProbe(long now) {
+		final long due = probeDue.get();
+		return now >= due && probeDue.compareAndSet(due, now + probeBackoff);
+	}
+	
+	/**
+	 * Restores a broken bean to the state it was in when it was marked broken, or {@link CollectorState#STARTED} if that is unknown, 
+	 * and clears the consecutive deadline breaches of its schedules
+	 * @param reason The reason logged for the recovery
+	 * @return true if the bean was broken and has been restored
+	 */
+	protected synchronized boolean recover(String reason) {
+		if(collectorState.get()!=CollectorState.BROKEN) return false;
+		final CollectorState restored = preBrokenState==null ? CollectorState.STARTED : preBrokenState;
+		preBrokenState = null;
+		transitionState(restored);
+		for(ScheduledClosure<?> sc: scheduleHandles.values()) {
+			sc.consecutiveTimeouts.set(0);
+		}
+		probeBackoff = 0L;
+		log.info("Recovered [{}] from broken state to [{}]: {}", new Object[]{beanName, restored, reason});
+		return true;
+	}
+	
+	/**
+	 * Clears the broken state of this bean so its schedules resume firing
+	 * @return true if the bean was broken
+	 */
+	@ManagedOperation(description="Clears the broken state of this bean so its schedules resume firing")
+	public boolean resetBroken() {
+		return recover("reset by operator");
+	}
+	
+	/**
+	 * Builds the key this bean's per closure statistics are registered under
+	 * @param name The closure name
+	 * @return the statistics key
+	 */
+	protected String statsKey(String name) {
+		return (objectName==null ? beanName : objectName.toString()) + "/" + name;
+	}
+	
+	/**
+	 * Indicates if this bean is in a blackout window at the passed time, for the bean itself, its target, 
+	 * or its parent branch or any of the branch's ancestors
+	 * @param now The time in ms. to check
+	 * @return true if a blackout window is open for this bean
+	 */
+	protected boolean inBlackout(long now) {
+		List<ObjectName> branches = branchObjectNames;
+		if(branches==null && parent!=null) {
+			branches = new ArrayList<ObjectName>();
+			for(DeploymentBranch branch = parent; branch!=null; branch = branch.getParentBranch()) {
+				if(branch.getObjectName()!=null) branches.add(branch.getObjectName());
+			}
+			branchObjectNames = branches;
+		}
+		return blackoutCalendar.isBlackedOut(objectName, target, branches, now);
+	}
+	
 	/**
 	 * <p>Title: ScheduledClosure</p>
 	 * <p>Description: Wraps a scheduled closure</p> 
@@ -140,7 +316,7 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 	 * <p><code>com.heliosapm.watchtower.core.impl.ServiceAspectImpl.ScheduledClosure</code></p>
 	 * @param <T> The return type of the scheduled closure
 	 */
-	class ScheduledClosure<T> implements Serializable, Runnable, Callable<T> {
+	class ScheduledClosure<T> implements Serializable, Runnable, Callable<T>, AlignedTask {
 		/**  */
 		private static final long serialVersionUID = 3311828463751427076L;
 		/** Thread pool for collection execution */
@@ -149,6 +325,10 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		protected final JMXManagedThreadPool notificationThreadPool = EventExecutor.getEventExecutor();
 		/** Scheduler for collection scheduling */
 		protected final CollectionScheduler collectionScheduler = CollectionScheduler.getCollectionScheduler();
+		/** Watchdog enforcing execution deadlines */
+		protected final CollectionWatchdog watchdog = CollectionWatchdog.getCollectionWatchdog();
+		/** Governor limiting the load on the bean's target */
+		protected final TargetGovernor governor = TargetGovernor.getTargetGovernor();
 		/** static class logger */
 		protected final Logger log = logCtx.getLogger(ScheduledClosure.class);
 
@@ -164,10 +344,97 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		TimeUnit schedulePeriodUnit = null;
 		/** The scheduling period cron */
 		String schedulePeriodCron = null;
+		/** The phase in ms. assigned by the scheduler's phase allocator, or -1 if not phased */
+		long phase = -1;
+		/** Indicates the schedule fires on exact multiples of the period from the epoch */
+		boolean aligned = false;
+		/** The tick group firing an aligned schedule */
+		AlignedTickGroup alignedGroup = null;
 		/** The field name of the closure */
 		String closureName;
+		/** The priority class of the scheduled collection */
+		CollectionPriority priority = CollectionPriority.NORMAL;
 		/** The most recent scheduled execution return value */
 		final AtomicReference<T> lastResult = new AtomicReference<T>(null);
+		
+		// ======================  Overrun Management  ======================
+		/** The policy applied when an execution overruns */
+		OverrunPolicy overrunPolicy = OverrunPolicy.SKIP_NEXT;
+		/** The maximum number of concurrent executions under the {@link OverrunPolicy#CONCURRENT} policy */
+		int maxConcurrent = 1;
+		/** The period in ms. of a fixed rate schedule, or -1 for a cron schedule */
+		long periodMs = -1;
+		/** The planned time of the next fire (fixed rate) or of the last fire (cron) in ms. */
+		volatile long plannedTime = -1;
+		/** The end time of the most recent execution in ms. */
+		volatile long lastEnd = 0;
+		/** The number of executions in flight */
+		final AtomicInteger inFlight = new AtomicInteger(0);
+		/** The executions in flight */
+		final Set<Execution> executions = Collections.newSetFromMap(new ConcurrentHashMap<Execution, Boolean>());
+		/** Indicates a coalesced execution is pending completion of the current one */
+		final AtomicBoolean coalesced = new AtomicBoolean(false);
+		/** Indicates if executions in flight are interrupted when the schedule is cancelled */
+		boolean interruptible = true;
+		/** The number of fires that fell due during an overrunning execution */
+		final AtomicLong overruns = new AtomicLong(0L);
+		/** The number of fires skipped on account of overruns */
+		final AtomicLong skipped = new AtomicLong(0L);
+		/** The lag in ms. between the planned and actual time of the most recent fire */
+		volatile long lastLag = 0;
+		/** The highest lag in ms. between the planned and actual time of a fire */
+		volatile long maxLag = 0;
+		
+		// ======================  Deadlines  ======================
+		/** The maximum time in ms. an execution can run for, or -1 for no deadline */
+		long deadlineMs = -1;
+		/** The number of executions that breached the deadline */
+		final AtomicLong timeouts = new AtomicLong(0L);
+		/** The number of consecutive executions that breached the deadline */
+		final AtomicInteger consecutiveTimeouts = new AtomicInteger(0);
+		/** The collection result of the most recent execution */
+		volatile CollectionResult lastCollectionResult = null;
+		/** The number of executions rejected by the target governor */
+		final AtomicLong throttled = new AtomicLong(0L);
+		/** The number of fires suppressed by a blackout window */
+		final AtomicLong blackouts = new AtomicLong(0L);
+		/** The number of executions sampled as stuck by the watchdog */
+		final AtomicLong stuck = new AtomicLong(0L);
+		/** The registration of the in flight executions with the watchdog's stuck sweep */
+		CollectionWatchdog.StuckSource stuckSource = null;
+		
+		// ======================  Latency  ======================
+		/** The key the schedule's histograms are registered with the scheduler under */
+		String latencyKey = null;
+		/** The schedule's fire lag and run duration histograms */
+		ScheduleLatency latency = null;
+		/** The schedule's thread CPU time and allocation counter */
+		ResourceCounter resources = null;
+		
+		// ======================  Persistent State  ======================
+		/** The state store persisting the schedule's fire times, or null if state persistence is disabled */
+		ScheduleStateStore stateStore = null;
+		/** The schedule's slot in the state store */
+		int stateSlot = -1;
+		/** The policy applied on restart to fires missed while down */
+		CatchUpPolicy catchUpPolicy = CatchUpPolicy.SKIP;
+		/** The number of catch up executions still to be dispatched */
+		int catchUps = 0;
+		/** The planned time in ms. of the missed fire the next catch up execution stands in for */
+		long catchUpPlanned = -1L;
+		
+		// ======================  Adaptive Period  ======================
+		/** Indicates if the period is adapted to collection latency and failures */
+		boolean adaptive = false;
+		/** The longest period in ms. an adaptive schedule can stretch to */
+		long maxPeriodMs = -1;
+		/** The effective period in ms. of an adaptive schedule */
+		volatile long effectivePeriodMs = -1;
+		/** The earliest planned fire time in ms. of the next execution of an adaptive schedule */
+		volatile long adaptiveDue = 0;
+		/** The exponentially weighted average elapsed time in ms. of executions */
+		double averageElapsed = -1D;
+		
 		/**
 		 * Creates a new ScheduledClosure
 		 * @param closureName The closure name (the name of the field the closure was declared in)
@@ -182,7 +449,10 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 			this.schedulePeriod = schedulePeriod;
 			this.schedulePeriodUnit = schedulePeriodUnit;
 			this.initialDelay = initialDelay;
-			scheduleHandle = collectionScheduler.scheduleWithFixedDelay(this, initialDelay, schedulePeriod, schedulePeriodUnit);
+			if(parent!=null) this.priority = parent.getCollectionPriority();
+			initState();
+			initStats();
+			schedulePeriodic();
 		}
 		
 		/**
@@ -194,23 +464,236 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		ScheduledClosure(String closureName, Closure<T> closure, Scheduled scheduledAnnotation) {
 			this.closureName = closureName;
 			this.closure = closure;
+			this.overrunPolicy = scheduledAnnotation.overrun();
+			this.maxConcurrent = Math.max(1, scheduledAnnotation.maxConcurrent());
+			this.interruptible = scheduledAnnotation.interruptible();
+			this.priority = scheduledAnnotation.priority().resolve(parent!=null ? parent.getCollectionPriority() : null);
+			this.catchUpPolicy = scheduledAnnotation.catchUp();
+			initState();
+			initStats();
+			if(scheduledAnnotation.deadline() > 0) {
+				this.deadlineMs = Math.max(1L, scheduledAnnotation.unit().toMillis(scheduledAnnotation.deadline()));
+			}
 			if(scheduledAnnotation.cron().trim().isEmpty()) {
 				this.schedulePeriod = scheduledAnnotation.period();
 				this.schedulePeriodUnit = scheduledAnnotation.unit();
 				this.initialDelay = scheduledAnnotation.initialDelay();
-				scheduleHandle = collectionScheduler.scheduleWithFixedDelay(this, initialDelay, schedulePeriod, schedulePeriodUnit);				
+				this.adaptive = scheduledAnnotation.adaptive();
+				if(adaptive) {
+					long max = scheduledAnnotation.maxPeriod();
+					maxPeriodMs = schedulePeriodUnit.toMillis(max < schedulePeriod ? schedulePeriod * 10 : max);
+				}
+				this.aligned = scheduledAnnotation.aligned();
+				if(aligned) {
+					scheduleAligned();
+				} else {
+					schedulePeriodic();
+				}
 			} else {
 				this.schedulePeriodCron = scheduledAnnotation.cron();
 				scheduleHandle = collectionScheduler.scheduleWithCron(this, schedulePeriodCron);
+				resumeCron();
 			}			
 		}
 		
+		/**
+		 * Acquires the schedule's slot in the state store if schedule state persistence is enabled.
+		 * The slot is keyed by this bean's ObjectName, which is the deployment branch's ObjectName plus the bean key, and the closure name.
+		 */
+		private void initState() {
+			if(objectName==null || !ScheduleStateStore.isEnabled()) return;
+			stateStore = ScheduleStateStore.getScheduleStateStore();
+			stateSlot = stateStore.slot(objectName.toString() + "/" + closureName);
+		}
+		
+		/**
+		 * Registers the schedule's fire lag and run duration histograms with the scheduler, 
+		 * its resource counter with the resource accounting service and its in flight executions with the watchdog's stuck sweep
+		 */
+		private void initStats() {
+			latencyKey = statsKey(closureName);
+			latency = collectionScheduler.registerSchedule(latencyKey);
+			resources = resourceAccounting.register(latencyKey);
+			stuckSource = watchdog.addStuckSource(executions);
+		}
+		
+		/**
+		 * Resumes a periodic schedule from its persisted next fire time, queueing catch up executions for the fires 
+		 * missed while down according to the catch up policy
+		 * @param now The current time in ms.
+		 * @return the time in ms. of the first fire on the resumed schedule's grid, or -1 if there is no persisted state
+		 */
+		private long resumePeriodic(final long now) {
+			if(stateStore==null) return -1L;
+			final long nextFire = stateStore.getNextFire(stateSlot);
+			if(nextFire <= 0) return -1L;
+			long next = nextFire;
+			long missed = 0;
+			if(nextFire <= now) {
+				missed = ((now - nextFire) / periodMs) + 1;
+				next = nextFire + (missed * periodMs);
+			} else if(nextFire - now > periodMs) {
+				// the period was shortened or the clock went back
+				next = now + ((nextFire - now) % periodMs);
+			}
+			log.info("Resuming schedule of [{}] at [{}] with [{}] missed fires", new Object[]{closureName, new Date(next), missed});
+			catchUp(missed, nextFire, now);
+			return next;
+		}
+		
+		/**
+		 * Queues catch up executions for the fires of a cron schedule missed while down according to the catch up policy
+		 */
+		private void resumeCron() {
+			if(stateStore==null || !(scheduleHandle instanceof CronScheduledTask)) return;
+			final long lastFire = stateStore.getLastFire(stateSlot);
+			if(lastFire <= 0) return;
+			final long now = System.currentTimeMillis();
+			final CronSchedule cron = ((CronScheduledTask<?>)scheduleHandle).getCronSchedule();
+			final long firstMissed = cron.nextFireTime(lastFire);
+			final int limit = stateStore.getMaxCatchUp();
+			long missed = 0;
+			for(long t = firstMissed; t!=CronSchedule.NEVER && t < now && missed < limit; t = cron.nextFireTime(t)) {
+				missed++;
+			}
+			if(missed > 0) log.info("Resuming cron schedule of [{}] with [{}]{} missed fires", new Object[]{closureName, missed, missed==limit ? "+" : ""});
+			catchUp(missed, firstMissed, now);
+		}
+		
+		/**
+		 * Queues catch up executions for missed fires according to the catch up policy. They are dispatched by 
+		 * {@link #startCatchUp()} once the schedule is constructed and registered.
+		 * @param missed The number of missed fires
+		 * @param firstMissed The planned time in ms. of the first missed fire
+		 * @param now The current time in ms.
+		 */
+		private void catchUp(final long missed, final long firstMissed, final long now) {
+			final long runs;
+			switch(catchUpPolicy) {
+				case RUN_ONCE:
+					runs = Math.min(missed, 1L);
+					break;
+				case RUN_ALL:
+					runs = Math.min(missed, stateStore.getMaxCatchUp());
+					break;
+				default:
+					runs = 0;
+			}
+			if(runs < 1) return;
+			log.info("Queued [{}] catch up executions of [{}] under policy [{}]", new Object[]{runs, closureName, catchUpPolicy});
+			synchronized(this) {
+				catchUps = (int)runs;
+				catchUpPlanned = firstMissed;
+			}
+		}
+		
+		/**
+		 * Dispatches the first queued catch up execution. The rest are dispatched one after the other as each completes.
+		 * Called once the schedule is constructed and registered, so no execution sees a partially constructed schedule.
+		 */
+		void startCatchUp() {
+			final long planned = takeCatchUp();
+			if(planned > 0) {
+				dispatch(planned, Math.max(0L, System.currentTimeMillis() - planned));
+			}
+		}
+		
+		/**
+		 * Computes the planned time of the missed fire following the passed one
+		 * @param planned The planned time in ms. of a missed fire
+		 * @return the planned time in ms. of the following fire
+		 */
+		private long nextMissed(final long planned) {
+			if(periodMs > 0) return planned + periodMs;
+			final long next = ((CronScheduledTask<?>)scheduleHandle).getCronSchedule().nextFireTime(planned);
+			return next==CronSchedule.NEVER ? planned : next;
+		}
+		
+		/**
+		 * Takes a pending catch up execution
+		 * @return the planned time in ms. of the missed fire the catch up execution stands in for, or -1 if there are none pending
+		 */
+		private synchronized long takeCatchUp() {
+			if(catchUps < 1) return -1L;
+			final long planned = catchUpPlanned;
+			catchUps--;
+			catchUpPlanned = catchUps > 0 ? nextMissed(planned) : -1L;
+			return planned;
+		}
+		
+		/**
+		 * Schedules the periodic execution of this closure at a fixed rate, so that fire times stay on a fixed grid
+		 * and overruns can be detected against it. If the scheduler is phasing, the schedule's first fire 
+		 * is aligned to a load balanced phase.
+		 */
+		private void schedulePeriodic() {
+			periodMs = Math.max(1L, schedulePeriodUnit.toMillis(schedulePeriod));
+			effectivePeriodMs = periodMs;
+			final long now = System.currentTimeMillis();
+			final long resumed = resumePeriodic(now);
+			final long delayMs;
+			if(resumed!=-1) {
+				delayMs = resumed - now;
+			} else {
+				phase = collectionScheduler.allocatePhase(periodMs);
+				delayMs = phase==-1 ? schedulePeriodUnit.toMillis(initialDelay) : collectionScheduler.phaseDelay(schedulePeriodUnit.toMillis(initialDelay), periodMs, phase);
+				if(phase!=-1) log.debug("Assigned phase [{}] ms. to [{}]", phase, closureName);
+			}
+			plannedTime = now + delayMs;
+			scheduleHandle = collectionScheduler.scheduleAtFixedRate(this, delayMs, periodMs, TimeUnit.MILLISECONDS);
+		}
+		
+		/**
+		 * Schedules the periodic execution of this closure on exact multiples of the period from the epoch, 
+		 * by joining the tick group for the period. The initial delay does not apply.
+		 */
+		private void scheduleAligned() {
+			periodMs = Math.max(1L, schedulePeriodUnit.toMillis(schedulePeriod));
+			effectivePeriodMs = periodMs;
+			// the aligned grid is fixed, so persisted state is only needed to catch up
+			resumePeriodic(System.currentTimeMillis());
+			alignedGroup = AlignedTickGroup.join(periodMs, this);
+			log.debug("Aligned [{}] to [{}] ms. ticks", closureName, periodMs);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.core.AlignedTask#fireAligned(long, com.heliosapm.watchtower.core.AlignedTickGroup.TickBatch)
+		 */
+		@Override
+		public void fireAligned(long tick, AlignedTickGroup.TickBatch batch) {
+			plannedTime = tick;
+			fire(batch);
+		}
+		
 		/**
 		 * Cancels the schedule
 		 */
 		void cancel() {
 			if(scheduleHandle!=null) {
-				scheduleHandle.cancel(true); // FIXME:  Configurable
+				scheduleHandle.cancel(false);
+			}
+			if(alignedGroup!=null) {
+				alignedGroup.leave(this);
+				alignedGroup = null;
+			}
+			if(interruptible) {
+				for(Execution execution: executions) {
+					Thread t = execution.thread;
+					if(t!=null) t.interrupt();
+				}
+			}
+			if(phase!=-1) {
+				collectionScheduler.releasePhase(periodMs, phase);
+				phase = -1;
+			}
+			if(latencyKey!=null) {
+				collectionScheduler.unregisterSchedule(latencyKey);
+				resourceAccounting.unregister(latencyKey);
+			}
+			if(stuckSource!=null) {
+				stuckSource.remove();
+				stuckSource = null;
 			}
 			scheduleHandle=null;
 			scheduleHandles.remove(closureName);
@@ -226,7 +709,11 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 			this.closureName = closureName;
 			this.closure = closure;
 			this.schedulePeriodCron = schedulePeriodCron;	
+			if(parent!=null) this.priority = parent.getCollectionPriority();
+			initState();
+			initStats();
 			scheduleHandle = collectionScheduler.scheduleWithCron(this, schedulePeriodCron);
+			resumeCron();
 		}
 		
 		
@@ -245,15 +732,8 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		 */
 		@Override
 		public T call() throws Exception {
-			if(log.isDebugEnabled()) log.debug("Scheduled Execution of [{}]", this);
-			try {
-				T result = closure.call();
-				lastResult.set(result);
-				return result;
-			} catch (Throwable t) {
-				log.error("Scheduled Execution of task [{}] failed", t);
-				throw new Exception("Scheduled Execution of task [{}] failed", t);
-			}
+			fire(null);
+			return lastResult.get();
 		}
 
 		/**
@@ -262,15 +742,493 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		 */
 		@Override
 		public void run() {
-			if(log.isDebugEnabled()) log.debug("Scheduled Execution of [{}]", this);
+			fire(null);
+		}
+		
+		/**
+		 * Handles a fire of the schedule, applying the overrun policy and dispatching the execution to the
+		 * collection thread pool. The scheduler thread never runs the closure, so timer accuracy is independent
+		 * of collection latency. Fires of the same schedule are serialized by the scheduler.
+		 * @param batch The aligned tick batch the execution is enlisted in, or null if the schedule is not aligned
+		 */
+		void fire(final AlignedTickGroup.TickBatch batch) {
+			final long now = System.currentTimeMillis();
+			final long planned;
+			final boolean overrun;
+			final boolean nextDue;
+			if(periodMs > 0) {
+				planned = plannedTime;
+				plannedTime = planned + periodMs;
+				overrun = lastEnd > planned || inFlight.get() > 0;
+				nextDue = now >= planned + periodMs;
+			} else {
+				planned = (scheduleHandle instanceof CronScheduledTask) ? ((CronScheduledTask<?>)scheduleHandle).getNextFireTime() : now;
+				final long priorPlanned = plannedTime;
+				plannedTime = planned;
+				// cron fires missed by a late trigger have already been skipped by the cron task
+				if(priorPlanned > 0 && (scheduleHandle instanceof CronScheduledTask) 
+						&& ((CronScheduledTask<?>)scheduleHandle).getCronSchedule().nextFireTime(priorPlanned) < planned) {
+					overruns.incrementAndGet();
+					skipped.incrementAndGet();
+				}
+				overrun = inFlight.get() > 0;
+				nextDue = false;
+			}
+			if(inBlackout(now)) {
+				blackouts.incrementAndGet();
+				if(collectorState.get()!=CollectorState.BLACKOUT) enterBlackout();
+				return;
+			} else if(collectorState.get()==CollectorState.BLACKOUT) {
+				exitBlackout();
+			}
+			// an adaptive skip must not use up a broken bean's probe
+			if(adaptive && planned < adaptiveDue) return;
+			if(collectorState.get()==CollectorState.BROKEN) {
+				if(!admitProbe(now)) return;
+				log.info("Probing broken [{}] with an execution of [{}]", beanName, closureName);
+			}
+			final long lag = Math.max(0L, now - planned);
+			lastLag = lag;
+			if(lag > maxLag) maxLag = lag;
+			collectionScheduler.recordLag(latency, lag);
+			if(overrun) {
+				overruns.incrementAndGet();
+				if(overrunPolicy==OverrunPolicy.SKIP_NEXT || (overrunPolicy==OverrunPolicy.COALESCE && nextDue)) {
+					skipped.incrementAndGet();
+					log.debug("Skipped overrun fire of [{}] under policy [{}]. Lag: [{}] ms.", new Object[]{closureName, overrunPolicy, lag});
+					return;
+				}
+				if(overrunPolicy==OverrunPolicy.COALESCE && inFlight.get() > 0) {
+					// run once more when the current execution completes, unless it completed in the meantime
+					if(coalesced.getAndSet(true)) skipped.incrementAndGet();
+					if(inFlight.get()==0 && coalesced.compareAndSet(true, false)) {
+						dispatch(planned, lag, batch);
+					}
+					return;
+				}
+			}
+			dispatch(planned, lag, batch);
+		}
+		
+		/**
+		 * Dispatches an execution of the closure to the collection thread pool if the closure's in flight limit permits
+		 * @param planned The planned fire time in ms.
+		 * @param lag The lag in ms. between the planned and the actual fire time
+		 */
+		void dispatch(final long planned, final long lag) {
+			dispatch(planned, lag, null);
+		}
+		
+		/**
+		 * Dispatches an execution of the closure to the collection thread pool if the closure's in flight limit permits
+		 * @param planned The planned fire time in ms.
+		 * @param lag The lag in ms. between the planned and the actual fire time
+		 * @param batch The aligned tick batch to enlist the execution in, or null if the schedule is not aligned
+		 */
+		void dispatch(final long planned, final long lag, final AlignedTickGroup.TickBatch batch) {
+			final int limit = overrunPolicy==OverrunPolicy.CONCURRENT ? maxConcurrent : 1;
+			while(true) {
+				int current = inFlight.get();
+				if(current >= limit) {
+					skipped.incrementAndGet();
+					log.debug("Skipped fire of [{}] with [{}] executions in flight", closureName, current);
+					return;
+				}
+				if(inFlight.compareAndSet(current, current + 1)) break;
+			}
+			if(batch!=null) batch.enlist();
 			try {
-				lastResult.set(closure.call());
-			} catch (Throwable t) {
-				log.error("Scheduled Execution of task [{}] failed", t);
+				collectionScheduler.dispatchCollection(new Execution(planned, lag, batch), collectionExecutor);
+			} catch (RuntimeException rex) {
+				if(batch!=null) batch.arrive();
+				inFlight.decrementAndGet();
+				skipped.incrementAndGet();
+				log.warn("Failed to dispatch scheduled execution of [{}]", closureName, rex);
+				return;
+			}
+			recordFire(planned);
+		}
+		
+		/**
+		 * Persists the planned time of a dispatched execution as the schedule's last fire, unless a later fire has already been persisted,
+		 * as when a catch up execution is dispatched after the resumed schedule has fired
+		 * @param planned The planned fire time in ms. of the dispatched execution
+		 */
+		private void recordFire(final long planned) {
+			if(stateStore==null) return;
+			synchronized(this) {
+				if(planned < stateStore.getLastFire(stateSlot)) return;
+				stateStore.record(stateSlot, planned, periodMs > 0 ? plannedTime : 0L);
 			}
 		}
 		
+		/**
+		 * Callback when a dispatched execution completes. Releases the in flight slot and 
+		 * dispatches a coalesced execution if one was requested while the execution was running,
+		 * or the next catch up execution if any are pending.
+		 */
+		void completed() {
+			if(inFlight.decrementAndGet()!=0) return;
+			if(coalesced.compareAndSet(true, false)) {
+				dispatch(System.currentTimeMillis(), 0L);
+				return;
+			}
+			final long planned = takeCatchUp();
+			if(planned > 0) {
+				dispatch(planned, Math.max(0L, System.currentTimeMillis() - planned));
+			}
+		}
 		
+		/**
+		 * <p>Title: Execution</p>
+		 * <p>Description: A single dispatched execution of the scheduled closure</p> 
+		 * <p>Company: Helios Development Group LLC</p>
+		 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+		 * <p><code>com.heliosapm.watchtower.core.impl.ServiceAspectImpl.ScheduledClosure.Execution</code></p>
+		 */
+		class Execution implements TargetedTask, PrioritizedTask, WatchedExecution, RejectableTask {
+			/** The planned fire time in ms. */
+			final long planned;
+			/** The lag in ms. between the planned and the actual fire time */
+			final long lag;
+			/** The aligned tick batch the execution is enlisted in, or null */
+			final AlignedTickGroup.TickBatch batch;
+			/** The thread running the execution */
+			volatile Thread thread = null;
+			/** The start time of the execution in ms. */
+			volatile long startTime = -1L;
+			/** Indicates the execution breached its deadline */
+			volatile boolean timedOut = false;
+			/** Set when the execution finishes or is abandoned, so that the in flight slot is released once */
+			final AtomicBoolean released = new AtomicBoolean(false);
+			/** The nano time of the execution's first attempt to take a token from its target gate, or zero before it */
+			long gateStart = 0L;
+			/** Re-dispatches the execution when it was parked on its target gate or delayed by the gate's token bucket */
+			Runnable retry = null;
+			
+			/**
+			 * Creates a new Execution
+			 * @param planned The planned fire time in ms.
+			 * @param lag The lag in ms. between the planned and the actual fire time
+			 * @param batch The aligned tick batch the execution is enlisted in, or null
+			 */
+			Execution(long planned, long lag, AlignedTickGroup.TickBatch batch) {
+				this.planned = planned;
+				this.lag = lag;
+				this.batch = batch;
+			}
+			
+			/**
+			 * Releases the execution's in flight slot and its place in the aligned tick batch
+			 */
+			void release() {
+				if(batch!=null) batch.arrive();
+				completed();
+			}
+
+			/**
+			 * {@inheritDoc}
+			 * @see com.heliosapm.watchtower.core.TargetedTask#getTarget()
+			 */
+			@Override
+			public String getTarget() {
+				return target;
+			}
+			
+			/**
+			 * {@inheritDoc}
+			 * @see com.heliosapm.watchtower.core.PrioritizedTask#getPriority()
+			 */
+			@Override
+			public CollectionPriority getPriority() {
+				return priority;
+			}
+			
+			/**
+			 * {@inheritDoc}
+			 * @see com.heliosapm.watchtower.core.WatchedExecution#getThread()
+			 */
+			@Override
+			public Thread getThread() {
+				return thread;
+			}
+			
+			/**
+			 * {@inheritDoc}
+			 * @see com.heliosapm.watchtower.core.WatchedExecution#getExecutionName()
+			 */
+			@Override
+			public String getExecutionName() {
+				return beanName + "." + closureName;
+			}
+			
+			/**
+			 * {@inheritDoc}
+			 * @see com.heliosapm.watchtower.core.WatchedExecution#getStartTime()
+			 */
+			@Override
+			public long getStartTime() {
+				return startTime;
+			}
+			
+			/**
+			 * {@inheritDoc}
+			 * <p>Interrupts the execution if the schedule is interruptible. Otherwise the execution is abandoned:
+			 * its in flight slot is released so the schedule keeps firing, and the timeout is recorded as failed. The abandoned
+			 * execution stays in the in flight executions until its thread returns, so the watchdog's stuck sweep still samples it.
+			 * The collector is marked {@link CollectorState#BROKEN} after the watchdog's maximum number of consecutive breaches, 
+			 * and probed with a single execution after a backoff that doubles with each probe that breaches again.</p>
+			 * @see com.heliosapm.watchtower.core.WatchedExecution#onDeadline()
+			 */
+			@Override
+			public void onDeadline() {
+				if(released.get()) return;
+				timedOut = true;
+				timeouts.incrementAndGet();
+				if(interruptible) {
+					Thread t = thread;
+					if(t!=null) t.interrupt();
+					log.warn("Interrupted execution of [{}] after deadline of [{}] ms.", closureName, deadlineMs);
+				} else if(released.compareAndSet(false, true)) {
+					lastCollectionResult = CollectionResult.FAILED;
+					log.warn("Abandoned execution of [{}] after deadline of [{}] ms.", closureName, deadlineMs);
+					release();
+				}
+				final int breaches = consecutiveTimeouts.incrementAndGet();
+				if(breaches >= watchdog.getMaxBreaches()) markBroken(closureName, breaches);
+			}
+			
+			/**
+			 * {@inheritDoc}
+			 * <p>Releases the in flight slot and the aligned tick batch place the execution took when it was dispatched, 
+			 * so the schedule keeps firing.</p>
+			 * @see com.heliosapm.watchtower.core.RejectableTask#onRejected(java.util.concurrent.RejectedExecutionException)
+			 */
+			@Override
+			public void onRejected(RejectedExecutionException rex) {
+				skipped.incrementAndGet();
+				log.warn("Queued execution of [{}] was rejected: {}", closureName, rex.getMessage());
+				if(released.compareAndSet(false, true)) release();
+			}
+			
+			/**
+			 * Takes a token from the target gate without blocking the collection thread. An execution that cannot take one yet is 
+			 * parked on the gate until a permit is released, or re-dispatched once the gate's token bucket grants the next token, 
+			 * and is rejected once it has waited the governor's maximum wait.
+			 * @param gate The target gate
+			 * @return true if the execution took a token and should run now
+			 */
+			boolean admit(final TargetGate gate) {
+				final long now = System.nanoTime();
+				if(gateStart==0L) gateStart = now;
+				final long delay = gate.tryAcquire(gateStart);
+				if(delay==0L) return true;
+				final long remaining = gateStart + TimeUnit.MILLISECONDS.toNanos(governor.getMaxWait()) - now;
+				if(remaining <= 0 || delay > remaining) {
+					throttle(gate);
+					return false;
+				}
+				if(retry==null) {
+					retry = new Runnable() {
+						@Override
+						public void run() {
+							try {
+								collectionExecutor.execute(Execution.this);
+							} catch (RejectedExecutionException rex) {
+								onRejected(rex);
+							}
+						}
+					};
+				}
+				if(delay > 0) {
+					collectionScheduler.schedule(retry, delay, TimeUnit.NANOSECONDS);
+				} else {
+					gate.park(retry);
+					collectionScheduler.schedule(new Runnable() {
+						@Override
+						public void run() {
+							if(gate.unpark(retry)) throttle(gate);
+						}
+					}, remaining, TimeUnit.NANOSECONDS);
+				}
+				return false;
+			}
+			
+			/**
+			 * Rejects an execution that could not take a token from its target gate within the governor's maximum wait
+			 * @param gate The target gate
+			 */
+			void throttle(TargetGate gate) {
+				gate.reject();
+				throttled.incrementAndGet();
+				log.debug("Execution of [{}] rejected by the governor for target [{}]", closureName, gate.getTarget());
+				if(released.compareAndSet(false, true)) release();
+			}
+			
+			/**
+			 * {@inheritDoc}
+			 * <p>Publishes a stuck notification with the sampled stack from the owning bean.</p>
+			 * @see com.heliosapm.watchtower.core.WatchedExecution#onStuck(com.heliosapm.watchtower.core.StuckSample)
+			 */
+			@Override
+			public void onStuck(StuckSample sample) {
+				stuck.incrementAndGet();
+				sendStuckNotification(ScheduledClosure.this, sample);
+			}
+
+			/**
+			 * {@inheritDoc}
+			 * @see java.lang.Runnable#run()
+			 */
+			@Override
+			public void run() {
+				final TargetGate gate = governor.gateFor(target);
+				if(gate!=null && !admit(gate)) return;
+				thread = Thread.currentThread();
+				startTime = System.currentTimeMillis();
+				executions.add(this);
+				final CollectionWatchdog.Watch watch = deadlineMs > 0 ? watchdog.watch(this, deadlineMs, TimeUnit.MILLISECONDS) : null;
+				try {
+					execute(this);
+				} finally {
+					if(gate!=null) gate.release();
+					if(watch!=null) watch.complete();
+					executions.remove(this);
+					thread = null;
+					// clear an interrupt from the watchdog so it does not leak into the next task on this thread
+					if(timedOut) Thread.interrupted();
+					if(released.compareAndSet(false, true)) release();
+				}
+			}
+		}
+		
+		/**
+		 * Adapts the effective period of an adaptive schedule after an execution. The period doubles on a failure,
+		 * stretches by half while the average elapsed time exceeds half the period, and tightens by a quarter 
+		 * toward the configured period while the average elapsed time is under a quarter of the period.
+		 * @param planned The planned fire time in ms. of the execution
+		 * @param elapsed The elapsed time in ms. of the execution
+		 * @param failed true if the execution failed
+		 */
+		synchronized void adapt(long planned, long elapsed, boolean failed) {
+			averageElapsed = averageElapsed < 0 ? elapsed : (0.3D * elapsed) + (0.7D * averageElapsed);
+			final long current = effectivePeriodMs;
+			long next = current;
+			if(failed) {
+				next = current * 2;
+			} else if(averageElapsed > current / 2) {
+				next = current + (current / 2);
+			} else if(averageElapsed < current / 4) {
+				next = current - (current / 4);
+			}
+			next = Math.max(periodMs, Math.min(maxPeriodMs, next));
+			if(next!=current) {
+				effectivePeriodMs = next;
+				log.debug("Adapted period of [{}] from [{}] to [{}] ms.", new Object[]{closureName, current, next});
+			}
+			adaptiveDue = planned + next;
+		}
+		
+		/**
+		 * Executes the closure, publishing the pre and post schedule notifications. An execution that breached its 
+		 * deadline is recorded as {@link CollectionResult#PARTIAL} if the closure still returned, or {@link CollectionResult#FAILED} otherwise.
+		 * @param execution The execution
+		 * @return the closure return value or null if the closure failed
+		 */
+		T execute(final Execution execution) {
+			final long planned = execution.planned;
+			final long lag = execution.lag;
+			if(log.isDebugEnabled()) log.debug("Scheduled Execution of [{}]", this);
+			sendScheduleNotification(ISchedulable.NOTIF_SCHEDULE_PRE, this, planned, lag, -1L);
+			final long start = System.currentTimeMillis();
+			final long startCpu = resourceAccounting.threadCpuTime();
+			final long startAllocated = resourceAccounting.threadAllocatedBytes();
+			T result = null;
+			boolean failed = false;
+			try {
+				result = closure.call();
+				lastResult.set(result);
+				failed = result==CollectionResult.FAILED || result==CollectionResult.NOCONN;
+			} catch (Throwable t) {
+				failed = true;
+				log.error("Scheduled Execution of task [{}] failed", closureName, t);
+			} finally {
+				lastEnd = System.currentTimeMillis();
+				resourceAccounting.record(resources, startCpu, startAllocated);
+				metrics.flush();
+				if(execution.timedOut) {
+					lastCollectionResult = failed ? CollectionResult.FAILED : CollectionResult.PARTIAL;
+				} else {
+					consecutiveTimeouts.set(0);
+					if(collectorState.get()==CollectorState.BROKEN) recover("execution of [" + closureName + "] completed within its deadline");
+					lastCollectionResult = (result instanceof CollectionResult) ? (CollectionResult)result : failed ? CollectionResult.FAILED : CollectionResult.COMPLETE;
+				}
+				collectionScheduler.recordDuration(latency, lastEnd - start);
+				if(adaptive) adapt(planned, lastEnd - start, failed || execution.timedOut);
+				sendScheduleNotification(ISchedulable.NOTIF_SCHEDULE_POST, this, planned, lag, lastEnd - start);
+			}
+			return result;
+		}
+	}
+	
+	/**
+	 * Asynchronously publishes a schedule execution notification
+	 * @param type The notification type
+	 * @param sc The scheduled closure
+	 * @param planned The planned fire time in ms.
+	 * @param lag The lag in ms. between the planned and the actual fire time
+	 * @param elapsed The elapsed time of the execution in ms, or -1 if the execution has not completed
+	 */
+	protected void sendScheduleNotification(final String type, final ScheduledClosure<?> sc, final long planned, final long lag, final long elapsed) {
+		final NotificationPublisher publisher = notificationPublisher;
+		if(publisher==null) return;
+		final Notification notif = new Notification(type, objectName, notificationSerial.incrementAndGet(), SystemClock.time(), 
+				(elapsed==-1 ? "Starting" : "Completed") + " scheduled execution of [" + sc.closureName + "]");
+		final Map<String, Object> userData = new HashMap<String, Object>(8);
+		userData.put("closure", sc.closureName);
+		userData.put("planned", planned);
+		userData.put("lag", lag);
+		userData.put("overruns", sc.overruns.get());
+		userData.put("skipped", sc.skipped.get());
+		userData.put("timeouts", sc.timeouts.get());
+		if(elapsed!=-1) userData.put("elapsed", elapsed);
+		notif.setUserData(userData);
+		try {
+			notificationThreadPool.execute(new Runnable() {
+				@Override
+				public void run() {
+					publisher.sendNotification(notif);
+				}
+			});
+		} catch (Exception ex) {
+			log.debug("Failed to publish schedule notification [{}]", type, ex);
+		}
+	}
+	
+	/**
+	 * Asynchronously publishes a stuck execution notification
+	 * @param sc The scheduled closure
+	 * @param sample The stack sample of the stuck execution
+	 */
+	protected void sendStuckNotification(final ScheduledClosure<?> sc, final StuckSample sample) {
+		final NotificationPublisher publisher = notificationPublisher;
+		if(publisher==null) return;
+		final Notification notif = new Notification(ISchedulable.NOTIF_SCHEDULE_STUCK, objectName, notificationSerial.incrementAndGet(), SystemClock.time(), 
+				"Scheduled execution of [" + sc.closureName + "] stuck for [" + sample.getElapsed() + "] ms.");
+		final Map<String, Object> userData = new HashMap<String, Object>(sample.toMap());
+		userData.put("closure", sc.closureName);
+		userData.put("stuck", sc.stuck.get());
+		notif.setUserData(userData);
+		try {
+			notificationThreadPool.execute(new Runnable() {
+				@Override
+				public void run() {
+					publisher.sendNotification(notif);
+				}
+			});
+		} catch (Exception ex) {
+			log.debug("Failed to publish stuck notification for [{}]", sc.closureName, ex);
+		}
 	}
 	
 	/**
@@ -332,6 +1290,7 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		transitionState(CollectorState.STARTING);
 		groovyObject = (GroovyObject)this;
 		loadClosures();
+		collectionExecutor = resolveCollectionExecutor();
 		if(ServiceAspect.SCHEDULED.isEnabled(aspectBitMask)) {
 			try {
 				Map<String, Closure<?>> cmap = closures.get(ServiceAspect.SCHEDULED);
@@ -339,7 +1298,8 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 				for(Map.Entry<String, Closure<?>> entry: cmap.entrySet()) {
 					Scheduled scheduledAnnotation = (Scheduled)amap.get(entry.getKey());
 					ScheduledClosure<?> sc = new ScheduledClosure<>(entry.getKey(), entry.getValue(), scheduledAnnotation);
-					scheduleHandles.put(entry.getKey(), sc);					
+					scheduleHandles.put(entry.getKey(), sc);
+					sc.startCatchUp();
 				}
 			} catch (Exception ex) {
 				throw new RuntimeException("Start failed", ex);
@@ -355,6 +1315,24 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		}
 	}
 	
+	/**
+	 * Resolves the executor scheduled collections are dispatched to. If the parent deployment branch
+	 * is bulkheaded, collections go through the branch's bulkhead, otherwise to the collection dispatcher.
+	 * @return the collection executor
+	 */
+	protected Executor resolveCollectionExecutor() {
+		if(parent==null && applicationContext!=null) {
+			Map<String, DeploymentBranch> branches = applicationContext.getBeansOfType(DeploymentBranch.class);
+			if(branches.size()==1) parent = branches.values().iterator().next();
+		}
+		CollectionBulkhead bulkhead = parent==null ? null : parent.getCollectionBulkhead();
+		if(bulkhead!=null) {
+			log.info("Dispatching collections through bulkhead [{}]", bulkhead.getObjectName());
+			return bulkhead;
+		}
+		return PriorityLaneExecutor.getCollectionDispatcher();
+	}
+	
 	/**
 	 * {@inheritDoc}
 	 * @see org.springframework.beans.factory.DisposableBean#destroy()
@@ -366,6 +1344,7 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 			log.info("Stopping Schedule for [{}]", handle.closureName);
 			handle.cancel();
 		}
+		if(collectCounter!=null) resourceAccounting.unregister(collectCounter.getKey());
 		if(ServiceAspect.STOPPER.isEnabled(aspectBitMask)) {
 			stop();
 			transitionState(CollectorState.STOPPED);
@@ -377,6 +1356,7 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 	 */
 	protected void bindDefaultBindings() {
 		groovyObject.setProperty("log", log);
+		groovyObject.setProperty("metrics", metrics);
 		groovyObject.setProperty("deploymentBranch", parent);
 		groovyObject.setProperty("appCtx", applicationContext);
 		
@@ -479,13 +1459,144 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 	 */
 	public CollectionResult collect() { return null; }
 	
+	/**
+	 * Executes a collection through {@link #collect()}, accounting its thread CPU time and allocated bytes
+	 * @return the result of the collection. Null implies {@link CollectionResult#COMPLETE}
+	 */
+	@ManagedOperation(description="Executes the collection, accounting its thread CPU time and allocated bytes")
+	public CollectionResult accountedCollect() {
+		ResourceCounter counter = collectCounter;
+		if(counter==null) {
+			synchronized(this) {
+				counter = collectCounter;
+				if(counter==null) {
+					counter = resourceAccounting.register(statsKey("collect"));
+					collectCounter = counter;
+				}
+			}
+		}
+		final long startCpu = resourceAccounting.threadCpuTime();
+		final long startAllocated = resourceAccounting.threadAllocatedBytes();
+		try {
+			return collect();
+		} finally {
+			resourceAccounting.record(counter, startCpu, startAllocated);
+			metrics.flush();
+		}
+	}
+	
+	/**
+	 * Returns the total thread CPU time in ms. of this bean's accounted closures and collections
+	 * @return the total CPU time in ms.
+	 */
+	@ManagedAttribute(description="The total thread CPU time in ms. of this bean's accounted closures and collections")
+	public long getCollectionCpuTime() {
+		long total = collectCounter==null ? 0L : collectCounter.getCpuTime();
+		for(ScheduledClosure<?> sc: scheduleHandles.values()) {
+			if(sc.resources!=null) total += sc.resources.getCpuTime();
+		}
+		return total;
+	}
+	
+	/**
+	 * Returns the total bytes allocated by this bean's accounted closures and collections
+	 * @return the total allocated bytes
+	 */
+	@ManagedAttribute(description="The total bytes allocated by this bean's accounted closures and collections")
+	public long getCollectionAllocatedBytes() {
+		long total = collectCounter==null ? 0L : collectCounter.getAllocatedBytes();
+		for(ScheduledClosure<?> sc: scheduleHandles.values()) {
+			if(sc.resources!=null) total += sc.resources.getAllocatedBytes();
+		}
+		return total;
+	}
+	
+	/**
+	 * Returns the thread CPU time and allocation counters of this bean's accounted closures and collections
+	 * @return the counter values keyed by closure name
+	 */
+	@ManagedAttribute(description="The thread CPU time and allocation counters of this bean's accounted closures and collections")
+	public Map<String, Map<String, Long>> getResourceUsage() {
+		final Map<String, Map<String, Long>> map = new HashMap<String, Map<String, Long>>();
+		if(collectCounter!=null) map.put("collect", collectCounter.toMap());
+		for(ScheduledClosure<?> sc: scheduleHandles.values()) {
+			if(sc.resources!=null) map.put(sc.closureName, sc.resources.toMap());
+		}
+		return map;
+	}
+	
+	/**
+	 * Collects the passed items in parallel on the shared work-stealing pool, with at most this bean's {@link #getParallelism()}
+	 * items in flight, for example <b><code>parallel(queueNames) { q -> collectQueue(q) }</code></b>.
+	 * The closure is called concurrently, so it must not mutate unsynchronized shared state.
+	 * @param items The items to collect, such as the sub-targets of a fan-out collection
+	 * @param closure The closure collecting one item, passed the item. A returned {@link CollectionResult} is the item's result, 
+	 * any other return is {@link CollectionResult#COMPLETE} and a thrown exception is {@link CollectionResult#FAILED}.
+	 * @return the joined result: {@link CollectionResult#COMPLETE} if every item completed, {@link CollectionResult#PARTIAL} if some did,
+	 * or {@link CollectionResult#NOCONN} or {@link CollectionResult#FAILED} if none did
+	 */
+	public CollectionResult parallel(Collection<?> items, Closure<?> closure) {
+		return parallel(parallelism, items, closure);
+	}
+	
+	/**
+	 * Collects the passed items in parallel on the shared work-stealing pool, with at most the passed number of items in flight
+	 * @param parallelism The maximum number of items collected concurrently
+	 * @param items The items to collect
+	 * @param closure The closure collecting one item, passed the item
+	 * @return the joined result
+	 * @see #parallel(Collection, Closure)
+	 */
+	public CollectionResult parallel(int parallelism, Collection<?> items, final Closure<?> closure) {
+		if(items==null) throw new IllegalArgumentException("The passed item collection was null");
+		if(closure==null) throw new IllegalArgumentException("The passed closure was null");
+		return parallelCollector.invoke(beanName, new ArrayList<Object>(items), parallelism, new ParallelCollector.ItemTask<Object>() {
+			@Override
+			public Object collect(Object item) throws Exception {
+				try {
+					return closure.call(item);
+				} finally {
+					metrics.flush();
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Returns the number of metric points emitted by this bean
+	 * @return the emitted point count
+	 */
+	@ManagedAttribute(description="The number of metric points emitted by this bean")
+	public long getEmittedMetricCount() {
+		return metrics.getEmittedCount();
+	}
+	
+	/**
+	 * Returns the maximum number of items of this bean's parallel collections collected concurrently
+	 * @return the parallelism
+	 */
+	@ManagedAttribute(description="The maximum number of items of this bean's parallel collections collected concurrently")
+	public int getParallelism() {
+		return parallelism;
+	}
+	
+	/**
+	 * Sets the maximum number of items of this bean's parallel collections collected concurrently
+	 * @param parallelism the parallelism
+	 */
+	@ManagedAttribute(description="The maximum number of items of this bean's parallel collections collected concurrently")
+	public void setParallelism(int parallelism) {
+		if(parallelism < 1) throw new IllegalArgumentException("Invalid parallelism [" + parallelism + "]");
+		this.parallelism = parallelism;
+	}
+	
 	// ==========================================================================================
 	//		ServiceAspectImpl SCHEDULE Methods
 	// ==========================================================================================
 	/**
 	 * Schedules the task for repeating execution on the defined period after the defined initial period 
 	 * @param name The name of the closure to schedule
-	 * @param period The fixed delay of the executions
+	 * @param period The fixed rate period of the executions
 	 * @param initial The initial delay when first scheduled
 	 * @param unit The unit of the period and initial
 	 */
@@ -502,6 +1613,7 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 				if(sc==null) {
 					sc = new ScheduledClosure(name, closure, period, initial, unit);
 					scheduleHandles.put(name, sc);
+					sc.startCatchUp();
 				}
 			}
 		}
@@ -510,7 +1622,7 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 	/**
 	 * Schedules the task for repeating execution on the defined period after the defined initial period 
 	 * @param name The name of the closure to schedule
-	 * @param period The fixed delay of the executions
+	 * @param period The fixed rate period of the executions
 	 * @param initial The initial delay when first scheduled
 	 * @param unit The name of the unit of the period and initial
 	 */
@@ -535,6 +1647,7 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 				if(sc==null) {
 					sc = new ScheduledClosure(name, closure, cron);
 					scheduleHandles.put(name, sc);
+					sc.startCatchUp();
 				}
 			}
 		}
@@ -565,13 +1678,13 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 	}
 	
 	/**
-	 * Returns the scheduled period
+	 * Returns the scheduled period. For adaptive schedules, this is the current effective period.
 	 * @param name The name of the scheduled task to get the period for
 	 * @return the scheduled period. -1 means WTF or that the task is a cron task
 	 */
 	public long getPeriod(String name) {
 		ScheduledClosure<?> sc = scheduleHandles.get(name);
-		if(sc!=null) return sc.schedulePeriod;
+		if(sc!=null) return sc.adaptive ? sc.schedulePeriodUnit.convert(sc.effectivePeriodMs, TimeUnit.MILLISECONDS) : sc.schedulePeriod;
 		return -1;
 	}
 
@@ -599,6 +1712,205 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		return null;
 	}
 	
+	/**
+	 * Returns the phase assigned to the schedule within its period
+	 * @param name The name of the scheduled task to get the phase for
+	 * @return the phase in ms. -1 means WTF or that the task is not phased
+	 */
+	public long getPhase(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.phase;
+		return -1;
+	}
+	
+	/**
+	 * Returns the name of the overrun policy of the schedule
+	 * @param name The name of the scheduled task to get the overrun policy for
+	 * @return the overrun policy name. null means WTF
+	 */
+	public String getOverrunPolicy(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.overrunPolicy.name();
+		return null;
+	}
+	
+	/**
+	 * Returns the number of fires of the schedule that fell due during an overrunning execution
+	 * @param name The name of the scheduled task to get the overrun count for
+	 * @return the overrun count. -1 means WTF
+	 */
+	public long getOverrunCount(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.overruns.get();
+		return -1;
+	}
+	
+	/**
+	 * Returns the number of fires of the schedule skipped on account of overruns
+	 * @param name The name of the scheduled task to get the skipped count for
+	 * @return the skipped count. -1 means WTF
+	 */
+	public long getSkippedCount(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.skipped.get();
+		return -1;
+	}
+	
+	/**
+	 * Returns the lag between the planned and actual time of the most recent fire of the schedule
+	 * @param name The name of the scheduled task to get the lag for
+	 * @return the lag in ms. -1 means WTF
+	 */
+	public long getLastLag(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.lastLag;
+		return -1;
+	}
+	
+	/**
+	 * Returns the highest lag between the planned and actual time of a fire of the schedule
+	 * @param name The name of the scheduled task to get the maximum lag for
+	 * @return the maximum lag in ms. -1 means WTF
+	 */
+	public long getMaxLag(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.maxLag;
+		return -1;
+	}
+	
+	/**
+	 * Returns the priority class of the schedule
+	 * @param name The name of the scheduled task to get the priority for
+	 * @return the priority name. null means WTF
+	 */
+	public String getPriority(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.priority.name();
+		return null;
+	}
+	
+	/**
+	 * Indicates if the schedule fires on exact multiples of the period from the epoch
+	 * @param name The name of the scheduled task
+	 * @return true if the schedule is aligned, false if it is not or WTF
+	 */
+	public boolean isAligned(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.aligned;
+		return false;
+	}
+	
+	/**
+	 * Returns the policy applied on restart to the fires of the schedule missed while down
+	 * @param name The name of the scheduled task to get the catch up policy for
+	 * @return the catch up policy name. null means WTF
+	 */
+	public String getCatchUpPolicy(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.catchUpPolicy.name();
+		return null;
+	}
+	
+	/**
+	 * Returns the deadline of the schedule's executions
+	 * @param name The name of the scheduled task to get the deadline for
+	 * @return the deadline in ms. -1 means no deadline or WTF
+	 */
+	public long getDeadline(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.deadlineMs;
+		return -1;
+	}
+	
+	/**
+	 * Returns the number of executions of the schedule that breached the deadline
+	 * @param name The name of the scheduled task to get the timeout count for
+	 * @return the timeout count. -1 means WTF
+	 */
+	public long getTimeoutCount(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.timeouts.get();
+		return -1;
+	}
+	
+	/**
+	 * Returns the number of fires of the schedule suppressed by a blackout window
+	 * @param name The name of the scheduled task to get the blackout count for
+	 * @return the blackout count. -1 means WTF
+	 */
+	public long getBlackoutCount(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.blackouts.get();
+		return -1;
+	}
+	
+	/**
+	 * Returns the number of executions of the schedule sampled as stuck by the watchdog
+	 * @param name The name of the scheduled task to get the stuck count for
+	 * @return the stuck count. -1 means WTF
+	 */
+	public long getStuckCount(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.stuck.get();
+		return -1;
+	}
+	
+	/**
+	 * Indicates if this bean is currently in a blackout window
+	 * @return true if a blackout window is open for this bean
+	 */
+	@ManagedAttribute(description="Indicates if this bean is currently in a blackout window")
+	public boolean isInBlackout() {
+		return inBlackout(System.currentTimeMillis());
+	}
+	
+	/**
+	 * Returns the number of executions of the schedule rejected by the target governor
+	 * @param name The name of the scheduled task to get the throttled count for
+	 * @return the throttled count. -1 means WTF
+	 */
+	public long getThrottledCount(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.throttled.get();
+		return -1;
+	}
+	
+	/**
+	 * Returns the count, p50, p99 and max of the fire lag in ms. of the schedule over the scheduler's histogram window
+	 * @param name The name of the scheduled task to get the lag statistics for
+	 * @return the lag statistics. null means WTF
+	 */
+	public Map<String, Long> getLagStats(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.latency.getLag().toMap();
+		return null;
+	}
+	
+	/**
+	 * Returns the count, p50, p99 and max of the run duration in ms. of the schedule over the scheduler's histogram window
+	 * @param name The name of the scheduled task to get the duration statistics for
+	 * @return the duration statistics. null means WTF
+	 */
+	public Map<String, Long> getDurationStats(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) return sc.latency.getDuration().toMap();
+		return null;
+	}
+	
+	/**
+	 * Returns the collection result of the most recent execution of the schedule
+	 * @param name The name of the scheduled task to get the collection result for
+	 * @return the collection result name. null means WTF or that the task has not executed
+	 */
+	public String getLastCollectionResult(String name) {
+		ScheduledClosure<?> sc = scheduleHandles.get(name);
+		if(sc!=null) {
+			CollectionResult cr = sc.lastCollectionResult;
+			return cr==null ? null : cr.name();
+		}
+		return null;
+	}
+	
 	/**
 	 * Returns the schedule cron expression
 	 * @param name The name of the scheduled task to get the cron expression for
@@ -673,6 +1985,24 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 
 	
 	
+	/**
+	 * Returns the identity of the remote target this bean collects from
+	 * @return the target identity or null if one has not been set
+	 */
+	@ManagedAttribute(description="The identity of the remote target this bean collects from")
+	public String getTarget() {
+		return target;
+	}
+
+	/**
+	 * Sets the identity of the remote target this bean collects from, such as a host:port or JMX service URL.
+	 * Executions against the same target are subject to the executor's per target concurrency limit.
+	 * @param target the target identity
+	 */
+	public void setTarget(String target) {
+		this.target = target;
+	}
+	
 	/**
 	 * Returns the compiled deployment script
 	 * @return the groovyObject
@@ -775,6 +2105,15 @@ public class ServiceAspectImpl implements SelfNaming, BeanNameGenerator, Initial
 		return applicationContext;
 	}
 
+	/**
+	 * {@inheritDoc}
+	 * @see org.springframework.jmx.export.notification.NotificationPublisherAware#setNotificationPublisher(org.springframework.jmx.export.notification.NotificationPublisher)
+	 */
+	@Override
+	public void setNotificationPublisher(NotificationPublisher notificationPublisher) {
+		this.notificationPublisher = notificationPublisher;
+	}
+	
 	/**
 	 * Sets application context this bean is deployed in 
 	 * @param applicationContext the applicationContext to set
@@ -28,6 +28,7 @@ import static java.nio.file.StandardWatchEventKinds.ENTRY_CREATE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_DELETE;
 import static java.nio.file.StandardWatchEventKinds.ENTRY_MODIFY;
 
+import java.io.ByteArrayInputStream;
 import java.io.File;
 import java.io.FileFilter;
 import java.net.URL;
@@ -37,6 +38,7 @@ import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.Properties;
 import java.util.TreeMap;
 import java.util.concurrent.atomic.AtomicLong;
 
@@ -47,6 +49,7 @@ import org.cliffc.high_scale_lib.NonBlockingHashMap;
 import org.helios.jmx.concurrency.JMXManagedThreadPool;
 import org.helios.jmx.util.helpers.JMXHelper;
 import org.helios.jmx.util.helpers.SystemClock;
+import org.helios.jmx.util.helpers.URLHelper;
 import org.springframework.context.ApplicationContext;
 import org.springframework.context.EnvironmentAware;
 import org.springframework.core.env.Environment;
@@ -59,6 +62,9 @@ import org.springframework.jmx.export.notification.NotificationPublisher;
 import org.springframework.jmx.export.notification.NotificationPublisherAware;
 
 import com.heliosapm.watchtower.component.ServerComponentBean;
+import com.heliosapm.watchtower.core.CollectionBulkhead;
+import com.heliosapm.watchtower.core.PriorityLaneExecutor;
+import com.heliosapm.watchtower.groovy.annotation.CollectionPriority;
 
 /**
  * <p>Title: DeploymentBranch</p>
@@ -96,6 +102,23 @@ public class DeploymentBranch extends ServerComponentBean implements /* Deployme
 	protected JMXManagedThreadPool collectionThreadPool = null;
 	/** Thread pool for notification broadcast */
 	protected JMXManagedThreadPool notificationThreadPool = null;
+	/** The bounded slice of the collection thread pool for this branch and its sub-branches, or null if the branch is not bulkheaded */
+	protected CollectionBulkhead collectionBulkhead = null;
+	/** Indicates if the collection bulkhead was created by this branch, rather than inherited from a parent branch */
+	protected boolean ownsBulkhead = false;
+	/** The default priority of the scheduled collections deployed in this branch */
+	protected CollectionPriority collectionPriority = CollectionPriority.NORMAL;
+	
+	/** The name of the optional branch configuration file in the deployment directory */
+	public static final String BRANCH_CONFIG_FILE = "branch.properties";
+	/** The branch config key for the maximum concurrent collections of the branch. A value greater than zero creates a collection bulkhead. */
+	public static final String BULKHEAD_MAX_CONCURRENT_KEY = "bulkhead.collection.maxconcurrent";
+	/** The branch config key for the maximum collections waiting for the branch's bulkhead */
+	public static final String BULKHEAD_MAX_QUEUE_KEY = "bulkhead.collection.maxqueue";
+	/** The default maximum collections waiting for a branch's bulkhead, as a multiple of the maximum concurrent collections */
+	public static final int DEFAULT_BULKHEAD_QUEUE_FACTOR = 16;
+	/** The branch config key for the default priority of the branch's scheduled collections */
+	public static final String COLLECTION_PRIORITY_KEY = "collection.priority";
 	
 	
 	
@@ -336,6 +359,114 @@ public class DeploymentBranch extends ServerComponentBean implements /* Deployme
 			parentBranch = null;
 			root = true;
 		}
+		applyBranchConfig(loadBranchConfig());
+	}
+	
+	/**
+	 * Loads the branch's {@link #BRANCH_CONFIG_FILE}
+	 * @return the branch config, empty if the branch has no config file or it could not be read
+	 */
+	protected Properties loadBranchConfig() {
+		Properties config = new Properties();
+		File configFile = new File(deploymentDir, BRANCH_CONFIG_FILE);
+		if(configFile.canRead()) {
+			try {
+				config.load(new ByteArrayInputStream(URLHelper.getBytesFromURL(URLHelper.toURL(configFile))));
+				log.info("Loaded branch config from [{}]", configFile.getAbsolutePath());
+			} catch (Exception ex) {
+				log.warn("Failed to read branch config [{}]", configFile.getAbsolutePath(), ex);
+			}
+		}
+		return config;
+	}
+	
+	/**
+	 * Applies the branch config. Settings missing from the config are inherited from the parent branch, if there is one.
+	 * @param config The branch config
+	 */
+	protected void applyBranchConfig(Properties config) {
+		String priority = config.getProperty(COLLECTION_PRIORITY_KEY);
+		if(priority!=null) {
+			try {
+				collectionPriority = CollectionPriority.forName(priority).resolve(parentBranch!=null ? parentBranch.getCollectionPriority() : null);
+			} catch (Exception ex) {
+				log.warn("Invalid collection priority [{}] in branch config of [{}]", priority, objectName);
+			}
+		} else if(parentBranch!=null) {
+			collectionPriority = parentBranch.getCollectionPriority();
+		}
+		initBulkhead(config);
+	}
+	
+	/**
+	 * Creates this branch's collection bulkhead if one is configured in the branch config, 
+	 * otherwise inherits the parent branch's bulkhead, if it has one.
+	 * @param config The branch config
+	 */
+	protected void initBulkhead(Properties config) {
+		int maxConcurrent = -1;
+		int maxQueue = -1;
+		try {
+			maxConcurrent = Integer.parseInt(config.getProperty(BULKHEAD_MAX_CONCURRENT_KEY, "-1").trim());
+			maxQueue = Integer.parseInt(config.getProperty(BULKHEAD_MAX_QUEUE_KEY, "-1").trim());
+		} catch (Exception ex) {
+			log.warn("Invalid bulkhead config for [{}]", objectName, ex);
+		}
+		if(maxConcurrent > 0) {
+			if(maxQueue < 0) maxQueue = maxConcurrent * DEFAULT_BULKHEAD_QUEUE_FACTOR;
+			collectionBulkhead = new CollectionBulkhead(PriorityLaneExecutor.getCollectionDispatcher(), 
+					JMXHelper.objectName(new StringBuilder(objectName.toString()).append(",bulkhead=collection")), maxConcurrent, maxQueue);
+			ownsBulkhead = true;
+			log.info("Created collection bulkhead for [{}] with max concurrent [{}] and max queue [{}]", new Object[]{objectName, maxConcurrent, maxQueue});
+		} else if(parentBranch!=null) {
+			collectionBulkhead = parentBranch.getCollectionBulkhead();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.component.ServerComponentBean#doStop()
+	 */
+	@Override
+	protected void doStop() {
+		if(ownsBulkhead && collectionBulkhead!=null) {
+			collectionBulkhead.close();
+		}
+		super.doStop();
+	}
+	
+	/**
+	 * Returns the bounded slice of the collection thread pool for this branch
+	 * @return the collection bulkhead or null if the branch is not bulkheaded
+	 */
+	public CollectionBulkhead getCollectionBulkhead() {
+		return collectionBulkhead;
+	}
+	
+	/**
+	 * Returns the default priority of the scheduled collections deployed in this branch
+	 * @return the default collection priority
+	 */
+	public CollectionPriority getCollectionPriority() {
+		return collectionPriority;
+	}
+	
+	/**
+	 * Returns the name of the default priority of the scheduled collections deployed in this branch
+	 * @return the default collection priority name
+	 */
+	@ManagedAttribute(description="The default priority of the branch's scheduled collections")
+	public String getCollectionPriorityName() {
+		return collectionPriority.name();
+	}
+	
+	/**
+	 * Returns the JMX ObjectName of this branch's collection bulkhead
+	 * @return the bulkhead ObjectName or null if the branch is not bulkheaded
+	 */
+	@ManagedAttribute(description="The JMX ObjectName of the branch's collection bulkhead")
+	public ObjectName getCollectionBulkheadObjectName() {
+		return collectionBulkhead==null ? null : collectionBulkhead.getObjectName();
 	}
 	
 //	protected void doStart() {
@@ -45,7 +45,6 @@ import java.util.concurrent.DelayQueue;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import org.cliffc.high_scale_lib.NonBlockingHashMap;
-import org.helios.jmx.concurrency.JMXManagedThreadPool;
 import org.helios.jmx.util.helpers.ConfigurationHelper;
 import org.helios.jmx.util.helpers.JMXHelper;
 import org.helios.jmx.util.helpers.StringHelper;
@@ -57,6 +56,7 @@ import ch.qos.logback.classic.Logger;
 
 import com.heliosapm.watchtower.component.ServerComponentBean;
 import com.heliosapm.watchtower.core.EventExecutorMBean;
+import com.heliosapm.watchtower.core.ModalThreadPool;
 
 /**
  * <p>Title: DeploymentWatchService</p>
@@ -99,7 +99,7 @@ public class DeploymentWatchService extends ServerComponentBean implements Runna
 	private Thread delayQueueProcessor = null;
 	
 	/** Thread pool which executes all the actual deployments */
-	private final JMXManagedThreadPool deploymentThreadPool;
+	private final ModalThreadPool deploymentThreadPool;
 	
 	/** Flag indicating if the pollers should keep running */
 	protected final AtomicBoolean keepRunning  = new AtomicBoolean(true);
@@ -132,7 +132,7 @@ public class DeploymentWatchService extends ServerComponentBean implements Runna
 		delayQueueProcessor = new Thread(threadGroup, this, "DelayQueueProcessor");
 		delayQueueProcessor.setDaemon(true);		
 		log.info("Added {} root deployment directories", deploymentRoots.size());	
-		deploymentThreadPool = new JMXManagedThreadPool(JMXHelper.objectName(String.format(EventExecutorMBean.OBJECT_NAME_TEMPLATE, "DeploymentService")), "DeploymentService", true);
+		deploymentThreadPool = new ModalThreadPool(JMXHelper.objectName(String.format(EventExecutorMBean.OBJECT_NAME_TEMPLATE, "DeploymentService")), "DeploymentService", true);
 	}
 	
 	/**
@@ -0,0 +1,87 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.groovy.annotation;
+
+/**
+ * <p>Title: CollectionPriority</p>
+ * <p>Description: Enumerates the priority classes of scheduled collections. When priority lanes are enabled, 
+ * each class is served from its own lane in proportion to the lane's weight.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.groovy.annotation.CollectionPriority</code></p>
+ */
+
+public enum CollectionPriority {
+	/** Health critical collections */
+	HIGH(8),
+	/** Regular collections */
+	NORMAL(3),
+	/** Bulk collections such as inventory scrapes */
+	LOW(1),
+	/** Unset: defers to the priority configured for the deployment branch, or {@link #NORMAL} if there is none. Not served from a lane of its own. */
+	DEFAULT(0);
+	
+	/** The priorities served from a priority lane, in ordinal order */
+	private static final CollectionPriority[] LANES = {HIGH, NORMAL, LOW};
+	
+	private CollectionPriority(int defaultWeight) {
+		this.defaultWeight = defaultWeight;
+	}
+	
+	/** The default share weight of the priority's lane */
+	public final int defaultWeight;
+	
+	/**
+	 * Returns the priorities served from a priority lane. Excludes {@link #DEFAULT}, which is resolved before dispatch.
+	 * @return the lane priorities, indexed by ordinal
+	 */
+	public static CollectionPriority[] lanes() {
+		return LANES.clone();
+	}
+	
+	/**
+	 * Resolves this priority, replacing {@link #DEFAULT} with the passed priority
+	 * @param defaultPriority The priority to resolve {@link #DEFAULT} to, or null for {@link #NORMAL}
+	 * @return the resolved priority
+	 */
+	public CollectionPriority resolve(CollectionPriority defaultPriority) {
+		if(this!=DEFAULT) return this;
+		return (defaultPriority==null || defaultPriority==DEFAULT) ? NORMAL : defaultPriority;
+	}
+	
+	/**
+	 * Decodes the passed name to a CollectionPriority, ignoring case
+	 * @param name The priority name
+	 * @return the decoded priority
+	 */
+	public static CollectionPriority forName(CharSequence name) {
+		if(name==null) throw new IllegalArgumentException("The passed name was null");
+		try {
+			return valueOf(name.toString().trim().toUpperCase());
+		} catch (Exception ex) {
+			throw new IllegalArgumentException("The passed name [" + name + "] is not a valid CollectionPriority");
+		}
+	}
+}
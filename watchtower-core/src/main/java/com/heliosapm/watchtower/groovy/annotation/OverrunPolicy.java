@@ -0,0 +1,43 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.groovy.annotation;
+
+/**
+ * <p>Title: OverrunPolicy</p>
+ * <p>Description: Enumerates the policies applied when a scheduled closure falls due while a prior execution
+ * is still running, or after a prior execution ran past the due time.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.groovy.annotation.OverrunPolicy</code></p>
+ */
+
+public enum OverrunPolicy {
+	/** Fires that fall due during an overrunning execution are skipped and the schedule resumes on the next period boundary */
+	SKIP_NEXT,
+	/** Fires that fall due during an overrunning execution are collapsed into a single execution as soon as it completes */
+	COALESCE,
+	/** Fires that fall due during an overrunning execution run concurrently, up to {@link Scheduled#maxConcurrent()} executions */
+	CONCURRENT;
+}
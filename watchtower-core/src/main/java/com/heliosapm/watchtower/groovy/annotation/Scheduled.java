@@ -70,4 +70,49 @@ public @interface Scheduled {
 	 * Indicates if the scheduled task can be interrupted if it is running when canceled
 	 */
 	boolean interruptible() default true; 
+	
+	/**
+	 * The maximum time in the {@link #unit()} an execution can run for before the watchdog interrupts it, 
+	 * or abandons it if the schedule is not {@link #interruptible()}. Defaults to no deadline.
+	 */
+	long deadline() default -1;
+	
+	/**
+	 * The priority class of the scheduled collection. Left unset ({@link CollectionPriority#DEFAULT}), the priority 
+	 * defers to the default priority configured for the deployment branch.
+	 */
+	CollectionPriority priority() default CollectionPriority.DEFAULT;
+	
+	/**
+	 * The policy applied on restart to fires missed while Watchtower was down, when schedule state persistence is enabled
+	 */
+	CatchUpPolicy catchUp() default CatchUpPolicy.SKIP;
+	
+	/**
+	 * The policy applied when an execution overruns the scheduling period
+	 */
+	OverrunPolicy overrun() default OverrunPolicy.SKIP_NEXT;
+	
+	/**
+	 * The maximum number of concurrent executions when the {@link #overrun()} policy is {@link OverrunPolicy#CONCURRENT}
+	 */
+	int maxConcurrent() default 1;
+	
+	/**
+	 * Indicates if the period should be stretched while collections are slow or failing, 
+	 * and tightened back toward the {@link #period()} as they recover
+	 */
+	boolean adaptive() default false;
+	
+	/**
+	 * The longest period an {@link #adaptive()} schedule can stretch to. Defaults to 10 times the {@link #period()}.
+	 */
+	long maxPeriod() default -1;
+	
+	/**
+	 * Indicates if the schedule fires on exact multiples of the {@link #period()} from the epoch, without drift. 
+	 * Aligned schedules sharing a period fire from a single timer and their executions are flushed as one batch per interval.
+	 * The {@link #initialDelay()} does not apply.
+	 */
+	boolean aligned() default false;
 }
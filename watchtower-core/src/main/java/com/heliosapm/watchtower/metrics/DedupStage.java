@@ -0,0 +1,64 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import java.util.Arrays;
+
+/**
+ * <p>Title: DedupStage</p>
+ * <p>Description: Drops points that repeat or precede the timestamp of the last point of the same metric, 
+ * which time series stores reject or overwrite.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.DedupStage</code></p>
+ */
+
+public class DedupStage extends MetricStage {
+	/** The timestamp of the last point indexed by metric id */
+	protected long[] lastTimestamps = new long[1024];
+	
+	/**
+	 * Creates a new DedupStage
+	 */
+	public DedupStage() {
+		super("Dedup");
+		Arrays.fill(lastTimestamps, Long.MIN_VALUE);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricStage#process(com.heliosapm.watchtower.metrics.MetricEvent)
+	 */
+	@Override
+	protected void process(MetricEvent event) {
+		final int id = event.id;
+		lastTimestamps = ensure(lastTimestamps, id, Long.MIN_VALUE);
+		if(event.timestamp <= lastTimestamps[id]) {
+			event.dropped = true;
+		} else {
+			lastTimestamps[id] = event.timestamp;
+		}
+	}
+}
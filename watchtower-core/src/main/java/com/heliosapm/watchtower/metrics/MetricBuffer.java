@@ -0,0 +1,173 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+/**
+ * <p>Title: MetricBuffer</p>
+ * <p>Description: A reusable buffer of metric points held in primitive arrays. Double values are stored as their raw long bits.
+ * A buffer belongs to one thread and is not thread safe.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricBuffer</code></p>
+ */
+
+public class MetricBuffer {
+	/** The metric ids of the points */
+	protected final int[] ids;
+	/** The values of the points, the raw long bits for double values */
+	protected final long[] values;
+	/** The timestamps in ms. of the points */
+	protected final long[] timestamps;
+	/** The {@link MetricEvent} flags of the points */
+	protected final int[] flags;
+	/** The number of points in the buffer */
+	protected int size = 0;
+	
+	/**
+	 * Creates a new MetricBuffer
+	 * @param capacity The number of points the buffer holds
+	 */
+	public MetricBuffer(int capacity) {
+		if(capacity < 1) throw new IllegalArgumentException("Invalid capacity [" + capacity + "]");
+		ids = new int[capacity];
+		values = new long[capacity];
+		timestamps = new long[capacity];
+		flags = new int[capacity];
+	}
+	
+	/**
+	 * Adds a point to the buffer
+	 * @param id The metric id
+	 * @param value The value, or the raw long bits of a double value
+	 * @param timestamp The timestamp in ms.
+	 * @param isDouble true if the value is the raw long bits of a double
+	 * @return true if the buffer is now full
+	 */
+	public boolean add(int id, long value, long timestamp, boolean isDouble) {
+		return add(id, value, timestamp, isDouble ? MetricEvent.FLAG_DOUBLE : 0);
+	}
+	
+	/**
+	 * Adds a point to the buffer
+	 * @param id The metric id
+	 * @param value The value, or the raw long bits of a double value
+	 * @param timestamp The timestamp in ms.
+	 * @param flags The point's {@link MetricEvent} flags
+	 * @return true if the buffer is now full
+	 */
+	public boolean add(int id, long value, long timestamp, int flags) {
+		ids[size] = id;
+		values[size] = value;
+		timestamps[size] = timestamp;
+		this.flags[size] = flags;
+		return ++size == ids.length;
+	}
+	
+	/**
+	 * Discards the points in the buffer
+	 */
+	public void clear() {
+		size = 0;
+	}
+	
+	/**
+	 * Returns the number of points in the buffer
+	 * @return the number of points
+	 */
+	public int size() {
+		return size;
+	}
+	
+	/**
+	 * Returns the number of points the buffer holds
+	 * @return the buffer capacity
+	 */
+	public int capacity() {
+		return ids.length;
+	}
+	
+	/**
+	 * Returns the metric id of a point
+	 * @param index The point index
+	 * @return the metric id
+	 */
+	public int getId(int index) {
+		return ids[index];
+	}
+	
+	/**
+	 * Returns the timestamp of a point
+	 * @param index The point index
+	 * @return the timestamp in ms.
+	 */
+	public long getTimestamp(int index) {
+		return timestamps[index];
+	}
+	
+	/**
+	 * Indicates if a point has a double value
+	 * @param index The point index
+	 * @return true if the value is a double
+	 */
+	public boolean isDouble(int index) {
+		return (flags[index] & MetricEvent.FLAG_DOUBLE) != 0;
+	}
+	
+	/**
+	 * Returns the {@link MetricEvent} flags of a point
+	 * @param index The point index
+	 * @return the flags
+	 */
+	public int getFlags(int index) {
+		return flags[index];
+	}
+	
+	/**
+	 * Returns the raw value of a point, the raw long bits for a double value
+	 * @param index The point index
+	 * @return the raw value
+	 */
+	public long getRawValue(int index) {
+		return values[index];
+	}
+	
+	/**
+	 * Returns the value of a point as a long
+	 * @param index The point index
+	 * @return the value, truncated if it is a double
+	 */
+	public long getLongValue(int index) {
+		return isDouble(index) ? (long)Double.longBitsToDouble(values[index]) : values[index];
+	}
+	
+	/**
+	 * Returns the value of a point as a double
+	 * @param index The point index
+	 * @return the value
+	 */
+	public double getDoubleValue(int index) {
+		return isDouble(index) ? Double.longBitsToDouble(values[index]) : values[index];
+	}
+}
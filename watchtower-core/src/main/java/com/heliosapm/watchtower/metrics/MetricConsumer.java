@@ -0,0 +1,42 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+/**
+ * <p>Title: MetricConsumer</p>
+ * <p>Description: Defines a consumer of the metric points flushed by {@link MetricEmitter}s</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricConsumer</code></p>
+ */
+
+public interface MetricConsumer {
+	/**
+	 * Consumes the points in a flushed buffer. Called on the emitting thread. The buffer is cleared and reused 
+	 * when the call returns, so the consumer must copy out any points it keeps.
+	 * @param buffer The buffer of flushed points
+	 */
+	public void consume(MetricBuffer buffer);
+}
@@ -0,0 +1,280 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * <p>Title: MetricEmitter</p>
+ * <p>Description: The metric emission API bound into collector scripts as <b><code>metrics</code></b>. Scripts acquire a 
+ * {@link MetricHandle} once per metric and emit primitive values against it:</p>
+ * <pre>
+ * def depth = metrics.handle("mq.queue.depth", [queue: q])
+ * metrics.emit(depth, currentDepth)
+ * </pre>
+ * <p>Monotonic counters are emitted with {@link #rate(MetricHandle, long)} or {@link #delta(MetricHandle, long)} instead, and reach 
+ * the sinks as per second rates or increases computed once by the pipeline's {@link RateStage}. Counters that wrap at 32 bits, 
+ * such as SNMP Counter32 values, are emitted with {@link #rate32(MetricHandle, long)} or {@link #delta32(MetricHandle, long)}.</p>
+ * <p>Resolving a handle that already exists allocates nothing either, so scripts may also look handles up on each collection. 
+ * A name built from a prefix should be passed as the prefix and suffix, e.g. <b><code>metrics.handle(cachePrefix, "ChannelNames", [:])</code></b>, 
+ * rather than concatenated.</p>
+ * <p>Points are written into a reusable {@link MetricBuffer} owned by the emitting thread, which is flushed to the 
+ * {@link MetricRegistry}'s consumer when it fills and at the end of each collection, so the steady state emit path allocates nothing.
+ * Note that Groovy boxes primitives passed to a dynamically dispatched call; statically compiled callers do not.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricEmitter</code></p>
+ */
+
+public class MetricEmitter {
+	/** The emitting threads' buffers, shared by all emitters */
+	private static final ThreadLocal<MetricBuffer> buffers = new ThreadLocal<MetricBuffer>() {
+		@Override
+		protected MetricBuffer initialValue() {
+			return new MetricBuffer(MetricRegistry.getMetricRegistry().getBufferSize());
+		}
+	};
+	
+	/** The metric registry */
+	protected final MetricRegistry registry = MetricRegistry.getMetricRegistry();
+	/** The metric key dictionary */
+	protected final MetricKeyDictionary dictionary = MetricKeyDictionary.getMetricKeyDictionary();
+	/** The name of the emitter's owner */
+	protected final String owner;
+	/** The number of points emitted */
+	protected final AtomicLong emitted = new AtomicLong(0L);
+	
+	/**
+	 * Creates a new MetricEmitter
+	 * @param owner The name of the emitter's owner
+	 */
+	public MetricEmitter(String owner) {
+		this.owner = owner;
+	}
+	
+	/**
+	 * Returns the handle for the passed metric name and tags
+	 * @param name The metric name
+	 * @param tags The metric tags. Values are converted to strings. May be null.
+	 * @return the metric handle
+	 */
+	public MetricHandle handle(String name, Map<String, ?> tags) {
+		return dictionary.handle(null, name, tags);
+	}
+	
+	/**
+	 * Returns the handle for the metric named by the passed prefix and suffix, without concatenating them
+	 * @param prefix The metric name prefix
+	 * @param name The metric name suffix
+	 * @param tags The metric tags. Values are converted to strings. May be null.
+	 * @return the metric handle
+	 */
+	public MetricHandle handle(CharSequence prefix, CharSequence name, Map<String, ?> tags) {
+		return dictionary.handle(prefix, name, tags);
+	}
+	
+	/**
+	 * Returns the handle for the passed metric name and tags
+	 * @param name The metric name
+	 * @param tagPairs The metric tags as alternating keys and values
+	 * @return the metric handle
+	 */
+	public MetricHandle handle(String name, String... tagPairs) {
+		return dictionary.handle(null, name, tagPairs);
+	}
+	
+	/**
+	 * Emits a long value timestamped now
+	 * @param handle The metric handle
+	 * @param value The value
+	 */
+	public void emit(MetricHandle handle, long value) {
+		emit(handle, value, System.currentTimeMillis());
+	}
+	
+	/**
+	 * Emits a long value
+	 * @param handle The metric handle
+	 * @param value The value
+	 * @param timestamp The timestamp in ms.
+	 */
+	public void emit(MetricHandle handle, long value, long timestamp) {
+		final MetricBuffer buffer = buffers.get();
+		emitted.incrementAndGet();
+		if(buffer.add(handle.id, value, timestamp, false)) drain(buffer);
+	}
+	
+	/**
+	 * Emits a double value timestamped now
+	 * @param handle The metric handle
+	 * @param value The value
+	 */
+	public void emit(MetricHandle handle, double value) {
+		emit(handle, value, System.currentTimeMillis());
+	}
+	
+	/**
+	 * Emits a double value
+	 * @param handle The metric handle
+	 * @param value The value
+	 * @param timestamp The timestamp in ms.
+	 */
+	public void emit(MetricHandle handle, double value, long timestamp) {
+		final MetricBuffer buffer = buffers.get();
+		emitted.incrementAndGet();
+		if(buffer.add(handle.id, Double.doubleToRawLongBits(value), timestamp, true)) drain(buffer);
+	}
+	
+	/**
+	 * Emits the current value of a monotonic counter timestamped now, which the pipeline converts to a per second rate
+	 * @param handle The metric handle
+	 * @param value The counter value
+	 */
+	public void rate(MetricHandle handle, long value) {
+		emit(handle, value, System.currentTimeMillis(), MetricEvent.FLAG_RATE);
+	}
+	
+	/**
+	 * Emits the current value of a monotonic counter, which the pipeline converts to a per second rate
+	 * @param handle The metric handle
+	 * @param value The counter value
+	 * @param timestamp The timestamp in ms.
+	 */
+	public void rate(MetricHandle handle, long value, long timestamp) {
+		emit(handle, value, timestamp, MetricEvent.FLAG_RATE);
+	}
+	
+	/**
+	 * Emits the current value of a monotonic counter timestamped now, which the pipeline converts to the increase since its last value
+	 * @param handle The metric handle
+	 * @param value The counter value
+	 */
+	public void delta(MetricHandle handle, long value) {
+		emit(handle, value, System.currentTimeMillis(), MetricEvent.FLAG_DELTA);
+	}
+	
+	/**
+	 * Emits the current value of a monotonic counter, which the pipeline converts to the increase since its last value
+	 * @param handle The metric handle
+	 * @param value The counter value
+	 * @param timestamp The timestamp in ms.
+	 */
+	public void delta(MetricHandle handle, long value, long timestamp) {
+		emit(handle, value, timestamp, MetricEvent.FLAG_DELTA);
+	}
+	
+	/**
+	 * Emits the current value of a 32 bit monotonic counter timestamped now, which the pipeline converts to a per second rate, 
+	 * treating a decrease as a wrap at 2<sup>32</sup>
+	 * @param handle The metric handle
+	 * @param value The counter value, signed or unsigned
+	 */
+	public void rate32(MetricHandle handle, long value) {
+		emit(handle, value, System.currentTimeMillis(), MetricEvent.FLAG_RATE | MetricEvent.FLAG_COUNTER32);
+	}
+	
+	/**
+	 * Emits the current value of a 32 bit monotonic counter, which the pipeline converts to a per second rate, 
+	 * treating a decrease as a wrap at 2<sup>32</sup>
+	 * @param handle The metric handle
+	 * @param value The counter value, signed or unsigned
+	 * @param timestamp The timestamp in ms.
+	 */
+	public void rate32(MetricHandle handle, long value, long timestamp) {
+		emit(handle, value, timestamp, MetricEvent.FLAG_RATE | MetricEvent.FLAG_COUNTER32);
+	}
+	
+	/**
+	 * Emits the current value of a 32 bit monotonic counter timestamped now, which the pipeline converts to the increase since 
+	 * its last value, treating a decrease as a wrap at 2<sup>32</sup>
+	 * @param handle The metric handle
+	 * @param value The counter value, signed or unsigned
+	 */
+	public void delta32(MetricHandle handle, long value) {
+		emit(handle, value, System.currentTimeMillis(), MetricEvent.FLAG_DELTA | MetricEvent.FLAG_COUNTER32);
+	}
+	
+	/**
+	 * Emits the current value of a 32 bit monotonic counter, which the pipeline converts to the increase since its last value, 
+	 * treating a decrease as a wrap at 2<sup>32</sup>
+	 * @param handle The metric handle
+	 * @param value The counter value, signed or unsigned
+	 * @param timestamp The timestamp in ms.
+	 */
+	public void delta32(MetricHandle handle, long value, long timestamp) {
+		emit(handle, value, timestamp, MetricEvent.FLAG_DELTA | MetricEvent.FLAG_COUNTER32);
+	}
+	
+	/**
+	 * Emits a point with the passed flags
+	 * @param handle The metric handle
+	 * @param value The value, or the raw long bits of a double value
+	 * @param timestamp The timestamp in ms.
+	 * @param flags The point's {@link MetricEvent} flags
+	 */
+	protected void emit(MetricHandle handle, long value, long timestamp, int flags) {
+		final MetricBuffer buffer = buffers.get();
+		emitted.incrementAndGet();
+		if(buffer.add(handle.id, value, timestamp, flags)) drain(buffer);
+	}
+	
+	/**
+	 * Flushes the points buffered by the current thread
+	 */
+	public void flush() {
+		final MetricBuffer buffer = buffers.get();
+		if(buffer.size() > 0) drain(buffer);
+	}
+	
+	/**
+	 * Passes a buffer to the registry and clears it
+	 * @param buffer The buffer to drain
+	 */
+	protected void drain(MetricBuffer buffer) {
+		try {
+			registry.consume(buffer);
+		} finally {
+			buffer.clear();
+		}
+	}
+	
+	/**
+	 * Returns the number of points emitted
+	 * @return the emitted point count
+	 */
+	public long getEmittedCount() {
+		return emitted.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return "MetricEmitter [" + owner + "]";
+	}
+}
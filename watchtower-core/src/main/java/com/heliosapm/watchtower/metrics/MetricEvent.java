@@ -0,0 +1,142 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import com.lmax.disruptor.EventFactory;
+
+/**
+ * <p>Title: MetricEvent</p>
+ * <p>Description: A pre-allocated metric point slot in the {@link MetricPipeline}'s ring buffer. Slots are reused on every lap
+ * of the ring, so stages must not keep references to them.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricEvent</code></p>
+ */
+
+public class MetricEvent {
+	/** The flag indicating the value is the raw long bits of a double */
+	public static final int FLAG_DOUBLE = 1;
+	/** The flag indicating the point is a rollup produced by the pipeline */
+	public static final int FLAG_ROLLUP = 2;
+	/** The flag indicating the value is a monotonic counter to be converted to a per second rate by the {@link RateStage} */
+	public static final int FLAG_RATE = 4;
+	/** The flag indicating the value is a monotonic counter to be converted to the increase since its last point by the {@link RateStage} */
+	public static final int FLAG_DELTA = 8;
+	/** The flag declaring a {@link #FLAG_RATE} or {@link #FLAG_DELTA} counter 32 bits wide, so the {@link RateStage} treats a decrease as a wrap at 2<sup>32</sup> */
+	public static final int FLAG_COUNTER32 = 16;
+	/** The flag marking a control event carrying no point, on which the stages and sinks flush what they have pending */
+	public static final int FLAG_FLUSH = 32;
+	
+	/** The ring buffer slot factory */
+	public static final EventFactory<MetricEvent> FACTORY = new EventFactory<MetricEvent>() {
+		@Override
+		public MetricEvent newInstance() {
+			return new MetricEvent();
+		}
+	};
+	
+	/** The metric id */
+	int id;
+	/** The value, or the raw long bits of a double value */
+	long value;
+	/** The timestamp in ms. */
+	long timestamp;
+	/** The point's flags */
+	int flags;
+	/** Set by a stage to stop the point reaching later stages and the sinks */
+	boolean dropped;
+	
+	/**
+	 * Loads the slot with a new point
+	 * @param id The metric id
+	 * @param value The value, or the raw long bits of a double value
+	 * @param timestamp The timestamp in ms.
+	 * @param flags The point's flags
+	 */
+	void set(int id, long value, long timestamp, int flags) {
+		this.id = id;
+		this.value = value;
+		this.timestamp = timestamp;
+		this.flags = flags;
+		this.dropped = false;
+	}
+	
+	/**
+	 * Returns the metric id
+	 * @return the metric id
+	 */
+	public int getId() {
+		return id;
+	}
+	
+	/**
+	 * Returns the timestamp
+	 * @return the timestamp in ms.
+	 */
+	public long getTimestamp() {
+		return timestamp;
+	}
+	
+	/**
+	 * Indicates if the value is a double
+	 * @return true if the value is a double
+	 */
+	public boolean isDouble() {
+		return (flags & FLAG_DOUBLE) != 0;
+	}
+	
+	/**
+	 * Indicates if the passed flag is set
+	 * @param flag The flag to test
+	 * @return true if the flag is set
+	 */
+	public boolean isFlagged(int flag) {
+		return (flags & flag) != 0;
+	}
+	
+	/**
+	 * Returns the value as a long
+	 * @return the value, truncated if it is a double
+	 */
+	public long getLongValue() {
+		return isDouble() ? (long)Double.longBitsToDouble(value) : value;
+	}
+	
+	/**
+	 * Returns the value as a double
+	 * @return the value
+	 */
+	public double getDoubleValue() {
+		return isDouble() ? Double.longBitsToDouble(value) : value;
+	}
+	
+	/**
+	 * Indicates if a stage dropped the point
+	 * @return true if the point was dropped
+	 */
+	public boolean isDropped() {
+		return dropped;
+	}
+}
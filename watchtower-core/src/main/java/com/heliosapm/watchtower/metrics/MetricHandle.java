@@ -0,0 +1,120 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.SortedMap;
+
+/**
+ * <p>Title: MetricHandle</p>
+ * <p>Description: A registered metric: a name and its sorted tags, interned to an int id by the {@link MetricKeyDictionary}.
+ * Collectors acquire handles once and emit values against them, so the emit path never rebuilds metric names.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricHandle</code></p>
+ */
+
+public class MetricHandle {
+	/** The metric id */
+	protected final int id;
+	/** The metric name */
+	protected final String name;
+	/** The metric tags, sorted by key */
+	protected final SortedMap<String, String> tags;
+	/** The metric key, the name and sorted tags */
+	protected final String key;
+	
+	/**
+	 * Creates a new MetricHandle
+	 * @param id The metric id
+	 * @param name The metric name
+	 * @param tags The metric tags, sorted by key
+	 * @param key The metric key
+	 */
+	MetricHandle(int id, String name, SortedMap<String, String> tags, String key) {
+		this.id = id;
+		this.name = name;
+		this.tags = Collections.unmodifiableSortedMap(tags);
+		this.key = key;
+	}
+	
+	/**
+	 * Builds the key of a metric, <b><code>name:k1=v1,k2=v2</code></b> with the tags in key order
+	 * @param name The metric name
+	 * @param tags The metric tags, sorted by key
+	 * @return the metric key
+	 */
+	static String key(String name, SortedMap<String, String> tags) {
+		final StringBuilder b = new StringBuilder(name);
+		char sep = ':';
+		for(Map.Entry<String, String> tag: tags.entrySet()) {
+			b.append(sep).append(tag.getKey()).append('=').append(tag.getValue());
+			sep = ',';
+		}
+		return b.toString();
+	}
+
+	/**
+	 * Returns the metric id
+	 * @return the metric id
+	 */
+	public int getId() {
+		return id;
+	}
+
+	/**
+	 * Returns the metric name
+	 * @return the metric name
+	 */
+	public String getName() {
+		return name;
+	}
+
+	/**
+	 * Returns the metric tags, sorted by key
+	 * @return the metric tags
+	 */
+	public SortedMap<String, String> getTags() {
+		return tags;
+	}
+	
+	/**
+	 * Returns the metric key, the name and sorted tags
+	 * @return the metric key
+	 */
+	public String getKey() {
+		return key;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return key + "#" + id;
+	}
+}
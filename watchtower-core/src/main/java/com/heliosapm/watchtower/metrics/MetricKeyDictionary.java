@@ -0,0 +1,538 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import gnu.trove.map.hash.TLongIntHashMap;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.SortedMap;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: MetricKeyDictionary</p>
+ * <p>Description: The process wide dictionary interning each metric name and sorted tag set to a stable int id.
+ * A lookup hashes the name and tags in place to 64 bits, finds the id in a Trove primitive map and verifies the interned 
+ * {@link MetricHandle} against the passed name and tags character by character, so resolving a known metric builds no strings, 
+ * sorted maps or keys. The name may be passed as a prefix and a suffix, which saves collectors concatenating the two on every collection.
+ * Names, tag keys and tag values are trimmed. Tags hash independently of their order. The rare keys whose hash collides with 
+ * an interned key's are interned through their full string key instead.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricKeyDictionary</code></p>
+ */
+
+public class MetricKeyDictionary implements MetricKeyDictionaryMBean {
+	/** The metric key dictionary singleton instance */
+	private static volatile MetricKeyDictionary instance = null;
+	/** The metric key dictionary singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The id returned by the hash map for a hash that is not interned */
+	protected static final int NO_ID = -1;
+	/** The FNV-1a 64 bit offset basis */
+	private static final long FNV_BASIS = 0xcbf29ce484222325L;
+	/** The FNV-1a 64 bit prime */
+	private static final long FNV_PRIME = 0x100000001b3L;
+	/** An empty tag pair array */
+	private static final String[] NO_TAGS = {};
+	
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The interned ids keyed by key hash, guarded by rwLock */
+	protected final TLongIntHashMap ids = new TLongIntHashMap(1024, 0.5f, 0L, NO_ID);
+	/** The interned keys whose hash collided, keyed by full key */
+	protected final Map<String, MetricHandle> collisions = new ConcurrentHashMap<String, MetricHandle>();
+	/** The interned handles indexed by id */
+	protected volatile MetricHandle[] handles = new MetricHandle[1024];
+	/** The number of interned handles, the next id */
+	protected volatile int size = 0;
+	/** The hash map lock */
+	protected final ReentrantReadWriteLock rwLock = new ReentrantReadWriteLock();
+	/** The number of lookups that took the registration path */
+	protected final AtomicLong slowLookups = new AtomicLong(0L);
+	
+	/**
+	 * Acquires and returns the MetricKeyDictionary singleton instance
+	 * @return the MetricKeyDictionary singleton instance
+	 */
+	public static MetricKeyDictionary getMetricKeyDictionary() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new MetricKeyDictionary();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new MetricKeyDictionary
+	 */
+	private MetricKeyDictionary() {
+		try {
+			JMXHelper.registerMBean(this, JMXHelper.objectName(OBJECT_NAME));
+		} catch (Exception ex) {
+			log.warn("Failed to register MetricKeyDictionary Management Interface", ex);
+		}
+	}
+	
+	/**
+	 * Returns the handle for the passed metric name and tags, interning it if it is new
+	 * @param prefix The metric name prefix. May be null.
+	 * @param name The metric name, or its suffix if a prefix is passed
+	 * @param tags The metric tags. Values are converted to strings. May be null.
+	 * @return the metric handle
+	 */
+	public MetricHandle handle(CharSequence prefix, CharSequence name, Map<String, ?> tags) {
+		final long hash = mix(hashName(prefix, name) + 31 * hashTags(name, tags));
+		final MetricHandle handle = find(hash);
+		if(handle!=null && nameMatches(handle.name, prefix, name) && tagsMatch(handle.tags, tags)) return handle;
+		final SortedMap<String, String> sorted = new TreeMap<String, String>();
+		if(tags!=null) {
+			for(Map.Entry<String, ?> tag: tags.entrySet()) {
+				sorted.put(tag.getKey().trim(), tag.getValue().toString().trim());
+			}
+		}
+		return intern(hash, handle!=null, prefix, name, sorted);
+	}
+	
+	/**
+	 * Returns the handle for the passed metric name and tags, interning it if it is new
+	 * @param prefix The metric name prefix. May be null.
+	 * @param name The metric name, or its suffix if a prefix is passed
+	 * @param tagPairs The metric tags as alternating keys and values. May be null.
+	 * @return the metric handle
+	 */
+	public MetricHandle handle(CharSequence prefix, CharSequence name, String... tagPairs) {
+		if(tagPairs==null) tagPairs = NO_TAGS;
+		if(tagPairs.length % 2 != 0) throw new IllegalArgumentException("Odd number of tag keys and values for metric [" + name + "]");
+		final long hash = mix(hashName(prefix, name) + 31 * hashTags(name, tagPairs));
+		final MetricHandle handle = find(hash);
+		if(handle!=null && nameMatches(handle.name, prefix, name) && tagsMatch(handle.tags, tagPairs)) return handle;
+		final SortedMap<String, String> sorted = new TreeMap<String, String>();
+		for(int i = 0; i < tagPairs.length; i += 2) {
+			sorted.put(tagPairs[i].trim(), tagPairs[i+1].trim());
+		}
+		return intern(hash, handle!=null, prefix, name, sorted);
+	}
+	
+	/**
+	 * Returns the id for the passed metric name and tags, interning it if it is new
+	 * @param prefix The metric name prefix. May be null.
+	 * @param name The metric name, or its suffix if a prefix is passed
+	 * @param tags The metric tags. Values are converted to strings. May be null.
+	 * @return the metric id
+	 */
+	public int id(CharSequence prefix, CharSequence name, Map<String, ?> tags) {
+		return handle(prefix, name, tags).id;
+	}
+	
+	/**
+	 * Returns the handle with the passed id
+	 * @param id The metric id
+	 * @return the metric handle or null if the id is not interned
+	 */
+	public MetricHandle getHandle(int id) {
+		final MetricHandle[] byId = handles;
+		return id >= 0 && id < byId.length ? byId[id] : null;
+	}
+	
+	/**
+	 * Returns the handle interned for the passed hash
+	 * @param hash The key hash
+	 * @return the handle or null if the hash is not interned
+	 */
+	protected MetricHandle find(long hash) {
+		final int id;
+		rwLock.readLock().lock();
+		try {
+			id = ids.get(hash);
+		} finally {
+			rwLock.readLock().unlock();
+		}
+		return id==NO_ID ? null : handles[id];
+	}
+	
+	/**
+	 * Interns a metric that did not match the handle found for its hash
+	 * @param hash The key hash
+	 * @param collided true if another key is interned for the hash
+	 * @param prefix The metric name prefix. May be null.
+	 * @param name The metric name, or its suffix if a prefix is passed
+	 * @param tags The trimmed metric tags
+	 * @return the metric handle
+	 */
+	protected MetricHandle intern(long hash, boolean collided, CharSequence prefix, CharSequence name, SortedMap<String, String> tags) {
+		slowLookups.incrementAndGet();
+		final String fullName = ((prefix==null ? "" : prefix.toString()) + name).trim();
+		if(fullName.isEmpty()) throw new IllegalArgumentException("The passed metric name was null or empty");
+		final String key = MetricHandle.key(fullName, tags);
+		MetricHandle handle = collided ? collisions.get(key) : null;
+		if(handle!=null) return handle;
+		rwLock.writeLock().lock();
+		try {
+			final int existing = ids.get(hash);
+			if(existing!=NO_ID) {
+				if(handles[existing].key.equals(key)) return handles[existing];
+				handle = collisions.get(key);
+				if(handle!=null) return handle;
+				collided = true;
+			}
+			final int id = size;
+			handle = new MetricHandle(id, fullName, tags, key);
+			MetricHandle[] byId = handles;
+			if(id==byId.length) byId = Arrays.copyOf(byId, byId.length * 2);
+			byId[id] = handle;
+			handles = byId;
+			size = id + 1;
+			if(collided) {
+				collisions.put(key, handle);
+				log.info("Metric key [{}] collided with [{}] on hash [{}]", new Object[]{key, handles[existing].key, hash});
+			} else {
+				ids.put(hash, id);
+			}
+			return handle;
+		} finally {
+			rwLock.writeLock().unlock();
+		}
+	}
+	
+	/**
+	 * Hashes a metric name, trimmed, without concatenating the prefix
+	 * @param prefix The metric name prefix. May be null.
+	 * @param name The metric name, or its suffix if a prefix is passed
+	 * @return the name hash
+	 */
+	protected static long hashName(CharSequence prefix, CharSequence name) {
+		if(name==null) throw new IllegalArgumentException("The passed metric name was null or empty");
+		final int plen = prefix==null ? 0 : prefix.length();
+		final int len = plen + name.length();
+		int start = 0, end = len;
+		while(start < end && charAt(prefix, plen, name, start) <= ' ') start++;
+		while(end > start && charAt(prefix, plen, name, end - 1) <= ' ') end--;
+		long h = FNV_BASIS;
+		for(int i = start; i < end; i++) {
+			h = (h ^ charAt(prefix, plen, name, i)) * FNV_PRIME;
+		}
+		return h;
+	}
+	
+	/**
+	 * Hashes a metric's tags, independent of their order
+	 * @param name The metric name, for error messages
+	 * @param tags The metric tags. May be null.
+	 * @return the tags hash
+	 */
+	protected static long hashTags(CharSequence name, Map<String, ?> tags) {
+		if(tags==null) return 0L;
+		long h = 0L;
+		for(Map.Entry<String, ?> tag: tags.entrySet()) {
+			final Object value = tag.getValue();
+			if(tag.getKey()==null || value==null) throw new IllegalArgumentException("Null tag key or value for metric [" + name + "]");
+			h += isIntegral(value) ? hashTag(tag.getKey(), ((Number)value).longValue()) : hashTag(tag.getKey(), value.toString());
+		}
+		return h;
+	}
+	
+	/**
+	 * Hashes a metric's tags, independent of their order
+	 * @param name The metric name, for error messages
+	 * @param tagPairs The metric tags as alternating keys and values
+	 * @return the tags hash
+	 */
+	protected static long hashTags(CharSequence name, String[] tagPairs) {
+		long h = 0L;
+		for(int i = 0; i < tagPairs.length; i += 2) {
+			if(tagPairs[i]==null || tagPairs[i+1]==null) throw new IllegalArgumentException("Null tag key or value for metric [" + name + "]");
+			h += hashTag(tagPairs[i], tagPairs[i+1]);
+		}
+		return h;
+	}
+	
+	/**
+	 * Hashes one trimmed tag
+	 * @param key The tag key
+	 * @param value The tag value
+	 * @return the tag hash
+	 */
+	private static long hashTag(String key, String value) {
+		long h = hashKey(key);
+		for(int i = trimStart(value), end = trimEnd(value); i < end; i++) {
+			h = (h ^ value.charAt(i)) * FNV_PRIME;
+		}
+		return mix(h);
+	}
+	
+	/**
+	 * Hashes one tag with an integral value, as its decimal string would hash but without creating it
+	 * @param key The tag key
+	 * @param value The tag value
+	 * @return the tag hash
+	 */
+	private static long hashTag(String key, long value) {
+		if(value==Long.MIN_VALUE) return hashTag(key, Long.toString(value));
+		long h = hashKey(key);
+		if(value < 0) {
+			h = (h ^ '-') * FNV_PRIME;
+			value = -value;
+		}
+		for(long divisor = divisor(value); divisor > 0; divisor /= 10) {
+			h = (h ^ (char)('0' + (value / divisor) % 10)) * FNV_PRIME;
+		}
+		return mix(h);
+	}
+	
+	/**
+	 * Hashes a trimmed tag key and the separator
+	 * @param key The tag key
+	 * @return the partial tag hash
+	 */
+	private static long hashKey(String key) {
+		long h = FNV_BASIS;
+		for(int i = trimStart(key), end = trimEnd(key); i < end; i++) {
+			h = (h ^ key.charAt(i)) * FNV_PRIME;
+		}
+		return (h ^ '=') * FNV_PRIME;
+	}
+	
+	/**
+	 * Returns the power of ten of the leading digit of a non negative long
+	 * @param value The value
+	 * @return the leading digit's divisor
+	 */
+	private static long divisor(long value) {
+		long divisor = 1L;
+		while(divisor <= value / 10) divisor *= 10;
+		return divisor;
+	}
+	
+	/**
+	 * Determines if a tag value is a boxed integral primitive, whose string form can be hashed and compared without creating it
+	 * @param value The tag value
+	 * @return true if integral
+	 */
+	private static boolean isIntegral(Object value) {
+		return value instanceof Integer || value instanceof Long || value instanceof Short || value instanceof Byte;
+	}
+	
+	/**
+	 * Determines if an interned name equals the trimmed concatenation of the passed prefix and name
+	 * @param interned The interned name
+	 * @param prefix The metric name prefix. May be null.
+	 * @param name The metric name, or its suffix if a prefix is passed
+	 * @return true if they are equal
+	 */
+	protected static boolean nameMatches(String interned, CharSequence prefix, CharSequence name) {
+		final int plen = prefix==null ? 0 : prefix.length();
+		final int len = plen + name.length();
+		int start = 0, end = len;
+		while(start < end && charAt(prefix, plen, name, start) <= ' ') start++;
+		while(end > start && charAt(prefix, plen, name, end - 1) <= ' ') end--;
+		if(end - start != interned.length()) return false;
+		for(int i = start; i < end; i++) {
+			if(charAt(prefix, plen, name, i)!=interned.charAt(i - start)) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Determines if interned tags equal the passed tags once trimmed
+	 * @param interned The interned tags
+	 * @param tags The metric tags. May be null.
+	 * @return true if they are equal
+	 */
+	protected static boolean tagsMatch(SortedMap<String, String> interned, Map<String, ?> tags) {
+		if(tags==null) return interned.isEmpty();
+		if(tags.size()!=interned.size()) return false;
+		for(Map.Entry<String, ?> tag: tags.entrySet()) {
+			final Object value = tag.getValue();
+			if(isIntegral(value)) {
+				if(!tagMatches(interned, tag.getKey(), ((Number)value).longValue())) return false;
+			} else if(!tagMatches(interned, tag.getKey(), value.toString())) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	/**
+	 * Determines if interned tags equal the passed tags once trimmed
+	 * @param interned The interned tags
+	 * @param tagPairs The metric tags as alternating keys and values
+	 * @return true if they are equal
+	 */
+	protected static boolean tagsMatch(SortedMap<String, String> interned, String[] tagPairs) {
+		if(tagPairs.length / 2 != interned.size()) return false;
+		for(int i = 0; i < tagPairs.length; i += 2) {
+			if(!tagMatches(interned, tagPairs[i], tagPairs[i+1])) return false;
+		}
+		return true;
+	}
+	
+	/**
+	 * Determines if interned tags contain the passed tag once trimmed
+	 * @param interned The interned tags
+	 * @param key The tag key
+	 * @param value The tag value
+	 * @return true if the tag is interned
+	 */
+	private static boolean tagMatches(SortedMap<String, String> interned, String key, String value) {
+		final String v = interned.get(trimmed(key));
+		if(v==null) return false;
+		final int start = trimStart(value);
+		final int end = trimEnd(value);
+		return end - start==v.length() && value.regionMatches(start, v, 0, v.length());
+	}
+	
+	/**
+	 * Determines if interned tags contain the passed tag with an integral value
+	 * @param interned The interned tags
+	 * @param key The tag key
+	 * @param value The tag value
+	 * @return true if the tag is interned
+	 */
+	private static boolean tagMatches(SortedMap<String, String> interned, String key, long value) {
+		final String v = interned.get(trimmed(key));
+		if(v==null) return false;
+		if(value==Long.MIN_VALUE) return v.equals(Long.toString(value));
+		int i = 0;
+		if(value < 0) {
+			if(v.isEmpty() || v.charAt(0)!='-') return false;
+			value = -value;
+			i++;
+		}
+		for(long divisor = divisor(value); divisor > 0; divisor /= 10, i++) {
+			if(i==v.length() || v.charAt(i)!=(char)('0' + (value / divisor) % 10)) return false;
+		}
+		return i==v.length();
+	}
+	
+	/**
+	 * Trims a tag key, returning the passed string when there is nothing to trim
+	 * @param key The tag key
+	 * @return the trimmed key
+	 */
+	private static String trimmed(String key) {
+		return trimEnd(key) - trimStart(key)==key.length() ? key : key.trim();
+	}
+	
+	/**
+	 * Returns a character of the concatenation of a prefix and a name
+	 * @param prefix The prefix. May be null.
+	 * @param plen The prefix length
+	 * @param name The name
+	 * @param index The index in the concatenation
+	 * @return the character
+	 */
+	private static char charAt(CharSequence prefix, int plen, CharSequence name, int index) {
+		return index < plen ? prefix.charAt(index) : name.charAt(index - plen);
+	}
+	
+	/**
+	 * Returns the index of the first character of a string that would survive a trim
+	 * @param s The string
+	 * @return the trimmed start index
+	 */
+	private static int trimStart(String s) {
+		int i = 0;
+		while(i < s.length() && s.charAt(i) <= ' ') i++;
+		return i;
+	}
+	
+	/**
+	 * Returns the index after the last character of a string that would survive a trim
+	 * @param s The string
+	 * @return the trimmed end index
+	 */
+	private static int trimEnd(String s) {
+		int i = s.length();
+		while(i > 0 && s.charAt(i - 1) <= ' ') i--;
+		return i;
+	}
+	
+	/**
+	 * Finalizes a hash so every input bit affects every output bit (the murmur3 64 bit finalizer)
+	 * @param h The hash
+	 * @return the mixed hash
+	 */
+	private static long mix(long h) {
+		h ^= h >>> 33;
+		h *= 0xff51afd7ed558ccdL;
+		h ^= h >>> 33;
+		h *= 0xc4ceb9fe1a85ec53L;
+		h ^= h >>> 33;
+		return h;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricKeyDictionaryMBean#getSize()
+	 */
+	@Override
+	public int getSize() {
+		return size;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricKeyDictionaryMBean#getCollisionCount()
+	 */
+	@Override
+	public int getCollisionCount() {
+		return collisions.size();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricKeyDictionaryMBean#getSlowLookupCount()
+	 */
+	@Override
+	public long getSlowLookupCount() {
+		return slowLookups.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricKeyDictionaryMBean#getCapacity()
+	 */
+	@Override
+	public int getCapacity() {
+		rwLock.readLock().lock();
+		try {
+			return ids.capacity();
+		} finally {
+			rwLock.readLock().unlock();
+		}
+	}
+}
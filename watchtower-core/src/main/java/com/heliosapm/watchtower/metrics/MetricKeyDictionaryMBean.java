@@ -0,0 +1,62 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+/**
+ * <p>Title: MetricKeyDictionaryMBean</p>
+ * <p>Description: JMX MBean interface for {@link MetricKeyDictionary}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricKeyDictionaryMBean</code></p>
+ */
+
+public interface MetricKeyDictionaryMBean {
+	/** The metric key dictionary ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.metrics:service=MetricKeyDictionary";
+	
+	/**
+	 * Returns the number of interned metric keys, which is also the next id
+	 * @return the number of interned keys
+	 */
+	public int getSize();
+	
+	/**
+	 * Returns the number of interned keys whose hash collided with an earlier key's
+	 * @return the number of colliding keys
+	 */
+	public int getCollisionCount();
+	
+	/**
+	 * Returns the number of lookups that had to take the registration path
+	 * @return the number of slow lookups
+	 */
+	public long getSlowLookupCount();
+	
+	/**
+	 * Returns the capacity of the hash to id table
+	 * @return the table capacity
+	 */
+	public int getCapacity();
+}
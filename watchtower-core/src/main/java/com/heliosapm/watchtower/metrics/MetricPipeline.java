@@ -0,0 +1,473 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.heliosapm.watchtower.core.AlignedTickGroup;
+import com.heliosapm.watchtower.core.AlignedTickListener;
+import com.lmax.disruptor.BlockingWaitStrategy;
+import com.lmax.disruptor.BusySpinWaitStrategy;
+import com.lmax.disruptor.EventHandler;
+import com.lmax.disruptor.ExceptionHandler;
+import com.lmax.disruptor.InsufficientCapacityException;
+import com.lmax.disruptor.RingBuffer;
+import com.lmax.disruptor.SleepingWaitStrategy;
+import com.lmax.disruptor.TimeoutBlockingWaitStrategy;
+import com.lmax.disruptor.WaitStrategy;
+import com.lmax.disruptor.YieldingWaitStrategy;
+import com.lmax.disruptor.dsl.Disruptor;
+import com.lmax.disruptor.dsl.EventHandlerGroup;
+import com.lmax.disruptor.dsl.ProducerType;
+
+/**
+ * <p>Title: MetricPipeline</p>
+ * <p>Description: The metric ingestion pipeline between collectors and sinks. Installed as the {@link MetricRegistry}'s consumer, 
+ * it copies each flushed {@link MetricBuffer} into a pre-allocated ring buffer, from which a chain of {@link MetricStage}s
+ * (tagging, dedup and optionally rollup) and then the registered sinks consume the points in batches, each on its own thread.</p>
+ * <p>Publishing never blocks a collection thread: a buffer that does not fit in the ring's remaining capacity is published 
+ * as far as it fits and the rest is dropped and counted, so slow sink I/O is visible as ring occupancy and drops, not as
+ * stalled collections.</p> 
+ * <p>The pipeline is registered as an {@link AlignedTickListener}: when all the collections of an aligned tick have completed, a flush marker 
+ * is published behind their points, so the sinks write each tick's points as one batch instead of waiting for their flush size or interval.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricPipeline</code></p>
+ */
+
+public class MetricPipeline implements MetricConsumer, AlignedTickListener, MetricPipelineMBean {
+	/** The metric pipeline singleton instance */
+	private static volatile MetricPipeline instance = null;
+	/** The metric pipeline singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The config property name for the ring buffer size, rounded up to a power of 2 */
+	public static final String RING_SIZE_PROP = "com.heliosapm.watchtower.metrics.pipeline.ring";
+	/** The default ring buffer size */
+	public static final int DEFAULT_RING_SIZE = 65536;
+	/** The config property name for the stage wait strategy, one of blocking, timeout, sleeping, yielding or busyspin */
+	public static final String WAIT_STRATEGY_PROP = "com.heliosapm.watchtower.metrics.pipeline.wait";
+	/** The default stage wait strategy, which never signals or locks on the collection threads' publish */
+	public static final String DEFAULT_WAIT_STRATEGY = "sleeping";
+	/** The config property name for the global tags added to every point, as <b><code>key=value,key=value</code></b> */
+	public static final String TAGS_PROP = "com.heliosapm.watchtower.metrics.tags";
+	/** The config property name to enable the dedup stage */
+	public static final String DEDUP_PROP = "com.heliosapm.watchtower.metrics.pipeline.dedup";
+	/** The default dedup stage enablement */
+	public static final boolean DEFAULT_DEDUP = true;
+	/** The config property name for the counter rate stage enablement */
+	public static final String RATE_PROP = "com.heliosapm.watchtower.metrics.pipeline.rate";
+	/** The default counter rate stage enablement */
+	public static final boolean DEFAULT_RATE = true;
+	/** The config property name for the rollup window in ms. (<= 0 disables the rollup stage) */
+	public static final String ROLLUP_PROP = "com.heliosapm.watchtower.metrics.pipeline.rollup";
+	/** The default rollup window */
+	public static final long DEFAULT_ROLLUP = -1L;
+	
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The disruptor */
+	protected final Disruptor<MetricEvent> disruptor;
+	/** The ring buffer */
+	protected final RingBuffer<MetricEvent> ringBuffer;
+	/** The wait strategy name */
+	protected final String waitStrategyName;
+	/** The stages in pipeline order */
+	protected final List<MetricStage> stages = new ArrayList<MetricStage>();
+	/** The registered sinks */
+	protected final List<MetricStage> sinks = new CopyOnWriteArrayList<MetricStage>();
+	/** The consumer threads' executor */
+	protected final ExecutorService stageExecutor;
+	/** The number of points published */
+	protected final AtomicLong publishedCount = new AtomicLong(0L);
+	/** The number of points dropped because the ring was full */
+	protected final AtomicLong droppedCount = new AtomicLong(0L);
+	/** The number of publishes that found the ring too full for the whole buffer */
+	protected final AtomicLong overflowCount = new AtomicLong(0L);
+	/** The number of flush markers published on the completion of aligned ticks */
+	protected final AtomicLong tickFlushCount = new AtomicLong(0L);
+	/** The highest ring occupancy seen at publish */
+	protected final AtomicLong peakOccupancy = new AtomicLong(0L);
+	
+	/**
+	 * Acquires and returns the MetricPipeline singleton instance
+	 * @return the MetricPipeline singleton instance
+	 */
+	public static MetricPipeline getMetricPipeline() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new MetricPipeline();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new MetricPipeline
+	 */
+	private MetricPipeline() {
+		final int ringSize = Integer.highestOneBit(Math.max(2, ConfigurationHelper.getIntSystemThenEnvProperty(RING_SIZE_PROP, DEFAULT_RING_SIZE) - 1)) << 1;
+		waitStrategyName = ConfigurationHelper.getSystemThenEnvProperty(WAIT_STRATEGY_PROP, DEFAULT_WAIT_STRATEGY).trim().toLowerCase();
+		final AtomicInteger serial = new AtomicInteger(0);
+		stageExecutor = Executors.newCachedThreadPool(new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, "MetricPipeline#" + serial.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		});
+		disruptor = new Disruptor<MetricEvent>(MetricEvent.FACTORY, ringSize, stageExecutor, ProducerType.MULTI, waitStrategy(waitStrategyName));
+		disruptor.handleExceptionsWith(new ExceptionHandler() {
+			@Override
+			public void handleEventException(Throwable ex, long sequence, Object event) {
+				log.warn("Metric pipeline stage failed on sequence [{}]", sequence, ex);
+			}
+			@Override
+			public void handleOnStartException(Throwable ex) {
+				log.warn("Metric pipeline stage failed to start", ex);
+			}
+			@Override
+			public void handleOnShutdownException(Throwable ex) {
+				log.warn("Metric pipeline stage failed to shut down", ex);
+			}
+		});
+		final Map<String, String> tags = TaggingStage.parseTags(ConfigurationHelper.getSystemThenEnvProperty(TAGS_PROP, "host=" + hostName()));
+		if(!tags.isEmpty()) stages.add(new TaggingStage(tags));
+		if(ConfigurationHelper.getBooleanSystemThenEnvProperty(DEDUP_PROP, DEFAULT_DEDUP)) stages.add(new DedupStage());
+		if(ConfigurationHelper.getBooleanSystemThenEnvProperty(RATE_PROP, DEFAULT_RATE)) stages.add(new RateStage());
+		final long rollup = ConfigurationHelper.getLongSystemThenEnvProperty(ROLLUP_PROP, DEFAULT_ROLLUP);
+		if(rollup > 0) stages.add(new RollupStage(rollup));
+		EventHandlerGroup<MetricEvent> group = null;
+		for(MetricStage stage: stages) {
+			stage.attach(this);
+			group = chain(group, stage);
+		}
+		final EventHandler<MetricEvent> dispatcher = new EventHandler<MetricEvent>() {
+			@Override
+			public void onEvent(MetricEvent event, long sequence, boolean endOfBatch) throws Exception {
+				for(MetricStage sink: sinks) {
+					try {
+						sink.onEvent(event, sequence, endOfBatch);
+					} catch (Exception ex) {
+						log.warn("Metric sink [{}] failed", sink, ex);
+					}
+				}
+			}
+		};
+		chain(group, dispatcher);
+		ringBuffer = disruptor.start();
+		MetricRegistry.getMetricRegistry().setConsumer(this);
+		AlignedTickGroup.addTickListener(this);
+		try {
+			JMXHelper.registerMBean(this, JMXHelper.objectName(OBJECT_NAME));
+		} catch (Exception ex) {
+			log.warn("Failed to register MetricPipeline Management Interface", ex);
+		}
+		log.info("Started MetricPipeline with a ring of [{}], wait strategy [{}] and stages {}", new Object[]{ringSize, waitStrategyName, stages});
+	}
+	
+	/**
+	 * Adds a handler to the consumer chain
+	 * @param group The handlers the new handler follows, or null if it is the first
+	 * @param handler The handler to add
+	 * @return the group of the added handler
+	 */
+	@SuppressWarnings("unchecked")
+	private EventHandlerGroup<MetricEvent> chain(EventHandlerGroup<MetricEvent> group, EventHandler<MetricEvent> handler) {
+		// built here once, rather than by the disruptor's generic varargs at each call
+		final EventHandler<MetricEvent>[] handlers = new EventHandler[]{handler};
+		return group==null ? disruptor.handleEventsWith(handlers) : group.then(handlers);
+	}
+	
+	/**
+	 * Creates the named wait strategy
+	 * @param name The wait strategy name
+	 * @return the wait strategy
+	 */
+	private static WaitStrategy waitStrategy(String name) {
+		switch(name) {
+			case "blocking": return new BlockingWaitStrategy();
+			case "timeout": return new TimeoutBlockingWaitStrategy(100, TimeUnit.MILLISECONDS);
+			case "sleeping": return new SleepingWaitStrategy();
+			case "yielding": return new YieldingWaitStrategy();
+			case "busyspin": return new BusySpinWaitStrategy();
+			default: throw new IllegalArgumentException("Unknown wait strategy [" + name + "]. Expected one of blocking, timeout, sleeping, yielding or busyspin");
+		}
+	}
+	
+	/**
+	 * Returns the local host name for the default host tag
+	 * @return the host name
+	 */
+	private static String hostName() {
+		try {
+			return InetAddress.getLocalHost().getHostName();
+		} catch (Exception ex) {
+			return "localhost";
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>Publishes the buffered points as far as the ring's remaining capacity allows, dropping the rest.</p>
+	 * @see com.heliosapm.watchtower.metrics.MetricConsumer#consume(com.heliosapm.watchtower.metrics.MetricBuffer)
+	 */
+	@Override
+	public void consume(MetricBuffer buffer) {
+		final int size = buffer.size();
+		if(size==0) return;
+		final int n = (int)Math.min(size, ringBuffer.remainingCapacity());
+		long hi = -1L;
+		if(n > 0) {
+			try {
+				hi = ringBuffer.tryNext(n);
+			} catch (InsufficientCapacityException iex) {
+				hi = -1L;
+			}
+		}
+		if(hi < 0) {
+			overflowCount.incrementAndGet();
+			droppedCount.addAndGet(size);
+			return;
+		}
+		final long lo = hi - n + 1;
+		for(int i = 0; i < n; i++) {
+			ringBuffer.get(lo + i).set(buffer.getId(i), buffer.getRawValue(i), buffer.getTimestamp(i), buffer.getFlags(i));
+		}
+		ringBuffer.publish(lo, hi);
+		publishedCount.addAndGet(n);
+		if(n < size) {
+			overflowCount.incrementAndGet();
+			droppedCount.addAndGet(size - n);
+		}
+		updatePeak();
+	}
+	
+	/**
+	 * Publishes one point without blocking
+	 * @param id The metric id
+	 * @param value The value, or the raw long bits of a double value
+	 * @param timestamp The timestamp in ms.
+	 * @param flags The point's flags
+	 * @return true if the point was published, false if the ring was full
+	 */
+	public boolean publish(int id, long value, long timestamp, int flags) {
+		final long seq;
+		try {
+			seq = ringBuffer.tryNext();
+		} catch (InsufficientCapacityException iex) {
+			overflowCount.incrementAndGet();
+			droppedCount.incrementAndGet();
+			return false;
+		}
+		ringBuffer.get(seq).set(id, value, timestamp, flags);
+		ringBuffer.publish(seq);
+		publishedCount.incrementAndGet();
+		return true;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>Publishes a flush marker behind the points of the completed tick. The marker is skipped if the ring is full, 
+	 * leaving the sinks to flush on their flush size or interval.</p>
+	 * @see com.heliosapm.watchtower.core.AlignedTickListener#onTickComplete(long, long, int)
+	 */
+	@Override
+	public void onTickComplete(long period, long tick, int executions) {
+		final long seq;
+		try {
+			seq = ringBuffer.tryNext();
+		} catch (InsufficientCapacityException iex) {
+			return;
+		}
+		ringBuffer.get(seq).set(-1, 0L, tick, MetricEvent.FLAG_FLUSH);
+		ringBuffer.publish(seq);
+		tickFlushCount.incrementAndGet();
+	}
+	
+	/**
+	 * Records the ring occupancy if it is the highest seen
+	 */
+	private void updatePeak() {
+		final long occupancy = ringBuffer.getBufferSize() - ringBuffer.remainingCapacity();
+		while(true) {
+			long peak = peakOccupancy.get();
+			if(occupancy <= peak || peakOccupancy.compareAndSet(peak, occupancy)) break;
+		}
+	}
+	
+	/**
+	 * Registers a sink, which consumes the points that pass every stage
+	 * @param sink The sink to register
+	 */
+	public void addSink(MetricStage sink) {
+		if(sink==null) throw new IllegalArgumentException("The passed sink was null");
+		sink.attach(this);
+		sinks.add(sink);
+		log.info("Added metric sink [{}]", sink);
+	}
+	
+	/**
+	 * Unregisters a sink
+	 * @param sink The sink to unregister
+	 */
+	public void removeSink(MetricStage sink) {
+		if(sinks.remove(sink)) log.info("Removed metric sink [{}]", sink);
+	}
+	
+	/**
+	 * Returns the registered sinks
+	 * @return the registered sinks
+	 */
+	public List<MetricStage> getSinks() {
+		return new ArrayList<MetricStage>(sinks);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#getRingSize()
+	 */
+	@Override
+	public int getRingSize() {
+		return ringBuffer.getBufferSize();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#getOccupancy()
+	 */
+	@Override
+	public long getOccupancy() {
+		return ringBuffer.getBufferSize() - ringBuffer.remainingCapacity();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#getPeakOccupancy()
+	 */
+	@Override
+	public long getPeakOccupancy() {
+		return peakOccupancy.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#resetPeakOccupancy()
+	 */
+	@Override
+	public void resetPeakOccupancy() {
+		peakOccupancy.set(0L);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#getWaitStrategy()
+	 */
+	@Override
+	public String getWaitStrategy() {
+		return waitStrategyName;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#getPublishedCount()
+	 */
+	@Override
+	public long getPublishedCount() {
+		return publishedCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#getDroppedCount()
+	 */
+	@Override
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#getOverflowCount()
+	 */
+	@Override
+	public long getOverflowCount() {
+		return overflowCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#getTickFlushCount()
+	 */
+	@Override
+	public long getTickFlushCount() {
+		return tickFlushCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#getStageStats()
+	 */
+	@Override
+	public String[] getStageStats() {
+		final long cursor = ringBuffer.getCursor();
+		final List<MetricStage> all = new ArrayList<MetricStage>(stages);
+		all.addAll(sinks);
+		final String[] stats = new String[all.size()];
+		for(int i = 0; i < stats.length; i++) {
+			MetricStage stage = all.get(i);
+			stats[i] = String.format("%s: lag=%s, processed=%s, dropped=%s", stage.getName(), 
+					Math.max(0L, cursor - stage.getSequence()), stage.getProcessedCount(), stage.getDroppedCount());
+		}
+		return stats;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricPipelineMBean#getSinkCount()
+	 */
+	@Override
+	public int getSinkCount() {
+		return sinks.size();
+	}
+}
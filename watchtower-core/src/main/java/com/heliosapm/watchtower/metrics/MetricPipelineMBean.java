@@ -0,0 +1,103 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+/**
+ * <p>Title: MetricPipelineMBean</p>
+ * <p>Description: JMX MBean interface for {@link MetricPipeline}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricPipelineMBean</code></p>
+ */
+
+public interface MetricPipelineMBean {
+	/** The metric pipeline ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.metrics:service=MetricPipeline";
+	
+	/**
+	 * Returns the number of slots in the ring buffer
+	 * @return the ring size
+	 */
+	public int getRingSize();
+	
+	/**
+	 * Returns the number of published points not yet consumed by every stage and sink
+	 * @return the ring occupancy
+	 */
+	public long getOccupancy();
+	
+	/**
+	 * Returns the highest ring occupancy seen at publish
+	 * @return the peak occupancy
+	 */
+	public long getPeakOccupancy();
+	
+	/**
+	 * Resets the peak ring occupancy
+	 */
+	public void resetPeakOccupancy();
+	
+	/**
+	 * Returns the name of the stages' wait strategy
+	 * @return the wait strategy name
+	 */
+	public String getWaitStrategy();
+	
+	/**
+	 * Returns the number of points published into the ring
+	 * @return the published point count
+	 */
+	public long getPublishedCount();
+	
+	/**
+	 * Returns the number of points dropped because the ring was full
+	 * @return the dropped point count
+	 */
+	public long getDroppedCount();
+	
+	/**
+	 * Returns the number of publishes that found the ring too full for all their points
+	 * @return the overflow count
+	 */
+	public long getOverflowCount();
+	
+	/**
+	 * Returns the number of flush markers published on the completion of aligned ticks
+	 * @return the tick flush count
+	 */
+	public long getTickFlushCount();
+	
+	/**
+	 * Returns the lag behind the ring cursor and the processed and dropped counts of each stage and sink
+	 * @return the stage statistics
+	 */
+	public String[] getStageStats();
+	
+	/**
+	 * Returns the number of registered sinks
+	 * @return the sink count
+	 */
+	public int getSinkCount();
+}
@@ -0,0 +1,209 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: MetricRegistry</p>
+ * <p>Description: Registers {@link MetricHandle}s, interning each metric name and sorted tag set to an int id in the 
+ * {@link MetricKeyDictionary}, and passes the buffers flushed by {@link MetricEmitter}s to the installed {@link MetricConsumer}. Until a consumer is installed, 
+ * flushed points are counted and discarded.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricRegistry</code></p>
+ */
+
+public class MetricRegistry implements MetricRegistryMBean {
+	/** The metric registry singleton instance */
+	private static volatile MetricRegistry instance = null;
+	/** The metric registry singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The config property name for the number of points buffered per thread before a flush */
+	public static final String BUFFER_SIZE_PROP = "com.heliosapm.watchtower.metrics.buffer";
+	/** The default number of points buffered per thread before a flush */
+	public static final int DEFAULT_BUFFER_SIZE = 256;
+	
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The number of points buffered per thread before a flush */
+	protected final int bufferSize;
+	/** The metric key dictionary */
+	protected final MetricKeyDictionary dictionary = MetricKeyDictionary.getMetricKeyDictionary();
+	/** The installed consumer or null if flushed points are discarded */
+	protected volatile MetricConsumer consumer = null;
+	/** The number of buffers flushed */
+	protected final AtomicLong flushCount = new AtomicLong(0L);
+	/** The number of points flushed */
+	protected final AtomicLong pointCount = new AtomicLong(0L);
+	/** The number of points discarded for lack of a consumer or by a failed consumer */
+	protected final AtomicLong droppedCount = new AtomicLong(0L);
+	
+	/**
+	 * Acquires and returns the MetricRegistry singleton instance
+	 * @return the MetricRegistry singleton instance
+	 */
+	public static MetricRegistry getMetricRegistry() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new MetricRegistry();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new MetricRegistry
+	 */
+	private MetricRegistry() {
+		bufferSize = Math.max(1, ConfigurationHelper.getIntSystemThenEnvProperty(BUFFER_SIZE_PROP, DEFAULT_BUFFER_SIZE));
+		try {
+			JMXHelper.registerMBean(this, JMXHelper.objectName(OBJECT_NAME));
+		} catch (Exception ex) {
+			log.warn("Failed to register MetricRegistry Management Interface", ex);
+		}
+	}
+	
+	/**
+	 * Returns the handle for the passed metric name and tags, registering it if it is new
+	 * @param name The metric name
+	 * @param tags The metric tags. Values are converted to strings. May be null.
+	 * @return the metric handle
+	 */
+	public MetricHandle handle(String name, Map<String, ?> tags) {
+		return dictionary.handle(null, name, tags);
+	}
+	
+	/**
+	 * Returns the handle with the passed id
+	 * @param id The metric id
+	 * @return the metric handle or null if the id is not registered
+	 */
+	public MetricHandle getHandle(int id) {
+		return dictionary.getHandle(id);
+	}
+	
+	/**
+	 * Passes a flushed buffer to the installed consumer
+	 * @param buffer The flushed buffer
+	 */
+	void consume(MetricBuffer buffer) {
+		final int size = buffer.size();
+		flushCount.incrementAndGet();
+		pointCount.addAndGet(size);
+		final MetricConsumer c = consumer;
+		if(c==null) {
+			droppedCount.addAndGet(size);
+			return;
+		}
+		try {
+			c.consume(buffer);
+		} catch (Exception ex) {
+			droppedCount.addAndGet(size);
+			log.warn("Metric consumer [{}] failed", c, ex);
+		}
+	}
+	
+	/**
+	 * Returns the installed consumer
+	 * @return the consumer or null if flushed points are discarded
+	 */
+	public MetricConsumer getConsumer() {
+		return consumer;
+	}
+	
+	/**
+	 * Installs the consumer of flushed points
+	 * @param consumer The consumer, or null to discard flushed points
+	 */
+	public void setConsumer(MetricConsumer consumer) {
+		this.consumer = consumer;
+		log.info("Installed metric consumer [{}]", consumer);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricRegistryMBean#getBufferSize()
+	 */
+	@Override
+	public int getBufferSize() {
+		return bufferSize;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricRegistryMBean#getHandleCount()
+	 */
+	@Override
+	public int getHandleCount() {
+		return dictionary.getSize();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricRegistryMBean#getConsumerName()
+	 */
+	@Override
+	public String getConsumerName() {
+		final MetricConsumer c = consumer;
+		return c==null ? "None" : c.toString();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricRegistryMBean#getFlushCount()
+	 */
+	@Override
+	public long getFlushCount() {
+		return flushCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricRegistryMBean#getPointCount()
+	 */
+	@Override
+	public long getPointCount() {
+		return pointCount.get();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricRegistryMBean#getDroppedCount()
+	 */
+	@Override
+	public long getDroppedCount() {
+		return droppedCount.get();
+	}
+}
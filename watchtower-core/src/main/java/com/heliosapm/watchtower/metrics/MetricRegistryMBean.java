@@ -0,0 +1,74 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+/**
+ * <p>Title: MetricRegistryMBean</p>
+ * <p>Description: JMX MBean interface for {@link MetricRegistry}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricRegistryMBean</code></p>
+ */
+
+public interface MetricRegistryMBean {
+	/** The metric registry ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.metrics:service=MetricRegistry";
+	
+	/**
+	 * Returns the number of points buffered per thread before a flush
+	 * @return the buffer size
+	 */
+	public int getBufferSize();
+	
+	/**
+	 * Returns the number of registered metric handles
+	 * @return the handle count
+	 */
+	public int getHandleCount();
+	
+	/**
+	 * Returns the name of the installed consumer of flushed points
+	 * @return the consumer name
+	 */
+	public String getConsumerName();
+	
+	/**
+	 * Returns the number of buffers flushed
+	 * @return the flush count
+	 */
+	public long getFlushCount();
+	
+	/**
+	 * Returns the number of points flushed
+	 * @return the point count
+	 */
+	public long getPointCount();
+	
+	/**
+	 * Returns the number of points discarded for lack of a consumer or by a failed consumer
+	 * @return the dropped point count
+	 */
+	public long getDroppedCount();
+}
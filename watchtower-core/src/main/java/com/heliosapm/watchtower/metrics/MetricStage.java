@@ -0,0 +1,198 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import java.util.Arrays;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.lmax.disruptor.EventHandler;
+
+/**
+ * <p>Title: MetricStage</p>
+ * <p>Description: Base class for a {@link MetricPipeline} stage. Each stage runs on its own consumer thread and sees the points
+ * in batches of whatever has been published since its last batch. Points dropped by an earlier stage are skipped.
+ * Metric ids are dense, so stages keep per metric state in primitive arrays indexed by id.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricStage</code></p>
+ */
+
+public abstract class MetricStage implements EventHandler<MetricEvent> {
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The stage name */
+	protected final String name;
+	/** The pipeline the stage runs in */
+	protected MetricPipeline pipeline = null;
+	/** The sequence of the last point processed, published at the end of each batch */
+	protected volatile long sequence = -1L;
+	/** The number of points processed, written only by the stage thread */
+	protected volatile long processedCount = 0L;
+	/** The number of points dropped by the stage, written only by the stage thread */
+	protected volatile long droppedCount = 0L;
+	
+	/**
+	 * Creates a new MetricStage
+	 * @param name The stage name
+	 */
+	protected MetricStage(String name) {
+		this.name = name;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.lmax.disruptor.EventHandler#onEvent(java.lang.Object, long, boolean)
+	 */
+	@Override
+	public final void onEvent(MetricEvent event, long seq, boolean endOfBatch) throws Exception {
+		if(event.isFlagged(MetricEvent.FLAG_FLUSH)) {
+			onFlush();
+		} else if(!event.dropped) {
+			processedCount++;
+			process(event);
+			if(event.dropped) droppedCount++;
+		}
+		if(endOfBatch) {
+			endOfBatch();
+			sequence = seq;
+		}
+	}
+	
+	/**
+	 * Processes one point. Set {@link MetricEvent#dropped} to stop the point reaching later stages.
+	 * @param event The point
+	 */
+	protected abstract void process(MetricEvent event);
+	
+	/**
+	 * Called at the end of each batch. The default does nothing.
+	 */
+	protected void endOfBatch() {
+		/* No Op */
+	}
+	
+	/**
+	 * Called on a {@link MetricEvent#FLAG_FLUSH} marker, once every point published before it has been processed. The default does nothing.
+	 */
+	protected void onFlush() {
+		/* No Op */
+	}
+	
+	/**
+	 * Called when the stage is attached to a pipeline
+	 * @param pipeline The pipeline
+	 */
+	void attach(MetricPipeline pipeline) {
+		this.pipeline = pipeline;
+	}
+	
+	/**
+	 * Grows a per metric array so it can be indexed by the passed id
+	 * @param array The array
+	 * @param id The metric id
+	 * @param fill The value of new elements
+	 * @return the passed array or a grown copy
+	 */
+	protected static long[] ensure(long[] array, int id, long fill) {
+		if(id < array.length) return array;
+		final int from = array.length;
+		final long[] grown = Arrays.copyOf(array, Math.max(id + 1, from * 2));
+		Arrays.fill(grown, from, grown.length, fill);
+		return grown;
+	}
+	
+	/**
+	 * Grows a per metric array so it can be indexed by the passed id
+	 * @param array The array
+	 * @param id The metric id
+	 * @param fill The value of new elements
+	 * @return the passed array or a grown copy
+	 */
+	protected static int[] ensure(int[] array, int id, int fill) {
+		if(id < array.length) return array;
+		final int from = array.length;
+		final int[] grown = Arrays.copyOf(array, Math.max(id + 1, from * 2));
+		Arrays.fill(grown, from, grown.length, fill);
+		return grown;
+	}
+	
+	/**
+	 * Grows a per metric array so it can be indexed by the passed id
+	 * @param array The array
+	 * @param id The metric id
+	 * @param fill The value of new elements
+	 * @return the passed array or a grown copy
+	 */
+	protected static double[] ensure(double[] array, int id, double fill) {
+		if(id < array.length) return array;
+		final int from = array.length;
+		final double[] grown = Arrays.copyOf(array, Math.max(id + 1, from * 2));
+		Arrays.fill(grown, from, grown.length, fill);
+		return grown;
+	}
+	
+	/**
+	 * Returns the stage name
+	 * @return the stage name
+	 */
+	public String getName() {
+		return name;
+	}
+	
+	/**
+	 * Returns the sequence of the last point processed
+	 * @return the sequence
+	 */
+	public long getSequence() {
+		return sequence;
+	}
+	
+	/**
+	 * Returns the number of points processed
+	 * @return the processed count
+	 */
+	public long getProcessedCount() {
+		return processedCount;
+	}
+	
+	/**
+	 * Returns the number of points dropped by the stage
+	 * @return the dropped count
+	 */
+	public long getDroppedCount() {
+		return droppedCount;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see java.lang.Object#toString()
+	 */
+	@Override
+	public String toString() {
+		return name;
+	}
+}
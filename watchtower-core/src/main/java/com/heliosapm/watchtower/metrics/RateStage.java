@@ -0,0 +1,179 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import gnu.trove.map.hash.TIntIntHashMap;
+
+import java.util.Arrays;
+
+/**
+ * <p>Title: RateStage</p>
+ * <p>Description: Converts monotonic counters into per second rates or deltas, in place, so downstream consumers need not diff them.
+ * Only points emitted with {@link MetricEvent#FLAG_RATE} or {@link MetricEvent#FLAG_DELTA} are converted; the first point of 
+ * each counter only primes it and is dropped. The previous value and timestamp of each counter are kept in primitive arrays 
+ * addressed through a Trove map from metric id, since counters are usually a small part of the id space.</p>
+ * <p>A counter that goes backwards has either wrapped or been reset, which is told apart by the counter's declared width rather 
+ * than by its magnitude. A counter emitted with {@link MetricEvent#FLAG_COUNTER32} is taken as an unsigned 32 bit counter, and a 
+ * decrease is a wrap at 2<sup>32</sup>. Any other counter is 64 bits wide, and a decrease is a reset, with the new value taken 
+ * as the increase since it.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.RateStage</code></p>
+ */
+
+public class RateStage extends MetricStage {
+	/** The slot returned by the map for a counter not yet seen */
+	protected static final int NO_SLOT = -1;
+	/** 2<sup>32</sup>, the span of a 32 bit counter */
+	protected static final long SPAN_32 = 1L << 32;
+	/** The flags of the points converted by the stage */
+	protected static final int CONVERTED = MetricEvent.FLAG_RATE | MetricEvent.FLAG_DELTA;
+	
+	/** The counter slots keyed by metric id */
+	protected final TIntIntHashMap slots = new TIntIntHashMap(256, 0.5f, NO_SLOT, NO_SLOT);
+	/** The previous raw value indexed by slot */
+	protected long[] values = new long[256];
+	/** The previous timestamp indexed by slot */
+	protected long[] timestamps = new long[256];
+	/** The previous value's double flag indexed by slot */
+	protected boolean[] doubles = new boolean[256];
+	/** The number of counters seen */
+	protected int slotCount = 0;
+	/** The number of counter resets detected */
+	protected volatile long resetCount = 0L;
+	/** The number of counter wraps detected */
+	protected volatile long wrapCount = 0L;
+	
+	/**
+	 * Creates a new RateStage
+	 */
+	public RateStage() {
+		super("Rate");
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricStage#process(com.heliosapm.watchtower.metrics.MetricEvent)
+	 */
+	@Override
+	protected void process(MetricEvent event) {
+		if((event.flags & CONVERTED)==0) return;
+		final boolean isDouble = event.isDouble();
+		int slot = slots.get(event.id);
+		if(slot==NO_SLOT) {
+			slot = slotCount++;
+			slots.put(event.id, slot);
+			if(slot==values.length) {
+				values = Arrays.copyOf(values, slot * 2);
+				timestamps = Arrays.copyOf(timestamps, slot * 2);
+				doubles = Arrays.copyOf(doubles, slot * 2);
+			}
+			prime(slot, event, isDouble);
+			return;
+		}
+		final long elapsed = event.timestamp - timestamps[slot];
+		if(elapsed <= 0 || doubles[slot]!=isDouble) {
+			if(elapsed > 0) prime(slot, event, isDouble);
+			else event.dropped = true;
+			return;
+		}
+		final long previous = values[slot];
+		values[slot] = event.value;
+		timestamps[slot] = event.timestamp;
+		final boolean rate = event.isFlagged(MetricEvent.FLAG_RATE);
+		if(isDouble) {
+			double delta = Double.longBitsToDouble(event.value) - Double.longBitsToDouble(previous);
+			if(delta < 0) {
+				resetCount++;
+				delta = Double.longBitsToDouble(event.value);
+			}
+			event.value = Double.doubleToRawLongBits(rate ? delta * 1000D / elapsed : delta);
+		} else {
+			final long delta = increase(previous, event.value, event.isFlagged(MetricEvent.FLAG_COUNTER32));
+			if(rate) {
+				event.value = Double.doubleToRawLongBits(delta * 1000D / elapsed);
+				event.flags |= MetricEvent.FLAG_DOUBLE;
+			} else {
+				event.value = delta;
+			}
+		}
+	}
+	
+	/**
+	 * Records a counter's value without converting it and drops the point
+	 * @param slot The counter slot
+	 * @param event The point
+	 * @param isDouble true if the value is a double
+	 */
+	protected void prime(int slot, MetricEvent event, boolean isDouble) {
+		values[slot] = event.value;
+		timestamps[slot] = event.timestamp;
+		doubles[slot] = isDouble;
+		event.dropped = true;
+	}
+	
+	/**
+	 * Computes the increase of a long counter, allowing for wraps of 32 bit counters and resets of 64 bit counters
+	 * @param previous The previous value
+	 * @param current The current value
+	 * @param counter32 true if the counter is declared 32 bits wide
+	 * @return the increase
+	 */
+	protected long increase(long previous, long current, boolean counter32) {
+		if(counter32) {
+			final long delta = (current & 0xFFFFFFFFL) - (previous & 0xFFFFFFFFL);
+			if(delta >= 0) return delta;
+			wrapCount++;
+			return delta + SPAN_32;
+		}
+		if(current >= previous) return current - previous;
+		resetCount++;
+		return Math.max(0L, current);
+	}
+	
+	/**
+	 * Returns the number of counters seen
+	 * @return the counter count
+	 */
+	public int getCounterCount() {
+		return slotCount;
+	}
+	
+	/**
+	 * Returns the number of counter resets detected
+	 * @return the reset count
+	 */
+	public long getResetCount() {
+		return resetCount;
+	}
+	
+	/**
+	 * Returns the number of counter wraps detected
+	 * @return the wrap count
+	 */
+	public long getWrapCount() {
+		return wrapCount;
+	}
+}
@@ -0,0 +1,179 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import java.util.Arrays;
+
+/**
+ * <p>Title: RollupStage</p>
+ * <p>Description: Rolls the points of each metric up into fixed windows. The raw points are dropped and, when a metric's window 
+ * closes, its <b><code>.min</code></b>, <b><code>.max</code></b>, <b><code>.avg</code></b> and <b><code>.count</code></b> points 
+ * are published back into the pipeline timestamped at the window start. A window closes on the metric's first point in a later 
+ * window, or once the wall clock is a full window past its end.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.RollupStage</code></p>
+ */
+
+public class RollupStage extends MetricStage {
+	/** The rollup metric name suffixes */
+	static final String[] SUFFIXES = {".min", ".max", ".avg", ".count"};
+	
+	/** The window size in ms. */
+	protected final long window;
+	/** The metric registry */
+	protected final MetricRegistry registry = MetricRegistry.getMetricRegistry();
+	/** The start of the open window indexed by metric id, -1 if none is open */
+	protected long[] windowStarts = new long[1024];
+	/** The point count of the open window indexed by metric id */
+	protected long[] counts = new long[1024];
+	/** The value sum of the open window indexed by metric id */
+	protected double[] sums = new double[1024];
+	/** The minimum value of the open window indexed by metric id */
+	protected double[] mins = new double[1024];
+	/** The maximum value of the open window indexed by metric id */
+	protected double[] maxs = new double[1024];
+	/** The rollup metric ids + 1 indexed by suffix, then by metric id, 0 if not yet registered */
+	protected final int[][] rollupIds = new int[SUFFIXES.length][1024];
+	/** The highest metric id seen */
+	protected int maxId = -1;
+	/** The wall clock time in ms. of the next scan for expired windows */
+	protected long nextScan = 0L;
+	/** The number of rollup points that could not be published */
+	protected volatile long lostCount = 0L;
+	
+	/**
+	 * Creates a new RollupStage
+	 * @param window The window size in ms.
+	 */
+	public RollupStage(long window) {
+		super("Rollup");
+		if(window < 1) throw new IllegalArgumentException("Invalid rollup window [" + window + "]");
+		this.window = window;
+		Arrays.fill(windowStarts, -1L);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricStage#process(com.heliosapm.watchtower.metrics.MetricEvent)
+	 */
+	@Override
+	protected void process(MetricEvent event) {
+		if(event.isFlagged(MetricEvent.FLAG_ROLLUP)) return;
+		final int id = event.id;
+		if(id > maxId) {
+			windowStarts = ensure(windowStarts, id, -1L);
+			counts = ensure(counts, id, 0L);
+			sums = ensure(sums, id, 0D);
+			mins = ensure(mins, id, 0D);
+			maxs = ensure(maxs, id, 0D);
+			maxId = id;
+		}
+		final long start = event.timestamp - (event.timestamp % window);
+		if(windowStarts[id]!=start) {
+			if(windowStarts[id] >= 0) close(id);
+			windowStarts[id] = start;
+			counts[id] = 0L;
+			sums[id] = 0D;
+			mins[id] = Double.MAX_VALUE;
+			maxs[id] = -Double.MAX_VALUE;
+		}
+		final double value = event.getDoubleValue();
+		counts[id]++;
+		sums[id] += value;
+		if(value < mins[id]) mins[id] = value;
+		if(value > maxs[id]) maxs[id] = value;
+		event.dropped = true;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>Closes the windows that ended at least a full window ago, scanning at most once per window.</p>
+	 * @see com.heliosapm.watchtower.metrics.MetricStage#endOfBatch()
+	 */
+	@Override
+	protected void endOfBatch() {
+		final long now = System.currentTimeMillis();
+		if(now < nextScan) return;
+		nextScan = now + window;
+		final long expired = now - (2 * window);
+		for(int id = 0; id <= maxId; id++) {
+			if(windowStarts[id] >= 0 && windowStarts[id] <= expired) {
+				close(id);
+				windowStarts[id] = -1L;
+			}
+		}
+	}
+	
+	/**
+	 * Publishes the rollup points of a metric's open window
+	 * @param id The metric id
+	 */
+	protected void close(int id) {
+		final long ts = windowStarts[id];
+		final long count = counts[id];
+		if(count==0) return;
+		publish(0, id, Double.doubleToRawLongBits(mins[id]), ts, MetricEvent.FLAG_DOUBLE);
+		publish(1, id, Double.doubleToRawLongBits(maxs[id]), ts, MetricEvent.FLAG_DOUBLE);
+		publish(2, id, Double.doubleToRawLongBits(sums[id] / count), ts, MetricEvent.FLAG_DOUBLE);
+		publish(3, id, count, ts, 0);
+	}
+	
+	/**
+	 * Publishes one rollup point
+	 * @param suffix The index of the rollup suffix
+	 * @param id The rolled up metric's id
+	 * @param value The value
+	 * @param timestamp The timestamp in ms.
+	 * @param flags The value flags
+	 */
+	protected void publish(int suffix, int id, long value, long timestamp, int flags) {
+		int[] ids = rollupIds[suffix] = ensure(rollupIds[suffix], id, 0);
+		if(ids[id]==0) {
+			final MetricHandle handle = registry.getHandle(id);
+			if(handle==null) return;
+			ids[id] = registry.handle(handle.getName() + SUFFIXES[suffix], handle.getTags()).getId() + 1;
+		}
+		if(pipeline==null || !pipeline.publish(ids[id] - 1, value, timestamp, flags | MetricEvent.FLAG_ROLLUP)) {
+			lostCount++;
+		}
+	}
+	
+	/**
+	 * Returns the window size
+	 * @return the window size in ms.
+	 */
+	public long getWindow() {
+		return window;
+	}
+	
+	/**
+	 * Returns the number of rollup points that could not be published because the ring was full
+	 * @return the lost rollup point count
+	 */
+	public long getLostCount() {
+		return lostCount;
+	}
+}
@@ -0,0 +1,103 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * <p>Title: TaggingStage</p>
+ * <p>Description: Adds the pipeline's global tags, such as the host, to every point by remapping the point's metric id 
+ * to the id of the metric with the global tags merged in. A metric's own tags take precedence over the global tags.
+ * The remapped ids are cached per id, so only the first point of a metric registers a handle.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.TaggingStage</code></p>
+ */
+
+public class TaggingStage extends MetricStage {
+	/** The global tags */
+	protected final Map<String, String> globalTags;
+	/** The metric registry */
+	protected final MetricRegistry registry = MetricRegistry.getMetricRegistry();
+	/** The tagged id + 1 indexed by metric id, 0 if not yet mapped */
+	protected int[] tagged = new int[1024];
+	
+	/**
+	 * Creates a new TaggingStage
+	 * @param globalTags The global tags
+	 */
+	public TaggingStage(Map<String, String> globalTags) {
+		super("Tagging");
+		this.globalTags = Collections.unmodifiableMap(new TreeMap<String, String>(globalTags));
+	}
+	
+	/**
+	 * Parses global tags from a <b><code>key=value,key=value</code></b> string
+	 * @param tags The tags string
+	 * @return the parsed tags
+	 */
+	public static Map<String, String> parseTags(String tags) {
+		final Map<String, String> map = new HashMap<String, String>();
+		if(tags==null) return map;
+		for(String pair: tags.split(",")) {
+			if(pair.trim().isEmpty()) continue;
+			final int eq = pair.indexOf('=');
+			if(eq < 1 || eq==pair.length()-1) throw new IllegalArgumentException("Invalid tag [" + pair + "] in [" + tags + "]");
+			map.put(pair.substring(0, eq).trim(), pair.substring(eq + 1).trim());
+		}
+		return map;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.MetricStage#process(com.heliosapm.watchtower.metrics.MetricEvent)
+	 */
+	@Override
+	protected void process(MetricEvent event) {
+		final int id = event.id;
+		tagged = ensure(tagged, id, 0);
+		int mapped = tagged[id];
+		if(mapped==0) {
+			final MetricHandle handle = registry.getHandle(id);
+			if(handle==null) return;
+			final Map<String, String> merged = new HashMap<String, String>(globalTags);
+			merged.putAll(handle.getTags());
+			mapped = registry.handle(handle.getName(), merged).getId() + 1;
+			tagged[id] = mapped;
+		}
+		event.id = mapped - 1;
+	}
+	
+	/**
+	 * Returns the global tags
+	 * @return the global tags
+	 */
+	public Map<String, String> getGlobalTags() {
+		return globalTags;
+	}
+}
@@ -0,0 +1,112 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.heliosapm.watchtower.metrics.MetricEvent;
+import com.heliosapm.watchtower.metrics.MetricHandle;
+
+/**
+ * <p>Title: GraphiteSink</p>
+ * <p>Description: Writes points to Graphite over the plaintext protocol, with the tags in the Graphite 1.1 tagged series form:
+ * <b><code>&lt;metric&gt;;&lt;tag=value&gt;;... &lt;value&gt; &lt;seconds&gt;</code></b></p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.GraphiteSink</code></p>
+ */
+
+public class GraphiteSink extends MetricSink {
+	/** The URI scheme */
+	public static final String SCHEME = "graphite";
+	/** The default Graphite plaintext port */
+	public static final int DEFAULT_PORT = 2003;
+	
+	/**
+	 * Creates a new GraphiteSink
+	 * @param uri The sink URI
+	 */
+	public GraphiteSink(URI uri) {
+		super(uri, SinkConnections.tcp(host(uri), port(uri, DEFAULT_PORT)), DEFAULT_FLUSH_BYTES, 0);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>The key is the tagged series name through the space before the value.</p>
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSink#encodeKey(com.heliosapm.watchtower.metrics.MetricHandle)
+	 */
+	@Override
+	protected byte[][] encodeKey(MetricHandle handle) {
+		final StringBuilder key = new StringBuilder(sanitize(handle.getName()));
+		for(Map.Entry<String, String> tag: handle.getTags().entrySet()) {
+			key.append(';').append(sanitize(tag.getKey())).append('=').append(sanitize(tag.getValue()));
+		}
+		key.append(' ');
+		return new byte[][]{bytes(key.toString())};
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSink#encode(org.jboss.netty.buffer.ChannelBuffer, byte[][], com.heliosapm.watchtower.metrics.MetricEvent)
+	 */
+	@Override
+	protected void encode(ChannelBuffer out, byte[][] key, MetricEvent event) {
+		out.writeBytes(key[0]);
+		writeValue(out, event);
+		out.writeByte(' ');
+		writeLong(out, event.getTimestamp() / 1000);
+		out.writeByte('\n');
+	}
+	
+	/**
+	 * <p>Title: Factory</p>
+	 * <p>Description: Creates {@link GraphiteSink}s for <b><code>graphite://host[:port]</code></b> URIs</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.metrics.sink.GraphiteSink.Factory</code></p>
+	 */
+	public static class Factory implements MetricSinkFactory {
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkFactory#getScheme()
+		 */
+		@Override
+		public String getScheme() {
+			return SCHEME;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkFactory#createSink(java.net.URI)
+		 */
+		@Override
+		public MetricSink createSink(URI uri) {
+			return new GraphiteSink(uri);
+		}
+	}
+}
@@ -0,0 +1,502 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+import java.net.URI;
+import java.nio.charset.Charset;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import javax.management.ObjectName;
+
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.buffer.ChannelBuffers;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.TimerTask;
+
+import com.heliosapm.watchtower.metrics.MetricEvent;
+import com.heliosapm.watchtower.metrics.MetricHandle;
+import com.heliosapm.watchtower.metrics.MetricRegistry;
+import com.heliosapm.watchtower.metrics.MetricStage;
+
+/**
+ * <p>Title: MetricSink</p>
+ * <p>Description: Base class for a sink writing the pipeline's points to a remote endpoint in a line protocol. 
+ * Points are encoded into a pending buffer which is flushed to the sink's {@link SinkTransport} as one write when it reaches 
+ * the flush size, or once the flush interval has passed since the last flush. Each metric's name and tags are encoded once 
+ * and cached by metric id. Pending points are discarded rather than held when the connection is down.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.MetricSink</code></p>
+ */
+
+public abstract class MetricSink extends MetricStage implements MetricSinkMBean {
+	/** The default flush size in bytes */
+	public static final int DEFAULT_FLUSH_BYTES = 8192;
+	/** The default flush interval in ms. */
+	public static final long DEFAULT_FLUSH_INTERVAL = 1000L;
+	/** The URI parameter overriding the flush size */
+	public static final String FLUSH_BYTES_PARAM = "flushBytes";
+	/** The URI parameter overriding the flush interval */
+	public static final String FLUSH_INTERVAL_PARAM = "flushInterval";
+	/** The line protocol charset */
+	public static final Charset CHARSET = Charset.forName("UTF-8");
+	
+	/** The sink URI */
+	protected final URI uri;
+	/** The transport the sink writes to */
+	protected final SinkTransport transport;
+	/** The maximum size of one write in bytes, 0 for no limit */
+	protected final int maxWrite;
+	/** The flush interval in ms. */
+	protected final long flushInterval;
+	/** The metric registry */
+	protected final MetricRegistry registry = MetricRegistry.getMetricRegistry();
+	/** The sink's ObjectName */
+	protected final ObjectName objectName;
+	/** The encoded points waiting to be flushed, guarded by itself */
+	protected final ChannelBuffer pending;
+	/** The encoded metric keys indexed by metric id, written only by the pipeline thread */
+	protected byte[][][] keys = new byte[1024][][];
+	/** The flush size in bytes */
+	protected volatile int flushBytes;
+	/** The number of points in the pending buffer */
+	protected int pendingPoints = 0;
+	/** The time of the last flush */
+	protected volatile long lastFlush = System.currentTimeMillis();
+	/** The idle flush timeout */
+	protected volatile Timeout idleFlush = null;
+	/** Set when the sink is closed */
+	protected volatile boolean closed = false;
+	/** The number of points written */
+	protected volatile long writtenCount = 0L;
+	/** The number of bytes written */
+	protected volatile long byteCount = 0L;
+	/** The number of writes */
+	protected volatile long flushCount = 0L;
+	/** The number of points discarded because the connection was down */
+	protected volatile long discardedCount = 0L;
+	/** The number of points the protocol cannot represent */
+	protected volatile long rejectedCount = 0L;
+	
+	/**
+	 * Creates a new MetricSink
+	 * @param uri The sink URI
+	 * @param transport The transport to write to
+	 * @param defaultFlushBytes The flush size in bytes when the URI does not specify one
+	 * @param maxWrite The maximum size of one write in bytes, 0 for no limit
+	 */
+	protected MetricSink(URI uri, SinkTransport transport, int defaultFlushBytes, int maxWrite) {
+		super(uri.toString());
+		this.uri = uri;
+		this.transport = transport;
+		this.maxWrite = maxWrite;
+		final Map<String, String> params = parameters(uri);
+		try {
+			flushBytes = params.containsKey(FLUSH_BYTES_PARAM) ? Integer.parseInt(params.get(FLUSH_BYTES_PARAM)) : defaultFlushBytes;
+			flushInterval = params.containsKey(FLUSH_INTERVAL_PARAM) ? Long.parseLong(params.get(FLUSH_INTERVAL_PARAM)) : DEFAULT_FLUSH_INTERVAL;
+			if(flushBytes < 1) throw new IllegalArgumentException("Invalid flush size [" + flushBytes + "] in [" + uri + "]");
+			if(flushInterval < 1) throw new IllegalArgumentException("Invalid flush interval [" + flushInterval + "] in [" + uri + "]");
+		} catch (RuntimeException ex) {
+			transport.release();
+			throw ex;
+		}
+		pending = ChannelBuffers.dynamicBuffer(Math.max(256, Math.min(flushBytes, 65536) + 256));
+		scheduleIdleFlush();
+		objectName = JMXHelper.objectName(String.format(OBJECT_NAME_TEMPLATE, ObjectName.quote(uri.toString())));
+		try {
+			JMXHelper.registerMBean(this, objectName);
+		} catch (Exception ex) {
+			log.warn("Failed to register MetricSink Management Interface for [{}]", uri, ex);
+		}
+	}
+	
+	/**
+	 * Encodes a metric's name and tags
+	 * @param handle The metric handle
+	 * @return the encoded key parts passed to {@link #encode(ChannelBuffer, byte[][], MetricEvent)}
+	 */
+	protected abstract byte[][] encodeKey(MetricHandle handle);
+	
+	/**
+	 * Encodes one point
+	 * @param out The buffer to write to
+	 * @param key The point's encoded key parts
+	 * @param event The point
+	 */
+	protected abstract void encode(ChannelBuffer out, byte[][] key, MetricEvent event);
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>Encodes the point into the pending buffer and flushes when the buffer reaches the flush size. 
+	 * The point itself is never dropped, as the other sinks see the same event.</p>
+	 * @see com.heliosapm.watchtower.metrics.MetricStage#process(com.heliosapm.watchtower.metrics.MetricEvent)
+	 */
+	@Override
+	protected void process(MetricEvent event) {
+		if(event.isDouble()) {
+			final double d = event.getDoubleValue();
+			if(Double.isNaN(d) || Double.isInfinite(d)) {
+				rejectedCount++;
+				return;
+			}
+		}
+		final byte[][] key = key(event.getId());
+		if(key==null) {
+			rejectedCount++;
+			return;
+		}
+		synchronized(pending) {
+			final int mark = pending.writerIndex();
+			encode(pending, key, event);
+			pendingPoints++;
+			final int size = pending.writerIndex();
+			if(maxWrite > 0 && size > maxWrite && mark > 0) {
+				write(mark, pendingPoints - 1);
+			} else if(size >= flushBytes) {
+				write(size, pendingPoints);
+			}
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>Flushes if the flush interval has passed since the last flush.</p>
+	 * @see com.heliosapm.watchtower.metrics.MetricStage#endOfBatch()
+	 */
+	@Override
+	protected void endOfBatch() {
+		if(System.currentTimeMillis() - lastFlush >= flushInterval) flush();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>Flushes the pending points, so the points of an aligned tick are written together once the tick's collections have completed.</p>
+	 * @see com.heliosapm.watchtower.metrics.MetricStage#onFlush()
+	 */
+	@Override
+	protected void onFlush() {
+		flush();
+	}
+	
+	/**
+	 * Returns the encoded key of the passed metric, encoding it on first use
+	 * @param id The metric id
+	 * @return the encoded key parts or null if the id is not registered
+	 */
+	protected byte[][] key(int id) {
+		if(id >= keys.length) keys = Arrays.copyOf(keys, Math.max(id + 1, keys.length * 2));
+		byte[][] key = keys[id];
+		if(key==null) {
+			final MetricHandle handle = registry.getHandle(id);
+			if(handle==null) return null;
+			key = keys[id] = encodeKey(handle);
+		}
+		return key;
+	}
+	
+	/**
+	 * Writes the leading bytes of the pending buffer to the transport and removes them from the buffer
+	 * @param length The number of bytes to write
+	 * @param points The number of points in those bytes
+	 */
+	protected void write(int length, int points) {
+		if(length > 0) {
+			if(transport.write(pending.copy(0, length))) {
+				flushCount++;
+				byteCount += length;
+				writtenCount += points;
+			} else {
+				discardedCount += points;
+			}
+			pending.readerIndex(length);
+			pending.discardReadBytes();
+			pendingPoints -= points;
+		}
+		lastFlush = System.currentTimeMillis();
+	}
+	
+	/**
+	 * Schedules the next check for pending points that have waited a full flush interval
+	 */
+	protected void scheduleIdleFlush() {
+		if(closed) return;
+		idleFlush = SinkConnections.timer().newTimeout(new TimerTask() {
+			@Override
+			public void run(Timeout timeout) throws Exception {
+				try {
+					if(System.currentTimeMillis() - lastFlush >= flushInterval) flush();
+				} catch (Exception ex) {
+					log.warn("Idle flush failed for sink [{}]", name, ex);
+				}
+				scheduleIdleFlush();
+			}
+		}, flushInterval, TimeUnit.MILLISECONDS);
+	}
+	
+	/**
+	 * Flushes the pending points, stops the idle flush, releases the transport and unregisters the management interface
+	 */
+	public void close() {
+		closed = true;
+		final Timeout t = idleFlush;
+		if(t!=null) t.cancel();
+		flush();
+		transport.release();
+		try {
+			if(JMXHelper.isRegistered(objectName)) JMXHelper.unregisterMBean(objectName);
+		} catch (Exception ex) {/* No Op */}
+	}
+	
+	/**
+	 * Parses the query parameters of a sink URI
+	 * @param uri The sink URI
+	 * @return the parameters in URI order
+	 */
+	public static Map<String, String> parameters(URI uri) {
+		final Map<String, String> params = new LinkedHashMap<String, String>();
+		final String query = uri.getQuery();
+		if(query==null || query.trim().isEmpty()) return params;
+		for(String pair: query.split("&")) {
+			final int index = pair.indexOf('=');
+			if(index < 1) continue;
+			params.put(pair.substring(0, index).trim(), pair.substring(index + 1).trim());
+		}
+		return params;
+	}
+	
+	/**
+	 * Returns the host of a sink URI
+	 * @param uri The sink URI
+	 * @return the host
+	 */
+	public static String host(URI uri) {
+		if(uri.getHost()==null) throw new IllegalArgumentException("No host in sink URI [" + uri + "]");
+		return uri.getHost();
+	}
+	
+	/**
+	 * Returns the port of a sink URI
+	 * @param uri The sink URI
+	 * @param defaultPort The port to use if the URI does not specify one
+	 * @return the port
+	 */
+	public static int port(URI uri, int defaultPort) {
+		return uri.getPort()==-1 ? defaultPort : uri.getPort();
+	}
+	
+	/**
+	 * Replaces the characters line protocols reserve as delimiters with an underscore. 
+	 * Letters, digits, <b><code>-</code></b>, <b><code>_</code></b>, <b><code>.</code></b> and <b><code>/</code></b> are kept.
+	 * @param s The name or tag to sanitize
+	 * @return the sanitized string
+	 */
+	public static String sanitize(String s) {
+		final char[] chars = s.toCharArray();
+		for(int i = 0; i < chars.length; i++) {
+			final char c = chars[i];
+			if(!Character.isLetterOrDigit(c) && c!='-' && c!='_' && c!='.' && c!='/') chars[i] = '_';
+		}
+		return new String(chars);
+	}
+	
+	/**
+	 * Returns the line protocol bytes of a string
+	 * @param s The string
+	 * @return the encoded bytes
+	 */
+	public static byte[] bytes(String s) {
+		return s.getBytes(CHARSET);
+	}
+	
+	/**
+	 * Writes the decimal digits of a long without allocating
+	 * @param out The buffer to write to
+	 * @param value The value
+	 */
+	public static void writeLong(ChannelBuffer out, long value) {
+		if(value==Long.MIN_VALUE) {
+			out.writeBytes(bytes(Long.toString(value)));
+			return;
+		}
+		if(value < 0) {
+			out.writeByte('-');
+			value = -value;
+		}
+		long divisor = 1L;
+		while(divisor <= value / 10) divisor *= 10;
+		for(; divisor > 0; divisor /= 10) {
+			out.writeByte((int)('0' + (value / divisor) % 10));
+		}
+	}
+	
+	/**
+	 * Writes a double, using the long form for integral values
+	 * @param out The buffer to write to
+	 * @param value The value
+	 */
+	public static void writeDouble(ChannelBuffer out, double value) {
+		if(value==Math.rint(value) && Math.abs(value) < 1e15) {
+			writeLong(out, (long)value);
+		} else {
+			out.writeBytes(bytes(Double.toString(value)));
+		}
+	}
+	
+	/**
+	 * Writes a point's value
+	 * @param out The buffer to write to
+	 * @param event The point
+	 */
+	public static void writeValue(ChannelBuffer out, MetricEvent event) {
+		if(event.isDouble()) writeDouble(out, event.getDoubleValue());
+		else writeLong(out, event.getLongValue());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#flush()
+	 */
+	@Override
+	public void flush() {
+		synchronized(pending) {
+			write(pending.writerIndex(), pendingPoints);
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#getUri()
+	 */
+	@Override
+	public String getUri() {
+		return uri.toString();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#getEndpoint()
+	 */
+	@Override
+	public String getEndpoint() {
+		return transport.getEndpoint();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#isConnected()
+	 */
+	@Override
+	public boolean isConnected() {
+		return transport.isConnected();
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#getWrittenCount()
+	 */
+	@Override
+	public long getWrittenCount() {
+		return writtenCount;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#getByteCount()
+	 */
+	@Override
+	public long getByteCount() {
+		return byteCount;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#getFlushCount()
+	 */
+	@Override
+	public long getFlushCount() {
+		return flushCount;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#getDiscardedCount()
+	 */
+	@Override
+	public long getDiscardedCount() {
+		return discardedCount;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#getRejectedCount()
+	 */
+	@Override
+	public long getRejectedCount() {
+		return rejectedCount;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#getPendingBytes()
+	 */
+	@Override
+	public int getPendingBytes() {
+		synchronized(pending) {
+			return pending.readableBytes();
+		}
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#getFlushBytes()
+	 */
+	@Override
+	public int getFlushBytes() {
+		return flushBytes;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#setFlushBytes(int)
+	 */
+	@Override
+	public void setFlushBytes(int flushBytes) {
+		if(flushBytes < 1) throw new IllegalArgumentException("Invalid flush size [" + flushBytes + "]");
+		this.flushBytes = flushBytes;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkMBean#getFlushInterval()
+	 */
+	@Override
+	public long getFlushInterval() {
+		return flushInterval;
+	}
+}
@@ -0,0 +1,53 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+import java.net.URI;
+
+/**
+ * <p>Title: MetricSinkFactory</p>
+ * <p>Description: The metric sink SPI. A factory creates the sinks for one URI scheme. Factories other than the built in 
+ * <b><code>opentsdb</code></b>, <b><code>graphite</code></b> and <b><code>statsd</code></b> ones are discovered through 
+ * {@link java.util.ServiceLoader} entries in <b><code>META-INF/services/com.heliosapm.watchtower.metrics.sink.MetricSinkFactory</code></b>.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.MetricSinkFactory</code></p>
+ */
+
+public interface MetricSinkFactory {
+	/**
+	 * Returns the URI scheme the factory creates sinks for
+	 * @return the URI scheme
+	 */
+	public String getScheme();
+	
+	/**
+	 * Creates a sink
+	 * @param uri The sink URI, e.g. <b><code>opentsdb://tsdhost:4242?flushBytes=8192&amp;flushInterval=1000</code></b>
+	 * @return the new sink
+	 * @throws Exception thrown if the URI is invalid or the sink cannot be created
+	 */
+	public MetricSink createSink(URI uri) throws Exception;
+}
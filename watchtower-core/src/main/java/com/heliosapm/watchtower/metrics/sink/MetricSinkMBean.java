@@ -0,0 +1,115 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+/**
+ * <p>Title: MetricSinkMBean</p>
+ * <p>Description: JMX MBean interface for {@link MetricSink}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.MetricSinkMBean</code></p>
+ */
+
+public interface MetricSinkMBean {
+	/** The sink ObjectName template */
+	public static final String OBJECT_NAME_TEMPLATE = "com.heliosapm.watchtower.metrics:service=MetricSink,uri=%s";
+	
+	/**
+	 * Returns the URI the sink was configured from
+	 * @return the sink URI
+	 */
+	public String getUri();
+	
+	/**
+	 * Returns the remote endpoint the sink writes to
+	 * @return the remote endpoint
+	 */
+	public String getEndpoint();
+	
+	/**
+	 * Indicates if the sink's connection is up
+	 * @return true if connected
+	 */
+	public boolean isConnected();
+	
+	/**
+	 * Returns the number of points written
+	 * @return the written point count
+	 */
+	public long getWrittenCount();
+	
+	/**
+	 * Returns the number of bytes written
+	 * @return the written byte count
+	 */
+	public long getByteCount();
+	
+	/**
+	 * Returns the number of writes to the connection
+	 * @return the flush count
+	 */
+	public long getFlushCount();
+	
+	/**
+	 * Returns the number of points discarded because the connection was down or not writable
+	 * @return the discarded point count
+	 */
+	public long getDiscardedCount();
+	
+	/**
+	 * Returns the number of points rejected because the protocol cannot represent their value
+	 * @return the rejected point count
+	 */
+	public long getRejectedCount();
+	
+	/**
+	 * Returns the number of encoded bytes waiting to be flushed
+	 * @return the pending byte count
+	 */
+	public int getPendingBytes();
+	
+	/**
+	 * Returns the number of pending bytes that triggers a flush
+	 * @return the flush size in bytes
+	 */
+	public int getFlushBytes();
+	
+	/**
+	 * Sets the number of pending bytes that triggers a flush
+	 * @param flushBytes the flush size in bytes
+	 */
+	public void setFlushBytes(int flushBytes);
+	
+	/**
+	 * Returns the maximum time pending points wait before they are flushed
+	 * @return the flush interval in ms.
+	 */
+	public long getFlushInterval();
+	
+	/**
+	 * Flushes the pending points
+	 */
+	public void flush();
+}
@@ -0,0 +1,184 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+import java.net.URI;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.ServiceConfigurationError;
+import java.util.ServiceLoader;
+import java.util.concurrent.ConcurrentHashMap;
+
+import org.helios.jmx.util.helpers.ConfigurationHelper;
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import com.heliosapm.watchtower.metrics.MetricPipeline;
+
+/**
+ * <p>Title: MetricSinks</p>
+ * <p>Description: Creates the configured {@link MetricSink}s and attaches them to the {@link MetricPipeline}. 
+ * Sinks are configured as a comma separated list of URIs in {@link #SINKS_PROP}, and can be added and removed through JMX.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.MetricSinks</code></p>
+ */
+
+public class MetricSinks implements MetricSinksMBean {
+	/** The singleton instance */
+	private static volatile MetricSinks instance = null;
+	/** The singleton instance ctor lock */
+	private static final Object lock = new Object();
+	
+	/** The conf property name for the sink URIs */
+	public static final String SINKS_PROP = "com.heliosapm.watchtower.metrics.sinks";
+	/** The default sink URIs */
+	public static final String DEFAULT_SINKS = "";
+	
+	/** Instance logger */
+	protected final Logger log = LoggerFactory.getLogger(getClass());
+	/** The metric pipeline */
+	protected final MetricPipeline pipeline = MetricPipeline.getMetricPipeline();
+	/** The sink factories keyed by URI scheme */
+	protected final Map<String, MetricSinkFactory> factories = new ConcurrentHashMap<String, MetricSinkFactory>();
+	/** The active sinks keyed by URI */
+	protected final Map<String, MetricSink> sinks = new ConcurrentHashMap<String, MetricSink>();
+	
+	/**
+	 * Acquires and returns the MetricSinks singleton instance
+	 * @return the MetricSinks singleton instance
+	 */
+	public static MetricSinks getMetricSinks() {
+		if(instance==null) {
+			synchronized(lock) {
+				if(instance==null) {
+					instance = new MetricSinks();
+				}
+			}
+		}
+		return instance;
+	}
+	
+	/**
+	 * Creates a new MetricSinks
+	 */
+	private MetricSinks() {
+		register(new OpenTsdbSink.Factory());
+		register(new GraphiteSink.Factory());
+		register(new StatsdSink.Factory());
+		final Iterator<MetricSinkFactory> iter = ServiceLoader.load(MetricSinkFactory.class).iterator();
+		while(true) {
+			try {
+				if(!iter.hasNext()) break;
+				register(iter.next());
+			} catch (ServiceConfigurationError er) {
+				log.warn("Failed to load metric sink factory", er);
+			}
+		}
+		try {
+			JMXHelper.registerMBean(this, JMXHelper.objectName(OBJECT_NAME));
+		} catch (Exception ex) {
+			log.warn("Failed to register MetricSinks Management Interface", ex);
+		}
+		for(String uri: ConfigurationHelper.getSystemThenEnvProperty(SINKS_PROP, DEFAULT_SINKS).split(",")) {
+			if(uri.trim().isEmpty()) continue;
+			try {
+				addSink(uri);
+			} catch (Exception ex) {
+				log.warn("Failed to create metric sink [{}]", uri.trim(), ex);
+			}
+		}
+	}
+	
+	/**
+	 * Registers a sink factory, replacing any registered for the same scheme
+	 * @param factory The factory to register
+	 */
+	public void register(MetricSinkFactory factory) {
+		factories.put(factory.getScheme().toLowerCase(), factory);
+		log.debug("Registered metric sink factory [{}] for [{}]", factory.getClass().getName(), factory.getScheme());
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinksMBean#addSink(java.lang.String)
+	 */
+	@Override
+	public void addSink(String uri) {
+		final URI u = URI.create(uri.trim());
+		final String key = u.toString();
+		if(sinks.containsKey(key)) throw new IllegalArgumentException("The sink [" + key + "] already exists");
+		final MetricSinkFactory factory = u.getScheme()==null ? null : factories.get(u.getScheme().toLowerCase());
+		if(factory==null) throw new IllegalArgumentException("No metric sink factory for [" + key + "]");
+		final MetricSink sink;
+		try {
+			sink = factory.createSink(u);
+		} catch (RuntimeException rex) {
+			throw rex;
+		} catch (Exception ex) {
+			throw new RuntimeException("Failed to create metric sink [" + key + "]", ex);
+		}
+		synchronized(sinks) {
+			if(sinks.containsKey(key)) {
+				sink.close();
+				throw new IllegalArgumentException("The sink [" + key + "] already exists");
+			}
+			sinks.put(key, sink);
+		}
+		pipeline.addSink(sink);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinksMBean#removeSink(java.lang.String)
+	 */
+	@Override
+	public boolean removeSink(String uri) {
+		final MetricSink sink = sinks.remove(URI.create(uri.trim()).toString());
+		if(sink==null) return false;
+		pipeline.removeSink(sink);
+		sink.close();
+		return true;
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinksMBean#getSinkUris()
+	 */
+	@Override
+	public String[] getSinkUris() {
+		return sinks.keySet().toArray(new String[0]);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSinksMBean#getSchemes()
+	 */
+	@Override
+	public String[] getSchemes() {
+		return factories.keySet().toArray(new String[0]);
+	}
+}
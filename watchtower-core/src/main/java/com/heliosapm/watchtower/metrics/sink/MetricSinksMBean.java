@@ -0,0 +1,63 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+/**
+ * <p>Title: MetricSinksMBean</p>
+ * <p>Description: JMX MBean interface for {@link MetricSinks}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.MetricSinksMBean</code></p>
+ */
+
+public interface MetricSinksMBean {
+	/** The sink manager ObjectName */
+	public static final String OBJECT_NAME = "com.heliosapm.watchtower.metrics:service=MetricSinks";
+	
+	/**
+	 * Creates a sink from the passed URI and adds it to the metric pipeline
+	 * @param uri The sink URI, e.g. <b><code>opentsdb://tsdhost:4242?flushBytes=8192&amp;flushInterval=1000</code></b>
+	 */
+	public void addSink(String uri);
+	
+	/**
+	 * Removes the sink with the passed URI from the metric pipeline and closes it
+	 * @param uri The sink URI
+	 * @return true if the sink was found and removed
+	 */
+	public boolean removeSink(String uri);
+	
+	/**
+	 * Returns the URIs of the active sinks
+	 * @return the sink URIs
+	 */
+	public String[] getSinkUris();
+	
+	/**
+	 * Returns the URI schemes sinks can be created for
+	 * @return the sink schemes
+	 */
+	public String[] getSchemes();
+}
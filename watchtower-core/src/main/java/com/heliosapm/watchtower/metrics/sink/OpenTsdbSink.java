@@ -0,0 +1,112 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.heliosapm.watchtower.metrics.MetricEvent;
+import com.heliosapm.watchtower.metrics.MetricHandle;
+
+/**
+ * <p>Title: OpenTsdbSink</p>
+ * <p>Description: Writes points to OpenTSDB over the telnet style <b><code>put</code></b> protocol:
+ * <b><code>put &lt;metric&gt; &lt;seconds&gt; &lt;value&gt; &lt;tagk=tagv&gt; ...</code></b></p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.OpenTsdbSink</code></p>
+ */
+
+public class OpenTsdbSink extends MetricSink {
+	/** The URI scheme */
+	public static final String SCHEME = "opentsdb";
+	/** The default OpenTSDB port */
+	public static final int DEFAULT_PORT = 4242;
+	
+	/**
+	 * Creates a new OpenTsdbSink
+	 * @param uri The sink URI
+	 */
+	public OpenTsdbSink(URI uri) {
+		super(uri, SinkConnections.tcp(host(uri), port(uri, DEFAULT_PORT)), DEFAULT_FLUSH_BYTES, 0);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>The key parts are <b><code>put &lt;metric&gt; </code></b> and the tags through the line end.</p>
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSink#encodeKey(com.heliosapm.watchtower.metrics.MetricHandle)
+	 */
+	@Override
+	protected byte[][] encodeKey(MetricHandle handle) {
+		final StringBuilder tags = new StringBuilder();
+		for(Map.Entry<String, String> tag: handle.getTags().entrySet()) {
+			tags.append(' ').append(sanitize(tag.getKey())).append('=').append(sanitize(tag.getValue()));
+		}
+		tags.append('\n');
+		return new byte[][]{bytes("put " + sanitize(handle.getName()) + " "), bytes(tags.toString())};
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSink#encode(org.jboss.netty.buffer.ChannelBuffer, byte[][], com.heliosapm.watchtower.metrics.MetricEvent)
+	 */
+	@Override
+	protected void encode(ChannelBuffer out, byte[][] key, MetricEvent event) {
+		out.writeBytes(key[0]);
+		writeLong(out, event.getTimestamp() / 1000);
+		out.writeByte(' ');
+		writeValue(out, event);
+		out.writeBytes(key[1]);
+	}
+	
+	/**
+	 * <p>Title: Factory</p>
+	 * <p>Description: Creates {@link OpenTsdbSink}s for <b><code>opentsdb://host[:port]</code></b> URIs</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.metrics.sink.OpenTsdbSink.Factory</code></p>
+	 */
+	public static class Factory implements MetricSinkFactory {
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkFactory#getScheme()
+		 */
+		@Override
+		public String getScheme() {
+			return SCHEME;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkFactory#createSink(java.net.URI)
+		 */
+		@Override
+		public MetricSink createSink(URI uri) {
+			return new OpenTsdbSink(uri);
+		}
+	}
+}
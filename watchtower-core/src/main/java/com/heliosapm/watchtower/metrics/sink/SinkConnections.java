@@ -0,0 +1,410 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+import java.net.InetSocketAddress;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.jboss.netty.bootstrap.ClientBootstrap;
+import org.jboss.netty.bootstrap.ConnectionlessBootstrap;
+import org.jboss.netty.buffer.ChannelBuffer;
+import org.jboss.netty.channel.Channel;
+import org.jboss.netty.channel.ChannelFuture;
+import org.jboss.netty.channel.ChannelFutureListener;
+import org.jboss.netty.channel.ChannelHandlerContext;
+import org.jboss.netty.channel.ChannelStateEvent;
+import org.jboss.netty.channel.Channels;
+import org.jboss.netty.channel.ExceptionEvent;
+import org.jboss.netty.channel.MessageEvent;
+import org.jboss.netty.channel.SimpleChannelUpstreamHandler;
+import org.jboss.netty.channel.socket.nio.NioClientSocketChannelFactory;
+import org.jboss.netty.channel.socket.nio.NioDatagramChannelFactory;
+import org.jboss.netty.util.CharsetUtil;
+import org.jboss.netty.util.HashedWheelTimer;
+import org.jboss.netty.util.Timeout;
+import org.jboss.netty.util.Timer;
+import org.jboss.netty.util.TimerTask;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+/**
+ * <p>Title: SinkConnections</p>
+ * <p>Description: The pool of {@link SinkTransport}s. Sinks writing to the same endpoint share one connection, and every 
+ * connection runs on the same Netty channel factories and worker threads. TCP connections reconnect automatically 
+ * with an exponential backoff, and writes are refused rather than queued while a connection is down or its outbound buffer is full.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.SinkConnections</code></p>
+ */
+
+public class SinkConnections {
+	/** The initial reconnect delay in ms. */
+	public static final long RECONNECT_MIN = 500L;
+	/** The maximum reconnect delay in ms. */
+	public static final long RECONNECT_MAX = 30000L;
+	
+	/** Static class logger */
+	private static final Logger LOG = LoggerFactory.getLogger(SinkConnections.class);
+	/** The pooled transports keyed by endpoint */
+	private static final Map<String, PooledTransport> transports = new ConcurrentHashMap<String, PooledTransport>();
+	/** The shared TCP channel factory */
+	private static volatile NioClientSocketChannelFactory tcpFactory = null;
+	/** The shared UDP channel factory */
+	private static volatile NioDatagramChannelFactory udpFactory = null;
+	/** The shared reconnect timer */
+	private static volatile Timer timer = null;
+	
+	/**
+	 * Acquires a reference to the pooled TCP transport to the passed endpoint, connecting it if it is new
+	 * @param host The remote host
+	 * @param port The remote port
+	 * @return the transport
+	 */
+	public static SinkTransport tcp(String host, int port) {
+		return acquire("tcp", host, port);
+	}
+	
+	/**
+	 * Acquires a reference to the pooled UDP transport to the passed endpoint, binding it if it is new
+	 * @param host The remote host
+	 * @param port The remote port
+	 * @return the transport
+	 */
+	public static SinkTransport udp(String host, int port) {
+		return acquire("udp", host, port);
+	}
+	
+	/**
+	 * Acquires a reference to a pooled transport
+	 * @param protocol The protocol, tcp or udp
+	 * @param host The remote host
+	 * @param port The remote port
+	 * @return the transport
+	 */
+	private static SinkTransport acquire(String protocol, String host, int port) {
+		final String endpoint = protocol + "://" + host + ":" + port;
+		synchronized(transports) {
+			PooledTransport transport = transports.get(endpoint);
+			if(transport==null) {
+				transport = "udp".equals(protocol) ? new UdpTransport(endpoint, host, port) : new TcpTransport(endpoint, host, port);
+				transports.put(endpoint, transport);
+				transport.open();
+			}
+			transport.references++;
+			return transport;
+		}
+	}
+	
+	/**
+	 * Returns the shared TCP channel factory
+	 * @return the TCP channel factory
+	 */
+	private static NioClientSocketChannelFactory tcpFactory() {
+		if(tcpFactory==null) {
+			synchronized(transports) {
+				if(tcpFactory==null) {
+					tcpFactory = new NioClientSocketChannelFactory(Executors.newCachedThreadPool(threadFactory("MetricSinkBoss")), 
+							Executors.newCachedThreadPool(threadFactory("MetricSinkWorker")), 1, 2);
+				}
+			}
+		}
+		return tcpFactory;
+	}
+	
+	/**
+	 * Returns the shared UDP channel factory
+	 * @return the UDP channel factory
+	 */
+	private static NioDatagramChannelFactory udpFactory() {
+		if(udpFactory==null) {
+			synchronized(transports) {
+				if(udpFactory==null) {
+					udpFactory = new NioDatagramChannelFactory(Executors.newCachedThreadPool(threadFactory("MetricSinkUdpWorker")), 1);
+				}
+			}
+		}
+		return udpFactory;
+	}
+	
+	/**
+	 * Returns the shared reconnect timer
+	 * @return the reconnect timer
+	 */
+	static Timer timer() {
+		if(timer==null) {
+			synchronized(transports) {
+				if(timer==null) {
+					timer = new HashedWheelTimer(threadFactory("MetricSinkReconnect"), 100, TimeUnit.MILLISECONDS);
+				}
+			}
+		}
+		return timer;
+	}
+	
+	/**
+	 * Creates a daemon thread factory
+	 * @param name The thread name prefix
+	 * @return the thread factory
+	 */
+	private static ThreadFactory threadFactory(final String name) {
+		final AtomicInteger serial = new AtomicInteger(0);
+		return new ThreadFactory() {
+			@Override
+			public Thread newThread(Runnable r) {
+				Thread t = new Thread(r, name + "#" + serial.incrementAndGet());
+				t.setDaemon(true);
+				return t;
+			}
+		};
+	}
+	
+	/**
+	 * <p>Title: PooledTransport</p>
+	 * <p>Description: Base class for a reference counted pooled transport</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.metrics.sink.SinkConnections.PooledTransport</code></p>
+	 */
+	abstract static class PooledTransport implements SinkTransport {
+		/** The remote endpoint */
+		final String endpoint;
+		/** The remote address */
+		final InetSocketAddress address;
+		/** The number of references held, guarded by the pool */
+		int references = 0;
+		/** The transport's channel, or null if not connected */
+		volatile Channel channel = null;
+		/** Set when the last reference is released */
+		volatile boolean closed = false;
+		
+		/**
+		 * Creates a new PooledTransport
+		 * @param endpoint The remote endpoint
+		 * @param host The remote host
+		 * @param port The remote port
+		 */
+		PooledTransport(String endpoint, String host, int port) {
+			this.endpoint = endpoint;
+			this.address = new InetSocketAddress(host, port);
+		}
+		
+		/**
+		 * Opens the transport's channel
+		 */
+		abstract void open();
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.SinkTransport#isConnected()
+		 */
+		@Override
+		public boolean isConnected() {
+			final Channel c = channel;
+			return c!=null && c.isOpen();
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.SinkTransport#getEndpoint()
+		 */
+		@Override
+		public String getEndpoint() {
+			return endpoint;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.SinkTransport#release()
+		 */
+		@Override
+		public void release() {
+			synchronized(transports) {
+				if(--references > 0) return;
+				transports.remove(endpoint);
+				closed = true;
+			}
+			final Channel c = channel;
+			if(c!=null) c.close();
+			LOG.info("Closed sink transport [{}]", endpoint);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see java.lang.Object#toString()
+		 */
+		@Override
+		public String toString() {
+			return endpoint;
+		}
+	}
+	
+	/**
+	 * <p>Title: TcpTransport</p>
+	 * <p>Description: A TCP transport that reconnects with an exponential backoff</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.metrics.sink.SinkConnections.TcpTransport</code></p>
+	 */
+	static class TcpTransport extends PooledTransport {
+		/** The bootstrap */
+		final ClientBootstrap bootstrap;
+		/** The current reconnect delay in ms. */
+		volatile long reconnectDelay = RECONNECT_MIN;
+		
+		/**
+		 * Creates a new TcpTransport
+		 * @param endpoint The remote endpoint
+		 * @param host The remote host
+		 * @param port The remote port
+		 */
+		TcpTransport(String endpoint, String host, int port) {
+			super(endpoint, host, port);
+			bootstrap = new ClientBootstrap(tcpFactory());
+			bootstrap.setOption("tcpNoDelay", true);
+			bootstrap.setOption("keepAlive", true);
+			bootstrap.setOption("connectTimeoutMillis", 5000);
+			bootstrap.getPipeline().addLast("reconnect", new SimpleChannelUpstreamHandler() {
+				@Override
+				public void channelClosed(ChannelHandlerContext ctx, ChannelStateEvent e) throws Exception {
+					final boolean wasConnected = channel!=null;
+					channel = null;
+					if(!closed) {
+						if(wasConnected) LOG.warn("Sink transport [{}] disconnected", TcpTransport.this.endpoint);
+						scheduleReconnect();
+					}
+				}
+				@Override
+				public void messageReceived(ChannelHandlerContext ctx, MessageEvent e) throws Exception {
+					if(LOG.isDebugEnabled()) {
+						LOG.debug("Sink transport [{}] received [{}]", TcpTransport.this.endpoint, ((ChannelBuffer)e.getMessage()).toString(CharsetUtil.UTF_8).trim());
+					}
+				}
+				@Override
+				public void exceptionCaught(ChannelHandlerContext ctx, ExceptionEvent e) throws Exception {
+					LOG.debug("Sink transport [{}] error: {}", TcpTransport.this.endpoint, e.getCause().toString());
+					e.getChannel().close();
+				}
+			});
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.SinkConnections.PooledTransport#open()
+		 */
+		@Override
+		void open() {
+			if(closed) return;
+			bootstrap.connect(address).addListener(new ChannelFutureListener() {
+				@Override
+				public void operationComplete(ChannelFuture future) throws Exception {
+					if(future.isSuccess()) {
+						channel = future.getChannel();
+						reconnectDelay = RECONNECT_MIN;
+						LOG.info("Sink transport [{}] connected", endpoint);
+						if(closed) future.getChannel().close();
+					} else {
+						LOG.debug("Sink transport [{}] failed to connect: {}", endpoint, future.getCause().toString());
+					}
+				}
+			});
+		}
+		
+		/**
+		 * Schedules a reconnect after the current delay and doubles the delay.
+		 * Called when the channel closes, which Netty also signals when a connect attempt fails.
+		 */
+		void scheduleReconnect() {
+			if(closed) return;
+			final long delay = reconnectDelay;
+			reconnectDelay = Math.min(RECONNECT_MAX, delay * 2);
+			timer().newTimeout(new TimerTask() {
+				@Override
+				public void run(Timeout timeout) throws Exception {
+					open();
+				}
+			}, delay, TimeUnit.MILLISECONDS);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.SinkTransport#write(org.jboss.netty.buffer.ChannelBuffer)
+		 */
+		@Override
+		public boolean write(ChannelBuffer buffer) {
+			final Channel c = channel;
+			if(c==null || !c.isConnected() || !c.isWritable()) return false;
+			c.write(buffer);
+			return true;
+		}
+	}
+	
+	/**
+	 * <p>Title: UdpTransport</p>
+	 * <p>Description: A UDP transport sending each write as one datagram</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.metrics.sink.SinkConnections.UdpTransport</code></p>
+	 */
+	static class UdpTransport extends PooledTransport {
+		/**
+		 * Creates a new UdpTransport
+		 * @param endpoint The remote endpoint
+		 * @param host The remote host
+		 * @param port The remote port
+		 */
+		UdpTransport(String endpoint, String host, int port) {
+			super(endpoint, host, port);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.SinkConnections.PooledTransport#open()
+		 */
+		@Override
+		void open() {
+			final ConnectionlessBootstrap bootstrap = new ConnectionlessBootstrap(udpFactory());
+			bootstrap.setPipeline(Channels.pipeline(new SimpleChannelUpstreamHandler()));
+			channel = bootstrap.bind(new InetSocketAddress(0));
+			LOG.info("Sink transport [{}] bound", endpoint);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.SinkTransport#write(org.jboss.netty.buffer.ChannelBuffer)
+		 */
+		@Override
+		public boolean write(ChannelBuffer buffer) {
+			final Channel c = channel;
+			if(c==null || !c.isBound() || !c.isWritable()) return false;
+			c.write(buffer, address);
+			return true;
+		}
+	}
+}
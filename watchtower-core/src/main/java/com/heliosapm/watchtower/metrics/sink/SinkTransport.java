@@ -0,0 +1,61 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+/**
+ * <p>Title: SinkTransport</p>
+ * <p>Description: Defines the connection a {@link AbstractMetricSink} writes its encoded points to</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.SinkTransport</code></p>
+ */
+
+public interface SinkTransport {
+	/**
+	 * Writes a buffer of encoded points without blocking
+	 * @param buffer The buffer to write
+	 * @return true if the write was accepted, false if the transport is not connected or not writable
+	 */
+	public boolean write(ChannelBuffer buffer);
+	
+	/**
+	 * Indicates if the transport is connected
+	 * @return true if connected
+	 */
+	public boolean isConnected();
+	
+	/**
+	 * Returns the remote endpoint, as <b><code>protocol://host:port</code></b>
+	 * @return the remote endpoint
+	 */
+	public String getEndpoint();
+	
+	/**
+	 * Releases the caller's reference to the transport. The transport is closed when its last reference is released.
+	 */
+	public void release();
+}
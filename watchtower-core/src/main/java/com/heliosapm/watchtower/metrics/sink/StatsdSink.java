@@ -0,0 +1,123 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+import java.net.URI;
+import java.util.Map;
+
+import org.jboss.netty.buffer.ChannelBuffer;
+
+import com.heliosapm.watchtower.metrics.MetricEvent;
+import com.heliosapm.watchtower.metrics.MetricHandle;
+
+/**
+ * <p>Title: StatsdSink</p>
+ * <p>Description: Writes points to StatsD as gauges over UDP: <b><code>&lt;metric&gt;.&lt;tag&gt;.&lt;value&gt;...:&lt;value&gt;|g</code></b>. 
+ * Plain StatsD has no tags, so they are folded into the name in key order. Points are packed into datagrams of at most 
+ * {@link #MAX_DATAGRAM} bytes so they are not fragmented on an ethernet MTU. A negative gauge is sent as a reset to zero 
+ * followed by the value, since StatsD reads a leading sign as a relative change.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.StatsdSink</code></p>
+ */
+
+public class StatsdSink extends MetricSink {
+	/** The URI scheme */
+	public static final String SCHEME = "statsd";
+	/** The default StatsD port */
+	public static final int DEFAULT_PORT = 8125;
+	/** The maximum datagram payload in bytes */
+	public static final int MAX_DATAGRAM = 1432;
+	/** The gauge suffix */
+	private static final byte[] GAUGE = bytes("|g\n");
+	/** The gauge reset value */
+	private static final byte[] RESET = bytes("0|g\n");
+	
+	/**
+	 * Creates a new StatsdSink
+	 * @param uri The sink URI
+	 */
+	public StatsdSink(URI uri) {
+		super(uri, SinkConnections.udp(host(uri), port(uri, DEFAULT_PORT)), MAX_DATAGRAM, MAX_DATAGRAM);
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * <p>The key is the folded name through the colon before the value.</p>
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSink#encodeKey(com.heliosapm.watchtower.metrics.MetricHandle)
+	 */
+	@Override
+	protected byte[][] encodeKey(MetricHandle handle) {
+		final StringBuilder key = new StringBuilder(sanitize(handle.getName()));
+		for(Map.Entry<String, String> tag: handle.getTags().entrySet()) {
+			key.append('.').append(sanitize(tag.getKey())).append('.').append(sanitize(tag.getValue()));
+		}
+		key.append(':');
+		return new byte[][]{bytes(key.toString())};
+	}
+	
+	/**
+	 * {@inheritDoc}
+	 * @see com.heliosapm.watchtower.metrics.sink.MetricSink#encode(org.jboss.netty.buffer.ChannelBuffer, byte[][], com.heliosapm.watchtower.metrics.MetricEvent)
+	 */
+	@Override
+	protected void encode(ChannelBuffer out, byte[][] key, MetricEvent event) {
+		final boolean negative = event.isDouble() ? event.getDoubleValue() < 0 : event.getLongValue() < 0;
+		if(negative) {
+			out.writeBytes(key[0]);
+			out.writeBytes(RESET);
+		}
+		out.writeBytes(key[0]);
+		writeValue(out, event);
+		out.writeBytes(GAUGE);
+	}
+	
+	/**
+	 * <p>Title: Factory</p>
+	 * <p>Description: Creates {@link StatsdSink}s for <b><code>statsd://host[:port]</code></b> URIs</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.metrics.sink.StatsdSink.Factory</code></p>
+	 */
+	public static class Factory implements MetricSinkFactory {
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkFactory#getScheme()
+		 */
+		@Override
+		public String getScheme() {
+			return SCHEME;
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see com.heliosapm.watchtower.metrics.sink.MetricSinkFactory#createSink(java.net.URI)
+		 */
+		@Override
+		public MetricSink createSink(URI uri) {
+			return new StatsdSink(uri);
+		}
+	}
+}
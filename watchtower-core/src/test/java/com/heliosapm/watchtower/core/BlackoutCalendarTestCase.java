@@ -0,0 +1,133 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Arrays;
+import java.util.Calendar;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * <p>Title: BlackoutCalendarTestCase</p>
+ * <p>Description: Tests the {@link BlackoutCalendar}'s interval index: one-off windows, merged overlapping windows, 
+ * recurring windows and the inheritance of branch windows by sub-branches.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.BlackoutCalendarTestCase</code></p>
+ */
+
+public class BlackoutCalendarTestCase {
+	/** The blackout calendar */
+	final BlackoutCalendar calendar = BlackoutCalendar.getBlackoutCalendar();
+	
+	/**
+	 * Clears the windows added by the test
+	 */
+	@After
+	public void clear() {
+		calendar.clearWindows();
+	}
+	
+	/**
+	 * Tests that a one-off window is open from its start up to but excluding its end, and closes when removed
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testOneOffWindow() throws Exception {
+		final long start = System.currentTimeMillis() + 60000L;
+		final long id = calendar.addWindow(BlackoutCalendar.SCOPE_TARGET, "host-a", start, start + 1000L, "test");
+		assertFalse(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", start - 1));
+		assertTrue(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", start));
+		assertTrue(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", start + 999L));
+		assertFalse(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", start + 1000L));
+		assertFalse(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-b", start));
+		assertFalse(calendar.isBlackedOut(BlackoutCalendar.SCOPE_COLLECTOR, "host-a", start));
+		assertTrue(calendar.removeWindow(id));
+		assertFalse(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", start));
+	}
+	
+	/**
+	 * Tests that overlapping windows are merged, so a check in the later window is not shadowed by the earlier one's end
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testOverlappingWindows() throws Exception {
+		final long start = System.currentTimeMillis() + 60000L;
+		calendar.addWindow(BlackoutCalendar.SCOPE_TARGET, "host-a", start, start + 5000L, "long");
+		calendar.addWindow(BlackoutCalendar.SCOPE_TARGET, "host-a", start + 1000L, start + 2000L, "short");
+		calendar.addWindow(BlackoutCalendar.SCOPE_TARGET, "host-a", start + 4000L, start + 8000L, "tail");
+		assertTrue(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", start + 3000L));
+		assertTrue(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", start + 7999L));
+		assertFalse(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", start + 8000L));
+		assertEquals(3, calendar.getWindowCount());
+	}
+	
+	/**
+	 * Tests that a recurring window is open for its duration from each cron fire time
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testRecurringWindow() throws Exception {
+		calendar.addRecurringWindow(BlackoutCalendar.SCOPE_TARGET, "host-a", "0 0 * * * *", 5L * 60000L, "first five minutes of every hour");
+		final Calendar cal = Calendar.getInstance();
+		cal.add(Calendar.HOUR_OF_DAY, 1);
+		cal.set(Calendar.MINUTE, 0);
+		cal.set(Calendar.SECOND, 0);
+		cal.set(Calendar.MILLISECOND, 0);
+		final long hour = cal.getTimeInMillis();
+		assertTrue(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", hour));
+		assertTrue(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", hour + (5L * 60000L) - 1));
+		assertFalse(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", hour + (5L * 60000L)));
+		assertFalse(calendar.isBlackedOut(BlackoutCalendar.SCOPE_TARGET, "host-a", hour - 1));
+	}
+	
+	/**
+	 * Tests that a collector is blacked out by its own windows, its target's windows and the windows of any ancestor branch
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testScopes() throws Exception {
+		final ObjectName root = new ObjectName("com.heliosapm.watchtower.test:root=r");
+		final ObjectName branch = new ObjectName("com.heliosapm.watchtower.test:root=r,branch=b");
+		final ObjectName collector = new ObjectName("com.heliosapm.watchtower.test:root=r,branch=b,collector=c");
+		final long start = System.currentTimeMillis() + 60000L;
+		calendar.addWindow(BlackoutCalendar.SCOPE_BRANCH, root.toString(), start, start + 1000L, "root");
+		calendar.addWindow(BlackoutCalendar.SCOPE_TARGET, "host-a", start + 2000L, start + 3000L, "target");
+		calendar.addWindow(BlackoutCalendar.SCOPE_COLLECTOR, collector.toString(), start + 4000L, start + 5000L, "collector");
+		assertTrue(calendar.isBlackedOut(collector, "host-a", Arrays.asList(branch, root), start));
+		assertFalse(calendar.isBlackedOut(collector, "host-a", Arrays.asList(branch), start));
+		assertTrue(calendar.isBlackedOut(collector, "host-a", Arrays.asList(branch, root), start + 2000L));
+		assertFalse(calendar.isBlackedOut(collector, "host-b", Arrays.asList(branch, root), start + 2000L));
+		assertTrue(calendar.isBlackedOut(collector, null, null, start + 4000L));
+		assertFalse(calendar.isBlackedOut(collector, "host-a", Arrays.asList(branch, root), start + 6000L));
+	}
+}
@@ -0,0 +1,148 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.LinkedList;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+/**
+ * <p>Title: CollectionBulkheadTestCase</p>
+ * <p>Description: Tests the admission, queueing and rejection of executions by a saturated {@link CollectionBulkhead}.
+ * The shared executor queues admitted executions until the test runs them, and rejects them while {@link #rejecting} is set.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.CollectionBulkheadTestCase</code></p>
+ */
+
+public class CollectionBulkheadTestCase {
+	/** The executions admitted to the shared executor and not yet run */
+	final LinkedList<Runnable> admitted = new LinkedList<Runnable>();
+	/** The number of executions run */
+	final AtomicInteger runs = new AtomicInteger(0);
+	/** Set to have the shared executor reject executions */
+	volatile boolean rejecting = false;
+	/** The shared executor */
+	final Executor shared = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			if(rejecting) throw new RejectedExecutionException("Test");
+			admitted.add(command);
+		}
+	};
+	
+	/**
+	 * <p>Title: BulkheadTestTask</p>
+	 * <p>Description: An execution that counts its runs and records its rejection</p> 
+	 * <p><code>com.heliosapm.watchtower.core.CollectionBulkheadTestCase.BulkheadTestTask</code></p>
+	 */
+	class BulkheadTestTask implements RejectableTask {
+		/** The rejection passed to the execution, if any */
+		RejectedExecutionException rejection = null;
+		
+		@Override
+		public void onRejected(RejectedExecutionException rex) {
+			rejection = rex;
+		}
+		
+		@Override
+		public void run() {
+			runs.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Tests that a saturated bulkhead queues executions up to its queue limit, rejects the rest, 
+	 * and admits the queued executions as admitted ones complete
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testSaturation() throws Exception {
+		final CollectionBulkhead bulkhead = new CollectionBulkhead(shared, null, 2, 2);
+		for(int i = 0; i < 4; i++) {
+			bulkhead.execute(new BulkheadTestTask());
+		}
+		assertEquals(2, admitted.size());
+		assertEquals(2, bulkhead.getActiveCount());
+		assertEquals(2, bulkhead.getQueueDepth());
+		try {
+			bulkhead.execute(new BulkheadTestTask());
+			fail("Execution beyond the queue limit was not rejected");
+		} catch (RejectedExecutionException rex) {
+			/* Expected */
+		}
+		assertEquals(1L, bulkhead.getRejectedCount());
+		assertEquals(5L, bulkhead.getSubmittedCount());
+		assertEquals(2, bulkhead.getPeakQueueDepth());
+		admitted.poll().run();
+		assertEquals(1L, bulkhead.getCompletedCount());
+		assertEquals(2, bulkhead.getActiveCount());
+		assertEquals(1, bulkhead.getQueueDepth());
+		while(!admitted.isEmpty()) {
+			admitted.poll().run();
+		}
+		assertEquals(4, runs.get());
+		assertEquals(4L, bulkhead.getCompletedCount());
+		assertEquals(0, bulkhead.getActiveCount());
+		assertEquals(0, bulkhead.getQueueDepth());
+	}
+	
+	/**
+	 * Tests that a rejection by the shared executor is propagated to the caller of an execution admitted directly, 
+	 * and passed to a queued execution, releasing the admission slot in both cases
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testSharedExecutorRejection() throws Exception {
+		final CollectionBulkhead bulkhead = new CollectionBulkhead(shared, null, 1, 1);
+		rejecting = true;
+		try {
+			bulkhead.execute(new BulkheadTestTask());
+			fail("Rejection not propagated to the caller");
+		} catch (RejectedExecutionException rex) {
+			/* Expected */
+		}
+		assertEquals(0, bulkhead.getActiveCount());
+		rejecting = false;
+		bulkhead.execute(new BulkheadTestTask());
+		final BulkheadTestTask queued = new BulkheadTestTask();
+		bulkhead.execute(queued);
+		assertEquals(1, bulkhead.getQueueDepth());
+		rejecting = true;
+		admitted.poll().run();
+		assertTrue("Rejection not passed to the queued execution", queued.rejection!=null);
+		assertEquals(2L, bulkhead.getRejectedCount());
+		assertEquals(0, bulkhead.getActiveCount());
+		assertEquals(0, bulkhead.getQueueDepth());
+		assertEquals(1, runs.get());
+	}
+}
@@ -0,0 +1,240 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.Calendar;
+import java.util.TimeZone;
+
+import org.junit.Test;
+import org.quartz.CronExpression;
+
+/**
+ * <p>Title: CronScheduleTestCase</p>
+ * <p>Description: Tests the next fire time computation of {@link CronSchedule}, across daylight savings transitions
+ * and for the union semantics of restricted day of month and day of week fields</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.CronScheduleTestCase</code></p>
+ */
+
+public class CronScheduleTestCase {
+	/** The UTC time zone */
+	static final TimeZone UTC = TimeZone.getTimeZone("UTC");
+	/** A time zone with daylight savings transitions */
+	static final TimeZone NEW_YORK = TimeZone.getTimeZone("America/New_York");
+	
+	/**
+	 * Returns the epoch millis of a wall clock time in the passed time zone
+	 * @param tz The time zone
+	 * @param year The year
+	 * @param month The month, January is 1
+	 * @param day The day of the month
+	 * @param hour The hour of the day
+	 * @param minute The minute
+	 * @param second The second
+	 * @return the epoch millis
+	 */
+	static long time(TimeZone tz, int year, int month, int day, int hour, int minute, int second) {
+		final Calendar cal = Calendar.getInstance(tz);
+		cal.clear();
+		cal.set(year, month - 1, day, hour, minute, second);
+		return cal.getTimeInMillis();
+	}
+	
+	/**
+	 * Returns the epoch millis of a UTC time
+	 * @param year The year
+	 * @param month The month, January is 1
+	 * @param day The day of the month
+	 * @param hour The hour of the day
+	 * @param minute The minute
+	 * @param second The second
+	 * @return the epoch millis
+	 */
+	static long utc(int year, int month, int day, int hour, int minute, int second) {
+		return time(UTC, year, month, day, hour, minute, second);
+	}
+	
+	/**
+	 * Tests that the next fire time is strictly after the passed time, stepping through seconds and minutes
+	 */
+	@Test
+	public void testNextFireIsStrictlyAfter() {
+		final CronSchedule cron = new CronSchedule("*/15 * * * * ?", UTC);
+		assertTrue(cron.isCompiled());
+		assertEquals(utc(2014, 6, 10, 10, 0, 15), cron.nextFireTime(utc(2014, 6, 10, 10, 0, 7)));
+		assertEquals(utc(2014, 6, 10, 10, 0, 30), cron.nextFireTime(utc(2014, 6, 10, 10, 0, 15)));
+		assertEquals(utc(2014, 6, 10, 10, 1, 0), cron.nextFireTime(utc(2014, 6, 10, 10, 0, 59) + 500));
+	}
+	
+	/**
+	 * Tests that a daily schedule rolls over to the next day, month and year
+	 */
+	@Test
+	public void testDailyRollover() {
+		final CronSchedule cron = new CronSchedule("0 30 9 * * ?", UTC);
+		assertEquals(utc(2014, 6, 11, 9, 30, 0), cron.nextFireTime(utc(2014, 6, 10, 9, 30, 0)));
+		assertEquals(utc(2014, 7, 1, 9, 30, 0), cron.nextFireTime(utc(2014, 6, 30, 12, 0, 0)));
+		assertEquals(utc(2015, 1, 1, 9, 30, 0), cron.nextFireTime(utc(2014, 12, 31, 9, 30, 0)));
+	}
+	
+	/**
+	 * Tests month and day of week names and ranges
+	 */
+	@Test
+	public void testNamesAndRanges() {
+		final CronSchedule cron = new CronSchedule("0 0 12 ? JAN,JUL MON-FRI", UTC);
+		// Friday 31 January 2014 to Tuesday 1 July 2014
+		assertEquals(utc(2014, 7, 1, 12, 0, 0), cron.nextFireTime(utc(2014, 1, 31, 12, 0, 0)));
+		// Friday 4 July 2014 to Monday 7 July 2014
+		assertEquals(utc(2014, 7, 7, 12, 0, 0), cron.nextFireTime(utc(2014, 7, 4, 12, 0, 0)));
+	}
+	
+	/**
+	 * Tests that days of the month missing from a month are skipped, including leap days
+	 */
+	@Test
+	public void testShortMonths() {
+		assertEquals(utc(2014, 3, 31, 0, 0, 0), new CronSchedule("0 0 0 31 * ?", UTC).nextFireTime(utc(2014, 1, 31, 0, 0, 0)));
+		assertEquals(utc(2016, 2, 29, 0, 0, 0), new CronSchedule("0 0 0 29 2 ?", UTC).nextFireTime(utc(2014, 1, 1, 0, 0, 0)));
+	}
+	
+	/**
+	 * Tests that a day matches if either the day of month or the day of week matches when both fields are restricted
+	 */
+	@Test
+	public void testDayOfMonthOrDayOfWeek() {
+		final CronSchedule cron = new CronSchedule("0 0 0 1 * MON", UTC);
+		// Sunday 1 June 2014 matches the day of month
+		long next = cron.nextFireTime(utc(2014, 5, 31, 12, 0, 0));
+		assertEquals(utc(2014, 6, 1, 0, 0, 0), next);
+		// Monday 2 June 2014 matches the day of week
+		next = cron.nextFireTime(next);
+		assertEquals(utc(2014, 6, 2, 0, 0, 0), next);
+		next = cron.nextFireTime(next);
+		assertEquals(utc(2014, 6, 9, 0, 0, 0), next);
+	}
+	
+	/**
+	 * Tests that an unrestricted day of month field does not widen a restricted day of week field
+	 */
+	@Test
+	public void testUnrestrictedDayOfMonth() {
+		assertEquals(utc(2014, 6, 2, 0, 0, 0), new CronSchedule("0 0 0 * * MON", UTC).nextFireTime(utc(2014, 5, 31, 12, 0, 0)));
+		assertEquals(utc(2014, 6, 2, 0, 0, 0), new CronSchedule("0 0 0 ? * MON", UTC).nextFireTime(utc(2014, 5, 31, 12, 0, 0)));
+	}
+	
+	/**
+	 * Tests that a day field written as its full range is unrestricted, so it does not widen the other day field
+	 */
+	@Test
+	public void testFullRangeDayFieldUnrestricted() {
+		assertEquals(utc(2014, 6, 2, 0, 0, 0), new CronSchedule("0 0 0 1-31 * MON", UTC).nextFireTime(utc(2014, 5, 31, 12, 0, 0)));
+		assertEquals(utc(2014, 6, 2, 0, 0, 0), new CronSchedule("0 0 0 */1 * MON", UTC).nextFireTime(utc(2014, 5, 31, 12, 0, 0)));
+		// Sunday 1 June 2014 is the first day of month after the 2nd of May
+		assertEquals(utc(2014, 6, 1, 0, 0, 0), new CronSchedule("0 0 0 1 * SUN-SAT", UTC).nextFireTime(utc(2014, 5, 2, 0, 0, 0)));
+		assertEquals(utc(2014, 6, 1, 0, 0, 0), new CronSchedule("0 0 0 1 * 1-7", UTC).nextFireTime(utc(2014, 5, 2, 0, 0, 0)));
+	}
+	
+	/**
+	 * Tests that a local time in the spring forward gap is skipped
+	 */
+	@Test
+	public void testSpringForwardGap() {
+		// 2:30 does not exist on 9 March 2014 in New York
+		final CronSchedule daily = new CronSchedule("0 30 2 * * ?", NEW_YORK);
+		assertEquals(time(NEW_YORK, 2014, 3, 10, 2, 30, 0), daily.nextFireTime(time(NEW_YORK, 2014, 3, 9, 0, 0, 0)));
+		// an hourly schedule goes from 1:00 EST to 3:00 EDT, one hour later
+		final CronSchedule hourly = new CronSchedule("0 0 * * * ?", NEW_YORK);
+		final long one = time(NEW_YORK, 2014, 3, 9, 1, 0, 0);
+		assertEquals(one + 3600000L, hourly.nextFireTime(one));
+	}
+	
+	/**
+	 * Tests that a repeated local time in the fall back overlap fires once, at the later instant
+	 */
+	@Test
+	public void testFallBackOverlap() {
+		final CronSchedule daily = new CronSchedule("0 30 1 * * ?", NEW_YORK);
+		// 1:30 occurs at 05:30 UTC (EDT) and again at 06:30 UTC (EST) on 2 November 2014
+		final long next = daily.nextFireTime(time(NEW_YORK, 2014, 11, 2, 0, 0, 0));
+		assertEquals(utc(2014, 11, 2, 6, 30, 0), next);
+		assertEquals(utc(2014, 11, 3, 6, 30, 0), daily.nextFireTime(next));
+	}
+	
+	/**
+	 * Tests that compiled expressions agree with Quartz over a run of fire times
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testAgreesWithQuartz() throws Exception {
+		final String[] expressions = {"0 */5 * * * ?", "15 10 8-17 ? * MON-FRI", "0 0 0 1,15 * ?", "0 0/30 9-10 ? JUN-AUG SAT,SUN"};
+		for(TimeZone tz: new TimeZone[]{UTC, NEW_YORK}) {
+			for(String expression: expressions) {
+				final CronSchedule cron = new CronSchedule(expression, tz);
+				assertTrue(cron.isCompiled());
+				final CronExpression quartz = new CronExpression(expression);
+				quartz.setTimeZone(tz);
+				long t = time(tz, 2014, 1, 1, 0, 0, 0);
+				for(int i = 0; i < 200; i++) {
+					final long expected = quartz.getNextValidTimeAfter(new java.util.Date(t)).getTime();
+					final long actual = cron.nextFireTime(t);
+					assertEquals(expression + " in " + tz.getID() + " after " + new java.util.Date(t), expected, actual);
+					t = actual;
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Tests that expressions using day modifiers are delegated to Quartz
+	 */
+	@Test
+	public void testDelegatesDayModifiers() {
+		final CronSchedule cron = new CronSchedule("0 0 12 L * ?", UTC);
+		assertFalse(cron.isCompiled());
+		assertEquals(utc(2014, 2, 28, 12, 0, 0), cron.nextFireTime(utc(2014, 2, 1, 0, 0, 0)));
+	}
+	
+	/**
+	 * Tests that invalid expressions are rejected
+	 */
+	@Test
+	public void testInvalidExpressions() {
+		for(String expression: new String[]{"0 0 * *", "0 61 * * * ?", "0 0 25 * * ?", "0 0 0 * FOO ?"}) {
+			try {
+				new CronSchedule(expression, UTC);
+				fail("Expected [" + expression + "] to be rejected");
+			} catch (IllegalArgumentException expected) {
+				/* No Op */
+			}
+		}
+	}
+}
@@ -0,0 +1,193 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>Title: HashedTimingWheelTestCase</p>
+ * <p>Description: Tests the slotting and cascading of {@link HashedTimingWheel}. The wheel's ticks are driven by the test 
+ * rather than the wheel thread, so each task can be checked to expire on exactly its due tick.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.HashedTimingWheelTestCase</code></p>
+ */
+
+public class HashedTimingWheelTestCase {
+	/** A task body that does nothing */
+	static final Runnable NOOP = new Runnable() {
+		@Override
+		public void run() {
+			/* No Op */
+		}
+	};
+	/** The tick each task was dispatched on */
+	final Map<ScheduledTask<?>, Long> expired = new HashMap<ScheduledTask<?>, Long>();
+	/** The tasks in the order they were dispatched */
+	final List<ScheduledTask<?>> order = new ArrayList<ScheduledTask<?>>();
+	/** The wheel under test */
+	HashedTimingWheel wheel = null;
+	
+	/**
+	 * Creates a wheel whose dispatcher records the tick each task expires on
+	 */
+	@Before
+	public void createWheel() {
+		wheel = new HashedTimingWheel("Test", 1, TimeUnit.MILLISECONDS, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				expired.put((ScheduledTask<?>)command, wheel.currentTick);
+				order.add((ScheduledTask<?>)command);
+			}
+		});
+	}
+	
+	/**
+	 * Creates a one shot task due on the passed tick
+	 * @param due The due tick
+	 * @return the task
+	 */
+	static ScheduledTask<Void> task(long due) {
+		ScheduledTask<Void> task = new ScheduledTask<Void>(null, NOOP, null, 0L, 0L);
+		task.deadlineTick = due;
+		return task;
+	}
+	
+	/**
+	 * Advances the wheel one tick at a time to the passed tick, as the wheel thread would
+	 * @param tick The tick to advance to
+	 */
+	void advanceTo(long tick) {
+		for(long t = wheel.currentTick + 1; t <= tick; t++) {
+			wheel.currentTick = t;
+			wheel.processPending();
+			wheel.advance(t);
+		}
+	}
+	
+	/**
+	 * Tests that tasks are slotted into the level of the highest tick digit that differs from the current tick
+	 */
+	@Test
+	public void testLevelPlacement() {
+		final long[] dues = {10L, 100L, 5000L, 300000L, (1L << 24) + 5};
+		final int[] levels = {0, 1, 2, 3, HashedTimingWheel.LEVELS};
+		final int[] slots = {10, 1, 1, 1, 0};
+		for(int i = 0; i < dues.length; i++) {
+			ScheduledTask<Void> task = task(dues[i]);
+			wheel.place(task);
+			assertEquals("Level of " + dues[i], levels[i], task.level);
+			assertEquals("Slot of " + dues[i], slots[i], task.slot);
+		}
+		assertEquals(0, wheel.getExpiredCount());
+	}
+	
+	/**
+	 * Tests that tasks in every level, and in the overflow list, cascade down and expire on exactly their due tick
+	 */
+	@Test
+	public void testCascadeExpiresOnDueTick() {
+		final long[] dues = {1L, 63L, 64L, 65L, 4095L, 4096L, 4097L, 262143L, 262144L, 262145L, (1L << 24) - 1, 1L << 24, (1L << 24) + 3};
+		final List<ScheduledTask<Void>> tasks = new ArrayList<ScheduledTask<Void>>();
+		for(long due: dues) {
+			ScheduledTask<Void> task = task(due);
+			tasks.add(task);
+			wheel.pending.add(task);
+		}
+		advanceTo(dues[dues.length - 1]);
+		assertEquals(dues.length, wheel.getExpiredCount());
+		for(int i = 0; i < dues.length; i++) {
+			assertEquals("Expiry tick of task due on " + dues[i], Long.valueOf(dues[i]), expired.get(tasks.get(i)));
+			assertEquals("Expiry order", tasks.get(i), order.get(i));
+		}
+	}
+	
+	/**
+	 * Tests that a task added after the wheel has turned is slotted relative to the current tick and cascades across a level boundary
+	 */
+	@Test
+	public void testCascadeFromCurrentTick() {
+		advanceTo(1000L);
+		final ScheduledTask<Void> near = task(1070L);
+		final ScheduledTask<Void> far = task(1000L + 70000L);
+		wheel.pending.add(near);
+		wheel.pending.add(far);
+		advanceTo(1069L);
+		assertTrue(expired.isEmpty());
+		advanceTo(71000L);
+		assertEquals(Long.valueOf(1070L), expired.get(near));
+		assertEquals(Long.valueOf(71000L), expired.get(far));
+	}
+	
+	/**
+	 * Tests that a task placed on or after its due tick expires immediately
+	 */
+	@Test
+	public void testOverdueTaskExpiresImmediately() {
+		advanceTo(10L);
+		final ScheduledTask<Void> task = task(5L);
+		wheel.place(task);
+		assertEquals(Long.valueOf(10L), expired.get(task));
+		assertEquals(-1, task.level);
+	}
+	
+	/**
+	 * Tests that the running wheel does not dispatch a task before its due time
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testRunningWheelDispatchesOnTime() throws Exception {
+		final HashedTimingWheel running = new HashedTimingWheel("TestRunning", 5, TimeUnit.MILLISECONDS, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				command.run();
+			}
+		});
+		running.start();
+		try {
+			final long start = System.nanoTime();
+			final ScheduledTask<Void> task = new ScheduledTask<Void>(null, NOOP, null, start + TimeUnit.MILLISECONDS.toNanos(50), 0L);
+			running.add(task);
+			task.get(5, TimeUnit.SECONDS);
+			final long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+			assertTrue("Dispatched early after [" + elapsed + "] ms.", elapsed >= 50);
+			assertEquals(1, running.getExpiredCount());
+			assertEquals(0, running.getTaskCount());
+		} finally {
+			running.stop();
+		}
+	}
+}
@@ -0,0 +1,165 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.helios.jmx.util.helpers.JMXHelper;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.heliosapm.watchtower.groovy.annotation.CollectionPriority;
+
+/**
+ * <p>Title: ModalThreadPoolTestCase</p>
+ * <p>Description: Tests that a {@link ModalThreadPool} in pool mode counts its rejections, and that the tasks it wraps
+ * for auto sizing keep their {@link PrioritizedTask}, {@link TargetedTask} and {@link RejectableTask} markers.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ModalThreadPoolTestCase</code></p>
+ */
+
+public class ModalThreadPoolTestCase {
+	/** The pool under test */
+	ModalThreadPool pool = null;
+	
+	/**
+	 * <p>Title: MarkedTask</p>
+	 * <p>Description: A task carrying the prioritized, targeted and rejectable markers</p> 
+	 * <p><code>com.heliosapm.watchtower.core.ModalThreadPoolTestCase.MarkedTask</code></p>
+	 */
+	static class MarkedTask implements PrioritizedTask, TargetedTask, RejectableTask {
+		/** The number of times the task was rejected */
+		final AtomicInteger rejections = new AtomicInteger(0);
+		
+		@Override
+		public void run() {
+			/* No Op */
+		}
+		@Override
+		public CollectionPriority getPriority() {
+			return CollectionPriority.HIGH;
+		}
+		@Override
+		public String getTarget() {
+			return "db1";
+		}
+		@Override
+		public void onRejected(RejectedExecutionException rex) {
+			rejections.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Creates a single threaded pool
+	 */
+	@Before
+	public void createPool() {
+		pool = new ModalThreadPool(JMXHelper.objectName("com.heliosapm.watchtower.test:service=ThreadPool,name=ModalTest"), "ModalTest", false);
+		pool.setCorePoolSize(1);
+		pool.setMaximumPoolSize(1);
+	}
+	
+	/**
+	 * Shuts the pool down
+	 */
+	@After
+	public void shutdownPool() {
+		if(pool.autoSizer!=null) pool.autoSizer.setEnabled(false);
+		pool.shutdownNow();
+	}
+	
+	/**
+	 * Tests that tasks rejected in pool mode are counted
+	 */
+	@Test
+	public void testPoolModeRejectionCounted() {
+		assertFalse(pool.isVirtual());
+		pool.shutdown();
+		try {
+			pool.execute(new MarkedTask());
+			fail("Execution not rejected");
+		} catch (RejectedExecutionException rex) {
+			/* Expected */
+		}
+		assertEquals(1L, pool.getRejectedCount());
+	}
+	
+	/**
+	 * Tests that a task queued by an auto sized pool keeps its markers
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testAutoSizedTaskKeepsMarkers() throws Exception {
+		pool.autoSizer.setEnabled(true);
+		final CountDownLatch started = new CountDownLatch(1);
+		final CountDownLatch release = new CountDownLatch(1);
+		pool.execute(new Runnable() {
+			@Override
+			public void run() {
+				started.countDown();
+				try { release.await(5, TimeUnit.SECONDS); } catch (InterruptedException iex) { /* No Op */ }
+			}
+		});
+		assertTrue(started.await(5, TimeUnit.SECONDS));
+		final MarkedTask task = new MarkedTask();
+		pool.execute(task);
+		final Runnable queued = pool.getQueue().peek();
+		release.countDown();
+		assertTrue("Priority marker lost", queued instanceof PrioritizedTask);
+		assertTrue("Target marker lost", queued instanceof TargetedTask);
+		assertTrue("Rejection marker lost", queued instanceof RejectableTask);
+		assertEquals(CollectionPriority.HIGH, ((PrioritizedTask)queued).getPriority());
+		assertEquals("db1", ((TargetedTask)queued).getTarget());
+		((RejectableTask)queued).onRejected(new RejectedExecutionException());
+		assertEquals(1, task.rejections.get());
+	}
+	
+	/**
+	 * Tests that a task without markers is not given any by the auto sizer's wrapper
+	 */
+	@Test
+	public void testUnmarkedTaskNotMarked() {
+		pool.autoSizer.setEnabled(true);
+		final Runnable wrapped = pool.autoSizer.wrap(new Runnable() {
+			@Override
+			public void run() {
+				/* No Op */
+			}
+		});
+		assertFalse(wrapped instanceof PrioritizedTask);
+		assertFalse(wrapped instanceof TargetedTask);
+		assertFalse(wrapped instanceof RejectableTask);
+	}
+}
@@ -0,0 +1,118 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.heliosapm.watchtower.core.impl.CollectionResult;
+
+/**
+ * <p>Title: ParallelCollectorTestCase</p>
+ * <p>Description: Tests the joined results of {@link ParallelCollector} invocations and the cancellation of an invocation 
+ * by an interrupt of the calling thread.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ParallelCollectorTestCase</code></p>
+ */
+
+public class ParallelCollectorTestCase {
+	/** The parallel collector */
+	final ParallelCollector collector = ParallelCollector.getParallelCollector();
+	
+	/**
+	 * Clears any interrupt left on the test thread
+	 */
+	@After
+	public void clearInterrupt() {
+		Thread.interrupted();
+	}
+	
+	/**
+	 * Creates a list of the integers from zero to the passed count
+	 * @param count The number of items
+	 * @return the items
+	 */
+	static List<Integer> items(int count) {
+		final List<Integer> items = new ArrayList<Integer>(count);
+		for(int i = 0; i < count; i++) items.add(i);
+		return items;
+	}
+	
+	/**
+	 * Tests that item results are joined across lanes: complete when every item completes, partial when some fail
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testJoinedResult() throws Exception {
+		final AtomicInteger collected = new AtomicInteger(0);
+		CollectionResult result = collector.invoke("testJoinedResult", items(50), 4, new ParallelCollector.ItemTask<Integer>() {
+			@Override
+			public Object collect(Integer item) throws Exception {
+				collected.incrementAndGet();
+				return null;
+			}
+		});
+		assertEquals(CollectionResult.COMPLETE, result);
+		assertEquals(50, collected.get());
+		result = collector.invoke("testJoinedResult", items(50), 4, new ParallelCollector.ItemTask<Integer>() {
+			@Override
+			public Object collect(Integer item) throws Exception {
+				if(item % 10 == 0) throw new Exception("Test failure of item [" + item + "]");
+				return CollectionResult.COMPLETE;
+			}
+		});
+		assertEquals(CollectionResult.PARTIAL, result);
+	}
+	
+	/**
+	 * Tests that the calling lane stops claiming items once the calling thread is interrupted, 
+	 * and that the interrupt is handed back to the caller
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testCallerInterruptCancels() throws Exception {
+		final long cancelled = collector.getCancelledCount();
+		final AtomicInteger collected = new AtomicInteger(0);
+		final CollectionResult result = collector.invoke("testCallerInterruptCancels", items(10), 1, new ParallelCollector.ItemTask<Integer>() {
+			@Override
+			public Object collect(Integer item) throws Exception {
+				if(collected.incrementAndGet()==2) Thread.currentThread().interrupt();
+				return CollectionResult.COMPLETE;
+			}
+		});
+		assertTrue("Interrupt not handed back", Thread.interrupted());
+		assertEquals(2, collected.get());
+		assertEquals(CollectionResult.PARTIAL, result);
+		assertEquals(cancelled + 1, collector.getCancelledCount());
+	}
+}
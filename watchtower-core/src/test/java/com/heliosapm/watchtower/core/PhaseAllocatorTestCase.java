@@ -0,0 +1,145 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import org.junit.Test;
+
+/**
+ * <p>Title: PhaseAllocatorTestCase</p>
+ * <p>Description: Tests the spreading of schedule phases by {@link PhaseAllocator}</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.PhaseAllocatorTestCase</code></p>
+ */
+
+public class PhaseAllocatorTestCase {
+	
+	/**
+	 * Tests that schedules of the same period are given distinct phases until every bucket is occupied
+	 */
+	@Test
+	public void testSamePeriodSpreads() {
+		final PhaseAllocator allocator = new PhaseAllocator(60000L, 100L);
+		final Set<Long> phases = new HashSet<Long>();
+		for(int i = 0; i < 10; i++) {
+			final long phase = allocator.allocate(1000L);
+			assertTrue("Phase [" + phase + "] out of range", phase >= 0 && phase < 1000L);
+			assertEquals(0, phase % 100L);
+			assertTrue("Duplicate phase [" + phase + "]", phases.add(phase));
+		}
+		assertEquals(1, allocator.getPeakLoad());
+		allocator.allocate(1000L);
+		assertEquals(2, allocator.getPeakLoad());
+		assertEquals(11, allocator.getAllocations());
+	}
+	
+	/**
+	 * Tests that a shorter period avoids the buckets occupied by a longer one
+	 */
+	@Test
+	public void testMixedPeriodsAvoidEachOther() {
+		final PhaseAllocator allocator = new PhaseAllocator(60000L, 100L);
+		final long slow = allocator.allocate(2000L);
+		final long fast = allocator.allocate(1000L);
+		assertEquals(0L, slow);
+		assertFalse("Fast phase collides with slow phase", (fast % 1000L)==(slow % 1000L));
+		assertEquals(1, allocator.getPeakLoad());
+	}
+	
+	/**
+	 * Tests that a released phase is handed out again
+	 */
+	@Test
+	public void testReleaseFreesBuckets() {
+		final PhaseAllocator allocator = new PhaseAllocator(60000L, 100L);
+		for(int i = 0; i < 5; i++) {
+			allocator.allocate(1000L);
+		}
+		allocator.release(1000L, 200L);
+		assertEquals(4, allocator.getAllocations());
+		assertEquals(200L, allocator.allocate(1000L));
+		assertEquals(1, allocator.getPeakLoad());
+	}
+	
+	/**
+	 * Tests that periods shorter than the resolution are not phased
+	 */
+	@Test
+	public void testShortPeriodNotPhased() {
+		final PhaseAllocator allocator = new PhaseAllocator(60000L, 100L);
+		assertEquals(-1L, allocator.allocate(50L));
+		assertEquals(0, allocator.getAllocations());
+		allocator.release(50L, -1L);
+		assertEquals(0, allocator.getPeakLoad());
+	}
+	
+	/**
+	 * Tests that the first delay honours the minimum delay and lands on the phase's grid
+	 */
+	@Test
+	public void testFirstDelay() {
+		final PhaseAllocator allocator = new PhaseAllocator(60000L, 100L);
+		final long period = 1000L, phase = 300L, minDelay = 2500L;
+		final long now = (System.nanoTime() - allocator.origin) / 1000000L;
+		final long delay = allocator.firstDelay(minDelay, period, phase);
+		assertTrue("Delay [" + delay + "] under the minimum", delay >= minDelay);
+		assertTrue("Delay [" + delay + "] over a period past the minimum", delay < minDelay + period + 10);
+		// the allocator's clock may tick over between the two reads
+		final long offset = (now + delay - phase) % period;
+		assertTrue("Delay [" + delay + "] off the phase grid by [" + offset + "] ms.", offset <= 10 || offset >= period - 10);
+	}
+	
+	/**
+	 * Tests that the horizon is truncated to whole buckets
+	 */
+	@Test
+	public void testHorizonTruncated() {
+		assertEquals(60000L, new PhaseAllocator(60050L, 100L).getHorizon());
+	}
+	
+	/**
+	 * Tests that invalid dimensions are rejected
+	 */
+	@Test
+	public void testInvalidDimensions() {
+		final long[][] dimensions = {{50L, 100L}, {1000L, 0L}};
+		for(long[] d: dimensions) {
+			try {
+				new PhaseAllocator(d[0], d[1]);
+				fail("Expected horizon [" + d[0] + "] and resolution [" + d[1] + "] to be rejected");
+			} catch (IllegalArgumentException expected) {
+				/* No Op */
+			}
+		}
+	}
+}
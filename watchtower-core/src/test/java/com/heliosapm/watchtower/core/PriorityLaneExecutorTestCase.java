@@ -0,0 +1,196 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import org.junit.Test;
+
+import com.heliosapm.watchtower.groovy.annotation.CollectionPriority;
+
+/**
+ * <p>Title: PriorityLaneExecutorTestCase</p>
+ * <p>Description: Tests the admission order of the {@link PriorityLaneExecutor}: the weighted shares of backed up lanes, 
+ * the promotion of aged executions and the handling of rejections. The executor admits one execution at a time to a 
+ * delegate that queues the admitted executions until the test runs them, so admission order is deterministic.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.PriorityLaneExecutorTestCase</code></p>
+ */
+
+public class PriorityLaneExecutorTestCase {
+	/** The executions admitted to the delegate and not yet run */
+	final LinkedList<Runnable> admitted = new LinkedList<Runnable>();
+	/** The priorities of the executions run, in run order */
+	final List<CollectionPriority> ran = new ArrayList<CollectionPriority>();
+	/** The delegate queueing admitted executions */
+	final Executor delegate = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			admitted.add(command);
+		}
+	};
+	
+	/**
+	 * <p>Title: LaneTestTask</p>
+	 * <p>Description: A prioritized execution that records its priority when run</p> 
+	 * <p><code>com.heliosapm.watchtower.core.PriorityLaneExecutorTestCase.LaneTestTask</code></p>
+	 */
+	class LaneTestTask implements PrioritizedTask, RejectableTask {
+		/** The execution's priority */
+		final CollectionPriority priority;
+		/** The rejection passed to the execution, if any */
+		RejectedExecutionException rejection = null;
+		
+		/**
+		 * Creates a new LaneTestTask
+		 * @param priority The execution's priority
+		 */
+		LaneTestTask(CollectionPriority priority) {
+			this.priority = priority;
+		}
+		
+		@Override
+		public CollectionPriority getPriority() {
+			return priority;
+		}
+		
+		@Override
+		public void onRejected(RejectedExecutionException rex) {
+			rejection = rex;
+		}
+		
+		@Override
+		public void run() {
+			ran.add(priority);
+		}
+	}
+	
+	/**
+	 * Submits the passed number of executions of each priority
+	 * @param executor The executor to submit to
+	 * @param count The number of executions per priority
+	 * @param priorities The priorities
+	 */
+	void submit(PriorityLaneExecutor executor, int count, CollectionPriority...priorities) {
+		for(CollectionPriority p: priorities) {
+			for(int i = 0; i < count; i++) {
+				executor.execute(new LaneTestTask(p));
+			}
+		}
+	}
+	
+	/**
+	 * Runs the passed number of admitted executions, each admitting the next as it completes
+	 * @param count The number of executions to run
+	 */
+	void run(int count) {
+		for(int i = 0; i < count; i++) {
+			assertEquals("Expected one admitted execution", 1, admitted.size());
+			admitted.poll().run();
+		}
+	}
+	
+	/**
+	 * Counts the runs of the passed priority
+	 * @param priority The priority
+	 * @return the number of runs
+	 */
+	int ran(CollectionPriority priority) {
+		int count = 0;
+		for(CollectionPriority p: ran) {
+			if(p==priority) count++;
+		}
+		return count;
+	}
+	
+	/**
+	 * Tests that backed up lanes are served in proportion to their weights
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testWeightedShares() throws Exception {
+		final PriorityLaneExecutor executor = new PriorityLaneExecutor(delegate, 1, 3600000L);
+		submit(executor, 1, CollectionPriority.NORMAL);
+		submit(executor, 20, CollectionPriority.LOW, CollectionPriority.NORMAL, CollectionPriority.HIGH);
+		assertEquals(60, executor.getQueueDepth());
+		assertEquals(1, executor.getActiveCount());
+		run(1);
+		ran.clear();
+		final int round = CollectionPriority.HIGH.defaultWeight + CollectionPriority.NORMAL.defaultWeight + CollectionPriority.LOW.defaultWeight;
+		run(round);
+		assertEquals(CollectionPriority.HIGH.defaultWeight, ran(CollectionPriority.HIGH));
+		assertEquals(CollectionPriority.NORMAL.defaultWeight, ran(CollectionPriority.NORMAL));
+		assertEquals(CollectionPriority.LOW.defaultWeight, ran(CollectionPriority.LOW));
+		assertEquals(CollectionPriority.HIGH, ran.get(0));
+		assertEquals(0L, executor.getPromotedCount());
+	}
+	
+	/**
+	 * Tests that an execution waiting past the aging threshold is served ahead of the weighted order, 
+	 * and that the next admission follows the weighted order again
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testAgedPromotion() throws Exception {
+		final PriorityLaneExecutor executor = new PriorityLaneExecutor(delegate, 1, 50L);
+		submit(executor, 1, CollectionPriority.HIGH);
+		submit(executor, 1, CollectionPriority.LOW);
+		Thread.sleep(100);
+		submit(executor, 2, CollectionPriority.HIGH);
+		run(3);
+		assertEquals(CollectionPriority.LOW, ran.get(1));
+		assertEquals(CollectionPriority.HIGH, ran.get(2));
+		assertEquals(1L, executor.getPromotedCount());
+	}
+	
+	/**
+	 * Tests that an execution the delegate rejects is told of the rejection and releases its admission slot
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testRejection() throws Exception {
+		final PriorityLaneExecutor executor = new PriorityLaneExecutor(new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				throw new RejectedExecutionException("Test");
+			}
+		}, 1, 3600000L);
+		final LaneTestTask task = new LaneTestTask(CollectionPriority.LOW);
+		executor.execute(task);
+		assertTrue("Rejection not passed on", task.rejection!=null);
+		assertEquals(1L, executor.getRejectedCount());
+		assertEquals(0, executor.getActiveCount());
+		assertEquals(0, executor.getQueueDepth());
+		assertTrue("Rejected execution ran", ran.isEmpty());
+	}
+}
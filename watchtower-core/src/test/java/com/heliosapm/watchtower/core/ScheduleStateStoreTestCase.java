@@ -0,0 +1,179 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.RandomAccessFile;
+import java.nio.channels.FileLock;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>Title: ScheduleStateStoreTestCase</p>
+ * <p>Description: Tests the {@link ScheduleStateStore}: the exclusive lock on the state file, 
+ * and the reclaiming of stale records at runtime and when the file is opened. The stores are opened on a 
+ * 16 slot file in a temp directory, so colliding keys are found quickly.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.ScheduleStateStoreTestCase</code></p>
+ */
+
+public class ScheduleStateStoreTestCase {
+	/** The number of slots in the test state files */
+	static final int SLOTS = 16;
+	/** The temp directory holding the test state files */
+	File dir = null;
+	/** The test state file */
+	File file = null;
+	/** The stores opened by the test */
+	ScheduleStateStore first = null, second = null;
+	
+	/**
+	 * Creates the temp directory and sizes new state files to 16 slots with a one minute stale age
+	 * @throws Exception thrown on any error
+	 */
+	@Before
+	public void setUp() throws Exception {
+		dir = File.createTempFile("ScheduleStateStoreTestCase", "");
+		dir.delete();
+		dir.mkdirs();
+		file = new File(dir, "schedule.state");
+		System.setProperty(ScheduleStateStore.STATE_SLOTS_PROP, "" + SLOTS);
+		System.setProperty(ScheduleStateStore.STALE_AGE_PROP, "60000");
+	}
+	
+	/**
+	 * Closes the stores, clears the properties and deletes the temp directory
+	 */
+	@After
+	public void tearDown() {
+		if(first!=null) first.close();
+		if(second!=null) second.close();
+		System.clearProperty(ScheduleStateStore.STATE_SLOTS_PROP);
+		System.clearProperty(ScheduleStateStore.STALE_AGE_PROP);
+		File[] files = dir.listFiles();
+		if(files!=null) for(File f: files) f.delete();
+		dir.delete();
+	}
+	
+	/**
+	 * Returns a key that hashes to the same home slot as the passed key
+	 * @param key The key to collide with
+	 * @return a different key with the same home slot
+	 */
+	static String collide(String key) {
+		final long home = (ScheduleStateStore.hash(key) & Long.MAX_VALUE) % SLOTS;
+		for(int i = 0; ; i++) {
+			String candidate = key + "#" + i;
+			if((ScheduleStateStore.hash(candidate) & Long.MAX_VALUE) % SLOTS == home) return candidate;
+		}
+	}
+	
+	/**
+	 * Marks the record in the passed slot as last updated at the epoch, well beyond the stale age
+	 * @param store The store
+	 * @param slot The slot
+	 */
+	static void age(ScheduleStateStore store, int slot) {
+		store.buffer.putLong(16 + (slot * 32) + 24, 1L);
+	}
+	
+	/**
+	 * Tests that a second store on a locked state file falls over to the first numbered sibling, 
+	 * and that the lock is released on close
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testLockedFileFallsOverToSibling() throws Exception {
+		first = new ScheduleStateStore(file);
+		assertEquals(file.getAbsolutePath(), first.getFileName());
+		second = new ScheduleStateStore(file);
+		assertEquals(new File(dir, "schedule.1.state").getAbsolutePath(), second.getFileName());
+		final int slot = first.slot("a");
+		first.record(slot, 1000L, 2000L);
+		assertEquals(0L, second.getLastFire(second.slot("a")));
+		first.close();
+		try (RandomAccessFile raf = new RandomAccessFile(file, "rw")) {
+			FileLock lock = raf.getChannel().tryLock();
+			assertTrue("Lock not released on close", lock!=null);
+			lock.release();
+		}
+		first = null;
+	}
+	
+	/**
+	 * Tests that a new schedule takes over a stale record on its probe chain only when the record is not held in this process
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testStaleSlotReclaim() throws Exception {
+		first = new ScheduleStateStore(file);
+		final String key = "a";
+		final int slot = first.slot(key);
+		first.record(slot, 1000L, 2000L);
+		age(first, slot);
+		final int other = first.slot(collide(key));
+		assertFalse("Held slot reclaimed", slot==other);
+		assertEquals(0L, first.getReclaimedSlots());
+		assertEquals(2, first.getUsedSlots());
+		// a record left by a schedule this process does not run
+		first.held.clear(slot);
+		final int reclaimer = first.slot(collide(collide(key)));
+		assertEquals(slot, reclaimer);
+		assertEquals(1L, first.getReclaimedSlots());
+		assertEquals(2, first.getUsedSlots());
+		assertEquals(0L, first.getLastFire(reclaimer));
+		assertEquals(0L, first.getNextFire(reclaimer));
+	}
+	
+	/**
+	 * Tests that stale records are dropped when the file is opened, while live records keep their fire times
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testCompactOnOpen() throws Exception {
+		first = new ScheduleStateStore(file);
+		final int stale = first.slot("stale");
+		first.record(stale, 1000L, 2000L);
+		age(first, stale);
+		first.record(first.slot("live"), 3000L, 4000L);
+		first.close();
+		first = null;
+		second = new ScheduleStateStore(file);
+		assertEquals(file.getAbsolutePath(), second.getFileName());
+		assertEquals(1, second.getUsedSlots());
+		assertEquals(1L, second.getReclaimedSlots());
+		final int live = second.slot("live");
+		assertEquals(3000L, second.getLastFire(live));
+		assertEquals(4000L, second.getNextFire(live));
+		assertEquals(0L, second.getLastFire(second.slot("stale")));
+	}
+}
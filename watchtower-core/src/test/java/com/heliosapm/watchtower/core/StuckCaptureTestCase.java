@@ -0,0 +1,196 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
+
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArraySet;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+/**
+ * <p>Title: StuckCaptureTestCase</p>
+ * <p>Description: Tests the stuck sweep of the {@link CollectionWatchdog}. A thread parked on a latch stands in for a hung collection, 
+ * and is registered as an in flight execution through a stuck source.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.StuckCaptureTestCase</code></p>
+ */
+
+public class StuckCaptureTestCase {
+	/** The watchdog under test */
+	final CollectionWatchdog watchdog = CollectionWatchdog.getCollectionWatchdog();
+	/** Releases the hung thread when counted down */
+	final CountDownLatch release = new CountDownLatch(1);
+	/** The in flight executions registered with the watchdog */
+	final Set<WatchedExecution> executions = new CopyOnWriteArraySet<WatchedExecution>();
+	/** The hung thread */
+	Thread hung = null;
+	/** The stuck source registration */
+	CollectionWatchdog.StuckSource source = null;
+	/** The watchdog's stuck threshold before the test */
+	long threshold = -1L;
+	
+	/**
+	 * <p>Title: HungExecution</p>
+	 * <p>Description: An in flight execution recording the stuck samples passed to it</p> 
+	 * <p><code>com.heliosapm.watchtower.core.StuckCaptureTestCase.HungExecution</code></p>
+	 */
+	static class HungExecution implements WatchedExecution {
+		/** The thread running the execution */
+		final Thread thread;
+		/** The start time in ms. */
+		final long startTime = System.currentTimeMillis();
+		/** The number of stuck samples passed to the execution */
+		final AtomicInteger samples = new AtomicInteger(0);
+		/** The most recent stuck sample */
+		final AtomicReference<StuckSample> sample = new AtomicReference<StuckSample>(null);
+		
+		HungExecution(Thread thread) {
+			this.thread = thread;
+		}
+		@Override
+		public Thread getThread() {
+			return thread;
+		}
+		@Override
+		public String getExecutionName() {
+			return "HungBean.collect";
+		}
+		@Override
+		public long getStartTime() {
+			return startTime;
+		}
+		@Override
+		public void onDeadline() {
+			/* No Op */
+		}
+		@Override
+		public void onStuck(StuckSample stuckSample) {
+			sample.set(stuckSample);
+			samples.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Starts the hung thread and registers the in flight executions with a 50 ms. stuck threshold
+	 */
+	@Before
+	public void register() {
+		threshold = watchdog.getStuckThreshold();
+		watchdog.setStuckThreshold(50L);
+		hung = new Thread("HungCollection") {
+			@Override
+			public void run() {
+				try { release.await(); } catch (InterruptedException iex) { /* No Op */ }
+			}
+		};
+		hung.setDaemon(true);
+		hung.start();
+		source = watchdog.addStuckSource(executions);
+	}
+	
+	/**
+	 * Releases the hung thread, removes the stuck source and restores the stuck threshold
+	 */
+	@After
+	public void unregister() {
+		release.countDown();
+		source.remove();
+		watchdog.setStuckThreshold(threshold);
+	}
+	
+	/**
+	 * Waits for the passed execution to be sampled the passed number of times
+	 * @param execution The execution
+	 * @param samples The expected number of samples
+	 * @throws InterruptedException thrown if interrupted while waiting
+	 */
+	static void awaitSamples(HungExecution execution, int samples) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(execution.samples.get() < samples) {
+			assertTrue("Execution not sampled", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+	
+	/**
+	 * Tests that a hung execution is sampled once with the stack of its thread, however many sweeps find it still running
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testSampledOnce() throws Exception {
+		final long stuckCount = watchdog.getStuckCount();
+		final HungExecution execution = new HungExecution(hung);
+		executions.add(execution);
+		awaitSamples(execution, 1);
+		Thread.sleep(200);
+		assertEquals(1, execution.samples.get());
+		assertEquals(stuckCount + 1, watchdog.getStuckCount());
+		final StuckSample sample = execution.sample.get();
+		assertNotNull(sample);
+		assertEquals("HungBean.collect", sample.getExecutionName());
+		assertEquals("HungCollection", sample.getThreadName());
+		assertTrue("No frames captured", sample.getFrames().length > 0);
+		assertTrue("Latch wait not captured", sample.getStackTrace().contains("CountDownLatch.await"));
+	}
+	
+	/**
+	 * Tests that an execution that leaves and re-enters the in flight executions is sampled again
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testResampledAfterLeaving() throws Exception {
+		final HungExecution execution = new HungExecution(hung);
+		executions.add(execution);
+		awaitSamples(execution, 1);
+		executions.remove(execution);
+		Thread.sleep(1100);
+		executions.add(execution);
+		awaitSamples(execution, 2);
+	}
+	
+	/**
+	 * Tests that executions of a removed stuck source are no longer swept
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testRemovedSource() throws Exception {
+		source.remove();
+		final HungExecution execution = new HungExecution(hung);
+		executions.add(execution);
+		Thread.sleep(1100);
+		assertEquals(0, execution.samples.get());
+	}
+}
@@ -0,0 +1,163 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * <p>Title: TargetGateTestCase</p>
+ * <p>Description: Tests the {@link TargetGate}: concurrency permits, the token bucket, the parking of collections
+ * waiting for a permit and the counting of rejections.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.TargetGateTestCase</code></p>
+ */
+
+public class TargetGateTestCase {
+	/** The gate under test */
+	TargetGate gate = null;
+	
+	/**
+	 * Unregisters the gate under test
+	 */
+	@After
+	public void close() {
+		if(gate!=null) gate.close();
+	}
+	
+	/**
+	 * <p>Title: Retry</p>
+	 * <p>Description: A parked collection's retry, which tries to acquire again and records the result</p> 
+	 * <p><code>com.heliosapm.watchtower.core.TargetGateTestCase.Retry</code></p>
+	 */
+	class Retry implements Runnable {
+		/** The results of the retry's acquisition attempts */
+		final List<Long> results = new ArrayList<Long>();
+		
+		@Override
+		public void run() {
+			results.add(gate.tryAcquire(System.nanoTime()));
+		}
+	}
+	
+	/**
+	 * Tests that at most the gate's maximum concurrency of collections hold a token, and that a released permit can be acquired again
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testConcurrencyPermits() throws Exception {
+		gate = new TargetGate("TargetGateTestCase.permits", 2, 0D, 1);
+		assertEquals(0L, gate.tryAcquire(System.nanoTime()));
+		assertEquals(0L, gate.tryAcquire(System.nanoTime()));
+		assertEquals(-1L, gate.tryAcquire(System.nanoTime()));
+		assertEquals(2, gate.getActiveCount());
+		gate.release();
+		assertEquals(1, gate.getActiveCount());
+		assertEquals(0L, gate.tryAcquire(System.nanoTime()));
+		assertEquals(3L, gate.getAcquiredCount());
+	}
+	
+	/**
+	 * Tests that the token bucket grants its burst at once, then reports the delay to the next token without holding a permit
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testTokenBucket() throws Exception {
+		gate = new TargetGate("TargetGateTestCase.tokens", 10, 10D, 2);
+		assertEquals(0L, gate.tryAcquire(System.nanoTime()));
+		assertEquals(0L, gate.tryAcquire(System.nanoTime()));
+		final long delay = gate.tryAcquire(System.nanoTime());
+		assertTrue("Expected a token delay but got [" + delay + "]", delay > 0 && delay <= TimeUnit.MILLISECONDS.toNanos(100));
+		assertEquals(2, gate.getActiveCount());
+		Thread.sleep(TimeUnit.NANOSECONDS.toMillis(delay) + 10);
+		assertEquals(0L, gate.tryAcquire(System.nanoTime()));
+	}
+	
+	/**
+	 * Tests that a parked collection's retry is run when a permit is released, 
+	 * and that a retry removed from the gate is not run
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testParkAndUnpark() throws Exception {
+		gate = new TargetGate("TargetGateTestCase.park", 1, 0D, 1);
+		assertEquals(0L, gate.tryAcquire(System.nanoTime()));
+		assertEquals(-1L, gate.tryAcquire(System.nanoTime()));
+		final Retry retry = new Retry();
+		gate.park(retry);
+		assertEquals(1, gate.getWaitingCount());
+		assertTrue(retry.results.isEmpty());
+		gate.release();
+		assertEquals(1, retry.results.size());
+		assertEquals(Long.valueOf(0L), retry.results.get(0));
+		assertEquals(0, gate.getWaitingCount());
+		assertEquals(1, gate.getActiveCount());
+		final Retry removed = new Retry();
+		gate.park(removed);
+		assertTrue(gate.unpark(removed));
+		assertFalse(gate.unpark(removed));
+		assertEquals(0, gate.getWaitingCount());
+		gate.release();
+		assertTrue("Removed retry was run", removed.results.isEmpty());
+		assertEquals(0, gate.getActiveCount());
+	}
+	
+	/**
+	 * Tests that a retry parked just after the last permit was released is run at once rather than stranded
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testParkWithFreePermit() throws Exception {
+		gate = new TargetGate("TargetGateTestCase.strand", 1, 0D, 1);
+		final Retry retry = new Retry();
+		gate.park(retry);
+		assertEquals(1, retry.results.size());
+		assertEquals(Long.valueOf(0L), retry.results.get(0));
+		assertEquals(0, gate.getWaitingCount());
+	}
+	
+	/**
+	 * Tests that rejections are counted and cleared with the stats
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testReject() throws Exception {
+		gate = new TargetGate("TargetGateTestCase.reject", 1, 0D, 1);
+		gate.reject();
+		gate.reject();
+		assertEquals(2L, gate.getRejectedCount());
+		gate.resetStats();
+		assertEquals(0L, gate.getRejectedCount());
+	}
+}
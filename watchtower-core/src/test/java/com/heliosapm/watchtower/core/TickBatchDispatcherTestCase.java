@@ -0,0 +1,213 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.Test;
+
+import com.heliosapm.watchtower.groovy.annotation.CollectionPriority;
+
+/**
+ * <p>Title: TickBatchDispatcherTestCase</p>
+ * <p>Description: Tests the grouped hand-off of {@link TickBatchDispatcher}. The batch's fires run on the calling thread, and each 
+ * test checks that the collections they gather reach the collection executor as separate tasks.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.TickBatchDispatcherTestCase</code></p>
+ */
+
+public class TickBatchDispatcherTestCase {
+	/** Runs submitted tasks on the calling thread */
+	static final Executor CALLER = new Executor() {
+		@Override
+		public void execute(Runnable command) {
+			command.run();
+		}
+	};
+	
+	/**
+	 * Creates an expired task that dispatches the passed collections through the dispatcher
+	 * @param dispatcher The dispatcher the collections are gathered by
+	 * @param collections The collections the task dispatches
+	 * @return the expired task
+	 */
+	static Runnable firing(final TickBatchDispatcher dispatcher, final Runnable... collections) {
+		return new Runnable() {
+			@Override
+			public void run() {
+				for(Runnable collection: collections) {
+					assertTrue("Collection not gathered", dispatcher.collect(collection));
+				}
+			}
+		};
+	}
+	
+	/**
+	 * <p>Title: MarkedCollection</p>
+	 * <p>Description: A collection carrying the prioritized, targeted and rejectable markers</p> 
+	 * <p>Company: Helios Development Group LLC</p>
+	 * @author Whitehead (nwhitehead AT heliosdev DOT org)
+	 * <p><code>com.heliosapm.watchtower.core.TickBatchDispatcherTestCase.MarkedCollection</code></p>
+	 */
+	static class MarkedCollection implements PrioritizedTask, TargetedTask, RejectableTask {
+		/** The number of times the collection ran */
+		final AtomicInteger runs = new AtomicInteger(0);
+		/** The number of times the collection was rejected */
+		final AtomicInteger rejections = new AtomicInteger(0);
+		
+		@Override
+		public void run() {
+			runs.incrementAndGet();
+		}
+		@Override
+		public CollectionPriority getPriority() {
+			return CollectionPriority.HIGH;
+		}
+		@Override
+		public String getTarget() {
+			return "localhost";
+		}
+		@Override
+		public void onRejected(RejectedExecutionException rex) {
+			rejections.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Tests that each gathered collection is submitted to the collection executor as its own task, with its markers intact
+	 */
+	@Test
+	public void testEachCollectionSubmitted() {
+		final List<Runnable> submitted = new ArrayList<Runnable>();
+		final TickBatchDispatcher dispatcher = new TickBatchDispatcher("Test", 0, TimeUnit.MILLISECONDS, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				submitted.add(command);
+			}
+		}, CALLER);
+		final MarkedCollection[] collections = new MarkedCollection[5];
+		for(int i = 0; i < collections.length; i++) collections[i] = new MarkedCollection();
+		dispatcher.execute(firing(dispatcher, collections[0], collections[1]));
+		dispatcher.execute(firing(dispatcher, collections[2], collections[3], collections[4]));
+		assertTrue(submitted.isEmpty());
+		dispatcher.onTickEnd(1L);
+		assertEquals(collections.length, submitted.size());
+		for(int i = 0; i < collections.length; i++) {
+			assertSame(collections[i], submitted.get(i));
+		}
+		assertEquals(1L, dispatcher.getBatchCount());
+		assertEquals(5L, dispatcher.getBatchedTaskCount());
+		assertEquals(5, dispatcher.getLastBatchSize());
+		assertEquals(0L, dispatcher.getRejectedTaskCount());
+		assertFalse("Collected outside a batch", dispatcher.collect(collections[0]));
+	}
+	
+	/**
+	 * Tests that a hung collection does not hold up the other collections of its batch
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testHungCollectionIsolated() throws Exception {
+		final ExecutorService pool = Executors.newCachedThreadPool();
+		try {
+			final CountDownLatch hang = new CountDownLatch(1);
+			final CountDownLatch done = new CountDownLatch(3);
+			final TickBatchDispatcher dispatcher = new TickBatchDispatcher("Test", 0, TimeUnit.MILLISECONDS, pool, CALLER);
+			final Runnable hung = new Runnable() {
+				@Override
+				public void run() {
+					try { hang.await(); } catch (InterruptedException iex) { /* No Op */ }
+				}
+			};
+			final Runnable quick = new Runnable() {
+				@Override
+				public void run() {
+					done.countDown();
+				}
+			};
+			dispatcher.execute(firing(dispatcher, hung, quick, quick, quick));
+			dispatcher.onTickEnd(1L);
+			assertTrue("Collections held up by the hung collection", done.await(5, TimeUnit.SECONDS));
+			hang.countDown();
+		} finally {
+			pool.shutdownNow();
+		}
+	}
+	
+	/**
+	 * Tests that a rejected collection is notified and counted without affecting the rest of the batch
+	 */
+	@Test
+	public void testRejection() {
+		final AtomicInteger calls = new AtomicInteger(0);
+		final TickBatchDispatcher dispatcher = new TickBatchDispatcher("Test", 0, TimeUnit.MILLISECONDS, new Executor() {
+			@Override
+			public void execute(Runnable command) {
+				if(calls.incrementAndGet()%2==0) throw new RejectedExecutionException("Full");
+				command.run();
+			}
+		}, CALLER);
+		final MarkedCollection[] collections = new MarkedCollection[4];
+		for(int i = 0; i < collections.length; i++) collections[i] = new MarkedCollection();
+		dispatcher.execute(firing(dispatcher, collections));
+		dispatcher.onTickEnd(1L);
+		for(int i = 0; i < collections.length; i++) {
+			assertEquals("Runs of " + i, i%2==0 ? 1 : 0, collections[i].runs.get());
+			assertEquals("Rejections of " + i, i%2==0 ? 0 : 1, collections[i].rejections.get());
+		}
+		assertEquals(2L, dispatcher.getRejectedTaskCount());
+	}
+	
+	/**
+	 * Tests that a batch is held open until its window has elapsed
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testWindow() throws Exception {
+		final MarkedCollection collection = new MarkedCollection();
+		final TickBatchDispatcher dispatcher = new TickBatchDispatcher("Test", 50, TimeUnit.MILLISECONDS, CALLER, CALLER);
+		dispatcher.execute(firing(dispatcher, collection));
+		dispatcher.onTickEnd(1L);
+		assertEquals(0, collection.runs.get());
+		Thread.sleep(60);
+		dispatcher.onTickEnd(2L);
+		assertEquals(1, collection.runs.get());
+		assertEquals(1L, dispatcher.getBatchCount());
+	}
+}
@@ -0,0 +1,157 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import groovy.lang.Closure;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.heliosapm.watchtower.collector.CollectorState;
+import com.heliosapm.watchtower.core.BlackoutCalendar;
+import com.heliosapm.watchtower.groovy.annotation.ScriptName;
+
+/**
+ * <p>Title: BlackoutTestCase</p>
+ * <p>Description: Tests the suppression of a bean's collections while a {@link BlackoutCalendar} window is open, 
+ * and the restoration of the bean's state once the window closes. The closure is scheduled an hour out and fired by the test.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.impl.BlackoutTestCase</code></p>
+ */
+
+public class BlackoutTestCase {
+	/** The blackout calendar */
+	final BlackoutCalendar calendar = BlackoutCalendar.getBlackoutCalendar();
+	/** The number of executions run */
+	final AtomicInteger runs = new AtomicInteger(0);
+	/** The executor running the test bean's collections, so the test does not depend on the collection pool's size */
+	final ExecutorService executor = Executors.newCachedThreadPool();
+	/** The bean owning the schedule */
+	BlackoutTestBean bean = null;
+	/** The scheduled closure under test */
+	ServiceAspectImpl.ScheduledClosure<Object> scheduled = null;
+	
+	/**
+	 * <p>Title: BlackoutTestBean</p>
+	 * <p>Description: A named bean to schedule the test closure on</p> 
+	 * <p><code>com.heliosapm.watchtower.core.impl.BlackoutTestCase.BlackoutTestBean</code></p>
+	 */
+	@ScriptName("BlackoutTestBean")
+	static class BlackoutTestBean extends ServiceAspectImpl {
+		/* No Op */
+	}
+	
+	/**
+	 * Schedules a counting closure an hour out on a started bean
+	 * @throws Exception thrown on any error
+	 */
+	@Before
+	public void schedule() throws Exception {
+		final Closure<Object> closure = new Closure<Object>(null) {
+			/**  */
+			private static final long serialVersionUID = 1L;
+			@Override
+			public Object call() {
+				runs.incrementAndGet();
+				return null;
+			}
+		};
+		bean = new BlackoutTestBean();
+		bean.collectionExecutor = executor;
+		bean.setObjectName(new ObjectName("com.heliosapm.watchtower.test:service=BlackoutTestCase"));
+		bean.transitionState(CollectorState.STARTED);
+		scheduled = bean.new ScheduledClosure<Object>("blackout", closure, 1, 1, TimeUnit.HOURS);
+	}
+	
+	/**
+	 * Clears the blackout windows, cancels the schedule and shuts down the executor
+	 */
+	@After
+	public void cancel() {
+		calendar.clearWindows();
+		if(scheduled!=null) scheduled.cancel();
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Waits for the passed number of executions to run and complete
+	 * @param expected The expected number of executions
+	 * @throws InterruptedException thrown if interrupted while waiting
+	 */
+	void awaitRuns(int expected) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(runs.get() < expected || scheduled.inFlight.get() > 0) {
+			assertTrue("Executions did not complete", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+	
+	/**
+	 * Tests that fires in an open window are suppressed and move the bean to {@link CollectorState#BLACKOUT}, 
+	 * and that the first fire after the window closes restores the bean's prior state and runs
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testEnterAndExitBlackout() throws Exception {
+		final long id = calendar.addWindowNow(BlackoutCalendar.SCOPE_COLLECTOR, bean.objectName.toString(), 60000L, "test");
+		scheduled.fire(null);
+		scheduled.fire(null);
+		assertEquals(CollectorState.BLACKOUT, bean.collectorState.get());
+		assertEquals(2L, scheduled.blackouts.get());
+		assertEquals(0, scheduled.inFlight.get());
+		Thread.sleep(100);
+		assertEquals(0, runs.get());
+		calendar.removeWindow(id);
+		scheduled.fire(null);
+		assertEquals(CollectorState.STARTED, bean.collectorState.get());
+		awaitRuns(1);
+		assertEquals(1, runs.get());
+		assertEquals(2L, scheduled.blackouts.get());
+	}
+	
+	/**
+	 * Tests that a broken bean stays broken through a blackout window
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testBrokenStaysBroken() throws Exception {
+		bean.transitionState(CollectorState.BROKEN);
+		calendar.addWindowNow(BlackoutCalendar.SCOPE_COLLECTOR, bean.objectName.toString(), 60000L, "test");
+		scheduled.fire(null);
+		assertEquals(CollectorState.BROKEN, bean.collectorState.get());
+		assertEquals(1L, scheduled.blackouts.get());
+	}
+}
@@ -0,0 +1,190 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import groovy.lang.Closure;
+
+import java.io.File;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import javax.management.ObjectName;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.heliosapm.watchtower.core.ScheduleStateStore;
+import com.heliosapm.watchtower.groovy.annotation.CatchUpPolicy;
+import com.heliosapm.watchtower.groovy.annotation.Scheduled;
+import com.heliosapm.watchtower.groovy.annotation.ScriptName;
+
+/**
+ * <p>Title: CatchUpTestCase</p>
+ * <p>Description: Tests the persistence of schedule fire times in the {@link ScheduleStateStore} and the catch up executions 
+ * dispatched on restart for the fires missed while down. The state file is in a temp directory, and each test 
+ * uses its own schedule key, since the store is a singleton.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.impl.CatchUpTestCase</code></p>
+ */
+
+public class CatchUpTestCase {
+	/** The period of the test schedules in ms. */
+	static final long PERIOD = TimeUnit.HOURS.toMillis(1);
+	/** The number of executions run */
+	final AtomicInteger runs = new AtomicInteger(0);
+	/** The executor running the test bean's collections, so the test does not depend on the collection pool's size */
+	final ExecutorService executor = Executors.newCachedThreadPool();
+	/** The bean owning the schedule */
+	CatchUpTestBean bean = null;
+	/** The scheduled closure under test */
+	ServiceAspectImpl.ScheduledClosure<Object> scheduled = null;
+	/** The closure under test */
+	Closure<Object> closure = null;
+	
+	/** Carries the schedule of the catch up test closure */
+	@Scheduled(period=1, unit=TimeUnit.HOURS, catchUp=CatchUpPolicy.RUN_ALL)
+	static Closure<Object> runAll = null;
+	
+	/**
+	 * <p>Title: CatchUpTestBean</p>
+	 * <p>Description: A named bean to schedule the test closure on</p> 
+	 * <p><code>com.heliosapm.watchtower.core.impl.CatchUpTestCase.CatchUpTestBean</code></p>
+	 */
+	@ScriptName("CatchUpTestBean")
+	static class CatchUpTestBean extends ServiceAspectImpl {
+		/* No Op */
+	}
+	
+	/**
+	 * Enables schedule state persistence on a temp state file and creates the test bean and closure
+	 * @throws Exception thrown on any error
+	 */
+	@Before
+	public void setUp() throws Exception {
+		final File dir = File.createTempFile("CatchUpTestCase", "");
+		dir.delete();
+		dir.mkdirs();
+		dir.deleteOnExit();
+		System.setProperty(ScheduleStateStore.STATE_PROP, "true");
+		System.setProperty(ScheduleStateStore.STATE_FILE_PROP, new File(dir, "schedule.state").getAbsolutePath());
+		closure = new Closure<Object>(null) {
+			/**  */
+			private static final long serialVersionUID = 1L;
+			@Override
+			public Object call() {
+				runs.incrementAndGet();
+				return null;
+			}
+		};
+		bean = new CatchUpTestBean();
+		bean.collectionExecutor = executor;
+		bean.setObjectName(new ObjectName("com.heliosapm.watchtower.test:service=CatchUpTestCase,id=" + System.nanoTime()));
+	}
+	
+	/**
+	 * Cancels the schedule, disables state persistence and shuts down the executor
+	 */
+	@After
+	public void tearDown() {
+		if(scheduled!=null) scheduled.cancel();
+		System.clearProperty(ScheduleStateStore.STATE_PROP);
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Returns the state store slot of the test schedule with the passed closure name
+	 * @param closureName The closure name
+	 * @return the slot
+	 */
+	int slot(String closureName) {
+		return ScheduleStateStore.getScheduleStateStore().slot(bean.objectName.toString() + "/" + closureName);
+	}
+	
+	/**
+	 * Waits for the passed number of executions to run and complete
+	 * @param expected The expected number of executions
+	 * @throws InterruptedException thrown if interrupted while waiting
+	 */
+	void awaitRuns(int expected) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(runs.get() < expected || scheduled.inFlight.get() > 0) {
+			assertTrue("Executions did not complete", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+	
+	/**
+	 * Tests that the fires missed while down are queued on construction, dispatched one after the other once the 
+	 * schedule is started, and persisted as they are dispatched
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testRunAllCatchUp() throws Exception {
+		final ScheduleStateStore store = ScheduleStateStore.getScheduleStateStore();
+		final int slot = slot("runAll");
+		final long firstMissed = System.currentTimeMillis() - (PERIOD * 2) - (PERIOD / 2);
+		store.record(slot, firstMissed - PERIOD, firstMissed);
+		final Scheduled annotation = getClass().getDeclaredField("runAll").getAnnotation(Scheduled.class);
+		scheduled = bean.new ScheduledClosure<Object>("runAll", closure, annotation);
+		assertEquals(3, scheduled.catchUps);
+		Thread.sleep(100);
+		assertEquals("Catch up dispatched on construction", 0, runs.get());
+		scheduled.startCatchUp();
+		awaitRuns(3);
+		Thread.sleep(100);
+		assertEquals(3, runs.get());
+		assertEquals(0, scheduled.catchUps);
+		assertEquals(firstMissed + (PERIOD * 2), store.getLastFire(slot));
+		assertEquals(firstMissed + (PERIOD * 3), store.getNextFire(slot));
+	}
+	
+	/**
+	 * Tests that a fire is only persisted once its execution is dispatched, so fires skipped while down stay missed
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testSkippedFireNotPersisted() throws Exception {
+		scheduled = bean.new ScheduledClosure<Object>("skipped", closure, 1, 1, TimeUnit.HOURS);
+		final ScheduleStateStore store = ScheduleStateStore.getScheduleStateStore();
+		final int slot = slot("skipped");
+		final long planned = scheduled.plannedTime;
+		scheduled.adaptive = true;
+		scheduled.adaptiveDue = Long.MAX_VALUE;
+		scheduled.fire(null);
+		assertEquals(0, runs.get());
+		assertEquals(0L, store.getLastFire(slot));
+		scheduled.adaptive = false;
+		scheduled.fire(null);
+		awaitRuns(1);
+		assertEquals(planned + PERIOD, store.getLastFire(slot));
+		assertEquals(planned + (PERIOD * 2), store.getNextFire(slot));
+	}
+}
@@ -0,0 +1,274 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import groovy.lang.Closure;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.heliosapm.watchtower.collector.CollectorState;
+import com.heliosapm.watchtower.core.CollectionWatchdog;
+import com.heliosapm.watchtower.groovy.annotation.ScriptName;
+
+/**
+ * <p>Title: DeadlineTestCase</p>
+ * <p>Description: Tests the enforcement of execution deadlines by the {@link CollectionWatchdog}: interruption, abandonment, 
+ * and the marking, probing and recovery of a broken bean. The closure is scheduled an hour out and fired by the test, and 
+ * the first executions hang until the test releases them.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.impl.DeadlineTestCase</code></p>
+ */
+
+public class DeadlineTestCase {
+	/** The watchdog enforcing the deadlines */
+	final CollectionWatchdog watchdog = CollectionWatchdog.getCollectionWatchdog();
+	/** Releases hung executions when counted down */
+	final CountDownLatch release = new CountDownLatch(1);
+	/** The number of executions run */
+	final AtomicInteger runs = new AtomicInteger(0);
+	/** The number of executions still to hang */
+	final AtomicInteger hangs = new AtomicInteger(1);
+	/** The executor running the test bean's collections, so the test does not depend on the collection pool's size */
+	final ExecutorService executor = Executors.newCachedThreadPool();
+	/** The watchdog's maximum breaches before the test */
+	int maxBreaches = -1;
+	/** The watchdog's probe backoff before the test */
+	long probeBackoff = -1L;
+	/** The watchdog's stuck threshold before the test */
+	long stuckThreshold = -1L;
+	/** The bean owning the schedule */
+	DeadlineTestBean bean = null;
+	/** The scheduled closure under test */
+	ServiceAspectImpl.ScheduledClosure<Object> scheduled = null;
+	
+	/**
+	 * <p>Title: DeadlineTestBean</p>
+	 * <p>Description: A named bean to schedule the test closure on</p> 
+	 * <p><code>com.heliosapm.watchtower.core.impl.DeadlineTestCase.DeadlineTestBean</code></p>
+	 */
+	@ScriptName("DeadlineTestBean")
+	static class DeadlineTestBean extends ServiceAspectImpl {
+		/* No Op */
+	}
+	
+	/**
+	 * Schedules a closure with a 100 ms. deadline an hour out. Hanging executions ignore interrupts unless the schedule is interruptible.
+	 */
+	@Before
+	public void schedule() {
+		maxBreaches = watchdog.getMaxBreaches();
+		probeBackoff = watchdog.getProbeBackoff();
+		stuckThreshold = watchdog.getStuckThreshold();
+		final Closure<Object> closure = new Closure<Object>(null) {
+			/**  */
+			private static final long serialVersionUID = 1L;
+			@Override
+			public Object call() {
+				runs.incrementAndGet();
+				if(hangs.getAndDecrement() <= 0) return null;
+				final long end = System.currentTimeMillis() + 10000L;
+				while(System.currentTimeMillis() < end) {
+					try {
+						if(release.await(end - System.currentTimeMillis(), TimeUnit.MILLISECONDS)) break;
+					} catch (InterruptedException iex) {
+						if(scheduled.interruptible) return CollectionResult.FAILED;
+					}
+				}
+				return null;
+			}
+		};
+		bean = new DeadlineTestBean();
+		bean.collectionExecutor = executor;
+		scheduled = bean.new ScheduledClosure<Object>("deadline", closure, 1, 1, TimeUnit.HOURS);
+		scheduled.deadlineMs = 100L;
+	}
+	
+	/**
+	 * Releases any hung executions, restores the watchdog, cancels the schedule and shuts down the executor
+	 */
+	@After
+	public void cancel() {
+		release.countDown();
+		watchdog.setMaxBreaches(maxBreaches);
+		watchdog.setProbeBackoff(probeBackoff);
+		watchdog.setStuckThreshold(stuckThreshold);
+		if(scheduled!=null) scheduled.cancel();
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Waits for the schedule to record the passed number of deadline breaches
+	 * @param timeouts The expected number of breaches
+	 * @throws InterruptedException thrown if interrupted while waiting
+	 */
+	void awaitTimeouts(long timeouts) throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(scheduled.timeouts.get() < timeouts) {
+			assertTrue("Deadline not enforced", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+	
+	/**
+	 * Waits for all executions to return
+	 * @throws InterruptedException thrown if interrupted while waiting
+	 */
+	void awaitIdle() throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(scheduled.inFlight.get() > 0 || !scheduled.executions.isEmpty()) {
+			assertTrue("Executions did not complete", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+	
+	/**
+	 * Tests that an interruptible execution is interrupted at its deadline
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testInterrupt() throws Exception {
+		scheduled.interruptible = true;
+		scheduled.fire(null);
+		awaitTimeouts(1);
+		awaitIdle();
+		assertEquals(1, runs.get());
+		assertEquals(CollectionResult.FAILED, scheduled.lastCollectionResult);
+	}
+	
+	/**
+	 * Tests that a non interruptible execution is abandoned at its deadline: its in flight slot is released so the schedule 
+	 * keeps firing, while the hung execution stays registered until its thread returns
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testAbandon() throws Exception {
+		scheduled.interruptible = false;
+		scheduled.fire(null);
+		awaitTimeouts(1);
+		assertEquals(0, scheduled.inFlight.get());
+		assertEquals(1, scheduled.executions.size());
+		assertEquals(CollectionResult.FAILED, scheduled.lastCollectionResult);
+		scheduled.fire(null);
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(runs.get() < 2) {
+			assertTrue("Schedule did not fire after the abandon", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+		release.countDown();
+		awaitIdle();
+		assertEquals(1L, scheduled.timeouts.get());
+	}
+	
+	/**
+	 * Tests that a bean is marked broken after the maximum consecutive breaches, admits a probe only once its backoff 
+	 * has elapsed, and is restored to its prior state by a probe that completes within its deadline
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testBrokenProbeAndRecover() throws Exception {
+		watchdog.setMaxBreaches(1);
+		watchdog.setProbeBackoff(60000L);
+		scheduled.interruptible = true;
+		final CollectorState prior = bean.collectorState.get();
+		scheduled.fire(null);
+		awaitTimeouts(1);
+		awaitIdle();
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(bean.collectorState.get()!=CollectorState.BROKEN) {
+			assertTrue("Bean not marked broken", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+		scheduled.fire(null);
+		assertEquals("Fire admitted before the probe backoff", 1, runs.get());
+		bean.probeDue.set(0L);
+		scheduled.fire(null);
+		awaitIdle();
+		assertEquals(2, runs.get());
+		assertEquals(prior, bean.collectorState.get());
+		assertEquals(0, scheduled.consecutiveTimeouts.get());
+		assertEquals(CollectionResult.COMPLETE, scheduled.lastCollectionResult);
+	}
+	
+	/**
+	 * Tests that a fire skipped by the adaptive period of a broken bean's schedule does not use up the bean's probe
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testAdaptiveSkipKeepsProbe() throws Exception {
+		watchdog.setMaxBreaches(1);
+		watchdog.setProbeBackoff(60000L);
+		scheduled.interruptible = true;
+		scheduled.fire(null);
+		awaitTimeouts(1);
+		awaitIdle();
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(bean.collectorState.get()!=CollectorState.BROKEN) {
+			assertTrue("Bean not marked broken", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+		bean.probeDue.set(0L);
+		scheduled.adaptive = true;
+		scheduled.adaptiveDue = Long.MAX_VALUE;
+		scheduled.fire(null);
+		assertEquals("Adaptive skip used up the probe", 0L, bean.probeDue.get());
+		scheduled.adaptive = false;
+		scheduled.fire(null);
+		awaitIdle();
+		assertEquals(2, runs.get());
+		assertTrue("Probe did not recover the bean", bean.collectorState.get()!=CollectorState.BROKEN);
+	}
+	
+	/**
+	 * Tests that an execution abandoned at its deadline is still sampled by the watchdog's stuck sweep while its thread is hung
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testAbandonedSampledAsStuck() throws Exception {
+		watchdog.setStuckThreshold(300L);
+		scheduled.interruptible = false;
+		scheduled.fire(null);
+		awaitTimeouts(1);
+		assertEquals(0L, scheduled.stuck.get());
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(scheduled.stuck.get() < 1) {
+			assertTrue("Abandoned execution not sampled as stuck", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+		release.countDown();
+		awaitIdle();
+		assertEquals(1L, scheduled.stuck.get());
+	}
+}
@@ -0,0 +1,195 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.core.impl;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import groovy.lang.Closure;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import com.heliosapm.watchtower.groovy.annotation.OverrunPolicy;
+import com.heliosapm.watchtower.groovy.annotation.ScriptName;
+
+/**
+ * <p>Title: OverrunPolicyTestCase</p>
+ * <p>Description: Tests the {@link OverrunPolicy}s applied to fires of a scheduled closure that fall due while an execution is running.
+ * The closure is scheduled an hour out and fired by the test, and each execution blocks until the test releases it.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.core.impl.OverrunPolicyTestCase</code></p>
+ */
+
+public class OverrunPolicyTestCase {
+	/** Released once per started execution */
+	final Semaphore started = new Semaphore(0);
+	/** Blocks running executions until counted down */
+	final CountDownLatch release = new CountDownLatch(1);
+	/** The number of executions run */
+	final AtomicInteger runs = new AtomicInteger(0);
+	/** The executor running the test bean's collections, so the test does not depend on the collection pool's size */
+	final ExecutorService executor = Executors.newCachedThreadPool();
+	/** The scheduled closure under test */
+	ServiceAspectImpl.ScheduledClosure<Object> scheduled = null;
+	
+	/**
+	 * <p>Title: OverrunTestBean</p>
+	 * <p>Description: A named bean to schedule the test closure on</p> 
+	 * <p><code>com.heliosapm.watchtower.core.impl.OverrunPolicyTestCase.OverrunTestBean</code></p>
+	 */
+	@ScriptName("OverrunTestBean")
+	static class OverrunTestBean extends ServiceAspectImpl {
+		/* No Op */
+	}
+	
+	/**
+	 * Schedules a blocking closure an hour out
+	 */
+	@Before
+	public void schedule() {
+		final Closure<Object> closure = new Closure<Object>(null) {
+			/**  */
+			private static final long serialVersionUID = 1L;
+			@Override
+			public Object call() {
+				runs.incrementAndGet();
+				started.release();
+				try {
+					release.await(10, TimeUnit.SECONDS);
+				} catch (InterruptedException iex) {
+					Thread.currentThread().interrupt();
+				}
+				return null;
+			}
+		};
+		final OverrunTestBean bean = new OverrunTestBean();
+		bean.collectionExecutor = executor;
+		scheduled = bean.new ScheduledClosure<Object>("overrun", closure, 1, 1, TimeUnit.HOURS);
+	}
+	
+	/**
+	 * Releases any blocked executions, cancels the schedule and shuts down the executor
+	 */
+	@After
+	public void cancel() {
+		release.countDown();
+		if(scheduled!=null) scheduled.cancel();
+		executor.shutdownNow();
+	}
+	
+	/**
+	 * Waits for an execution to start
+	 * @throws InterruptedException thrown if interrupted while waiting
+	 */
+	void awaitStart() throws InterruptedException {
+		assertTrue("Execution did not start", started.tryAcquire(5, TimeUnit.SECONDS));
+	}
+	
+	/**
+	 * Waits for all executions to complete
+	 * @throws InterruptedException thrown if interrupted while waiting
+	 */
+	void awaitIdle() throws InterruptedException {
+		final long deadline = System.currentTimeMillis() + 5000L;
+		while(scheduled.inFlight.get() > 0 || scheduled.coalesced.get()) {
+			assertTrue("Executions did not complete", System.currentTimeMillis() < deadline);
+			Thread.sleep(10);
+		}
+	}
+	
+	/**
+	 * Tests that fires during a running execution are skipped and the schedule resumes once it completes
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testSkipNext() throws Exception {
+		scheduled.overrunPolicy = OverrunPolicy.SKIP_NEXT;
+		scheduled.fire(null);
+		awaitStart();
+		scheduled.fire(null);
+		scheduled.fire(null);
+		assertEquals(2, scheduled.overruns.get());
+		assertEquals(2, scheduled.skipped.get());
+		release.countDown();
+		awaitIdle();
+		assertEquals(1, runs.get());
+		scheduled.fire(null);
+		awaitStart();
+		awaitIdle();
+		assertEquals(2, runs.get());
+		assertEquals(2, scheduled.overruns.get());
+	}
+	
+	/**
+	 * Tests that fires during a running execution collapse into a single execution once it completes
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testCoalesce() throws Exception {
+		scheduled.overrunPolicy = OverrunPolicy.COALESCE;
+		scheduled.fire(null);
+		awaitStart();
+		scheduled.fire(null);
+		scheduled.fire(null);
+		scheduled.fire(null);
+		assertEquals(3, scheduled.overruns.get());
+		assertEquals(2, scheduled.skipped.get());
+		assertEquals(1, runs.get());
+		release.countDown();
+		awaitStart();
+		awaitIdle();
+		assertEquals(2, runs.get());
+	}
+	
+	/**
+	 * Tests that fires during a running execution run concurrently up to the concurrency limit
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testConcurrent() throws Exception {
+		scheduled.overrunPolicy = OverrunPolicy.CONCURRENT;
+		scheduled.maxConcurrent = 2;
+		scheduled.fire(null);
+		awaitStart();
+		scheduled.fire(null);
+		awaitStart();
+		assertEquals(2, scheduled.inFlight.get());
+		scheduled.fire(null);
+		assertEquals(2, scheduled.overruns.get());
+		assertEquals(1, scheduled.skipped.get());
+		release.countDown();
+		awaitIdle();
+		assertEquals(2, runs.get());
+	}
+}
@@ -0,0 +1,151 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.TreeMap;
+
+import org.junit.Test;
+
+/**
+ * <p>Title: MetricKeyDictionaryTestCase</p>
+ * <p>Description: Tests the interning of metric keys by {@link MetricKeyDictionary}, including keys whose hash collides.
+ * The dictionary is a process wide singleton, so each test uses its own metric names.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.MetricKeyDictionaryTestCase</code></p>
+ */
+
+public class MetricKeyDictionaryTestCase {
+	/** The dictionary under test */
+	final MetricKeyDictionary dictionary = MetricKeyDictionary.getMetricKeyDictionary();
+	
+	/**
+	 * Creates an ordered tag map
+	 * @param pairs The tags as alternating keys and values
+	 * @return the tag map
+	 */
+	static Map<String, Object> tags(Object... pairs) {
+		final Map<String, Object> tags = new LinkedHashMap<String, Object>();
+		for(int i = 0; i < pairs.length; i += 2) {
+			tags.put((String)pairs[i], pairs[i+1]);
+		}
+		return tags;
+	}
+	
+	/**
+	 * Tests that the same key always resolves to the same handle, and that its id resolves back to it
+	 */
+	@Test
+	public void testStableHandles() {
+		final MetricHandle handle = dictionary.handle(null, "mkd.stable", tags("host", "a", "port", 80));
+		assertSame(handle, dictionary.handle(null, "mkd.stable", tags("host", "a", "port", 80)));
+		assertEquals(handle.getId(), dictionary.id(null, "mkd.stable", tags("host", "a", "port", 80)));
+		assertSame(handle, dictionary.getHandle(handle.getId()));
+		assertEquals("mkd.stable", handle.getName());
+		assertEquals("80", handle.getTags().get("port"));
+	}
+	
+	/**
+	 * Tests that different names and tags resolve to different handles
+	 */
+	@Test
+	public void testDistinctKeys() {
+		final MetricHandle a = dictionary.handle(null, "mkd.distinct", tags("host", "a"));
+		assertNotSame(a, dictionary.handle(null, "mkd.distinct", tags("host", "b")));
+		assertNotSame(a, dictionary.handle(null, "mkd.distinct2", tags("host", "a")));
+		assertNotSame(a, dictionary.handle(null, "mkd.distinct", tags("host", "a", "port", "1")));
+		assertNotSame(a, dictionary.handle(null, "mkd.distinct", (Map<String, ?>)null));
+	}
+	
+	/**
+	 * Tests that tag order, surrounding white space and the form of the tags do not change the handle
+	 */
+	@Test
+	public void testEquivalentForms() {
+		final MetricHandle handle = dictionary.handle(null, "mkd.forms", tags("host", "a", "port", 80, "offset", -5L));
+		assertSame(handle, dictionary.handle(null, "mkd.forms", tags("offset", "-5", "port", "80", "host", "a")));
+		assertSame(handle, dictionary.handle(null, " mkd.forms ", tags(" host ", " a ", "port", 80, "offset", -5)));
+		assertSame(handle, dictionary.handle(null, "mkd.forms", "port", "80", "host", "a", "offset", "-5"));
+		assertSame(handle, dictionary.handle("mkd.", "forms", tags("host", "a", "port", 80, "offset", -5L)));
+		assertSame(handle, dictionary.handle(" mkd", ".forms", "offset", "-5", "host", "a", "port", "80"));
+	}
+	
+	/**
+	 * Tests that a key whose hash collides with an interned key's is interned separately and resolves consistently
+	 */
+	@Test
+	public void testCollision() {
+		final MetricHandle interned = dictionary.handle(null, "mkd.collision", tags("host", "a"));
+		long hash = 0L;
+		for(long h: dictionary.ids.keys()) {
+			if(dictionary.ids.get(h)==interned.getId()) hash = h;
+		}
+		assertTrue("No hash interned for [" + interned + "]", hash!=0L);
+		final int collisions = dictionary.getCollisionCount();
+		final TreeMap<String, String> otherTags = new TreeMap<String, String>();
+		otherTags.put("host", "b");
+		// intern a different key as if it hashed the same as the interned one
+		final MetricHandle collided = dictionary.intern(hash, false, null, "mkd.collided", otherTags);
+		assertNotSame(interned, collided);
+		assertTrue(collided.getId()!=interned.getId());
+		assertEquals("mkd.collided", collided.getName());
+		assertEquals(collisions + 1, dictionary.getCollisionCount());
+		// both keys keep resolving to their own handles
+		assertSame(collided, dictionary.intern(hash, true, null, "mkd.collided", otherTags));
+		final TreeMap<String, String> internedTags = new TreeMap<String, String>();
+		internedTags.put("host", "a");
+		assertSame(interned, dictionary.intern(hash, true, null, "mkd.collision", internedTags));
+		assertSame(interned, dictionary.handle(null, "mkd.collision", tags("host", "a")));
+		assertSame(collided, dictionary.getHandle(collided.getId()));
+		assertEquals(collisions + 1, dictionary.getCollisionCount());
+	}
+	
+	/**
+	 * Tests that malformed keys are rejected
+	 */
+	@Test
+	public void testInvalidKeys() {
+		try {
+			dictionary.handle(null, "mkd.invalid", "host");
+			fail("Expected an odd number of tag keys and values to be rejected");
+		} catch (IllegalArgumentException expected) {
+			/* No Op */
+		}
+		try {
+			dictionary.handle(null, "  ", (Map<String, ?>)null);
+			fail("Expected an empty name to be rejected");
+		} catch (IllegalArgumentException expected) {
+			/* No Op */
+		}
+	}
+}
@@ -0,0 +1,174 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+/**
+ * <p>Title: RateStageTestCase</p>
+ * <p>Description: Tests the conversion of counters to rates and deltas by {@link RateStage}. Counters flagged 
+ * {@link MetricEvent#FLAG_COUNTER32} wrap at 2^32, while a decrease of a 64 bit counter is a reset.</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.RateStageTestCase</code></p>
+ */
+
+public class RateStageTestCase {
+	/** The stage under test */
+	final RateStage stage = new RateStage();
+	/** The event sequence */
+	long seq = 0L;
+	
+	/**
+	 * Passes a long point through the stage
+	 * @param id The metric id
+	 * @param value The counter value
+	 * @param timestamp The timestamp in ms.
+	 * @param flags The point flags
+	 * @return the processed point
+	 * @throws Exception thrown on any error
+	 */
+	MetricEvent point(int id, long value, long timestamp, int flags) throws Exception {
+		final MetricEvent event = new MetricEvent();
+		event.set(id, value, timestamp, flags);
+		stage.onEvent(event, seq++, true);
+		return event;
+	}
+	
+	/**
+	 * Passes a double point through the stage
+	 * @param id The metric id
+	 * @param value The counter value
+	 * @param timestamp The timestamp in ms.
+	 * @param flags The point flags, to which {@link MetricEvent#FLAG_DOUBLE} is added
+	 * @return the processed point
+	 * @throws Exception thrown on any error
+	 */
+	MetricEvent point(int id, double value, long timestamp, int flags) throws Exception {
+		return point(id, Double.doubleToRawLongBits(value), timestamp, flags | MetricEvent.FLAG_DOUBLE);
+	}
+	
+	/**
+	 * Tests that the first point of a counter primes it and is dropped, and that the next is converted to a per second rate
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testRate() throws Exception {
+		assertTrue(point(1, 100L, 1000L, MetricEvent.FLAG_RATE).isDropped());
+		final MetricEvent event = point(1, 350L, 3000L, MetricEvent.FLAG_RATE);
+		assertFalse(event.isDropped());
+		assertTrue(event.isDouble());
+		assertEquals(125D, event.getDoubleValue(), 0D);
+		assertEquals(1, stage.getCounterCount());
+	}
+	
+	/**
+	 * Tests that a delta is the increase since the prior point
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testDelta() throws Exception {
+		point(2, 100L, 1000L, MetricEvent.FLAG_DELTA);
+		final MetricEvent event = point(2, 150L, 2000L, MetricEvent.FLAG_DELTA);
+		assertFalse(event.isDouble());
+		assertEquals(50L, event.getLongValue());
+	}
+	
+	/**
+	 * Tests that a double counter's rate is computed in floating point
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testDoubleRate() throws Exception {
+		point(3, 1.5D, 1000L, MetricEvent.FLAG_RATE);
+		assertEquals(4D, point(3, 3.5D, 1500L, MetricEvent.FLAG_RATE).getDoubleValue(), 0D);
+	}
+	
+	/**
+	 * Tests that a decrease of a 64 bit counter is a reset, whose delta is the new value, and not a wrap
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testReset64() throws Exception {
+		point(4, 500L, 1000L, MetricEvent.FLAG_DELTA);
+		assertEquals(20L, point(4, 20L, 2000L, MetricEvent.FLAG_DELTA).getLongValue());
+		assertEquals(1L, stage.getResetCount());
+		assertEquals(0L, stage.getWrapCount());
+		// a 64 bit counter passing 2^32 does not wrap
+		point(5, 0xFFFFFFF0L, 1000L, MetricEvent.FLAG_DELTA);
+		assertEquals(32L, point(5, 0x100000010L, 2000L, MetricEvent.FLAG_DELTA).getLongValue());
+		assertEquals(0L, stage.getWrapCount());
+	}
+	
+	/**
+	 * Tests that a 32 bit counter wraps at 2^32, including counters reported as sign extended ints
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testWrap32() throws Exception {
+		final int flags = MetricEvent.FLAG_DELTA | MetricEvent.FLAG_COUNTER32;
+		point(6, 0xFFFFFFF0L, 1000L, flags);
+		assertEquals(32L, point(6, 0x10L, 2000L, flags).getLongValue());
+		assertEquals(1L, stage.getWrapCount());
+		point(7, -16L, 1000L, flags);
+		assertEquals(32L, point(7, 16L, 2000L, flags).getLongValue());
+		assertEquals(2L, stage.getWrapCount());
+		assertEquals(0L, stage.getResetCount());
+		// a 32 bit rate across the wrap
+		point(8, 0xFFFFFF00L, 1000L, MetricEvent.FLAG_RATE | MetricEvent.FLAG_COUNTER32);
+		assertEquals(512D, point(8, 0x100L, 2000L, MetricEvent.FLAG_RATE | MetricEvent.FLAG_COUNTER32).getDoubleValue(), 0D);
+	}
+	
+	/**
+	 * Tests that points that do not advance the timestamp are dropped, and that a change of type re-primes the counter
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testOutOfOrderAndTypeChange() throws Exception {
+		point(9, 100L, 2000L, MetricEvent.FLAG_DELTA);
+		assertTrue(point(9, 200L, 2000L, MetricEvent.FLAG_DELTA).isDropped());
+		assertTrue(point(9, 200L, 1000L, MetricEvent.FLAG_DELTA).isDropped());
+		assertTrue(point(9, 2.5D, 3000L, MetricEvent.FLAG_DELTA).isDropped());
+		assertEquals(1D, point(9, 3.5D, 4000L, MetricEvent.FLAG_DELTA).getDoubleValue(), 0D);
+	}
+	
+	/**
+	 * Tests that points not flagged as counters pass through unchanged
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testGaugePassesThrough() throws Exception {
+		final MetricEvent first = point(10, 42L, 1000L, 0);
+		final MetricEvent second = point(10, 7L, 2000L, 0);
+		assertFalse(first.isDropped());
+		assertEquals(42L, first.getLongValue());
+		assertEquals(7L, second.getLongValue());
+		assertEquals(0, stage.getCounterCount());
+	}
+}
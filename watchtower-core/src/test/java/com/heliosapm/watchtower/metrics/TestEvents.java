@@ -0,0 +1,78 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics;
+
+/**
+ * <p>Title: TestEvents</p>
+ * <p>Description: Creates populated {@link MetricEvent}s for tests outside the metrics package</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.TestEvents</code></p>
+ */
+
+public class TestEvents {
+	
+	/**
+	 * Creates a long point
+	 * @param id The metric id
+	 * @param value The value
+	 * @param timestamp The timestamp in ms.
+	 * @return the point
+	 */
+	public static MetricEvent event(int id, long value, long timestamp) {
+		final MetricEvent event = new MetricEvent();
+		event.set(id, value, timestamp, 0);
+		return event;
+	}
+	
+	/**
+	 * Creates a double point
+	 * @param id The metric id
+	 * @param value The value
+	 * @param timestamp The timestamp in ms.
+	 * @return the point
+	 */
+	public static MetricEvent event(int id, double value, long timestamp) {
+		final MetricEvent event = new MetricEvent();
+		event.set(id, Double.doubleToRawLongBits(value), timestamp, MetricEvent.FLAG_DOUBLE);
+		return event;
+	}
+	
+	/**
+	 * Creates a flush marker
+	 * @param timestamp The timestamp in ms.
+	 * @return the flush marker
+	 */
+	public static MetricEvent flush(long timestamp) {
+		final MetricEvent event = new MetricEvent();
+		event.set(-1, 0L, timestamp, MetricEvent.FLAG_FLUSH);
+		return event;
+	}
+	
+	/**
+	 * Creates a new TestEvents
+	 */
+	private TestEvents() {}
+}
@@ -0,0 +1,425 @@
+/**
+ * Helios, OpenSource Monitoring
+ * Brought to you by the Helios Development Group
+ *
+ * Copyright 2014, Helios Development Group and individual contributors
+ * as indicated by the @author tags. See the copyright.txt file in the
+ * distribution for a full listing of individual contributors.
+ *
+ * This is free software; you can redistribute it and/or modify it
+ * under the terms of the GNU Lesser General Public License as
+ * published by the Free Software Foundation; either version 2.1 of
+ * the License, or (at your option) any later version.
+ *
+ * This software is distributed in the hope that it will be useful,
+ * but WITHOUT ANY WARRANTY; without even the implied warranty of
+ * MERCHANTABILITY or FITNESS FOR A PARTICULAR PURPOSE. See the GNU
+ * Lesser General Public License for more details.
+ *
+ * You should have received a copy of the GNU Lesser General Public
+ * License along with this software; if not, write to the Free
+ * Software Foundation, Inc., 51 Franklin St, Fifth Floor, Boston, MA
+ * 02110-1301 USA, or see the FSF site: http://www.fsf.org. 
+ *
+ */
+package com.heliosapm.watchtower.metrics.sink;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.BufferedReader;
+import java.io.Closeable;
+import java.io.InputStreamReader;
+import java.net.DatagramPacket;
+import java.net.DatagramSocket;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.URI;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import org.junit.After;
+import org.junit.Test;
+
+import com.heliosapm.watchtower.metrics.MetricEvent;
+import com.heliosapm.watchtower.metrics.MetricRegistry;
+import com.heliosapm.watchtower.metrics.TestEvents;
+
+/**
+ * <p>Title: MetricSinkTestCase</p>
+ * <p>Description: Tests the wire encoding of the OpenTSDB, Graphite and StatsD sinks, and the reconnection of TCP sinks,
+ * against fake servers listening on the loopback interface</p> 
+ * <p>Company: Helios Development Group LLC</p>
+ * @author Whitehead (nwhitehead AT heliosdev DOT org)
+ * <p><code>com.heliosapm.watchtower.metrics.sink.MetricSinkTestCase</code></p>
+ */
+
+public class MetricSinkTestCase {
+	/** The point timestamp in ms. */
+	static final long TIMESTAMP = 1400000000123L;
+	/** The metric registry */
+	final MetricRegistry registry = MetricRegistry.getMetricRegistry();
+	/** The servers and sinks to close after each test */
+	final List<Object> resources = new CopyOnWriteArrayList<Object>();
+	/** The event sequence */
+	long seq = 0L;
+	
+	/**
+	 * Closes the servers and sinks opened by the test
+	 * @throws Exception thrown on any error
+	 */
+	@After
+	public void close() throws Exception {
+		for(Object resource: resources) {
+			if(resource instanceof MetricSink) ((MetricSink)resource).close();
+			else ((Closeable)resource).close();
+		}
+	}
+	
+	/**
+	 * Creates a sink and waits for it to connect
+	 * @param sink The sink
+	 * @return the sink
+	 * @throws Exception thrown on any error
+	 */
+	<T extends MetricSink> T connected(T sink) throws Exception {
+		resources.add(sink);
+		awaitConnected(sink, true);
+		return sink;
+	}
+	
+	/**
+	 * Waits for a sink to connect or disconnect
+	 * @param sink The sink
+	 * @param connected true to wait for the sink to connect, false to wait for it to disconnect
+	 * @throws Exception thrown on any error
+	 */
+	static void awaitConnected(MetricSink sink, boolean connected) throws Exception {
+		final long deadline = System.currentTimeMillis() + 10000L;
+		while(sink.isConnected()!=connected) {
+			assertTrue("Sink [" + sink.getUri() + "] did not " + (connected ? "connect" : "disconnect"), System.currentTimeMillis() < deadline);
+			Thread.sleep(20);
+		}
+	}
+	
+	/**
+	 * Passes a point through a sink
+	 * @param sink The sink
+	 * @param event The point
+	 * @throws Exception thrown on any error
+	 */
+	void send(MetricSink sink, MetricEvent event) throws Exception {
+		sink.onEvent(event, seq++, true);
+	}
+	
+	/**
+	 * Registers a metric
+	 * @param name The metric name
+	 * @param tags The tags as alternating keys and values
+	 * @return the metric id
+	 */
+	int metric(String name, String... tags) {
+		final Map<String, String> map = new TreeMap<String, String>();
+		for(int i = 0; i < tags.length; i += 2) {
+			map.put(tags[i], tags[i+1]);
+		}
+		return registry.handle(name, map).getId();
+	}
+	
+	/**
+	 * Tests the OpenTSDB telnet put encoding of long and double values and the rejection of non finite values
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testOpenTsdbEncoding() throws Exception {
+		final FakeTcpServer server = new FakeTcpServer();
+		resources.add(server);
+		final OpenTsdbSink sink = connected(new OpenTsdbSink(new URI("opentsdb://127.0.0.1:" + server.getPort() + "?flushBytes=1")));
+		final int id = metric("sink.tsdb.cpu", "host", "web 1", "cpu", "0");
+		send(sink, TestEvents.event(id, 42L, TIMESTAMP));
+		send(sink, TestEvents.event(id, 2.5D, TIMESTAMP));
+		send(sink, TestEvents.event(id, 3D, TIMESTAMP));
+		send(sink, TestEvents.event(id, -7L, TIMESTAMP));
+		send(sink, TestEvents.event(id, Double.NaN, TIMESTAMP));
+		assertEquals("put sink.tsdb.cpu 1400000000 42 cpu=0 host=web_1", server.line());
+		assertEquals("put sink.tsdb.cpu 1400000000 2.5 cpu=0 host=web_1", server.line());
+		assertEquals("put sink.tsdb.cpu 1400000000 3 cpu=0 host=web_1", server.line());
+		assertEquals("put sink.tsdb.cpu 1400000000 -7 cpu=0 host=web_1", server.line());
+		assertEquals(4L, sink.getWrittenCount());
+		assertEquals(1L, sink.getRejectedCount());
+	}
+	
+	/**
+	 * Tests the Graphite plaintext encoding with tags
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testGraphiteEncoding() throws Exception {
+		final FakeTcpServer server = new FakeTcpServer();
+		resources.add(server);
+		final GraphiteSink sink = connected(new GraphiteSink(new URI("graphite://127.0.0.1:" + server.getPort())));
+		final int id = metric("sink.graphite.mem", "host", "web:1");
+		send(sink, TestEvents.event(id, 1024L, TIMESTAMP));
+		send(sink, TestEvents.event(id, 0.25D, TIMESTAMP + 1000));
+		assertEquals(0L, sink.getWrittenCount());
+		sink.flush();
+		assertEquals("sink.graphite.mem;host=web_1 1024 1400000000", server.line());
+		assertEquals("sink.graphite.mem;host=web_1 0.25 1400000001", server.line());
+		assertEquals(2L, sink.getWrittenCount());
+		assertEquals(1L, sink.getFlushCount());
+	}
+	
+	/**
+	 * Tests that a flush marker, as published on the completion of an aligned tick, writes the pending points as one write
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testFlushMarker() throws Exception {
+		final FakeTcpServer server = new FakeTcpServer();
+		resources.add(server);
+		final GraphiteSink sink = connected(new GraphiteSink(new URI("graphite://127.0.0.1:" + server.getPort())));
+		final int id = metric("sink.graphite.tick", "host", "web1");
+		send(sink, TestEvents.event(id, 1L, TIMESTAMP));
+		send(sink, TestEvents.event(id, 2L, TIMESTAMP));
+		assertEquals(0L, sink.getWrittenCount());
+		send(sink, TestEvents.flush(TIMESTAMP));
+		assertEquals("sink.graphite.tick;host=web1 1 1400000000", server.line());
+		assertEquals("sink.graphite.tick;host=web1 2 1400000000", server.line());
+		assertEquals(2L, sink.getWrittenCount());
+		assertEquals(1L, sink.getFlushCount());
+		assertEquals(2L, sink.getProcessedCount());
+		assertEquals(0L, sink.getRejectedCount());
+	}
+	
+	/**
+	 * Tests the StatsD gauge encoding, including the reset that precedes a negative gauge, and that a flush is one datagram
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testStatsdEncoding() throws Exception {
+		final FakeUdpServer server = new FakeUdpServer();
+		resources.add(server);
+		final StatsdSink sink = connected(new StatsdSink(new URI("statsd://127.0.0.1:" + server.getPort())));
+		final int id = metric("sink.statsd.queue", "host", "web1");
+		send(sink, TestEvents.event(id, 42L, TIMESTAMP));
+		send(sink, TestEvents.event(id, -5L, TIMESTAMP));
+		sink.flush();
+		assertEquals("sink.statsd.queue.host.web1:42|g\nsink.statsd.queue.host.web1:0|g\nsink.statsd.queue.host.web1:-5|g\n", server.datagram());
+		assertEquals(2L, sink.getWrittenCount());
+	}
+	
+	/**
+	 * Tests that a TCP sink discards points while disconnected and reconnects when the server drops the connection
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testReconnect() throws Exception {
+		final FakeTcpServer server = new FakeTcpServer();
+		resources.add(server);
+		final GraphiteSink sink = connected(new GraphiteSink(new URI("graphite://127.0.0.1:" + server.getPort() + "?flushBytes=1")));
+		final int id = metric("sink.reconnect");
+		send(sink, TestEvents.event(id, 1L, TIMESTAMP));
+		assertEquals("sink.reconnect 1 1400000000", server.line());
+		server.drop();
+		awaitConnected(sink, false);
+		// the first reconnect attempt is made after the minimum reconnect delay
+		send(sink, TestEvents.event(id, 2L, TIMESTAMP));
+		assertEquals(1L, sink.getDiscardedCount());
+		awaitConnected(sink, true);
+		send(sink, TestEvents.event(id, 3L, TIMESTAMP));
+		assertEquals("sink.reconnect 3 1400000000", server.line());
+		assertEquals(2, server.accepted.get());
+		assertEquals(2L, sink.getWrittenCount());
+	}
+	
+	/**
+	 * Tests that a TCP sink keeps retrying a server that is not listening yet
+	 * @throws Exception thrown on any error
+	 */
+	@Test
+	public void testConnectsToLateServer() throws Exception {
+		final ServerSocket probe = new ServerSocket(0, 1, InetAddress.getByName("127.0.0.1"));
+		final int port = probe.getLocalPort();
+		probe.close();
+		final OpenTsdbSink sink = new OpenTsdbSink(new URI("opentsdb://127.0.0.1:" + port + "?flushBytes=1"));
+		resources.add(sink);
+		Thread.sleep(SinkConnections.RECONNECT_MIN);
+		final FakeTcpServer server = new FakeTcpServer(port);
+		resources.add(server);
+		awaitConnected(sink, true);
+		send(sink, TestEvents.event(metric("sink.late"), 9L, TIMESTAMP));
+		assertEquals("put sink.late 1400000000 9", server.line());
+		assertNull(server.lines.poll(100, TimeUnit.MILLISECONDS));
+	}
+	
+	/**
+	 * <p>Title: FakeTcpServer</p>
+	 * <p>Description: A line oriented TCP server on the loopback interface that queues the lines it receives</p> 
+	 * <p><code>com.heliosapm.watchtower.metrics.sink.MetricSinkTestCase.FakeTcpServer</code></p>
+	 */
+	static class FakeTcpServer implements Closeable, Runnable {
+		/** The server socket */
+		final ServerSocket serverSocket;
+		/** The received lines */
+		final BlockingQueue<String> lines = new LinkedBlockingQueue<String>();
+		/** The accepted connections */
+		final List<Socket> connections = new CopyOnWriteArrayList<Socket>();
+		/** The number of accepted connections */
+		final AtomicInteger accepted = new AtomicInteger(0);
+		
+		/**
+		 * Creates a new FakeTcpServer on an ephemeral port
+		 * @throws Exception thrown on any error
+		 */
+		FakeTcpServer() throws Exception {
+			this(0);
+		}
+		
+		/**
+		 * Creates a new FakeTcpServer
+		 * @param port The port to listen on
+		 * @throws Exception thrown on any error
+		 */
+		FakeTcpServer(int port) throws Exception {
+			serverSocket = new ServerSocket();
+			serverSocket.setReuseAddress(true);
+			serverSocket.bind(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), port));
+			final Thread t = new Thread(this, "FakeTcpServer#" + serverSocket.getLocalPort());
+			t.setDaemon(true);
+			t.start();
+		}
+		
+		/**
+		 * Returns the listening port
+		 * @return the port
+		 */
+		int getPort() {
+			return serverSocket.getLocalPort();
+		}
+		
+		/**
+		 * Returns the next received line
+		 * @return the line
+		 * @throws InterruptedException thrown if interrupted while waiting
+		 */
+		String line() throws InterruptedException {
+			final String line = lines.poll(5, TimeUnit.SECONDS);
+			assertTrue("No line received", line!=null);
+			return line;
+		}
+		
+		/**
+		 * Closes the accepted connections
+		 * @throws Exception thrown on any error
+		 */
+		void drop() throws Exception {
+			for(Socket socket: connections) {
+				socket.close();
+			}
+			connections.clear();
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see java.lang.Runnable#run()
+		 */
+		@Override
+		public void run() {
+			while(!serverSocket.isClosed()) {
+				try {
+					final Socket socket = serverSocket.accept();
+					connections.add(socket);
+					accepted.incrementAndGet();
+					final Thread reader = new Thread("FakeTcpServerReader#" + accepted.get()) {
+						@Override
+						public void run() {
+							try {
+								final BufferedReader in = new BufferedReader(new InputStreamReader(socket.getInputStream(), MetricSink.CHARSET));
+								String line = null;
+								while((line = in.readLine())!=null) {
+									lines.add(line);
+								}
+							} catch (Exception ex) {
+								/* Connection dropped */
+							}
+						}
+					};
+					reader.setDaemon(true);
+					reader.start();
+				} catch (Exception ex) {
+					/* Server closed */
+				}
+			}
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see java.io.Closeable#close()
+		 */
+		@Override
+		public void close() {
+			try {
+				serverSocket.close();
+				drop();
+			} catch (Exception ex) {
+				/* No Op */
+			}
+		}
+	}
+	
+	/**
+	 * <p>Title: FakeUdpServer</p>
+	 * <p>Description: A UDP server on the loopback interface that queues the datagrams it receives</p> 
+	 * <p><code>com.heliosapm.watchtower.metrics.sink.MetricSinkTestCase.FakeUdpServer</code></p>
+	 */
+	static class FakeUdpServer implements Closeable {
+		/** The server socket */
+		final DatagramSocket socket;
+		
+		/**
+		 * Creates a new FakeUdpServer on an ephemeral port
+		 * @throws Exception thrown on any error
+		 */
+		FakeUdpServer() throws Exception {
+			socket = new DatagramSocket(new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 0));
+			socket.setSoTimeout(5000);
+		}
+		
+		/**
+		 * Returns the listening port
+		 * @return the port
+		 */
+		int getPort() {
+			return socket.getLocalPort();
+		}
+		
+		/**
+		 * Receives the next datagram
+		 * @return the datagram content
+		 * @throws Exception thrown on any error, including a timeout
+		 */
+		String datagram() throws Exception {
+			final DatagramPacket packet = new DatagramPacket(new byte[StatsdSink.MAX_DATAGRAM * 2], StatsdSink.MAX_DATAGRAM * 2);
+			socket.receive(packet);
+			return new String(packet.getData(), 0, packet.getLength(), MetricSink.CHARSET);
+		}
+		
+		/**
+		 * {@inheritDoc}
+		 * @see java.io.Closeable#close()
+		 */
+		@Override
+		public void close() {
+			socket.close();
+		}
+	}
+}